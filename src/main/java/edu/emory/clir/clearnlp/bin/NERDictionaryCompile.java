@@ -0,0 +1,72 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.io.ObjectOutputStream;
+
+import org.kohsuke.args4j.Option;
+
+import edu.emory.clir.clearnlp.collection.tree.ArrayAhoCorasick;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.ner.NERInfoSet;
+import edu.emory.clir.clearnlp.util.BinUtils;
+import edu.emory.clir.clearnlp.util.IOUtils;
+
+/**
+ * Compiles the named entity gazetteers in a prefix tree to an Aho-Corasick automaton ({@link ArrayAhoCorasick}).
+ * The output path can be used in place of the original path of {@code named_entity_dictionary}, which is then loaded without compilation;
+ * with {@code -map}, the output is memory-mapped instead of being deserialized, so it takes little heap and loads instantly.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NERDictionaryCompile
+{
+	@Option(name="-i", usage="input dictionary path in the filesystem or the classpath (required)", required=true, metaVar="<filepath>")
+	private String s_inputPath;
+	@Option(name="-o", usage="output dictionary path (required)", required=true, metaVar="<filepath>")
+	private String s_outputPath;
+	@Option(name="-map", usage="write the memory-mapped format instead of the serialized one (default: false)", required=false)
+	private boolean b_map = false;
+	
+	public NERDictionaryCompile() {}
+	
+	public NERDictionaryCompile(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		long st = System.currentTimeMillis();
+		
+		ArrayAhoCorasick<NERInfoSet> automaton = NLPUtils.getNERAutomaton(s_inputPath);
+		if (b_map)
+			automaton.save(s_outputPath);
+		else
+		{
+			ObjectOutputStream out = IOUtils.createObjectXZBufferedOutputStream(s_outputPath);
+			out.writeObject(automaton);
+			out.close();
+		}
+		
+		BinUtils.LOG.info(String.format("Compiled %s to %s with %d states in %d ms.\n", s_inputPath, s_outputPath, automaton.size(), System.currentTimeMillis() - st));
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new NERDictionaryCompile(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
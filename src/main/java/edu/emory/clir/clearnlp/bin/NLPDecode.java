@@ -15,23 +15,35 @@
  */
 package edu.emory.clir.clearnlp.bin;
 
-import java.io.PrintStream;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
 
 import org.kohsuke.args4j.Option;
 
 import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.configuration.DecodeConfiguration;
+import edu.emory.clir.clearnlp.component.mode.dep.AbstractDEPParser;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
 import edu.emory.clir.clearnlp.component.mode.srl.SRLConfiguration;
 import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
 import edu.emory.clir.clearnlp.component.utils.NLPMode;
 import edu.emory.clir.clearnlp.component.utils.NLPUtils;
-import edu.emory.clir.clearnlp.dependency.DEPNode;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
 import edu.emory.clir.clearnlp.reader.AbstractReader;
 import edu.emory.clir.clearnlp.reader.LineReader;
@@ -43,7 +55,12 @@ import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.FileUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
 import edu.emory.clir.clearnlp.util.constant.StringConst;
+import edu.emory.clir.clearnlp.util.io.AsyncOutputStream;
 import edu.emory.clir.clearnlp.util.lang.TLanguage;
+import edu.emory.clir.clearnlp.writer.AbstractWriter;
+import edu.emory.clir.clearnlp.writer.JSONWriter;
+import edu.emory.clir.clearnlp.writer.TSVWriter;
+import edu.emory.clir.clearnlp.writer.TWriter;
 
 /**
  * @since 3.0.0
@@ -59,10 +76,22 @@ public class NLPDecode
 	protected String s_inputExt = "*";
 	@Option(name="-oe", usage="output file extension (default: cnlp)", required=false, metaVar="<string>")
 	protected String s_outputExt = "cnlp";
+	@Option(name="-of", usage="output format: tsv|json (default: tsv)", required=false, metaVar="<string>")
+	protected String s_outputFormat = "tsv";
+	@Option(name="-oz", usage="output compression: gz|xz (optional), compressed by a separate thread", required=false, metaVar="<string>")
+	protected String s_outputCompression = null;
 	@Option(name="-mode", usage="pos|morph|dep|ner", required=true, metaVar="<string>")
 	protected String s_mode;
 	@Option(name="-threads", usage="number of threads (default: 1)", required=false, metaVar="<integer>")
 	protected int n_threads = 1;
+	@Option(name="-batch", usage="number of sentences processed by each thread at a time (default: 64)", required=false, metaVar="<integer>")
+	protected int n_batch = 64;
+	@Option(name="-array", usage="score with array weight vectors, which give the same results faster (default: false)", required=false)
+	protected boolean b_arrayWeights = false;
+	@Option(name="-compact", usage="compact the feature maps of the models, which cuts their heap but takes an unseen feature for a seen one once in 2^32 (default: false)", required=false)
+	protected boolean b_compact = false;
+	@Option(name="-beam", usage="beam size of dependency parsing, where larger beams are slower but more accurate (default: decode_beam_size in the configuration file, or 1)", required=false, metaVar="<integer>")
+	protected int n_beam = 0;
 	
 //	private long time = 0, tokens = 0, trees = 0;
 	
@@ -73,7 +102,7 @@ public class NLPDecode
 		BinUtils.initArgs(args, this);
 		NLPMode mode = NLPMode.valueOf(s_mode);
 		List<String> inputFiles = FileUtils.getFileList(s_inputPath, s_inputExt, false);
-		if (n_threads > 2)	decode(inputFiles, s_outputExt, s_configurationFile, n_threads, mode);
+		if (n_threads > 1)	decode(inputFiles, s_outputExt, s_configurationFile, n_threads, mode);
 		else				decode(inputFiles, s_outputExt, s_configurationFile, mode);
 //		System.out.printf("Tokens / Sec.: %d\n", Math.round(MathUtils.divide(tokens*1000, time)));
 //		System.out.printf("Sents. / Sec.: %d\n", Math.round(MathUtils.divide(trees *1000, time)));
@@ -86,7 +115,7 @@ public class NLPDecode
 		AbstractReader<?> reader = config.getReader();
 		AbstractTokenizer tokenizer = null;
 		AbstractComponent[] components;
-		PrintStream fout;
+		AbstractWriter fout;
 		
 		if (reader.isReaderType(TReader.TSV))
 		{
@@ -104,29 +133,37 @@ public class NLPDecode
 		{
 			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
 			reader.open(IOUtils.createFileInputStream(inputFile));
-			fout = IOUtils.createBufferedPrintStream(inputFile + StringConst.PERIOD + outputExt);
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
 			
 			switch (reader.getReaderType())
 			{
-			case TSV : process((TSVReader) reader, fout, mode, components);				break;
-			case RAW : process((RawReader) reader, fout, mode, components, tokenizer);	break;
-			case LINE: process((LineReader)reader, fout, mode, components, tokenizer);	break;
+			case TSV : process((TSVReader) reader, fout, components);				break;
+			case RAW : process((RawReader) reader, fout, components, tokenizer);	break;
+			case LINE: process((LineReader)reader, fout, components, tokenizer);	break;
 			}
 			
 			reader.close();
 			fout.close();
 		}
+		
+		logRepairStats(components);
 	}
 	
+	/**
+	 * Decodes each input file using a sentence-level pipeline: the calling thread reads sentences into batches,
+	 * {@code nThreads} workers run the components on the batches, and a writer thread prints them in the input order.
+	 * At most {@code 2 * nThreads} batches are in flight so that the memory stays bounded regardless of the file size.
+	 */
 	public void decode(List<String> inputFiles, String outputExt, String configurationFile, int nThreads, NLPMode mode)
 	{
-		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(s_configurationFile));;
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(configurationFile));
 		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
 		ExecutorService executor = Executors.newFixedThreadPool(nThreads);
 		AbstractReader<?> reader = config.getReader();
 		AbstractTokenizer tokenizer = null;
 		AbstractComponent[] components;
-		String outputFile;
+		Supplier<DEPTree> supplier = null;
+		AbstractWriter fout;
 		
 		if (reader.isReaderType(TReader.TSV))
 		{
@@ -142,68 +179,197 @@ public class NLPDecode
 		
 		for (String inputFile : inputFiles)
 		{
-			outputFile = inputFile + StringConst.PERIOD + outputExt;
-			executor.submit(new NLPTask(tokenizer, components, reader, mode, inputFile, outputFile));
+			BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
+			reader.open(IOUtils.createFileInputStream(inputFile));
+			fout = createWriter(inputFile + StringConst.PERIOD + outputExt, mode);
+			
+			switch (reader.getReaderType())
+			{
+			case TSV : supplier = getSupplier((TSVReader) reader);				break;
+			case RAW : supplier = getSupplier((RawReader) reader, tokenizer);	break;
+			case LINE: supplier = getSupplier((LineReader)reader, tokenizer);	break;
+			}
+			
+			try
+			{
+				process(supplier, fout, components, executor, nThreads * 2);
+			}
+			catch (IllegalStateException e)
+			{
+				executor.shutdownNow();
+				throw e;
+			}
+			finally
+			{
+				reader.close();
+				fout.close();
+			}
 		}
 		
 		executor.shutdown();
+		logRepairStats(components);
+	}
+	
+	/** Logs how often the dependency parser had to repair nodes without heads, if it is one of the specific components. */
+	private void logRepairStats(AbstractComponent[] components)
+	{
+		for (AbstractComponent component : components)
+		{
+			if (component instanceof AbstractDEPParser)
+				BinUtils.LOG.info(((AbstractDEPParser)component).getRepairStats()+"\n");
+		}
 	}
 	
-	class NLPTask implements Runnable
+	/** @return a writer of {@link #s_outputFormat}, which writes to the specific file compressed by {@link #s_outputCompression} if set. */
+	private AbstractWriter createWriter(String outputFile, NLPMode mode)
 	{
-		private AbstractComponent[] components;
-		private AbstractTokenizer tokenizer;
-		private AbstractReader<?> reader;
-		private String input_file;
-		private PrintStream fout;
-		private NLPMode mode;
+		OutputStream out;
 		
-		public NLPTask(AbstractTokenizer tokenizer, AbstractComponent[] components, AbstractReader<?> reader, NLPMode mode, String inputFile, String outputFile)
+		try
 		{
-			this.mode = mode;
-			this.tokenizer = tokenizer;
-			this.input_file = inputFile;
-			this.components = components;
-			this.reader = reader.clone();
-			this.reader.open(IOUtils.createFileInputStream(inputFile));
-			this.fout = IOUtils.createBufferedPrintStream(outputFile);
+			if (s_outputCompression == null)
+				out = IOUtils.createFileOutputStream(outputFile);
+			else if (s_outputCompression.equals("gz"))
+				out = new AsyncOutputStream(new GZIPOutputStream(IOUtils.createFileOutputStream(outputFile+".gz"), 1 << 16));
+			else if (s_outputCompression.equals("xz"))
+				out = new AsyncOutputStream(IOUtils.createXZBufferedOutputStream(outputFile+".xz"));
+			else
+				throw new IllegalArgumentException("Invalid compression: "+s_outputCompression);
 		}
+		catch (IOException e) {throw new IllegalStateException(e);}
 		
-		@Override
-		public void run()
+		switch (TWriter.getType(s_outputFormat))
 		{
-			try
+		case TSV : return new TSVWriter(out, mode);
+		case JSON: return new JSONWriter(out);
+		}
+		
+		throw new IllegalArgumentException("Invalid format: "+s_outputFormat);
+	}
+	
+	private Supplier<DEPTree> getSupplier(TSVReader reader)
+	{
+		return reader::next;
+	}
+	
+	private Supplier<DEPTree> getSupplier(RawReader reader, AbstractTokenizer tokenizer)
+	{
+		Iterator<List<String>> it = tokenizer.segmentizeIterator(reader.getInputStream());
+		return () -> it.hasNext() ? new DEPTree(it.next()) : null;
+	}
+	
+	private Supplier<DEPTree> getSupplier(LineReader reader, AbstractTokenizer tokenizer)
+	{
+		return () ->
+		{
+			String line = reader.next();
+			return (line != null) ? new DEPTree(tokenizer.tokenize(line)) : null;
+		};
+	}
+	
+	/**
+	 * Processes the trees given by the supplier in batches using the executor, and prints them in the order they are supplied.
+	 * If a batch fails to process or the writer fails to print, no more tree is read, the pending batches are cancelled,
+	 * and the first failure is thrown so that the output never silently misses any tree.
+	 * @param supplier returns {@code null} when there is no more tree.
+	 * @param capacity the maximum number of batches waiting to be printed; the supplier is blocked when it is reached.
+	 * @throws IllegalStateException if any batch fails to process or print.
+	 */
+	public void process(Supplier<DEPTree> supplier, AbstractWriter fout, AbstractComponent[] components, ExecutorService executor, int capacity)
+	{
+		BlockingQueue<Future<List<DEPTree>>> queue = new ArrayBlockingQueue<>(capacity);
+		AtomicReference<Throwable> failure = new AtomicReference<>();
+		Thread writer = new Thread(() -> write(queue, fout, failure));
+		List<DEPTree> batch = new ArrayList<>(n_batch);
+		DEPTree tree;
+		
+		writer.start();
+		
+		try
+		{
+			while (failure.get() == null && (tree = supplier.get()) != null)
 			{
-				BinUtils.LOG.info(FileUtils.getBaseName(input_file)+"\n");
+				batch.add(tree);
 				
-				switch (reader.getReaderType())
+				if (batch.size() == n_batch)
 				{
-				case TSV : process((TSVReader) reader, fout, mode, components);				break;
-				case RAW : process((RawReader) reader, fout, mode, components, tokenizer);	break;
-				case LINE: process((LineReader)reader, fout, mode, components, tokenizer);	break;
+					put(queue, submit(batch, components, executor), failure);
+					batch = new ArrayList<>(n_batch);
 				}
-				
-				reader.close();
-				fout.close();
 			}
-			catch (Exception e) {e.printStackTrace();}
+			
+			if (!batch.isEmpty()) put(queue, submit(batch, components, executor), failure);
+			put(queue, CompletableFuture.completedFuture(null), failure);
+			writer.join();
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			failure.compareAndSet(null, e);
+		}
+		catch (RuntimeException e)
+		{
+			failure.compareAndSet(null, e);
+		}
+		
+		if (failure.get() != null)
+		{
+			writer.interrupt();
+			for (Future<List<DEPTree>> future : queue) future.cancel(true);
+			throw new IllegalStateException("Failed to decode the input", failure.get());
 		}
 	}
 	
-	public void process(RawReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components, AbstractTokenizer tokenizer)
+	/** Adds the future to the queue, waiting while the queue is full unless the writer has failed, in which case the future is cancelled. */
+	private void put(BlockingQueue<Future<List<DEPTree>>> queue, Future<List<DEPTree>> future, AtomicReference<Throwable> failure) throws InterruptedException
 	{
-		List<List<String>> tokens = tokenizer.segmentize(reader.getInputStream());
-		int i, size = tokens.size();
-		DEPTree tree;
+		while (failure.get() == null)
+		{
+			if (queue.offer(future, 100, TimeUnit.MILLISECONDS))
+				return;
+		}
+		
+		future.cancel(true);
+	}
+	
+	private Future<List<DEPTree>> submit(List<DEPTree> batch, AbstractComponent[] components, ExecutorService executor)
+	{
+		return executor.submit(() ->
+		{
+			for (DEPTree tree : batch)
+				for (AbstractComponent component : components)
+					component.process(tree);
+			
+			return batch;
+		});
+	}
+	
+	/** Prints the batches in the queue until it reaches a batch of {@code null}; stops at the first batch that fails to process or print, whose cause is saved in {@code failure}. */
+	private void write(BlockingQueue<Future<List<DEPTree>>> queue, AbstractWriter fout, AtomicReference<Throwable> failure)
+	{
+		List<DEPTree> batch;
 		
-		for (i=0; i<size; i++)
+		try
 		{
-			tree = new DEPTree(tokens.get(i));
-			process(tree, fout, mode, components);
+			while ((batch = queue.take().get()) != null)
+			{
+				for (DEPTree tree : batch)
+					fout.write(tree);
+			}
 		}
+		catch (ExecutionException e) {failure.compareAndSet(null, e.getCause());}
+		catch (Throwable e) {failure.compareAndSet(null, e);}
+	}
+	
+	public void process(RawReader reader, AbstractWriter fout, AbstractComponent[] components, AbstractTokenizer tokenizer)
+	{
+		Iterator<List<String>> it = tokenizer.segmentizeIterator(reader.getInputStream());
+		
+		while (it.hasNext())
+			process(new DEPTree(it.next()), fout, components);
 	}
 	
-	public void process(LineReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components, AbstractTokenizer tokenizer)
+	public void process(LineReader reader, AbstractWriter fout, AbstractComponent[] components, AbstractTokenizer tokenizer)
 	{
 		DEPTree tree;
 		String  line;
@@ -211,19 +377,19 @@ public class NLPDecode
 		while ((line = reader.next()) != null)
 		{
 			tree = new DEPTree(tokenizer.tokenize(line));
-			process(tree, fout, mode, components);
+			process(tree, fout, components);
 		}
 	}
 	
-	public void process(TSVReader reader, PrintStream fout, NLPMode mode, AbstractComponent[] components)
+	public void process(TSVReader reader, AbstractWriter fout, AbstractComponent[] components)
 	{
 		DEPTree tree;
 		
 		while ((tree = reader.next()) != null)
-			process(tree, fout, mode, components);
+			process(tree, fout, components);
 	}
 	
-	public void process(DEPTree tree, PrintStream fout, NLPMode mode, AbstractComponent[] components)
+	public void process(DEPTree tree, AbstractWriter fout, AbstractComponent[] components)
 	{
 //		long st, et;
 		
@@ -237,7 +403,15 @@ public class NLPDecode
 
 //		tokens += tree.size() - 1;
 //		trees++;
-		fout.println(toString(tree, mode)+StringConst.NEW_LINE);
+		fout.write(tree);
+	}
+	
+	/** @return the dependency configuration from the configuration file, whose decode beam size is overwritten by {@link #n_beam} if specified. */
+	private DEPConfiguration createDEPConfiguration()
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile));
+		if (n_beam > 0) config.setDecodeBeamSize(n_beam);
+		return config;
 	}
 	
 	private AbstractComponent[] getComponents(TLanguage language, NLPMode mode, DecodeConfiguration config)
@@ -248,7 +422,7 @@ public class NLPDecode
 		{
 		case ner  : list.add(NLPUtils.getNERecognizer(language, config.getModelPath(NLPMode.ner)));
 		case srl  : list.add(NLPUtils.getSRLabeler(language, config.getModelPath(NLPMode.srl), new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
-		case dep  : list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
+		case dep  : list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), createDEPConfiguration()));
 		case morph: list.add(NLPUtils.getMPAnalyzer(language));
 		case pos  : list.add(NLPUtils.getPOSTagger(language, config.getModelPath(NLPMode.pos)));
 		}
@@ -270,7 +444,7 @@ public class NLPDecode
 				list.add(NLPUtils.getSRLabeler(language, config.getModelPath(NLPMode.srl), new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
 		case dep:
 			if (!reader.hasDependencyHeads())
-				list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile))));
+				list.add(NLPUtils.getDEPParser(language, config.getModelPath(NLPMode.dep), createDEPConfiguration()));
 		case morph:
 			if (!reader.hasLemmas())
 				list.add(NLPUtils.getMPAnalyzer(language));
@@ -282,27 +456,29 @@ public class NLPDecode
 		return toReverseArray(list);
 	}
 	
+	/**
+	 * Compiles and freezes the statistical components so they can be shared across threads.
+	 * If {@link #b_arrayWeights}, their models also score with array weight vectors; if {@link #b_compact}, their feature maps are also compacted.
+	 */
 	private AbstractComponent[] toReverseArray(List<AbstractComponent> list)
 	{
 		AbstractComponent[] array = new AbstractComponent[list.size()];
 		Collections.reverse(list);
-		return list.toArray(array);
-	}
-	
-	private String toString(DEPTree tree, NLPMode mode)
-	{
-		switch (mode)
+		
+		for (AbstractComponent component : list)
 		{
-		case ner  : return tree.toString();
-		case srl  : return tree.toString(DEPNode::toStringSRL);
-		case dep  : return tree.toString(DEPNode::toStringDEP);
-		case morph: return tree.toString(DEPNode::toStringMorph);
-		case pos  : return tree.toString(DEPNode::toStringPOS);
+			if (component instanceof AbstractStatisticalComponent)
+			{
+				AbstractStatisticalComponent<?,?,?,?,?> c = (AbstractStatisticalComponent<?,?,?,?,?>)component;
+				c.compile(b_arrayWeights);
+				if (b_compact) c.compact();
+				c.freeze();
+			}
 		}
-
-		throw new IllegalArgumentException("Invalid mode: "+mode.toString());
-	}
 		
+		return list.toArray(array);
+	}
+	
 	static public void main(String[] args)
 	{
 		new NLPDecode(args);
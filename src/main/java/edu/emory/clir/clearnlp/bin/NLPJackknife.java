@@ -15,28 +15,45 @@
  */
 package edu.emory.clir.clearnlp.bin;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
 import org.kohsuke.args4j.Option;
 
+import edu.emory.clir.clearnlp.collection.pair.ObjectDoublePair;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
+import edu.emory.clir.clearnlp.component.trainer.AbstractNLPTrainer;
+import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
 import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.reader.CachedTSVReader;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.DSUtils;
 import edu.emory.clir.clearnlp.util.FileUtils;
+import edu.emory.clir.clearnlp.util.IOUtils;
 
 /**
+ * Trains a model per fold, where each training file is held out for development in turn.
+ * The training files are loaded in memory once and shared by all folds, which are trained in parallel
+ * as long as the estimated memory used by the folds fits in the heap.
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
 public class NLPJackknife extends NLPTrain
 {
+	/** The rough ratio of the memory used by a fold to the number of bytes taken by the corpus in memory. */
+	static private final int FOLD_MEMORY_RATIO = 32;
+	
 	@Option(name="-threads", usage="number of threads (default: 1)", required=false, metaVar="<Integer>")
 	protected int n_threads = 1;
+	@Option(name="-fold-memory", usage="estimated memory used by each fold in MB (default: estimated from the corpus size)", required=false, metaVar="<Integer>")
+	protected int n_foldMemory = 0;
 	
 	public NLPJackknife() {}
 	
@@ -55,10 +72,12 @@ public class NLPJackknife extends NLPTrain
 		int i, size = trainFiles.size();
 		Collections.sort(trainFiles);
 		
-		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
+		Map<String,CachedTSVReader> corpus = loadCorpus(trainFiles, featureFiles, configurationFile, mode);
+		ExecutorService executor = Executors.newFixedThreadPool(getFoldThreadSize(corpus, threads));
 		
 		for (i=0; i<size; i++)
-			executor.execute(new TrainTask(new ArrayList<>(trainFiles), featureFiles, configurationFile, mode, i));
+			executor.execute(new TrainTask(new ArrayList<>(trainFiles), featureFiles, configurationFile, mode, i, corpus));
 		
 		executor.shutdown();
 		
@@ -69,6 +88,53 @@ public class NLPJackknife extends NLPTrain
 		catch (InterruptedException e) {e.printStackTrace();}
 	}
 	
+	/** Loads the training files in memory, whose binary caches are created in a temporary directory unless the cache directory is specified. */
+	private Map<String,CachedTSVReader> loadCorpus(List<String> trainFiles, String[] featureFiles, String configurationFile, NLPMode mode)
+	{
+		AbstractNLPTrainer trainer = createTrainer(featureFiles, configurationFile, mode);
+		long time = System.currentTimeMillis();
+		Map<String,CachedTSVReader> corpus;
+		File dir = null;
+		
+		try
+		{
+			if (s_cacheDir == null)
+			{
+				dir = Files.createTempDirectory("jackknife").toFile();
+				trainer.setCacheDirectory(dir.getPath());
+			}
+			
+			corpus = trainer.loadCorpus(trainFiles);
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+		finally
+		{
+			if (dir != null)
+			{
+				for (File file : dir.listFiles()) file.delete();
+				dir.delete();
+			}
+		}
+		
+		BinUtils.LOG.info(String.format("Loading %d files: %.2f sec\n", trainFiles.size(), (System.currentTimeMillis() - time) / 1000d));
+		return corpus;
+	}
+	
+	/** @return the number of folds trained at the same time, which is limited by the number of threads and the free memory. */
+	private int getFoldThreadSize(Map<String,CachedTSVReader> corpus, int threads)
+	{
+		Runtime runtime = Runtime.getRuntime();
+		long free = runtime.maxMemory() - runtime.totalMemory() + runtime.freeMemory();
+		long fold = (long)n_foldMemory << 20;
+		
+		if (fold <= 0)
+			fold = FOLD_MEMORY_RATIO * corpus.values().stream().mapToLong(CachedTSVReader::getByteSize).sum();
+		
+		int size = (int)Math.max(1, Math.min(threads, free / Math.max(1, fold)));
+		if (size < threads) BinUtils.LOG.info(String.format("Training %d folds at a time within the memory\n", size));
+		return size;
+	}
+	
 	class TrainTask implements Runnable
 	{
 		private List<String> train_files;
@@ -77,9 +143,10 @@ public class NLPJackknife extends NLPTrain
 		String configuration_file;
 		private NLPMode nlp_mode;
 		private int dev_index;
+		private Map<String,CachedTSVReader> m_corpus;
 		
-		/** @param currLabel the current label to train. */
-		public TrainTask(List<String> trainFiles, String[] featureFiles, String configurationFile, NLPMode mode, int devIndex)
+		/** @param corpus the training files loaded in memory. */
+		public TrainTask(List<String> trainFiles, String[] featureFiles, String configurationFile, NLPMode mode, int devIndex, Map<String,CachedTSVReader> corpus)
 		{
 			train_files  = trainFiles;
 			develop_file = trainFiles.remove(devIndex);
@@ -87,12 +154,18 @@ public class NLPJackknife extends NLPTrain
 			feature_files = featureFiles;
 			dev_index = devIndex;
 			nlp_mode = mode;
+			m_corpus = corpus;
 		}
 		
 		public void run()
 		{
-			AbstractStatisticalComponent<?,?,?,?,?> component = train(train_files, DSUtils.toArrayList(develop_file), feature_files, configuration_file, nlp_mode).o;
-			saveModel(component, s_modelPath+"."+dev_index);
+			long time = System.currentTimeMillis();
+			AbstractNLPTrainer trainer = createTrainer(feature_files, configuration_file, nlp_mode);
+			trainer.setCorpus(m_corpus);
+			
+			ObjectDoublePair<AbstractStatisticalComponent<?,?,?,?,?>> p = trainer.train(train_files, DSUtils.toArrayList(develop_file));
+			saveModel(p.o, s_modelPath+"."+dev_index);
+			BinUtils.LOG.info(String.format("Fold %d (%s): %4.2f, %.2f sec\n", dev_index, FileUtils.getBaseName(develop_file), p.d, (System.currentTimeMillis() - time) / 1000d));
 		}
     }
 	
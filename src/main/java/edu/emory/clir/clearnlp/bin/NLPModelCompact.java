@@ -0,0 +1,161 @@
+/**
+ * Copyright 2015, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.kohsuke.args4j.Option;
+
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
+import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
+import edu.emory.clir.clearnlp.component.configuration.DecodeConfiguration;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
+import edu.emory.clir.clearnlp.component.mode.srl.SRLConfiguration;
+import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.BinUtils;
+import edu.emory.clir.clearnlp.util.FileUtils;
+import edu.emory.clir.clearnlp.util.IOUtils;
+import edu.emory.clir.clearnlp.util.lang.TLanguage;
+
+/**
+ * Compacts a trained model for decode by pruning features whose weights are all (near) zero and quantizing the remaining weights,
+ * and reports the evaluation on the development set before and after compaction so that a size/accuracy point can be chosen.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPModelCompact
+{
+	@Option(name="-c", usage="confinguration file (required)", required=true, metaVar="<filename>")
+	private String s_configurationFile;
+	@Option(name="-mode", usage="pos|dep|ner|srl", required=true, metaVar="<mode>")
+	private String s_mode;
+	@Option(name="-m", usage="input model path in the filesystem or the classpath (required)", required=true, metaVar="<filepath>")
+	private String s_modelPath;
+	@Option(name="-o", usage="output model path (optional)", required=false, metaVar="<filepath>")
+	private String s_outputPath = null;
+	@Option(name="-d", usage="development path (required)", required=true, metaVar="<filepath>")
+	private String s_developPath;
+	@Option(name="-de", usage="development file extension (default: *)", required=false, metaVar="<string>")
+	private String s_developExt = "*";
+	@Option(name="-prune", usage="features whose absolute weights are at most this threshold are removed (default: 0)", required=false, metaVar="<float>")
+	private float f_threshold = 0;
+	@Option(name="-bits", usage="number of bits of each quantized weight, 8|16, or 0 for no quantization (default: 0)", required=false, metaVar="<integer>")
+	private int n_bits = 0;
+	
+	public NLPModelCompact() {}
+	
+	public NLPModelCompact(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		
+		DecodeConfiguration config = new DecodeConfiguration(IOUtils.createFileInputStream(s_configurationFile));
+		GlobalLexica.init(IOUtils.createFileInputStream(s_configurationFile));
+		List<String> developFiles = FileUtils.getFileList(s_developPath, s_developExt, false);
+		TSVReader reader = (TSVReader)config.getReader();
+		
+		AbstractStatisticalComponent<?,?,?,?,?> component = getComponent(config.getLanguage(), NLPMode.valueOf(s_mode));
+		report("Original ", component, reader, developFiles);
+		compact(component, f_threshold, n_bits);
+		report("Compacted", component, reader, developFiles);
+		
+		if (s_outputPath != null)
+		{
+			OutputStream out = new FileOutputStream(s_outputPath);
+			out.write(component.toByteArray());
+			out.close();
+		}
+	}
+	
+	/**
+	 * Prunes and quantizes all models of the specific component.
+	 * @param threshold features whose absolute weights are at most this threshold are removed.
+	 * @param bits 8 or 16 to quantize the weights; otherwise, the weights are not quantized.
+	 */
+	public void compact(AbstractStatisticalComponent<?,?,?,?,?> component, float threshold, int bits)
+	{
+		StringModel[] models = component.getModels();
+		int i, pruned, size;
+		
+		for (i=0; i<models.length; i++)
+		{
+			size   = models[i].getFeatureSize();
+			pruned = models[i].prune(threshold);
+			BinUtils.LOG.info(String.format("Model %d: %d -> %d features\n", i, size, size - pruned));
+			if (bits == 8 || bits == 16) models[i].quantizeWeightVector(bits);
+		}
+	}
+	
+	private void report(String title, AbstractStatisticalComponent<?,?,?,?,?> component, TSVReader reader, List<String> developFiles) throws Exception
+	{
+		long features = 0, weightBytes = 0;
+		AbstractWeightVector vector;
+		
+		for (StringModel model : component.getModels())
+		{
+			vector = model.getWeightVector();
+			features += model.getFeatureSize();
+			weightBytes += (long)vector.size() * ((vector instanceof QuantizedWeightVector) ? ((QuantizedWeightVector)vector).getBits() / 8 : Float.BYTES);
+		}
+		
+		String eval = component.evaluate(readTrees(reader, developFiles)).toString();
+		BinUtils.LOG.info(String.format("%s: features = %d, weights = %5.1f MB, file = %5.1f MB, %s\n", title, features, weightBytes / 1e6, component.toByteArray().length / 1e6, eval));
+	}
+	
+	private List<DEPTree> readTrees(TSVReader reader, List<String> files)
+	{
+		List<DEPTree> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		for (String filename : files)
+		{
+			reader.open(IOUtils.createFileInputStream(filename));
+			while ((tree = reader.next()) != null) trees.add(tree);
+			reader.close();
+		}
+		
+		return trees;
+	}
+	
+	private AbstractStatisticalComponent<?,?,?,?,?> getComponent(TLanguage language, NLPMode mode)
+	{
+		switch (mode)
+		{
+		case pos: return NLPUtils.getPOSTagger(language, s_modelPath);
+		case dep: return NLPUtils.getDEPParser(language, s_modelPath, new DEPConfiguration(IOUtils.createFileInputStream(s_configurationFile)));
+		case srl: return NLPUtils.getSRLabeler(language, s_modelPath, new SRLConfiguration(IOUtils.createFileInputStream(s_configurationFile)));
+		case ner: return NLPUtils.getNERecognizer(language, s_modelPath);
+		default : throw new IllegalArgumentException("Invalid mode: "+mode.toString());
+		}
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new NLPModelCompact(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
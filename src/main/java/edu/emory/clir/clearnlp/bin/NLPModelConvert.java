@@ -0,0 +1,61 @@
+/**
+ * Copyright 2015, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import java.io.ObjectInputStream;
+
+import org.kohsuke.args4j.Option;
+
+import edu.emory.clir.clearnlp.component.utils.MappedModelFile;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.util.BinUtils;
+
+/**
+ * Converts a model file of a statistical component to the memory-mapped format ({@link MappedModelFile}).
+ * The output path can be used in place of the original model path for decode.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPModelConvert
+{
+	@Option(name="-i", usage="input model path in the filesystem or the classpath (required)", required=true, metaVar="<filepath>")
+	private String s_inputPath;
+	@Option(name="-o", usage="output model path (required)", required=true, metaVar="<filepath>")
+	private String s_outputPath;
+	
+	public NLPModelConvert() {}
+	
+	public NLPModelConvert(String[] args) throws Exception
+	{
+		BinUtils.initArgs(args, this);
+		long st = System.currentTimeMillis();
+		
+		ObjectInputStream in = NLPUtils.getObjectInputStream(s_inputPath);
+		MappedModelFile.convert(in, s_outputPath);
+		in.close();
+		
+		BinUtils.LOG.info(String.format("Converted %s to %s in %d ms.\n", s_inputPath, s_outputPath, System.currentTimeMillis() - st));
+	}
+	
+	static public void main(String[] args)
+	{
+		try
+		{
+			new NLPModelConvert(args);
+		}
+		catch (Exception e) {e.printStackTrace();}
+	}
+}
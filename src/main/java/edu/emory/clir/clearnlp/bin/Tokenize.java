@@ -16,12 +16,23 @@
 package edu.emory.clir.clearnlp.bin;
 
 import java.io.BufferedReader;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.kohsuke.args4j.Option;
 
@@ -52,6 +63,10 @@ public class Tokenize
 	private boolean b_line = false;
 	@Option(name="-threads", usage="number of threads (default: 2)", required=false, metaVar="<integer>")
 	protected int n_threads = 2;
+	@Option(name="-chunk", usage="if > 0, tokenize each file in parallel by chunks of this many KB (default: 0)", required=false, metaVar="<integer>")
+	private int n_chunkSize = 0;
+	
+	private AtomicLong n_tokens = new AtomicLong();
 	
 	public Tokenize() {}
 	
@@ -61,15 +76,38 @@ public class Tokenize
 		
 		AbstractTokenizer tokenizer = NLPUtils.getTokenizer(TLanguage.getType(s_language));
 		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		long st = System.currentTimeMillis(), bytes = 0;
 		String outputFile;
 		
-		for (String inputFile : FileUtils.getFileList(s_inputPath, s_inputExt, false))
+		try
+		{
+			for (String inputFile : FileUtils.getFileList(s_inputPath, s_inputExt, false))
+			{
+				outputFile = inputFile + StringConst.PERIOD + s_outputExt;
+				bytes += new File(inputFile).length();
+				
+				if (n_chunkSize > 0)
+				{
+					BinUtils.LOG.info(FileUtils.getBaseName(inputFile)+"\n");
+					tokenizeChunks(executor, tokenizer, inputFile, outputFile);
+				}
+				else
+					executor.submit(new NLPTask(tokenizer, inputFile, outputFile));
+			}
+			
+			executor.shutdown();
+			executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+		}
+		catch (IOException | InterruptedException e) {throw new IllegalStateException(e);}
+		finally
 		{
-			outputFile = inputFile + StringConst.PERIOD + s_outputExt;
-			executor.submit(new NLPTask(tokenizer, inputFile, outputFile));
+			executor.shutdownNow();
 		}
 		
-		executor.shutdown();
+		double time = Math.max(System.currentTimeMillis() - st, 1) / 1000d;
+		double mb   = bytes / 1048576d;
+		long tokens = n_tokens.get();
+		BinUtils.LOG.info(String.format("Tokens: %d, Size: %.2f MB, Time: %.2f sec, %d tokens/sec, %.2f MB/sec\n", tokens, mb, time, Math.round(tokens/time), mb/time));
 	}
 	
 	public void tokenize(AbstractTokenizer tokenizer, String inputFile, String outputFile) throws IOException
@@ -77,8 +115,7 @@ public class Tokenize
 		InputStream in  = IOUtils.createFileInputStream(inputFile);
 		PrintStream out = IOUtils.createBufferedPrintStream(outputFile);
 		
-		for (List<String> tokens : tokenizer.segmentize(in))
-			out.println(Joiner.join(tokens, StringConst.SPACE));
+		print(out, tokenizer.segmentizeIterator(in));
 		
 		in.close();
 		out.close();
@@ -88,15 +125,50 @@ public class Tokenize
 	{
 		BufferedReader reader = IOUtils.createBufferedReader(inputFile);
 		PrintStream out = IOUtils.createBufferedPrintStream(outputFile);
+		List<String> tokens;
 		String line;
 		
 		while ((line = reader.readLine()) != null)
-			out.println(Joiner.join(tokenizer.tokenize(line), StringConst.SPACE));
+		{
+			tokens = tokenizer.tokenize(line);
+			n_tokens.addAndGet(tokens.size());
+			out.println(Joiner.join(tokens, StringConst.SPACE));
+		}
+		
+		reader.close();
+		out.close();
+	}
+	
+	/**
+	 * Tokenizes chunks of about {@link #n_chunkSize} KB in the input file in parallel while segmenting the tokenized lines in order,
+	 * so the output is identical to {@link #tokenize(AbstractTokenizer, String, String)} or {@link #tokenizeLines(AbstractTokenizer, String, String)}.
+	 */
+	public void tokenizeChunks(ExecutorService executor, AbstractTokenizer tokenizer, String inputFile, String outputFile) throws IOException
+	{
+		BufferedReader reader = IOUtils.createBufferedReader(inputFile);
+		PrintStream out = IOUtils.createBufferedPrintStream(outputFile);
+		Iterator<List<String>> lines = new ChunkIterator(executor, tokenizer, reader);
+		
+		if (b_line) print(out, lines);
+		else		print(out, tokenizer.segmentizeTokens(lines));
 		
 		reader.close();
 		out.close();
 	}
 	
+	/** Prints each list of tokens in one line. */
+	private void print(PrintStream out, Iterator<List<String>> it)
+	{
+		List<String> tokens;
+		
+		while (it.hasNext())
+		{
+			tokens = it.next();
+			n_tokens.addAndGet(tokens.size());
+			out.println(Joiner.join(tokens, StringConst.SPACE));
+		}
+	}
+	
 	class NLPTask implements Runnable
 	{
 		private AbstractTokenizer tokenizer;
@@ -123,6 +195,93 @@ public class Tokenize
 		}
 	}
 	
+//	====================================== Chunks ======================================
+	
+	/** Iterates the tokens of each line in order, where chunks of lines are tokenized in parallel; at most twice as many chunks as threads are kept in memory. */
+	class ChunkIterator implements Iterator<List<String>>
+	{
+		private ExecutorService executor;
+		private AbstractTokenizer tokenizer;
+		private BufferedReader reader;
+		private Deque<Future<List<List<String>>>> futures;
+		private Iterator<List<String>> current;
+		
+		public ChunkIterator(ExecutorService executor, AbstractTokenizer tokenizer, BufferedReader reader)
+		{
+			this.executor  = executor;
+			this.tokenizer = tokenizer;
+			this.reader    = reader;
+			this.futures   = new ArrayDeque<>();
+			this.current   = null;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			try
+			{
+				while (current == null || !current.hasNext())
+				{
+					while (futures.size() < 2 * n_threads && submit());
+					if (futures.isEmpty()) return false;
+					current = futures.poll().get().iterator();
+				}
+			}
+			catch (IOException | InterruptedException | ExecutionException e) {throw new IllegalStateException(e);}
+			
+			return true;
+		}
+		
+		@Override
+		public List<String> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			return current.next();
+		}
+		
+		/** @return {@code false} if there is no more line to read. */
+		private boolean submit() throws IOException
+		{
+			int size = 0, chunkSize = n_chunkSize * 1024;
+			List<String> chunk = new ArrayList<>();
+			String line;
+			
+			while (size < chunkSize && (line = reader.readLine()) != null)
+			{
+				chunk.add(line);
+				size += line.length() + 1;
+			}
+			
+			if (chunk.isEmpty()) return false;
+			futures.add(executor.submit(new ChunkTask(tokenizer, chunk)));
+			return true;
+		}
+	}
+	
+	/** Tokenizes each line in a chunk. */
+	class ChunkTask implements Callable<List<List<String>>>
+	{
+		private AbstractTokenizer tokenizer;
+		private List<String> chunk;
+		
+		public ChunkTask(AbstractTokenizer tokenizer, List<String> chunk)
+		{
+			this.tokenizer = tokenizer;
+			this.chunk     = chunk;
+		}
+		
+		@Override
+		public List<List<String>> call()
+		{
+			List<List<String>> lines = new ArrayList<>(chunk.size());
+			
+			for (String line : chunk)
+				lines.add(tokenizer.tokenize(line));
+			
+			return lines;
+		}
+	}
+	
 	static public void main(String[] args)
 	{
 		new Tokenize(args);
@@ -15,16 +15,31 @@
  */
 package edu.emory.clir.clearnlp.bin.helper;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.kohsuke.args4j.Option;
 
 import edu.emory.clir.clearnlp.classification.configuration.AbstractTrainerConfiguration;
 import edu.emory.clir.clearnlp.classification.instance.AbstractInstance;
+import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceReader;
+import edu.emory.clir.clearnlp.classification.instance.SparseInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.SparseInstanceReader;
+import edu.emory.clir.clearnlp.classification.instance.StringInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.StringInstanceReader;
 import edu.emory.clir.clearnlp.classification.model.AbstractModel;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
@@ -46,6 +61,8 @@ abstract public class AbstractClassify
 {
 	static public final byte TYPE_SPARSE = 0;
 	static public final byte TYPE_STRING = 1;
+	/** The number of bytes parsed by a thread at a time when instances are read in parallel. */
+	static private final int RANGE_SIZE = 1 << 24;
 	
 	@Option(name="-trainFile", usage="the training file (optional)", required=false, metaVar="<filename>")
 	protected String s_trainFile;
@@ -66,12 +83,25 @@ abstract public class AbstractClassify
 			AbstractClassify.TYPE_STRING+": string vector space\n",
 			required=false, metaVar="<byte>")
 	protected byte i_vectorType = AbstractClassify.TYPE_STRING;
+	@Option(name="-instanceFile", usage="if set, the features of training instances are kept in this memory-mapped file instead of the heap (optional)", required=false, metaVar="<filename>")
+	protected String s_instanceFile;
 	
 	/** Called by {@link #AbstractClassify(String[])}. */
 	abstract protected AbstractTrainerConfiguration createTrainConfiguration();
 	/** Called by {@link #train(AbstractTrainerConfiguration, String)}. */
 	abstract protected AbstractTrainer getTrainer(AbstractTrainerConfiguration trainConfiguration, AbstractModel<?,?> model);
 	
+	/**
+	 * Called by {@link #train(AbstractTrainerConfiguration, String)}; if {@link #s_instanceFile} is set, the features of the training instances
+	 * are written to the file while the trainer vectorizes them, so they are never kept in the heap.
+	 * @throws IllegalStateException if the instance file cannot be written or mapped.
+	 */
+	protected AbstractTrainer createTrainer(AbstractTrainerConfiguration trainConfiguration, AbstractModel<?,?> model)
+	{
+		if (s_instanceFile != null) model.setInstanceFile(new File(s_instanceFile));
+		return getTrainer(trainConfiguration, model);
+	}
+	
 	@SuppressWarnings("unchecked")
 	/** Called by {@link #trainModel(AbstractTrainConfiguration, String)}. */
 	public <I extends AbstractInstance<F>, F extends AbstractFeatureVector>AbstractModel<I,F> createModel(byte vectorType, boolean binary)
@@ -120,11 +150,98 @@ abstract public class AbstractClassify
 	protected <I extends AbstractInstance<F>, F extends AbstractFeatureVector>void readInstances(AbstractModel<I,F> model, String trainFile)
 	{
 		BinUtils.LOG.info("Reading: "+trainFile+"\n");
+		int total;
 		
-		InstanceAdapter<I,F> adapter = new InstanceAdapter<>(model);
-		process(adapter, trainFile, isSparseModel(model));
+		if (i_numberOfThreads > 1)
+			total = readInstancesParallel(model, trainFile);
+		else
+		{
+			InstanceAdapter<I,F> adapter = new InstanceAdapter<>(model);
+			process(adapter, trainFile, isSparseModel(model));
+			total = adapter.getTotal();
+		}
 		
-		BinUtils.LOG.info("- "+adapter.getTotal()+" instances\n");
+		model.setNumberOfThreads(i_numberOfThreads);
+		BinUtils.LOG.info("- "+total+" instances\n");
+	}
+	
+	/**
+	 * Splits the training file into ranges of lines, which are parsed by multiple threads into their own collectors,
+	 * and adds the collectors to the model in the order of the ranges so that the model is the same as the one reading the file sequentially.
+	 * @return the number of instances read.
+	 */
+	private <I extends AbstractInstance<F>, F extends AbstractFeatureVector>int readInstancesParallel(AbstractModel<I,F> model, String trainFile)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(i_numberOfThreads);
+		Deque<Future<AbstractInstanceCollector<I,F>>> futures = new ArrayDeque<>();
+		boolean sparse = isSparseModel(model);
+		long begin, end, size;
+		int total = 0;
+		
+		try (FileChannel channel = FileChannel.open(Paths.get(trainFile)))
+		{
+			size = channel.size();
+			
+			for (begin=0; begin<size; begin=end)
+			{
+				end = getLineEnd(channel, Math.min(begin + RANGE_SIZE, size));
+				final long beginIndex = begin, endIndex = end;
+				futures.add(executor.submit(() -> collect(channel, beginIndex, endIndex, sparse)));
+				
+				while (futures.size() > 2 * i_numberOfThreads)
+					total += addInstances(model, futures.poll().get());
+			}
+			
+			while (!futures.isEmpty())
+				total += addInstances(model, futures.poll().get());
+		}
+		catch (IOException | InterruptedException | ExecutionException e) {throw new IllegalStateException(e);}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		return total;
+	}
+	
+	/** @return the offset after the first line break at or after the specific offset, or the size of the file if none. */
+	private long getLineEnd(FileChannel channel, long offset) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(4096);
+		long size = channel.size();
+		int i;
+		
+		for (offset=Math.max(0, offset-1); offset<size; offset+=buffer.limit())
+		{
+			buffer.clear();
+			channel.read(buffer, offset);
+			buffer.flip();
+			
+			for (i=0; i<buffer.limit(); i++)
+				if (buffer.get(i) == '\n') return offset + i + 1;
+		}
+		
+		return size;
+	}
+	
+	/** @return the collector of the instances in {@code [beginIndex, endIndex)} of the file. */
+	@SuppressWarnings("unchecked")
+	private <I extends AbstractInstance<F>, F extends AbstractFeatureVector>AbstractInstanceCollector<I,F> collect(FileChannel channel, long beginIndex, long endIndex, boolean sparse) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate((int)(endIndex - beginIndex));
+		AbstractInstanceCollector<I,F> collector = (AbstractInstanceCollector<I,F>)(sparse ? new SparseInstanceCollector() : new StringInstanceCollector());
+		
+		while (buffer.hasRemaining() && channel.read(buffer, beginIndex + buffer.position()) >= 0);
+		AbstractInstanceReader<I,F> reader = getInstanceReader(new ByteArrayInputStream(buffer.array()), sparse);
+		reader.applyAll(collector::addInstance);
+		return collector;
+	}
+	
+	private <I extends AbstractInstance<F>, F extends AbstractFeatureVector>int addInstances(AbstractModel<I,F> model, AbstractInstanceCollector<I,F> collector)
+	{
+		int size = collector.getInstances().size();
+		model.addInstances(collector);
+		return size;
 	}
 	
 	protected <I extends AbstractInstance<F>, F extends AbstractFeatureVector>void process(AbstractAdapter<I,F> adapter, String filename, boolean sparse)
@@ -134,11 +251,16 @@ abstract public class AbstractClassify
 		reader.close();
 	}
 	
-	@SuppressWarnings({ "unchecked" })
 	/** Called by {@link #process(AbstractAdapter, String, boolean)}. */
 	private <I extends AbstractInstance<F>, F extends AbstractFeatureVector>AbstractInstanceReader<I,F> getInstanceReader(String filename, boolean sparse)
 	{
-		InputStream in = IOUtils.createFileInputStream(filename);
+		return getInstanceReader(IOUtils.createFileInputStream(filename), sparse);
+	}
+	
+	@SuppressWarnings({ "unchecked" })
+	/** Called by {@link #getInstanceReader(String, boolean)} and {@link #collect(FileChannel, long, long, boolean)}. */
+	private <I extends AbstractInstance<F>, F extends AbstractFeatureVector>AbstractInstanceReader<I,F> getInstanceReader(InputStream in, boolean sparse)
+	{
 		return (AbstractInstanceReader<I,F>)(sparse ? new SparseInstanceReader(in) : new StringInstanceReader(in));
 	}
 	
@@ -52,7 +52,7 @@ abstract public class AbstractClassifyOneVsAll extends AbstractClassify
 		AbstractModel<?,?> model = createModel(trainConfiguration.getVectorType(), trainConfiguration.isBinary());
 		readInstances(model, trainFile);
 		
-		AbstractTrainer trainer = getTrainer(trainConfiguration, model);
+		AbstractTrainer trainer = createTrainer(trainConfiguration, model);
 		trainer.train();
 		
 		return model;
@@ -58,7 +58,7 @@ abstract public class AbstractClassifyOnline extends AbstractClassify
 		AbstractModel<?,?> model = createModel(trainConfiguration.getVectorType(), trainConfiguration.isBinary());
 		readInstances(model, trainFile);
 		
-		AbstractTrainer trainer = getTrainer(trainConfiguration, model);
+		AbstractTrainer trainer = createTrainer(trainConfiguration, model);
 		double prevScore, currScore = 0;
 		FloatArrayList weights = null;
 		System.out.println(trainer.trainerInfoFull());
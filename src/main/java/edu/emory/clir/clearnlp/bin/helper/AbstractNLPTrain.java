@@ -58,6 +58,8 @@ public abstract class AbstractNLPTrain
 	protected String s_developExt = "*";
 	@Option(name="-mode", usage="pos|dep|ner|srl", required=true, metaVar="<mode>")
 	protected String s_mode = ".*";
+	@Option(name="-cache", usage="directory of binary caches of the training and development files (optional)", required=false, metaVar="<dirpath>")
+	protected String s_cacheDir = null;
 //	@Option(name="-threads", usage="number of threads (default: 1)", required=false, metaVar="<Integer>")
 //	protected int n_threads = 1;
 	
@@ -81,12 +83,20 @@ public abstract class AbstractNLPTrain
 	}
 	
 	public ObjectDoublePair<AbstractStatisticalComponent<?,?,?,?,?>> train(List<String> trainFiles, List<String> developFiles, String[] featureFiles, String configurationFile, NLPMode mode)
+	{
+		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
+		AbstractNLPTrainer trainer = createTrainer(featureFiles, configurationFile, mode);
+		return trainer.train(trainFiles, developFiles);
+	}
+	
+	/** Creates a trainer of the specific mode, where {@link GlobalLexica} must be initialized beforehand. */
+	protected AbstractNLPTrainer createTrainer(String[] featureFiles, String configurationFile, NLPMode mode)
 	{
 		InputStream configuration  = IOUtils.createFileInputStream(configurationFile);
 		InputStream[] features     = IOUtils.createFileInputStreams(featureFiles);
-		GlobalLexica.init(IOUtils.createFileInputStream(configurationFile));
 		AbstractNLPTrainer trainer = getTrainer(mode, configuration, features);
-		return trainer.train(trainFiles, developFiles);
+		trainer.setCacheDirectory(s_cacheDir);
+		return trainer;
 	}
 	
 	public void saveModel(AbstractStatisticalComponent<?,?,?,?,?> component, String modelPath)
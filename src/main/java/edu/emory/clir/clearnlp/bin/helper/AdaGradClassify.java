@@ -22,6 +22,7 @@ import edu.emory.clir.clearnlp.classification.configuration.AdaGradTrainerConfig
 import edu.emory.clir.clearnlp.classification.model.AbstractModel;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.trainer.AbstractAdaGrad;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractTrainer;
 import edu.emory.clir.clearnlp.classification.trainer.AdaGradLR;
 import edu.emory.clir.clearnlp.classification.trainer.AdaGradSVM;
@@ -40,6 +41,8 @@ public class AdaGradClassify extends AbstractClassifyOnline
 	private double d_bias  = 0d;
 	@Option(name="-average", usage="if set, average weights (default: false)", required=false, metaVar="<boolean>")
 	protected boolean b_average = false;
+	@Option(name="-deterministic", usage="if set, multiple threads give the same model for every run (default: false)", required=false, metaVar="<boolean>")
+	protected boolean b_deterministic = false;
 	@Option(name="-logistic", usage="if set, logistic regression (default: false)", required=false, metaVar="<boolean>")
 	protected boolean b_logistic = false;
 
@@ -51,24 +54,31 @@ public class AdaGradClassify extends AbstractClassifyOnline
 	@Override
 	protected AbstractTrainerConfiguration createTrainConfiguration()
 	{
-		return new AdaGradTrainerConfiguration(i_vectorType, b_binary, i_labelCutoff, i_featureCutoff, i_numberOfThreads, b_average, d_alpha, d_rho, d_bias);
+		AdaGradTrainerConfiguration c = new AdaGradTrainerConfiguration(i_vectorType, b_binary, i_labelCutoff, i_featureCutoff, i_numberOfThreads, b_average, d_alpha, d_rho, d_bias);
+		c.setDeterministic(b_deterministic);
+		return c;
 	}
 
 	@Override
 	protected AbstractTrainer getTrainer(AbstractTrainerConfiguration trainConfiguration, AbstractModel<?, ?> model)
 	{
 		AdaGradTrainerConfiguration c = (AdaGradTrainerConfiguration)trainConfiguration;
+		AbstractAdaGrad trainer;
 		
 		if (isSparseModel(model))
 		{
-			if (b_logistic)	return new AdaGradLR ((SparseModel)model, c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
-			else			return new AdaGradSVM((SparseModel)model, c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
+			if (b_logistic)	trainer = new AdaGradLR ((SparseModel)model, c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
+			else			trainer = new AdaGradSVM((SparseModel)model, c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
 		}
 		else
 		{
-			if (b_logistic)	return new AdaGradLR ((StringModel)model, c.getLabelCutoff(), c.getFeatureCutoff(), c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
-			else			return new AdaGradSVM((StringModel)model, c.getLabelCutoff(), c.getFeatureCutoff(), c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
+			if (b_logistic)	trainer = new AdaGradLR ((StringModel)model, c.getLabelCutoff(), c.getFeatureCutoff(), c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
+			else			trainer = new AdaGradSVM((StringModel)model, c.getLabelCutoff(), c.getFeatureCutoff(), c.isAverage(), c.getLearningRate(), c.getRidge(), c.getBias());
 		}
+		
+		trainer.setNumberOfThreads(c.getNumberOfThreads());
+		trainer.setDeterministic(c.isDeterministic());
+		return trainer;
 	}
 	
 	static public void main(String[] args)
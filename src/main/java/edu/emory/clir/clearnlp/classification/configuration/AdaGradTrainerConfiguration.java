@@ -25,6 +25,7 @@ public class AdaGradTrainerConfiguration extends DefaultTrainerConfiguration
 	private double  d_rho;
 	private double  d_bias;
 	private boolean b_average;
+	private boolean b_deterministic;
 	
 	public AdaGradTrainerConfiguration(byte vectorType, boolean binary, int labelCutoff, int featureCutoff, int numberOfThreads, boolean average, double alpha, double rho, double bias)
 	{
@@ -39,6 +40,12 @@ public class AdaGradTrainerConfiguration extends DefaultTrainerConfiguration
 		return b_average;
 	}
 
+	/** @return {@code true} if training with multiple threads gives the same weights for every run. */
+	public boolean isDeterministic()
+	{
+		return b_deterministic;
+	}
+
 	public double getLearningRate()
 	{
 		return d_alpha;
@@ -59,6 +66,11 @@ public class AdaGradTrainerConfiguration extends DefaultTrainerConfiguration
 		b_average = average;
 	}
 	
+	public void setDeterministic(boolean deterministic)
+	{
+		b_deterministic = deterministic;
+	}
+	
 	public void setLearningRate(double alpha)
 	{
 		d_alpha = alpha;
@@ -20,6 +20,7 @@ import java.util.Deque;
 
 import edu.emory.clir.clearnlp.classification.vector.AbstractFeatureVector;
 import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
 
 /**
  * @since 3.0.0
@@ -61,6 +62,24 @@ abstract public class AbstractInstanceCollector<I extends AbstractInstance<F>, F
 	/** Called by {@link #addLexica(StringInstance)}. */
 	abstract protected void addFeatures(F vector);
 	
+	/**
+	 * Adds the instances of the specific collector after the instances of this collector, and merges their label and feature counts,
+	 * so that collecting the instances of several parts of a file and adding them in order is the same as collecting the instances of the whole file.
+	 * @param collector the collector of the same class as this collector.
+	 */
+	public void addAll(AbstractInstanceCollector<I,F> collector)
+	{
+		i_instances.addAll(collector.i_instances);
+		
+		for (ObjectIntPair<String> p : collector.m_labels)
+			m_labels.add(p.o, p.i);
+		
+		addFeatures(collector);
+	}
+	
+	/** Called by {@link #addAll(AbstractInstanceCollector)}. */
+	abstract protected void addFeatures(AbstractInstanceCollector<I,F> collector);
+	
 	public int getLabelSize()
 	{
 		return m_labels.size();
@@ -43,49 +43,71 @@ abstract public class AbstractInstanceReader<I extends AbstractInstance<F>, F ex
 	public I next()
 	{
 		String line = readLine();
-		if (line == null) return null;
+		return (line != null) ? parse(line) : null;
+	}
+	
+	/**
+	 * @return the instance of the specific line, whose label and features are delimited by {@link AbstractFeatureVector#DELIM_FEATURE}.
+	 * The line is scanned once instead of being split by {@link AbstractFeatureVector#SPLIT_FEATURE}, which gives the same columns.
+	 */
+	protected I parse(String line)
+	{
+		int begin, next, end = line.length();
+		F vector = null;
+		String[] col;
 		
-		String[] cols = AbstractFeatureVector.SPLIT_FEATURE.split(line);
-		String[] col  = splitFeature(cols[1]);
-		int i, size = cols.length;
+		// trailing delimiters are discarded as by Pattern#split()
+		while (end > 0 && line.charAt(end-1) == CharConst.SPACE) end--;
+		next = line.indexOf(CharConst.SPACE);
+		if (next < 0 || next >= end) throw new IllegalArgumentException("No feature: "+line);
+		String label = line.substring(0, next);
 		
-		F vector = createFeatureVector(col);
-		addFeature(vector, col);
-				
-		for (i=2; i<size; i++)
-			addFeature(vector, splitFeature(cols[i]));
+		for (begin=next+1; begin<end; begin=next+1)
+		{
+			next = line.indexOf(CharConst.SPACE, begin);
+			if (next < 0 || next > end) next = end;
+			col = splitFeature(line, begin, next);
+			
+			if (vector == null) vector = createFeatureVector(col);
+			addFeature(vector, col);
+		}
 		
-		return getInstance(cols[0], vector);
+		return getInstance(label, vector);
 	}
 	
-	private String[] splitFeature(String s)
+	/** @return the type, the value, and the weight if exists, of the feature in {@code s[begin, end)}. */
+	private String[] splitFeature(String s, int begin, int end)
 	{
-		String type, value = null, weight = null;
 		int fidx, lidx;
 		
 		// index
-		fidx = s.indexOf(CharConst.COLON);
-		if (fidx < 0) return new String[]{s};
+		fidx = s.indexOf(CharConst.COLON, begin);
+		if (fidx < 0 || fidx >= end) return new String[]{s.substring(begin, end)};
 		
-		type = s.substring(0, fidx);
-		lidx = s.lastIndexOf(CharConst.COLON);
+		String type = s.substring(begin, fidx);
+		lidx = s.lastIndexOf(CharConst.COLON, end-1);
 		
 		// weight
-		if (fidx+1 < lidx)
+		if (fidx+1 < lidx && isDouble(s, lidx+1, end))
+			return new String[]{type, s.substring(fidx+1, lidx), s.substring(lidx+1, end)};
+		
+		return new String[]{type, s.substring(fidx+1, end)};
+	}
+	
+	/** Same as {@link StringUtils#isDouble(String)} for {@code s[begin, end)}. */
+	private boolean isDouble(String s, int begin, int end)
+	{
+		char c;
+		
+		for (int i=begin; i<end; i++)
 		{
-			String t = s.substring(lidx+1);
+			c = s.charAt(i);
 			
-			if (StringUtils.isDouble(t))
-			{
-				value  = s.substring(fidx+1, lidx);
-				weight = t;
-			}
+			if (!Character.isDigit(c) && c != '.' && c != '-' && c != '+')
+				return false;
 		}
 		
-		if (value == null)
-			value = s.substring(fidx+1);
-		
-		return (weight != null) ? new String[]{type,value,weight} : new String[]{type,value};
+		return true;
 	}
 	
 	private String readLine()
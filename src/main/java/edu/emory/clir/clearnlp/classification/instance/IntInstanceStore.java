@@ -0,0 +1,451 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.util.DSUtils;
+
+/**
+ * Training instances stored in primitive arrays in the compressed sparse row format, where the features of all instances
+ * are kept in one array of indices and one array of weights, instead of a {@link SparseFeatureVector} per instance.
+ * Instances are {@link #add(int, SparseFeatureVector) added} one at a time, and can be read after {@link #trimToSize()} is called.
+ * If the store is created with a file, the features are written to the file as they are added and memory-mapped by {@link #trimToSize()},
+ * so they never occupy the heap; only the labels and the row offsets stay in the heap, which supports training sets larger than the heap.
+ * {@link #get(int, IntInstance)} repositions a reusable {@link #createView() view} that shares the features of this store, so it can be used
+ * wherever {@link IntInstance} is expected without allocating per instance.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class IntInstanceStore
+{
+	static private final int BUFFER_SIZE = 1 << 16;
+	/** A mapped buffer cannot exceed 2GB, so the features are mapped in chunks of {@code 2^CHUNK_BITS} items. */
+	static private final int  CHUNK_BITS = 28;
+	static private final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+	static private final int  INITIAL_CAPACITY = 16;
+	
+	private int n_size;
+	/** The label of each instance. */
+	private int[] i_labels;
+	/** The row of each instance, where the features of the row are in {@code [l_offsets[row], l_offsets[row+1])}. */
+	private int[] i_rows;
+	private long[] l_offsets;
+	private long n_features;
+	private boolean b_weight;
+	
+	/** The feature indices and weights of all rows if kept in the heap; otherwise, {@code null}. */
+	private int[]   i_indices;
+	private float[] f_weights;
+	
+	/** The files to which the feature indices and weights are written while instances are added; {@code null} if kept in the heap. */
+	private Spill s_indices;
+	private Spill s_weights;
+	/** The feature indices and weights of all rows if mapped; otherwise, {@code null}. */
+	private IntBuffer[]   b_indices;
+	private FloatBuffer[] b_weights;
+	
+	/** Creates an empty store that keeps the features in the heap. */
+	public IntInstanceStore()
+	{
+		init();
+		i_indices = new int[INITIAL_CAPACITY];
+	}
+	
+	/**
+	 * Creates an empty store that writes the features to the specific file as instances are added;
+	 * the weights, if any, are written to the same path followed by {@code .weights}. The files get deleted when the virtual machine exits.
+	 * @throws IOException if the file cannot be created.
+	 */
+	public IntInstanceStore(File file) throws IOException
+	{
+		init();
+		s_indices = new Spill(file);
+	}
+	
+	/** Copies the specific instances, whose feature vectors can be discarded afterwards. */
+	public IntInstanceStore(List<IntInstance> instances)
+	{
+		this();
+		for (IntInstance instance : instances) add(instance.getLabel(), instance.getFeatureVector());
+		trimToSize();
+	}
+	
+	private void init()
+	{
+		i_labels  = new int [INITIAL_CAPACITY];
+		l_offsets = new long[INITIAL_CAPACITY+1];
+	}
+	
+//	====================================== Building ======================================
+	
+	/**
+	 * Adds an instance with the specific label and features, which are copied so the vector can be reused.
+	 * @throws IllegalStateException if the features cannot be written to the file, or the heap store exceeds the size of an array.
+	 */
+	public void add(int label, SparseFeatureVector x)
+	{
+		if (i_rows != null) throw new IllegalStateException("No instance can be added after trimToSize().");
+		int i, len = x.size();
+		
+		if (n_size == i_labels.length)
+		{
+			i_labels  = Arrays.copyOf(i_labels , n_size * 2);
+			l_offsets = Arrays.copyOf(l_offsets, n_size * 2 + 1);
+		}
+		
+		if (x.hasWeight() && !b_weight) initWeights();
+		
+		try
+		{
+			if (s_indices != null)
+			{
+				for (i=0; i<len; i++)
+				{
+					s_indices.putInt(x.getIndex(i));
+					if (b_weight) s_weights.putFloat((float)x.getWeight(i));
+				}
+			}
+			else
+			{
+				ensureCapacity(n_features + len);
+				
+				for (i=0; i<len; i++)
+				{
+					i_indices[(int)n_features+i] = x.getIndex(i);
+					if (b_weight) f_weights[(int)n_features+i] = (float)x.getWeight(i);
+				}
+			}
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+		
+		i_labels[n_size] = label;
+		n_features += len;
+		l_offsets[++n_size] = n_features;
+	}
+	
+	/** Called when the first weighted instance is added; the features added before get the weight of {@code 1}. */
+	private void initWeights()
+	{
+		b_weight = true;
+		
+		if (s_indices != null)
+		{
+			try
+			{
+				s_weights = new Spill(new File(s_indices.file.getPath()+".weights"));
+				for (long i=0; i<n_features; i++) s_weights.putFloat(1f);
+			}
+			catch (IOException e) {throw new IllegalStateException(e);}
+		}
+		else
+		{
+			f_weights = new float[i_indices.length];
+			Arrays.fill(f_weights, 0, (int)n_features, 1f);
+		}
+	}
+	
+	private void ensureCapacity(long size)
+	{
+		if (size <= i_indices.length) return;
+		if (size > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too many features to be kept in the heap; use a file instead: "+size);
+		int capacity = (int)Math.min(Integer.MAX_VALUE - 8, Math.max(size, i_indices.length * 3L / 2));
+		i_indices = Arrays.copyOf(i_indices, capacity);
+		if (b_weight) f_weights = Arrays.copyOf(f_weights, capacity);
+	}
+	
+	/**
+	 * Finishes adding instances: trims the arrays in the heap, or flushes the features to the file and maps them.
+	 * Must be called once after the last instance is added and before any instance is read.
+	 * @throws IllegalStateException if the features cannot be written or mapped.
+	 */
+	public void trimToSize()
+	{
+		if (i_rows != null) return;
+		i_labels  = Arrays.copyOf(i_labels , n_size);
+		l_offsets = Arrays.copyOf(l_offsets, n_size+1);
+		i_rows    = DSUtils.range(n_size);
+		
+		if (s_indices != null)
+		{
+			try
+			{
+				b_indices = s_indices.mapInts(n_features);
+				if (b_weight) b_weights = s_weights.mapFloats(n_features);
+			}
+			catch (IOException e) {throw new IllegalStateException(e);}
+			
+			s_indices = s_weights = null;
+		}
+		else
+		{
+			i_indices = Arrays.copyOf(i_indices, (int)n_features);
+			if (b_weight) f_weights = Arrays.copyOf(f_weights, (int)n_features);
+		}
+	}
+	
+//	====================================== Getters ======================================
+	
+	/** @return the number of instances. */
+	public int size()
+	{
+		return n_size;
+	}
+	
+	/** @return the label of the index'th instance. */
+	public int getLabel(int index)
+	{
+		return i_labels[index];
+	}
+	
+	/** @return a new read-only view of the index'th instance that shares the features of this store; use {@link #get(int, IntInstance)} in loops. */
+	public IntInstance get(int index)
+	{
+		return get(index, createView());
+	}
+	
+	/** @return a view for {@link #get(int, IntInstance)}, which must not be shared across threads. */
+	public IntInstance createView()
+	{
+		return new IntInstance(0, new RowVector());
+	}
+	
+	/**
+	 * Repositions the specific view to the index'th instance without allocating any object.
+	 * @param view a view created by {@link #createView()} of this store.
+	 * @return the view.
+	 */
+	public IntInstance get(int index, IntInstance view)
+	{
+		if (i_rows == null) throw new IllegalStateException("Instances cannot be read before trimToSize().");
+		int row = i_rows[index];
+		((RowVector)view.getFeatureVector()).set(l_offsets[row], l_offsets[row+1]);
+		view.setLabel(i_labels[index]);
+		return view;
+	}
+	
+	/** @return {@code true} if the features are assigned with different weights. */
+	public boolean hasWeight()
+	{
+		return b_weight;
+	}
+	
+	/** @return {@code true} if the features are kept in a memory-mapped file. */
+	public boolean isMapped()
+	{
+		return b_indices != null;
+	}
+	
+	/**
+	 * Shuffles the instances by reordering the labels and the rows only, so the features stay in place.
+	 * The instances are shuffled in the same order as {@link DSUtils#shuffle(List, Random)} with the same random generator.
+	 */
+	public void shuffle(Random rand)
+	{
+		int i, j, size = size() - 1;
+		
+		for (i=0; i<size; i++)
+		{
+			j = rand.nextInt(size - i) + i + 1;
+			DSUtils.swap(i_labels, i, j);
+			DSUtils.swap(i_rows  , i, j);
+		}
+	}
+	
+//	====================================== Features ======================================
+	
+	private int getFeatureIndex(long index)
+	{
+		return (i_indices != null) ? i_indices[(int)index] : b_indices[(int)(index >>> CHUNK_BITS)].get((int)(index & CHUNK_MASK));
+	}
+	
+	private double getFeatureWeight(long index)
+	{
+		if (!b_weight) return 1d;
+		return (f_weights != null) ? f_weights[(int)index] : b_weights[(int)(index >>> CHUNK_BITS)].get((int)(index & CHUNK_MASK));
+	}
+	
+	/** Read-only feature vector of a row in {@code [l_begin, l_end)} of the features. */
+	private class RowVector extends SparseFeatureVector
+	{
+		private long l_begin;
+		private long l_end;
+		
+		public RowVector()
+		{
+			super(null);
+		}
+		
+		private void set(long begin, long end)
+		{
+			l_begin = begin;
+			l_end   = end;
+		}
+		
+		@Override
+		public int getIndex(int index)
+		{
+			return getFeatureIndex(l_begin + index);
+		}
+		
+		@Override
+		public double getWeight(int index)
+		{
+			return getFeatureWeight(l_begin + index);
+		}
+		
+		@Override
+		public boolean hasWeight()
+		{
+			return b_weight;
+		}
+		
+		@Override
+		public int getMaxIndex()
+		{
+			int max = Integer.MIN_VALUE;
+			
+			for (long i=l_begin; i<l_end; i++)
+				max = Math.max(max, getFeatureIndex(i));
+			
+			return max;
+		}
+		
+		@Override
+		public int size()
+		{
+			return (int)(l_end - l_begin);
+		}
+		
+		@Override
+		public boolean isEmpty()
+		{
+			return l_begin == l_end;
+		}
+		
+		@Override
+		public void trimToSize() {}
+		
+		@Override
+		public void addFeature(int index)
+		{
+			throw new UnsupportedOperationException("Instances in the store cannot be modified.");
+		}
+		
+		@Override
+		public void addFeature(int index, double weight)
+		{
+			throw new UnsupportedOperationException("Instances in the store cannot be modified.");
+		}
+		
+		@Override
+		public void clear()
+		{
+			throw new UnsupportedOperationException("Instances in the store cannot be modified.");
+		}
+	}
+	
+//	====================================== Spill ======================================
+	
+	/** File to which 4-byte values are appended through a buffer, and mapped in chunks once all values are written. */
+	static private class Spill
+	{
+		private final File file;
+		private final RandomAccessFile r_file;
+		private final FileChannel channel;
+		private final ByteBuffer buffer;
+		
+		private Spill(File file) throws IOException
+		{
+			file.deleteOnExit();
+			this.file = file;
+			r_file  = new RandomAccessFile(file, "rw");
+			channel = r_file.getChannel();
+			buffer  = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			channel.truncate(0);
+		}
+		
+		private void putInt(int value) throws IOException
+		{
+			if (!buffer.hasRemaining()) flush();
+			buffer.putInt(value);
+		}
+		
+		private void putFloat(float value) throws IOException
+		{
+			if (!buffer.hasRemaining()) flush();
+			buffer.putFloat(value);
+		}
+		
+		private void flush() throws IOException
+		{
+			buffer.flip();
+			while (buffer.hasRemaining()) channel.write(buffer);
+			buffer.clear();
+		}
+		
+		private IntBuffer[] mapInts(long size) throws IOException
+		{
+			ByteBuffer[] buffers = map(size);
+			IntBuffer[] ints = new IntBuffer[buffers.length];
+			for (int i=0; i<buffers.length; i++) ints[i] = buffers[i].asIntBuffer();
+			return ints;
+		}
+		
+		private FloatBuffer[] mapFloats(long size) throws IOException
+		{
+			ByteBuffer[] buffers = map(size);
+			FloatBuffer[] floats = new FloatBuffer[buffers.length];
+			for (int i=0; i<buffers.length; i++) floats[i] = buffers[i].asFloatBuffer();
+			return floats;
+		}
+		
+		/** Flushes the remaining values, maps {@code size} values in chunks of {@code 2^CHUNK_BITS}, and closes the file. */
+		private ByteBuffer[] map(long size) throws IOException
+		{
+			try
+			{
+				flush();
+				int i, chunks = (int)((size + CHUNK_MASK) >>> CHUNK_BITS);
+				ByteBuffer[] buffers = new ByteBuffer[Math.max(chunks, 1)];
+				long begin;
+				
+				for (i=0; i<buffers.length; i++)
+				{
+					begin = (long)i << CHUNK_BITS;
+					buffers[i] = channel.map(MapMode.READ_ONLY, 4 * begin, 4 * Math.min(size - begin, 1L << CHUNK_BITS));
+				}
+				
+				return buffers;
+			}
+			finally
+			{
+				r_file.close();
+			}
+		}
+	}
+}
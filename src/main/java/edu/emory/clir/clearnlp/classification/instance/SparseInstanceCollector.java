@@ -34,4 +34,10 @@ public class SparseInstanceCollector extends AbstractInstanceCollector<SparseIns
 	{
 		n_features = Math.max(n_features, vector.getMaxIndex()+1);
 	}
+	
+	@Override
+	protected void addFeatures(AbstractInstanceCollector<SparseInstance,SparseFeatureVector> collector)
+	{
+		n_features = Math.max(n_features, collector.n_features);
+	}
 }
\ No newline at end of file
@@ -18,6 +18,7 @@ package edu.emory.clir.clearnlp.classification.instance;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
 import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
 
 /**
  * @since 3.0.0
@@ -57,6 +58,26 @@ public class StringInstanceCollector extends AbstractInstanceCollector<StringIns
 		}
 	}
 	
+	@Override
+	protected void addFeatures(AbstractInstanceCollector<StringInstance,StringFeatureVector> collector)
+	{
+		ObjectIntHashMap<String> map;
+		
+		for (ObjectIntPair<ObjectIntHashMap<String>> p : ((StringInstanceCollector)collector).m_features)
+		{
+			map = m_features.get(p.i);
+			
+			if (map == null)
+			{
+				map = new ObjectIntHashMap<String>();
+				m_features.put(p.i, map);
+			}
+			
+			for (ObjectIntPair<String> f : p.o)
+				map.add(f.o, f.i);
+		}
+	}
+	
 	public IntObjectHashMap<ObjectIntHashMap<String>> getFeatureMap()
 	{
 		return m_features;
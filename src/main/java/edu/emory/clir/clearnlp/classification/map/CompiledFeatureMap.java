@@ -0,0 +1,117 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import com.carrotsearch.hppc.LongIntHashMap;
+import com.carrotsearch.hppc.procedures.LongIntProcedure;
+
+import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
+import edu.emory.clir.clearnlp.util.HashUtils;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
+
+/**
+ * Read-only view of {@link FeatureMap} for decode, where each feature is keyed by the 64-bit FNV-1a hash of its type and value.
+ * The key of a feature joined by {@link #DELIM} can be computed incrementally from the values of its fields using {@link #append(long, String)},
+ * so the joined string never needs to be created.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class CompiledFeatureMap
+{
+	static public final String DELIM = StringConst.UNDERSCORE;
+	
+	private LongIntHashMap g_map;
+	private long[] type_basis;
+	
+	/** @throws IllegalArgumentException if two features in the map have the same key. */
+	public CompiledFeatureMap(FeatureMap map)
+	{
+		this(map.getTypeSize());
+		ObjectIntHashMap<String> m;
+		int type, size = map.getTypeSize();
+		long key;
+		
+		g_map = new LongIntHashMap(map.size());
+		
+		for (type=0; type<size; type++)
+		{
+			m = map.getFeatureIndexMap(type);
+			
+			for (ObjectIntPair<String> p : m)
+			{
+				key = append(type_basis[type], p.o);
+				if (g_map.containsKey(key)) throw new IllegalArgumentException("Duplicated key: "+type+" "+p.o);
+				g_map.put(key, p.i);
+			}
+		}
+	}
+	
+	/** Initializes the keys of the feature types for subclasses, which must override {@link #getFeatureIndex(long)}, {@link #size()}, and {@link #forEach(LongIntProcedure)}. */
+	protected CompiledFeatureMap(int typeSize)
+	{
+		int type;
+		type_basis = new long[typeSize];
+		
+		for (type=0; type<typeSize; type++)
+			type_basis[type] = HashUtils.fnv1aHash64(type + DELIM);
+	}
+	
+	/** @return the number of feature types. */
+	public int getTypeSize()
+	{
+		return type_basis.length;
+	}
+	
+	/** @return {@code true} if features of the specific type can be found in this map. */
+	public boolean containsType(int type)
+	{
+		return 0 <= type && type < type_basis.length;
+	}
+	
+	/** @return the key of the empty feature of the specific type, which must be {@link #containsType(int) contained} in this map. */
+	public long getBasis(int type)
+	{
+		return type_basis[type];
+	}
+	
+	/** @return the key of the feature where the specific value is appended to the feature represented by {@code key}. */
+	static public long append(long key, String value)
+	{
+		return HashUtils.fnv1aHash64(value, key);
+	}
+	
+	/** @return the index of the feature with the specific key if exists; otherwise, {@code 0}. */
+	public int getFeatureIndex(long key)
+	{
+		return g_map.get(key);
+	}
+	
+	/** @return the number of features in this map. */
+	public int size()
+	{
+		return g_map.size();
+	}
+	
+	/**
+	 * Calls the specific procedure with the key and the index of every feature in this map.
+	 * @see #getFeatureIndex(long)
+	 */
+	public void forEach(LongIntProcedure procedure)
+	{
+		g_map.forEach(procedure);
+	}
+}
@@ -17,6 +17,8 @@ package edu.emory.clir.clearnlp.classification.map;
 
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
 import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
 import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
@@ -61,26 +63,59 @@ public class FeatureMap implements Serializable
 		l_map.trimToSize();
 	}
 	
+	/** Features are added in the order of their types then values so that their indices do not depend on the iteration order of the hash maps. */
 	private int expandMap(IntObjectHashMap<ObjectIntHashMap<String>> map, int cutoff)
 	{
 		ObjectIntHashMap<String> mnew;
 		ObjectIntHashMap<String> morg;
+		List<String> add = new ArrayList<>();
+		int type, size = map.getMaxKey() + 1;
 		
-		for (ObjectIntPair<ObjectIntHashMap<String>> pn : map)
+		for (type=0; type<size; type++)
 		{
-			mnew = pn.o;
-			morg = l_map.get(pn.i);
+			if ((mnew = map.get(type)) == null) continue;
+			morg = l_map.get(type);
+			add.clear();
 			
 			for (ObjectIntPair<String> ps : mnew)
 			{
 				if (!morg.containsKey(ps.o) && ps.i > cutoff)
-					morg.put(ps.o, n_features++);
+					add.add(ps.o);
 			}
+			
+			Collections.sort(add);
+			for (String value : add) morg.put(value, n_features++);
 		}
 		
 		return n_features;
 	}
 
+	/**
+	 * Reassigns the index of every feature to {@code indices[index]}, where the feature is removed if the new index is {@code 0}.
+	 * @param indices the new index of each feature index, which must keep the indices in {@code [1, size)} contiguous.
+	 * @param size the number of features after reassignment (including the bias at index {@code 0}).
+	 */
+	public void remap(int[] indices, int size)
+	{
+		ObjectIntHashMap<String> map;
+		int type, index;
+		
+		for (type=0; type<l_map.size(); type++)
+		{
+			map = new ObjectIntHashMap<>();
+			
+			for (ObjectIntPair<String> p : l_map.get(type))
+			{
+				if ((index = indices[p.i]) > 0)
+					map.put(p.o, index);
+			}
+			
+			l_map.set(type, map);
+		}
+		
+		n_features = size;
+	}
+	
 	/** @return the index of the specific feature given the specific type if exists; otherwise, {@code -1}. */
 	public int getFeatureIndex(int type, String feature)
 	{
@@ -92,6 +127,18 @@ public class FeatureMap implements Serializable
 		return n_features;
 	}
 	
+	/** @return the number of feature types. */
+	public int getTypeSize()
+	{
+		return l_map.size();
+	}
+	
+	/** @return the map between features and their indices for the specific type. */
+	public ObjectIntHashMap<String> getFeatureIndexMap(int type)
+	{
+		return l_map.get(type);
+	}
+	
 	@Override
 	public String toString()
 	{
@@ -16,6 +16,8 @@
 package edu.emory.clir.clearnlp.classification.map;
 
 import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
@@ -37,6 +39,16 @@ public class LabelMap implements Serializable
 		reset();
 	}
 	
+	/** Initializes this map with the specific labels, where the index of each label is its position in the array. */
+	public LabelMap(String[] labels)
+	{
+		reset();
+		l_labels = labels;
+		
+		for (int i=0; i<labels.length; i++)
+			m_labels.put(labels[i], i+1);
+	}
+	
 	public void reset()
 	{
 		m_labels = new ObjectIntHashMap<String>();
@@ -46,14 +58,21 @@ public class LabelMap implements Serializable
 	public int expand(ObjectIntHashMap<String> map, int cutoff)
 	{
 		List<String> list = DSUtils.toArrayList(l_labels);
+		List<String> add  = new ArrayList<>();
 		
 		for (ObjectIntPair<String> p : map)
 		{
 			if (!m_labels.containsKey(p.o) && p.i > cutoff)
-			{
-				list.add(p.o);
-				m_labels.put(p.o, list.size());
-			}
+				add.add(p.o);
+		}
+		
+		// the iteration order of the hash map varies across runs
+		Collections.sort(add);
+		
+		for (String label : add)
+		{
+			list.add(label);
+			m_labels.put(label, list.size());
 		}
 		
 		l_labels = new String[list.size()];
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.Arrays;
+
+import com.carrotsearch.hppc.procedures.LongIntProcedure;
+
+/**
+ * Compiled feature map whose keys and indices are read from buffers (e.g., memory-mapped files) instead of a hash map.
+ * The keys are sorted in ascending order and the index of each key is at the same position in the index buffer,
+ * so a feature is looked up by binary search without loading the map into the heap.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedFeatureMap extends CompiledFeatureMap
+{
+	private LongBuffer b_keys;
+	private IntBuffer  b_indices;
+	
+	/**
+	 * @param typeSize the number of feature types.
+	 * @param keys the sorted keys of the features (see {@link #toSortedKeys(CompiledFeatureMap, long[], int[])}).
+	 * @param indices the indices of the features in the order of their keys.
+	 */
+	public MappedFeatureMap(int typeSize, LongBuffer keys, IntBuffer indices)
+	{
+		super(typeSize);
+		b_keys    = keys;
+		b_indices = indices;
+	}
+	
+	@Override
+	public int getFeatureIndex(long key)
+	{
+		int mid, low = 0, high = b_keys.limit() - 1;
+		long k;
+		
+		while (low <= high)
+		{
+			mid = (low + high) >>> 1;
+			k   = b_keys.get(mid);
+			
+			if      (k < key)	low  = mid + 1;
+			else if (k > key)	high = mid - 1;
+			else				return b_indices.get(mid);
+		}
+		
+		return 0;
+	}
+	
+	@Override
+	public int size()
+	{
+		return b_keys.limit();
+	}
+	
+	@Override
+	public void forEach(LongIntProcedure procedure)
+	{
+		int i, size = size();
+		
+		for (i=0; i<size; i++)
+			procedure.apply(b_keys.get(i), b_indices.get(i));
+	}
+	
+	/**
+	 * Saves the keys of all features in the specific map in ascending order, and their indices in the same order.
+	 * @param keys the array of size {@link CompiledFeatureMap#size()}.
+	 * @param indices the array of size {@link CompiledFeatureMap#size()}.
+	 */
+	static public void toSortedKeys(CompiledFeatureMap map, long[] keys, int[] indices)
+	{
+		int[] size = {0};
+		int i;
+		
+		map.forEach((long key, int index) -> keys[size[0]++] = key);
+		Arrays.sort(keys);
+		
+		for (i=0; i<keys.length; i++)
+			indices[i] = map.getFeatureIndex(keys[i]);
+	}
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import com.carrotsearch.hppc.procedures.LongIntProcedure;
+
+import edu.emory.clir.clearnlp.collection.map.LongIntMinimalPerfectHashMap;
+
+/**
+ * Compiled feature map for decode on {@link LongIntMinimalPerfectHashMap}, which keeps a 32-bit fingerprint of each key instead of the key itself.
+ * It takes about a half of the heap of {@link CompiledFeatureMap} and a small fraction of {@link FeatureMap}, whose feature strings are released once compacted.
+ * A feature not in the map is rejected unless its fingerprint collides with the feature in its slot, which happens once in 2<sup>32</sup> unseen features.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class PerfectHashFeatureMap extends CompiledFeatureMap
+{
+	private LongIntMinimalPerfectHashMap g_map;
+	
+	public PerfectHashFeatureMap(CompiledFeatureMap map)
+	{
+		super(map.getTypeSize());
+		long[] keys = new long[map.size()];
+		int[] indices = new int[map.size()];
+		int[] size = {0};
+		
+		map.forEach((long key, int index) -> {keys[size[0]] = key; indices[size[0]++] = index;});
+		g_map = new LongIntMinimalPerfectHashMap(keys, indices);
+	}
+	
+	@Override
+	public int getFeatureIndex(long key)
+	{
+		int index = g_map.get(key);
+		return (index < 0) ? 0 : index;
+	}
+	
+	@Override
+	public int size()
+	{
+		return g_map.size();
+	}
+	
+	/** @throws UnsupportedOperationException always; keys are not kept in this map. */
+	@Override
+	public void forEach(LongIntProcedure procedure)
+	{
+		throw new UnsupportedOperationException("Perfect hash feature maps do not keep their keys.");
+	}
+}
@@ -19,14 +19,20 @@ import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.tukaani.xz.LZMA2Options;
 import org.tukaani.xz.XZInputStream;
@@ -35,14 +41,15 @@ import org.tukaani.xz.XZOutputStream;
 import edu.emory.clir.clearnlp.classification.instance.AbstractInstance;
 import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.map.LabelMap;
 import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.AbstractFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.ArrayMultiWeightVector;
 import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
 import edu.emory.clir.clearnlp.classification.vector.MultiWeightVector;
-import edu.emory.clir.clearnlp.collection.pair.DoubleIntPair;
-import edu.emory.clir.clearnlp.collection.pair.Pair;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.DSUtils;
 
@@ -56,6 +63,10 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	protected AbstractInstanceCollector<I,F> i_collector;
 	protected AbstractWeightVector w_vector;
 	protected LabelMap m_labels;
+	/** The number of threads used to vectorize training instances. */
+	protected transient int n_threads;
+	/** If set, the features of training instances are written to this file instead of the heap (see {@link #toIntInstanceStore(Deque)}). */
+	protected transient File f_instances;
 
 	/** Initializes this model for training. */
 	public AbstractModel(boolean binary)
@@ -64,6 +75,13 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 		m_labels = new LabelMap();
 	}
 	
+	/** Initializes this model with the specific weight vector and label map. */
+	public AbstractModel(AbstractWeightVector vector, LabelMap labels)
+	{
+		w_vector = vector;
+		m_labels = labels;
+	}
+	
 	public AbstractModel(ObjectInputStream in)
 	{
 		try
@@ -98,6 +116,21 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 			addInstance(instance);
 	}
 	
+	/** Adds the instances collected by the specific collector, and their label and feature counts, to this model. */
+	abstract public void addInstances(AbstractInstanceCollector<I,F> collector);
+	
+	/** @param numThreads the number of threads used to vectorize training instances; if {@code 1}, instances are vectorized sequentially. */
+	public void setNumberOfThreads(int numThreads)
+	{
+		n_threads = numThreads;
+	}
+	
+	/** @param file if not {@code null}, the features of training instances are written to this file and memory-mapped instead of being kept in the heap. */
+	public void setInstanceFile(File file)
+	{
+		f_instances = file;
+	}
+	
 // =============================== Labels/Features/Weights ===============================
 	
 	public int getLabelIndex(String label)
@@ -135,6 +168,25 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 		return w_vector.isBinaryLabel();
 	}
 	
+	/**
+	 * Replaces the multi-class weight vector of this model with {@link ArrayMultiWeightVector}, which gives the same scores faster.
+	 * The model must not be trained afterwards; binary weight vectors are kept as they are.
+	 */
+	public void useArrayWeightVector()
+	{
+		if (w_vector instanceof MultiWeightVector && !(w_vector instanceof ArrayMultiWeightVector))
+			w_vector = new ArrayMultiWeightVector((MultiWeightVector)w_vector);
+	}
+	
+	/**
+	 * Replaces the weight vector of this model with {@link QuantizedWeightVector}; the model must not be trained afterwards.
+	 * @param bits either 8 or 16.
+	 */
+	public void quantizeWeightVector(int bits)
+	{
+		w_vector = new QuantizedWeightVector(w_vector, bits);
+	}
+	
 	public void loadWeightVectorFromByteArray(byte[] array) throws Exception
 	{
 		ObjectInputStream ois = new ObjectInputStream(new XZInputStream(new BufferedInputStream(new ByteArrayInputStream(array))));
@@ -155,24 +207,100 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	
 	abstract public IntInstance toIntInstance(I instance);
 	
-	public List<IntInstance> toIntInstanceList(Deque<I> sInstances)
+	/**
+	 * Vectorizes and removes the instances from the specific deque one batch at a time, and adds them to a new store,
+	 * which writes their features to {@link #setInstanceFile(File) the instance file} if set, so the vectorized instances are never all in the heap.
+	 * Instances that cannot be vectorized are discarded.
+	 * @throws IllegalStateException if the instance file cannot be written.
+	 */
+	public IntInstanceStore toIntInstanceStore(Deque<I> sInstances)
 	{
-		BinUtils.LOG.info("Vectorizing: "+sInstances.size()+"\n");
-		ArrayList<IntInstance> iInstances = new ArrayList<>();
-		final int PRINT = 100000;
+		IntInstanceStore store = createInstanceStore();
+		
+		if (n_threads > 1)
+			toIntInstanceStoreParallel(sInstances, store);
+		else
+		{
+			BinUtils.LOG.info("Vectorizing: "+sInstances.size()+"\n");
+			final int PRINT = 100000;
+			IntInstance iInstance;
+			int i;
+			
+			for (i=1; !sInstances.isEmpty(); i++)
+			{
+				iInstance = toIntInstance(sInstances.poll());
+				if (iInstance != null) store.add(iInstance.getLabel(), iInstance.getFeatureVector());
+				if (i%PRINT == 0) BinUtils.LOG.info(".");
+			}
+			
+			if (i > PRINT)	BinUtils.LOG.info("\n\n");
+			else			BinUtils.LOG.info("\n");
+		}
+		
+		store.trimToSize();
+		return store;
+	}
+	
+	private IntInstanceStore createInstanceStore()
+	{
+		if (f_instances == null) return new IntInstanceStore();
+		
+		try
+		{
+			return new IntInstanceStore(f_instances);
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+	}
+	
+	/**
+	 * Same as {@link #toIntInstanceStore(Deque)} but vectorizes batches of instances using multiple threads, where the instances are kept in order.
+	 * At most {@code 2 * n_threads} batches are vectorized ahead of the store.
+	 */
+	private void toIntInstanceStoreParallel(Deque<I> sInstances, IntInstanceStore store)
+	{
+		BinUtils.LOG.info("Vectorizing: "+sInstances.size()+" ("+n_threads+" threads)\n\n");
+		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		Deque<Future<List<IntInstance>>> futures = new ArrayDeque<>();
+		final int BATCH = 10000;
+		
+		try
+		{
+			while (!sInstances.isEmpty())
+			{
+				List<I> batch = new ArrayList<>(BATCH);
+				while (batch.size() < BATCH && !sInstances.isEmpty()) batch.add(sInstances.poll());
+				futures.add(executor.submit(() -> toIntInstanceList(batch)));
+				if (futures.size() >= 2 * n_threads) addAll(store, futures.poll().get());
+			}
+			
+			while (!futures.isEmpty())
+				addAll(store, futures.poll().get());
+		}
+		catch (InterruptedException | ExecutionException e) {throw new IllegalStateException(e);}
+		finally
+		{
+			executor.shutdownNow();
+		}
+	}
+	
+	private void addAll(IntInstanceStore store, List<IntInstance> instances)
+	{
+		for (IntInstance instance : instances)
+			store.add(instance.getLabel(), instance.getFeatureVector());
+	}
+	
+	/** @return the list of the vectorized instances, where instances that cannot be vectorized are discarded. */
+	private List<IntInstance> toIntInstanceList(List<I> sInstances)
+	{
+		List<IntInstance> iInstances = new ArrayList<>(sInstances.size());
 		IntInstance iInstance;
 		
-		for (int i=1; !sInstances.isEmpty(); i++)
+		for (I sInstance : sInstances)
 		{
-			iInstance = toIntInstance(sInstances.poll());
+			iInstance = toIntInstance(sInstance);
 			if (iInstance != null) iInstances.add(iInstance);
-			if (i%PRINT == 0) BinUtils.LOG.info(".");
 		}
 		
-		if (iInstances.size() > PRINT)	BinUtils.LOG.info("\n\n");
-		else							BinUtils.LOG.info("\n");
-		
-		iInstances.trimToSize();
 		return iInstances;
 	}
 	
@@ -180,6 +308,16 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	
 	abstract public double[] getScores(F x);
 	abstract public double[] getScores(F x, int[] include);
+	/** Same as {@link #getScores(AbstractFeatureVector)} but writes the scores to the specific array created by {@link #createScoreBuffer()}. */
+	abstract public void getScores(F x, double[] scores);
+	/** Same as {@link #getScores(AbstractFeatureVector, int[])} but writes the scores to the specific array created by {@link #createScoreBuffer()}. */
+	abstract public void getScores(F x, int[] include, double[] scores);
+	
+	/** @return a score array that can be reused across the prediction methods taking a score buffer. */
+	public double[] createScoreBuffer()
+	{
+		return new double[w_vector.getScoreSize()];
+	}
 	
 	public StringPrediction getPrediction(int labelIndex, double score)
 	{
@@ -189,60 +327,74 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	/** @return the best prediction given the specific feature vector. */
 	public StringPrediction predictBest(F x)
 	{
-		return isBinaryLabel() ? predictBestBinary(x) : predictBestMulti(x);
+		return predictBest(x, createScoreBuffer());
 	}
 	
-	private StringPrediction predictBestBinary(F x)
+	/**
+	 * @param scores the score buffer created by {@link #createScoreBuffer()}, whose values get overwritten.
+	 * @return the best prediction given the specific feature vector.
+	 */
+	public StringPrediction predictBest(F x, double[] scores)
+	{
+		getScores(x, scores);
+		return predictBest(scores);
+	}
+	
+	/** @return the best prediction given the scores of all labels. */
+	protected StringPrediction predictBest(double[] scores)
+	{
+		return isBinaryLabel() ? predictBestBinary(scores) : predictBestMulti(scores);
+	}
+	
+	private StringPrediction predictBestBinary(double[] scores)
 	{
-		double[] scores = getScores(x);
 		return (scores[0] > 0) ? getPrediction(0, scores[0]) : getPrediction(1, scores[1]);
 	}
 	
-	private StringPrediction predictBestMulti(F x)
+	private StringPrediction predictBestMulti(double[] scores)
 	{
-		double[] scores = getScores(x);
-		int i, size = scores.length, maxIndex = 0;
-		double maxValue = scores[maxIndex];
-		
-		for (i=1; i<size; i++)
-		{
-			if (maxValue < scores[i])
-			{
-				maxIndex = i;
-				maxValue = scores[maxIndex];
-			}
-		}
-		
-		return getPrediction(maxIndex, maxValue);
+		int maxIndex = getBestLabelIndexMulti(scores, null);
+		return getPrediction(maxIndex, scores[maxIndex]);
 	}
 	
 	/** @return the top 2 predictions given the specific feature vector. */
 	public StringPrediction[] predictTop2(F x)
 	{
-		return isBinaryLabel() ? predictTop2Binary(x) : predictTop2Multi(x);
+		return predictTop2(x, createScoreBuffer());
 	}
 	
-	private StringPrediction[] predictTop2Binary(F x)
+	/**
+	 * @param scores the score buffer created by {@link #createScoreBuffer()}, whose values get overwritten.
+	 * @return the top 2 predictions given the specific feature vector.
+	 */
+	public StringPrediction[] predictTop2(F x, double[] scores)
+	{
+		getScores(x, scores);
+		return predictTop2(scores);
+	}
+	
+	/** @return the top 2 predictions given the scores of all labels. */
+	protected StringPrediction[] predictTop2(double[] scores)
+	{
+		return isBinaryLabel() ? predictTop2Binary(scores) : predictTop2Multi(scores);
+	}
+	
+	private StringPrediction[] predictTop2Binary(double[] scores)
 	{
-		double[] scores = getScores(x);
 		StringPrediction fst = getPrediction(0, scores[0]);
 		StringPrediction snd = getPrediction(1, scores[1]);
 		return (scores[0] > 0) ? new StringPrediction[]{fst,snd} : new StringPrediction[]{snd,fst};
 	}
 	
-	private StringPrediction[] predictTop2Multi(F x)
+	private StringPrediction[] predictTop2Multi(double[] scores)
 	{
-		double[] scores = getScores(x);
-		Pair<DoubleIntPair,DoubleIntPair> top2 = DSUtils.top2(scores);
-		DoubleIntPair p1 = top2.o1;
-		DoubleIntPair p2 = top2.o2;
-		return new StringPrediction[]{getPrediction(p1.i,p1.d), getPrediction(p2.i,p2.d)};
+		return predictTop2Multi(scores, null);
 	}
 	
 	/** @return the list of predictions given the specific feature vector sorted in descending order. */
 	public StringPrediction[] predictAll(F x)
 	{
-		return isBinaryLabel() ? predictTop2Binary(x) : predictAllMulti(x);
+		return isBinaryLabel() ? predictTop2(x) : predictAllMulti(x);
 	}
 	
 	private StringPrediction[] predictAllMulti(F x)
@@ -260,46 +412,58 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 	
 	public StringPrediction predictBest(F x, int[] indices)
 	{
-		return isBinaryLabel() ? predictBestBinary(x) : predictBestMulti(x, indices);
+		return predictBest(x, indices, createScoreBuffer());
 	}
 	
-	private StringPrediction predictBestMulti(F x, int[] indices)
+	/** @param scores the score buffer created by {@link #createScoreBuffer()}, whose values get overwritten. */
+	public StringPrediction predictBest(F x, int[] indices, double[] scores)
 	{
-		double[] scores = getScores(x, indices);
-		int i, size = indices.length, maxIndex = indices[0];
-		double maxValue = scores[maxIndex];
-		
-		for (i=1; i<size; i++)
-		{
-			if (maxValue < scores[indices[i]])
-			{
-				maxIndex = indices[i];
-				maxValue = scores[maxIndex];
-			}
-		}
-		
-		return getPrediction(maxIndex, maxValue);
+		getScores(x, indices, scores);
+		return predictBest(scores, indices);
+	}
+	
+	/** @return the best prediction among the specific label indices given the scores. */
+	protected StringPrediction predictBest(double[] scores, int[] indices)
+	{
+		return isBinaryLabel() ? predictBestBinary(scores) : predictBestMulti(scores, indices);
+	}
+	
+	private StringPrediction predictBestMulti(double[] scores, int[] indices)
+	{
+		int maxIndex = getBestLabelIndexMulti(scores, indices);
+		return getPrediction(maxIndex, scores[maxIndex]);
 	}
 	
 	/** @return the top 2 predictions given the specific feature vector. */
 	public StringPrediction[] predictTop2(F x, int[] indices)
 	{
-		return isBinaryLabel() ? predictTop2Binary(x) : predictTop2Multi(x, indices);
+		return predictTop2(x, indices, createScoreBuffer());
 	}
 	
-	private StringPrediction[] predictTop2Multi(F x, int[] indices)
+	/** @param scores the score buffer created by {@link #createScoreBuffer()}, whose values get overwritten. */
+	public StringPrediction[] predictTop2(F x, int[] indices, double[] scores)
 	{
-		double[] scores = getScores(x, indices);
-		Pair<DoubleIntPair,DoubleIntPair> top2 = DSUtils.top2(scores, indices);
-		DoubleIntPair p1 = top2.o1;
-		DoubleIntPair p2 = top2.o2;
-		return new StringPrediction[]{getPrediction(p1.i,p1.d), getPrediction(p2.i,p2.d)};
+		getScores(x, indices, scores);
+		return predictTop2(scores, indices);
+	}
+	
+	/** @return the top 2 predictions among the specific label indices given the scores. */
+	protected StringPrediction[] predictTop2(double[] scores, int[] indices)
+	{
+		return isBinaryLabel() ? predictTop2Binary(scores) : predictTop2Multi(scores, indices);
+	}
+	
+	private StringPrediction[] predictTop2Multi(double[] scores, int[] indices)
+	{
+		int[] top2 = new int[2];
+		DSUtils.top2(scores, indices, top2);
+		return new StringPrediction[]{getPrediction(top2[0], scores[top2[0]]), getPrediction(top2[1], scores[top2[1]])};
 	}
 	
 	/** @return the list of predictions given the specific feature vector sorted in descending order. */
 	public StringPrediction[] predictAll(F x, int[] indices)
 	{
-		return isBinaryLabel() ? predictTop2Binary(x) : predictAllMulti(x, indices);
+		return isBinaryLabel() ? predictTop2(x) : predictAllMulti(x, indices);
 	}
 
 	private StringPrediction[] predictAllMulti(F x, int[] indices)
@@ -317,4 +481,74 @@ abstract public class AbstractModel<I extends AbstractInstance<F>, F extends Abs
 		DSUtils.sortReverseOrder(array);
 		return array;
 	}
+	
+// =============================== Label Indices ===============================
+	
+	public String getLabel(int labelIndex)
+	{
+		return m_labels.getLabel(labelIndex);
+	}
+	
+	/** Sets the label and the score of the specific prediction; unlike {@link #getPrediction(int, double)}, no object is created. */
+	public void setPrediction(StringPrediction p, int labelIndex, double score)
+	{
+		p.set(m_labels.getLabel(labelIndex), score);
+	}
+	
+	/**
+	 * @param indices the label indices to consider; if {@code null}, all labels are considered.
+	 * @return the index of the label with the highest score.
+	 */
+	public int getBestLabelIndex(double[] scores, int[] indices)
+	{
+		if (isBinaryLabel()) return (scores[0] > 0) ? 0 : 1;
+		return getBestLabelIndexMulti(scores, indices);
+	}
+	
+	private int getBestLabelIndexMulti(double[] scores, int[] indices)
+	{
+		int i, j, size = (indices != null) ? indices.length : scores.length;
+		int maxIndex = (indices != null) ? indices[0] : 0;
+		
+		for (j=1; j<size; j++)
+		{
+			i = (indices != null) ? indices[j] : j;
+			if (scores[maxIndex] < scores[i]) maxIndex = i;
+		}
+		
+		return maxIndex;
+	}
+	
+	/**
+	 * Saves the indices of the labels with the top 2 scores to {@code top2} in descending order.
+	 * @param indices the label indices to consider; if {@code null}, all labels are considered.
+	 */
+	public void getTop2LabelIndices(double[] scores, int[] indices, int[] top2)
+	{
+		if (isBinaryLabel())
+		{
+			top2[0] = (scores[0] > 0) ? 0 : 1;
+			top2[1] = 1 - top2[0];
+		}
+		else
+			DSUtils.top2(scores, indices, top2);
+	}
+	
+	/**
+	 * Saves the indices of the labels with the top {@code top.length} scores to {@code top} in descending order.
+	 * @param indices the label indices to consider; if {@code null}, all labels are considered.
+	 * @return the number of saved indices.
+	 */
+	public int getTopLabelIndices(double[] scores, int[] indices, int[] top)
+	{
+		if (isBinaryLabel())
+		{
+			top[0] = (scores[0] > 0) ? 0 : 1;
+			if (top.length == 1) return 1;
+			top[1] = 1 - top[0];
+			return 2;
+		}
+		
+		return DSUtils.topK(scores, indices, top);
+	}
 }
\ No newline at end of file
@@ -18,9 +18,10 @@ package edu.emory.clir.clearnlp.classification.model;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.List;
 
+import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.instance.SparseInstance;
 import edu.emory.clir.clearnlp.classification.instance.SparseInstanceCollector;
 import edu.emory.clir.clearnlp.classification.map.LabelMap;
@@ -73,16 +74,22 @@ public class SparseModel extends AbstractModel<SparseInstance,SparseFeatureVecto
 	{
 		i_collector.addInstance(instance);
 	}
+	
+	@Override
+	public void addInstances(AbstractInstanceCollector<SparseInstance,SparseFeatureVector> collector)
+	{
+		i_collector.addAll(collector);
+	}
 
 	/** Initializes this model with the collected list of training instances. */
-	public List<IntInstance> initializeForTraining()
+	public IntInstanceStore initializeForTraining()
 	{
 		int labelSize   = m_labels.expand(i_collector.getLabelMap(), 0);
 		int featureSize = i_collector.getFeatureSize();
 		
 		w_vector.expand(labelSize, featureSize);
 		
-		List<IntInstance> instances = toIntInstanceList(i_collector.getInstances());
+		IntInstanceStore instances = toIntInstanceStore(i_collector.getInstances());
 		i_collector.init();
 		
 		return instances;
@@ -110,4 +117,16 @@ public class SparseModel extends AbstractModel<SparseInstance,SparseFeatureVecto
 	{
 		return w_vector.getScores(x);
 	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		w_vector.getScores(x, scores);
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, int[] include, double[] scores)
+	{
+		w_vector.getScores(x, scores);
+	}
 }
\ No newline at end of file
@@ -18,16 +18,24 @@ package edu.emory.clir.clearnlp.classification.model;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.util.List;
 
+import edu.emory.clir.clearnlp.classification.instance.AbstractInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.instance.StringInstanceCollector;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
 import edu.emory.clir.clearnlp.classification.map.FeatureMap;
 import edu.emory.clir.clearnlp.classification.map.LabelMap;
+import edu.emory.clir.clearnlp.classification.map.MappedFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MultiWeightVector;
 import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+import edu.emory.clir.clearnlp.util.BinUtils;
 
 /**
  * @since 3.0.0
@@ -38,6 +46,7 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	private static final long serialVersionUID = -5836424308513378097L;
 	protected StringInstanceCollector i_collector;
 	protected FeatureMap m_features;
+	protected transient CompiledFeatureMap m_compiled;
 
 	/** Initializes this model for training. */
 	public StringModel(boolean binary)
@@ -52,6 +61,16 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 		super(in);
 	}
 	
+	/**
+	 * Initializes this model for decode with the compiled feature map only (e.g., {@link MappedFeatureMap}).
+	 * This model can be neither trained nor saved; features are looked up by their keys in the compiled map.
+	 */
+	public StringModel(AbstractWeightVector vector, LabelMap labels, CompiledFeatureMap features)
+	{
+		super(vector, labels);
+		m_compiled = features;
+	}
+	
 	private void init()
 	{
 		i_collector = new StringInstanceCollector();
@@ -63,6 +82,7 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 		m_labels.reset();
 		m_features.reset();
 		w_vector.reset();
+		m_compiled = null;
 	}
 	
 // =============================== Serialization ===============================
@@ -73,10 +93,13 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 		w_vector   = (AbstractWeightVector)in.readObject();
 		m_labels   = (LabelMap)in.readObject();
 		m_features = (FeatureMap)in.readObject();
+		m_compiled = null;
 	}
 	
+	/** @throws IllegalStateException if this model has the compiled feature map only. */
 	public void save(ObjectOutputStream out) throws IOException
 	{
+		if (m_features == null) throw new IllegalStateException("A model without its feature map cannot be saved.");
 		out.writeObject(w_vector);
 		out.writeObject(m_labels);
 		out.writeObject(m_features);
@@ -89,20 +112,74 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	{
 		i_collector.addInstance(instance);
 	}
+	
+	@Override
+	public void addInstances(AbstractInstanceCollector<StringInstance,StringFeatureVector> collector)
+	{
+		i_collector.addAll(collector);
+	}
 
 	/** Initializes this model with the collected list of training instances. */
-	public List<IntInstance> initializeForTraining(int labelCutoff, int featureCutoff)
+	public IntInstanceStore initializeForTraining(int labelCutoff, int featureCutoff)
 	{
 		int labelSize   = m_labels  .expand(i_collector.getLabelMap()  , labelCutoff);
 		int featureSize = m_features.expand(i_collector.getFeatureMap(), featureCutoff);
 		w_vector.expand(labelSize, featureSize);
+		m_compiled = null;
 		
-		List<IntInstance> instances = toIntInstanceList(i_collector.getInstances());
+		IntInstanceStore instances = toIntInstanceStore(i_collector.getInstances());
 		i_collector.init();
 		
 		return instances;
 	}
 
+// =============================== Compaction ===============================
+	
+	/**
+	 * Removes the features whose weights of all labels are at most the specific threshold in absolute value, and reassigns the indices of the rest.
+	 * The bias (feature {@code 0}) is always kept; the compiled feature map is discarded since its indices become stale.
+	 * @return the number of removed features.
+	 * @throws IllegalStateException if this model has the compiled feature map only.
+	 */
+	public int prune(float threshold)
+	{
+		if (m_features == null) throw new IllegalStateException("A model without its feature map cannot be pruned.");
+		int i, f, label, labelSize = w_vector.getLabelSize(), featureSize = w_vector.getFeatureSize(), size = 1;
+		int weightLabels = w_vector.isBinaryLabel() ? 1 : labelSize;
+		int[] indices = new int[featureSize];
+		
+		for (f=1; f<featureSize; f++)
+		{
+			for (label=0; label<weightLabels; label++)
+			{
+				if (Math.abs(w_vector.get(w_vector.getWeightIndex(label, f))) > threshold)
+				{
+					indices[f] = size++;
+					break;
+				}
+			}
+		}
+		
+		AbstractWeightVector vector = w_vector.isBinaryLabel() ? new BinaryWeightVector() : new MultiWeightVector();
+		vector.expand(labelSize, size);
+		
+		for (f=0; f<featureSize; f++)
+		{
+			if (f > 0 && indices[f] == 0) continue;
+			
+			for (label=0; label<weightLabels; label++)
+			{
+				i = w_vector.getWeightIndex(label, f);
+				vector.set(vector.getWeightIndex(label, indices[f]), w_vector.get(i));
+			}
+		}
+		
+		m_features.remap(indices, size);
+		w_vector   = vector;
+		m_compiled = null;
+		return featureSize - size;
+	}
+	
 // =============================== Conversion ===============================
 
 	@Override
@@ -141,7 +218,56 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	
 	public int getFeatureIndex(StringFeatureVector x, int i)
 	{
-		return m_features.getFeatureIndex(x.getType(i), x.getValue(i));
+		if (m_features != null) return m_features.getFeatureIndex(x.getType(i), x.getValue(i));
+		int type = x.getType(i);
+		return m_compiled.containsType(type) ? m_compiled.getFeatureIndex(CompiledFeatureMap.append(m_compiled.getBasis(type), x.getValue(i))) : -1;
+	}
+	
+// =============================== Compilation ===============================
+	
+	/**
+	 * Compiles the feature map of this model for decode; the compiled map is discarded if the model is trained further.
+	 * If this model has the compiled feature map only, it is kept as it is.
+	 * @return {@code true} if the feature map is compiled; otherwise, {@code false} (the string feature map is used instead).
+	 */
+	public boolean compileFeatureMap()
+	{
+		if (m_features == null) return m_compiled != null;
+		
+		try
+		{
+			m_compiled = new CompiledFeatureMap(m_features);
+		}
+		catch (IllegalArgumentException e)
+		{
+			BinUtils.LOG.info(e.getMessage()+"\n");
+			m_compiled = null;
+		}
+		
+		return m_compiled != null;
+	}
+	
+	/**
+	 * Compiles the feature map of this model into {@link PerfectHashFeatureMap} and releases the string feature map, which takes most of the heap of this model.
+	 * Features are looked up by their keys afterwards, so this model can be neither trained nor saved.
+	 * The feature map already {@link #compileFeatureMap() compiled} is reused; if this model has the compiled feature map only, it is kept as it is.
+	 * Compaction is lossy: a feature not in the map is taken for a feature in the map once in 2<sup>32</sup> unseen features.
+	 * @return {@code true} if the feature map is compacted; otherwise, {@code false} (the string feature map is used instead).
+	 */
+	public boolean compactFeatureMap()
+	{
+		if (m_features == null) return m_compiled != null;
+		if (m_compiled == null && !compileFeatureMap()) return false;
+		
+		m_compiled = new PerfectHashFeatureMap(m_compiled);
+		m_features = null;
+		return true;
+	}
+	
+	/** @return the compiled feature map if {@link #compileFeatureMap()} succeeded; otherwise, {@code null}. */
+	public CompiledFeatureMap getCompiledFeatureMap()
+	{
+		return m_compiled;
 	}
 	
 // =============================== Predictions ===============================
@@ -156,4 +282,68 @@ public class StringModel extends AbstractModel<StringInstance,StringFeatureVecto
 	{
 		return w_vector.getScores(toSparseFeatureVector(x), include);
 	}
+	
+	@Override
+	public void getScores(StringFeatureVector x, double[] scores)
+	{
+		w_vector.getScores(toSparseFeatureVector(x), scores);
+	}
+	
+	@Override
+	public void getScores(StringFeatureVector x, int[] include, double[] scores)
+	{
+		w_vector.getScores(toSparseFeatureVector(x), include, scores);
+	}
+	
+	/**
+	 * Same as {@link #getScores(StringFeatureVector, int[], double[])} given the vector already converted by this model.
+	 * @param indices the label indices to score; if {@code null}, all labels are scored.
+	 */
+	public void getScores(SparseFeatureVector x, int[] indices, double[] scores)
+	{
+		if (indices != null)	w_vector.getScores(x, indices, scores);
+		else					w_vector.getScores(x, scores);
+	}
+	
+	/** Same as {@link #predictBest(StringFeatureVector, double[])} given the vector already converted by this model. */
+	public StringPrediction predictBest(SparseFeatureVector x, double[] scores)
+	{
+		getScores(x, null, scores);
+		return predictBest(scores);
+	}
+	
+	/** Same as {@link #predictTop2(StringFeatureVector, double[])} given the vector already converted by this model. */
+	public StringPrediction[] predictTop2(SparseFeatureVector x, double[] scores)
+	{
+		getScores(x, null, scores);
+		return predictTop2(scores);
+	}
+	
+	/** Same as {@link #predictBest(StringFeatureVector, int[], double[])} given the vector already converted by this model. */
+	public StringPrediction predictBest(SparseFeatureVector x, int[] indices, double[] scores)
+	{
+		getScores(x, indices, scores);
+		return predictBest(scores, indices);
+	}
+	
+	/** Same as {@link #predictTop2(StringFeatureVector, int[], double[])} given the vector already converted by this model. */
+	public StringPrediction[] predictTop2(SparseFeatureVector x, int[] indices, double[] scores)
+	{
+		getScores(x, indices, scores);
+		return predictTop2(scores, indices);
+	}
+	
+	/**
+	 * Same as {@link #predictTop2(SparseFeatureVector, int[], double[])} but saves the top 2 predictions to {@code ps} without creating objects.
+	 * @param indices the label indices to consider; if {@code null}, all labels are considered.
+	 * @param top2 the buffer of size 2 for the label indices of the predictions.
+	 * @param ps the array of 2 predictions to be overwritten.
+	 */
+	public void predictTop2(SparseFeatureVector x, int[] indices, double[] scores, int[] top2, StringPrediction[] ps)
+	{
+		getScores(x, indices, scores);
+		getTop2LabelIndices(scores, indices, top2);
+		setPrediction(ps[0], top2[0], scores[top2[0]]);
+		setPrediction(ps[1], top2[1], scores[top2[1]]);
+	}
 }
\ No newline at end of file
@@ -57,6 +57,29 @@ abstract public class AbstractAdaGrad extends AbstractOnlineTrainer
 		d_bias      = bias;
 	}
 	
+	@Override
+	protected AbstractOnlineTrainer copy()
+	{
+		AbstractAdaGrad trainer = (AbstractAdaGrad)super.copy();
+		trainer.d_gradients = d_gradients.clone();
+		return trainer;
+	}
+	
+	/** Also accumulates the squared gradients of all trainers so that the learning rates decay as if the shards were trained in sequence. */
+	@Override
+	protected void mix(AbstractOnlineTrainer[] trainers)
+	{
+		super.mix(trainers);
+		int i, size = d_gradients.length;
+		double g;
+		
+		for (i=0; i<size; i++)
+		{
+			g = d_gradients[i];
+			for (AbstractOnlineTrainer trainer : trainers) d_gradients[i] += ((AbstractAdaGrad)trainer).d_gradients[i] - g;
+		}
+	}
+	
 	protected void updateWeight(int weightIndex, double v, int averageCount)
 	{
 		double cost = getCost(weightIndex) * v;
@@ -71,6 +94,6 @@ abstract public class AbstractAdaGrad extends AbstractOnlineTrainer
 
 	protected String getTrainerInfo(String type)
 	{
-		return String.format("AdaGrad-%s: alpha = %4.3f, rho = %4.3f, rho = %4.3f, average = %b", type, d_alpha, d_rho, d_bias, average());
+		return String.format("AdaGrad-%s: alpha = %4.3f, rho = %4.3f, rho = %4.3f, average = %b, threads = %d, deterministic = %b", type, d_alpha, d_rho, d_bias, average(), n_threads, b_deterministic);
 	}
 }
\ No newline at end of file
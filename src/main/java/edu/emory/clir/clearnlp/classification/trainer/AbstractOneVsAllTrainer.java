@@ -19,6 +19,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.vector.BinaryWeightVector;
@@ -108,7 +109,7 @@ abstract public class AbstractOneVsAllTrainer extends AbstractTrainer
 		byte[] aY = new byte[size];
 		
 		for (i=0; i<size; i++)
-			aY[i] = getInstance(i).isLabel(currLabel) ? (byte)1 : (byte)-1;
+			aY[i] = (l_instances.getLabel(i) == currLabel) ? (byte)1 : (byte)-1;
 			
 		return aY;
 	}
@@ -138,11 +139,12 @@ abstract public class AbstractOneVsAllTrainer extends AbstractTrainer
 		int i, size = getInstanceSize();
 		double[] qd = new double[size];
 		init += MathUtils.sq(bias);
+		IntInstance view = createInstanceView();
 		SparseFeatureVector x;
 		
 		for (i=0; i<size; i++)
 		{
-			x = getInstance(i).getFeatureVector();
+			x = getInstance(i, view).getFeatureVector();
 			qd[i] = init + x.sumOfSquares();
 		}
 		
@@ -15,23 +15,35 @@
  */
 package edu.emory.clir.clearnlp.classification.trainer;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
-import edu.emory.clir.clearnlp.util.DSUtils;
 import edu.emory.clir.clearnlp.util.MathUtils;
 
 /**
+ * Online trainer that can update the weights with multiple threads, where the shuffled instances are split into a shard per thread.
+ * By default, all threads update the same weights without locking (Hogwild), which is the fastest but not reproducible across runs.
+ * If {@link #setDeterministic(boolean) deterministic}, each thread trains its own copy of the weights on its shard
+ * and the copies are averaged in a fixed order (iterative parameter mixing), which gives the same weights for every run
+ * at the cost of a copy of the weights and the training states per thread.
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-abstract public class AbstractOnlineTrainer extends AbstractTrainer
+abstract public class AbstractOnlineTrainer extends AbstractTrainer implements Cloneable
 {
 	protected double[] d_average;
 	protected Random   r_rand;
+	protected int      n_threads;
+	protected boolean  b_deterministic;
 	
 	/** @param average if {@code true}, weights are averaged. */
 	public AbstractOnlineTrainer(SparseModel model, boolean average)
@@ -51,19 +63,194 @@ abstract public class AbstractOnlineTrainer extends AbstractTrainer
 	{
 		d_average = average ? new double[w_vector.size()] : null;
 		r_rand = new Random(RANDOM_SEED);
+		setNumberOfThreads(1);
+		setDeterministic(false);
+	}
+	
+	/** @param numThreads the number of threads; if {@code 1}, instances are trained sequentially. */
+	public void setNumberOfThreads(int numThreads)
+	{
+		n_threads = Math.max(1, numThreads);
+	}
+	
+	/** @param deterministic if {@code true}, multiple threads give the same weights for every run. */
+	public void setDeterministic(boolean deterministic)
+	{
+		b_deterministic = deterministic;
 	}
 
 	public void train()
 	{	
 		if (average()) Arrays.fill(d_average, 0);
-		DSUtils.shuffle(l_instances, r_rand);
-		int i, size = getInstanceSize();
+		l_instances.shuffle(r_rand);
+		int size = getInstanceSize();
 		
-		for (i=0; i<size; i++)
-			update(getInstance(i), i+1);
+		if (n_threads == 1 || size < n_threads)
+			train(0, size);
+		else if (b_deterministic)
+			trainMixing();
+		else
+			trainHogwild();
+	}
+	
+	/** Updates the weights with the instances in {@code [beginIndex, endIndex)} in order. */
+	private void train(int beginIndex, int endIndex)
+	{
+		IntInstance view = createInstanceView();
+		int i;
+		
+		for (i=beginIndex; i<endIndex; i++)
+			update(getInstance(i, view), i-beginIndex+1);
+		
+		if (average())
+			setAverageWeights(endIndex-beginIndex+1);
+	}
+	
+//	====================================== Hogwild ======================================
+	
+	private void trainHogwild()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		List<Future<?>> futures = new ArrayList<>(n_threads);
+		int shard, gap = getShardSize();
+		
+		for (shard=0; shard<n_threads; shard++)
+			futures.add(executor.submit(new HogwildTask(shard, gap)));
+		
+		awaitTermination(executor, futures);
 		
 		if (average())
-			setAverageWeights(size+1);
+			setAverageWeights(getInstanceSize()+1);
+	}
+	
+	class HogwildTask implements Runnable
+	{
+		int i_shard;
+		int i_begin;
+		int i_end;
+		
+		public HogwildTask(int shard, int gap)
+		{
+			i_shard = shard;
+			i_begin = Math.min(shard * gap, getInstanceSize());
+			i_end   = Math.min(i_begin + gap, getInstanceSize());
+		}
+		
+		/** The averaging count assumes that all threads progress at the same rate. */
+		public void run()
+		{
+			IntInstance view = createInstanceView();
+			int i;
+			
+			for (i=i_begin; i<i_end; i++)
+				update(getInstance(i, view), (i-i_begin)*n_threads + i_shard + 1);
+		}
+	}
+	
+//	====================================== Parameter mixing ======================================
+	
+	private void trainMixing()
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		AbstractOnlineTrainer[] trainers = new AbstractOnlineTrainer[n_threads];
+		List<Future<?>> futures = new ArrayList<>(n_threads);
+		int shard, begin, gap = getShardSize(), size = getInstanceSize();
+		
+		for (shard=0; shard<n_threads; shard++)
+		{
+			begin = Math.min(shard * gap, size);
+			trainers[shard] = copy();
+			futures.add(executor.submit(new MixingTask(trainers[shard], begin, Math.min(begin + gap, size))));
+		}
+		
+		awaitTermination(executor, futures);
+		mix(trainers);
+	}
+	
+	class MixingTask implements Runnable
+	{
+		AbstractOnlineTrainer t_trainer;
+		int i_begin;
+		int i_end;
+		
+		public MixingTask(AbstractOnlineTrainer trainer, int beginIndex, int endIndex)
+		{
+			t_trainer = trainer;
+			i_begin   = beginIndex;
+			i_end     = endIndex;
+		}
+		
+		public void run()
+		{
+			t_trainer.train(i_begin, i_end);
+		}
+	}
+	
+	/**
+	 * Called by {@link #trainMixing()}; subclasses must also copy their training states that get updated by {@link #update(IntInstance, int)}.
+	 * @return a copy of this trainer sharing the instances, whose weights are independent from this trainer.
+	 */
+	protected AbstractOnlineTrainer copy()
+	{
+		try
+		{
+			AbstractOnlineTrainer trainer = (AbstractOnlineTrainer)super.clone();
+			trainer.w_vector = w_vector.clone();
+			if (average()) trainer.d_average = new double[d_average.length];
+			return trainer;
+		}
+		catch (CloneNotSupportedException e) {throw new IllegalStateException(e);}
+	}
+	
+	/**
+	 * Called by {@link #trainMixing()}; sets the weights of this trainer to the average weights of the specific trainers.
+	 * @param trainers the {@link #copy() copies} of this trainer, each of which is trained on its own shard.
+	 */
+	protected void mix(AbstractOnlineTrainer[] trainers)
+	{
+		int i, size = w_vector.size();
+		double sum;
+		
+		for (i=0; i<size; i++)
+		{
+			sum = 0;
+			for (AbstractOnlineTrainer trainer : trainers) sum += trainer.w_vector.get(i);
+			w_vector.set(i, (float)(sum / trainers.length));
+		}
+	}
+	
+//	====================================== Utilities ======================================
+	
+	private int getShardSize()
+	{
+		return (int)Math.ceil((double)getInstanceSize() / n_threads);
+	}
+	
+	/**
+	 * Waits until all the specific tasks are done.
+	 * @throws IllegalStateException if any task fails or this thread is interrupted, in which case the weights must not be used.
+	 */
+	private void awaitTermination(ExecutorService executor, List<Future<?>> futures)
+	{
+		executor.shutdown();
+		
+		try
+		{
+			for (Future<?> future : futures) future.get();
+		}
+		catch (ExecutionException e)
+		{
+			throw new IllegalStateException("Failed to train a shard of the instances", e.getCause());
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while training", e);
+		}
+		finally
+		{
+			executor.shutdownNow();
+		}
 	}
 	
 	protected boolean average()
@@ -15,9 +15,8 @@
  */
 package edu.emory.clir.clearnlp.classification.trainer;
 
-import java.util.List;
-
 import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
@@ -30,7 +29,7 @@ abstract public class AbstractTrainer
 {
 	protected final int RANDOM_SEED = 5; 
 	protected final TrainerType t_type;
-	protected List<IntInstance> l_instances;
+	protected IntInstanceStore l_instances;
 	volatile protected AbstractWeightVector w_vector;
 
 	public AbstractTrainer(TrainerType type, SparseModel model)
@@ -82,6 +81,18 @@ abstract public class AbstractTrainer
 		return l_instances.get(index);
 	}
 	
+	/** @return a view for {@link #getInstance(int, IntInstance)}, which must not be shared across threads. */
+	protected IntInstance createInstanceView()
+	{
+		return l_instances.createView();
+	}
+	
+	/** Same as {@link #getInstance(int)} but repositions the specific view instead of creating a new instance. */
+	protected IntInstance getInstance(int index, IntInstance view)
+	{
+		return l_instances.get(index, view);
+	}
+	
 	public TrainerType getTrainerType()
 	{
 		return t_type;
@@ -17,6 +17,7 @@ package edu.emory.clir.clearnlp.classification.trainer;
 
 import java.util.Random;
 
+import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
@@ -69,6 +70,7 @@ public class LiblinearL2LR extends AbstractLiblinear
 		
 		int i, s, iter, iter_newton, iter_inner, ind1, ind2, sign;
 		SparseFeatureVector xi;
+		IntInstance view = createInstanceView();
 		byte yi;
 		
 		int []   index = DSUtils.range(N);
@@ -81,7 +83,7 @@ public class LiblinearL2LR extends AbstractLiblinear
 			alpha[2*i+1] = d_cost - alpha_pre;
 
 			d  = aY[i] * alpha[2*i];
-			xi = getInstance(i).getFeatureVector();
+			xi = getInstance(i, view).getFeatureVector();
 			if (d != 0) update(weight, xi, d_bias, d);
 		}
 		
@@ -94,7 +96,7 @@ public class LiblinearL2LR extends AbstractLiblinear
 			{
 				i  = index[s];
 				yi = aY[i];
-				xi = getInstance(i).getFeatureVector();
+				xi = getInstance(i, view).getFeatureVector();
 				G  = getScore(weight, xi, d_bias) * yi;
  				qd = QD[i];
  				
@@ -17,6 +17,7 @@ package edu.emory.clir.clearnlp.classification.trainer;
 
 import java.util.Random;
 
+import edu.emory.clir.clearnlp.classification.instance.IntInstance;
 import edu.emory.clir.clearnlp.classification.model.SparseModel;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
@@ -67,6 +68,7 @@ public class LiblinearL2SVM extends AbstractLiblinear
 		
 		int i, s, iter, active_size = N;
 		SparseFeatureVector xi;
+		IntInstance view = createInstanceView();
 		byte yi;
 		
 		int []   index = DSUtils.range(N);
@@ -83,7 +85,7 @@ public class LiblinearL2SVM extends AbstractLiblinear
 			{
 				i  = index[s];
 				yi = aY[i];
-				xi = getInstance(i).getFeatureVector();
+				xi = getInstance(i, view).getFeatureVector();
 				G  = getScore(weight, xi, d_bias) * yi - 1;
 				
 				if (alpha[i] == 0)
@@ -0,0 +1,219 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
+
+/**
+ * Weight vector for decode whose weights are read through {@link #get(int)} in the layout of {@link BinaryWeightVector} or {@link MultiWeightVector}.
+ * Scores are accumulated in the same order as those vectors, and all methods modifying the weights throw {@link UnsupportedOperationException}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+abstract public class AbstractReadOnlyWeightVector extends AbstractWeightVector
+{
+	private static final long serialVersionUID = 4467309914287370151L;
+	
+	public AbstractReadOnlyWeightVector(boolean binary, int labelSize, int featureSize)
+	{
+		super(binary);
+		n_labels   = labelSize;
+		n_features = featureSize;
+	}
+	
+	@Override
+	abstract public float get(int weightIndex);
+	
+	@Override
+	abstract public int size();
+
+//	====================================== WEIGHTS ======================================
+	
+	@Override
+	public boolean isEmpty()
+	{
+		return size() == 0;
+	}
+	
+	@Override
+	public FloatArrayList cloneWeights()
+	{
+		int i, size = size();
+		FloatArrayList list = new FloatArrayList(size);
+		
+		for (i=0; i<size; i++)
+			list.add(get(i));
+		
+		return list;
+	}
+	
+	@Override
+	public float[] getWeights(int labelIndex)
+	{
+		float[] weights = new float[n_features];
+		int i;
+		
+		if (b_binary)
+		{
+			float inv = (labelIndex == BinaryWeightVector.POSITIVE) ? 1 : -1;
+			for (i=0; i<n_features; i++) weights[i] = get(i) * inv;
+		}
+		else
+		{
+			for (i=0; i<n_features; i++) weights[i] = get(getWeightIndex(labelIndex, i));
+		}
+		
+		return weights;
+	}
+	
+	@Override
+	public int getWeightIndex(int labelIndex, int featureIndex)
+	{
+		return b_binary ? featureIndex : featureIndex * n_labels + labelIndex;
+	}
+
+//	====================================== SCORES ======================================
+	
+	@Override
+	public double[] getScores(SparseFeatureVector x)
+	{
+		double[] scores = new double[getScoreSize()];
+		getScores(x, scores);
+		return scores;
+	}
+	
+	@Override
+	public double[] getScores(SparseFeatureVector x, int[] include)
+	{
+		double[] scores = new double[getScoreSize()];
+		getScores(x, include, scores);
+		return scores;
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		int i, j, offset, index, len = x.size();
+		double weight, score;
+		
+		if (b_binary)
+		{
+			score = get(0);
+			
+			for (i=0; i<len; i++)
+			{
+				index = x.getIndex(i);
+				if (isValidFeatureIndex(index)) score += get(index) * x.getWeight(i);
+			}
+			
+			scores[BinaryWeightVector.POSITIVE] =  score;
+			scores[BinaryWeightVector.NEGATIVE] = -score;
+			return;
+		}
+		
+		for (j=0; j<n_labels; j++)
+			scores[j] = get(j);
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			if (!isValidFeatureIndex(index)) continue;
+			offset = index * n_labels;
+			weight = x.getWeight(i);
+			
+			for (j=0; j<n_labels; j++)
+				scores[j] += get(offset+j) * weight;
+		}
+	}
+	
+	/** Scores of the labels not in {@code indices} are undefined. */
+	@Override
+	public void getScores(SparseFeatureVector x, int[] indices, double[] scores)
+	{
+		if (b_binary)
+		{
+			getScores(x, scores);
+			return;
+		}
+		
+		int i, index, len = x.size();
+		double score;
+		
+		for (int k : indices)
+		{
+			score = get(k);
+			
+			for (i=0; i<len; i++)
+			{
+				index = x.getIndex(i);
+				if (isValidFeatureIndex(index)) score += get(index*n_labels+k) * x.getWeight(i);
+			}
+			
+			scores[k] = score;
+		}
+	}
+
+//	====================================== UNSUPPORTED ======================================
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void expand(int labelSize, int featureSize)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void setWeights(int labelIndex, float[] weights)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void setWeights(FloatArrayList weights)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void set(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void set(double[] array)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void add(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+	
+	/** @throws UnsupportedOperationException always. */
+	@Override
+	public void multiply(int weightIndex, float value)
+	{
+		throw new UnsupportedOperationException("Read-only weight vectors cannot be modified.");
+	}
+}
\ No newline at end of file
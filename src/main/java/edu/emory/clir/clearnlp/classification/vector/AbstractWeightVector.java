@@ -24,7 +24,7 @@ import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
-abstract public class AbstractWeightVector implements Serializable
+abstract public class AbstractWeightVector implements Serializable, Cloneable
 {
 	private static final long serialVersionUID = -5894588398786815810L;
 	
@@ -55,6 +55,16 @@ abstract public class AbstractWeightVector implements Serializable
 	 * @return the array of scores of all labels given the feature vector.
 	 */
 	abstract public double[] getScores(SparseFeatureVector x, int[] include);
+	/**
+	 * Same as {@link #getScores(SparseFeatureVector)} but writes the scores to the specific array instead of allocating a new one.
+	 * @param scores the array of size {@link #getScoreSize()}, whose values get overwritten.
+	 */
+	abstract public void getScores(SparseFeatureVector x, double[] scores);
+	/**
+	 * Same as {@link #getScores(SparseFeatureVector, int[])} but writes the scores to the specific array instead of allocating a new one.
+	 * @param scores the array of size {@link #getScoreSize()}, whose values get overwritten.
+	 */
+	abstract public void getScores(SparseFeatureVector x, int[] include, double[] scores);
 	/**
 	 * @return the index of the weight vector given the label and feature indices.
 	 * If this is a binary model, returns the {@code featureIndex}.
@@ -80,6 +90,12 @@ abstract public class AbstractWeightVector implements Serializable
 		return b_binary;
 	}
 	
+	/** @return the size of the score array returned by {@link #getScores(SparseFeatureVector)}. */
+	public int getScoreSize()
+	{
+		return b_binary ? 2 : n_labels;
+	}
+	
 	public float get(int weightIndex)
 	{
 		return f_weights.get(weightIndex);
@@ -140,6 +156,19 @@ abstract public class AbstractWeightVector implements Serializable
 		f_weights = weights;
 	}
 	
+	/** @return a copy of this vector whose weights are independent from the weights of this vector. */
+	@Override
+	public AbstractWeightVector clone()
+	{
+		try
+		{
+			AbstractWeightVector vector = (AbstractWeightVector)super.clone();
+			vector.setWeights(cloneWeights());
+			return vector;
+		}
+		catch (CloneNotSupportedException e) {throw new IllegalStateException(e);}
+	}
+	
 	public double[] getScores(SparseFeatureVector x, boolean normalize)
 	{
 		double[] scores = getScores(x);
@@ -0,0 +1,139 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import java.io.ObjectStreamException;
+
+import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
+
+/**
+ * Multi-class weight vector for decode that scores directly from the backing array of {@link MultiWeightVector}.
+ * Weights of all labels for each feature are contiguous in the array, so scoring adds one row per feature in a loop
+ * that the JIT can unroll and vectorize; scores are accumulated in the same order as {@link MultiWeightVector},
+ * so both vectors give identical scores. The vector cannot be expanded, and is serialized as {@link MultiWeightVector}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ArrayMultiWeightVector extends MultiWeightVector
+{
+	private static final long serialVersionUID = 2398591657014326412L;
+	/** Restricted labels fewer than this ratio of all labels are scored one label at a time. */
+	private static final double SPARSE_LABEL_RATIO = 0.5;
+	/** The backing array of {@link #f_weights}, where {@code w_array[feature * n_labels + label]} is a weight. */
+	private transient float[] w_array;
+	
+	/** Shares the weights of the specific vector, which must not be expanded afterwards. */
+	public ArrayMultiWeightVector(MultiWeightVector vector)
+	{
+		f_weights  = vector.f_weights;
+		n_labels   = vector.n_labels;
+		n_features = vector.n_features;
+		
+		f_weights.trimToSize();
+		w_array = f_weights.buffer;
+	}
+	
+	private Object writeReplace() throws ObjectStreamException
+	{
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.f_weights  = f_weights;
+		vector.n_labels   = n_labels;
+		vector.n_features = n_features;
+		return vector;
+	}
+	
+	@Override
+	public void reset()
+	{
+		super.reset();
+		w_array = f_weights.buffer;
+	}
+	
+	@Override
+	public void setWeights(FloatArrayList weights)
+	{
+		super.setWeights(weights);
+		w_array = f_weights.buffer;
+	}
+	
+	/** @throws UnsupportedOperationException always; train with {@link MultiWeightVector} instead. */
+	@Override
+	public void expand(int labelSize, int featureSize)
+	{
+		throw new UnsupportedOperationException("Array weight vectors cannot be expanded.");
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
+		final float[] w = w_array;
+		final int labels = n_labels;
+		int i, j, offset, index, len = x.size();
+		double weight;
+		
+		for (j=0; j<labels; j++)
+			scores[j] = w[j];
+		
+		for (i=0; i<len; i++)
+		{
+			index = x.getIndex(i);
+			if (!isValidFeatureIndex(index)) continue;
+			offset = index * labels;
+			
+			if (x.hasWeight())
+			{
+				weight = x.getWeight(i);
+				for (j=0; j<labels; j++) scores[j] += w[offset+j] * weight;
+			}
+			else
+			{
+				for (j=0; j<labels; j++) scores[j] += w[offset+j];
+			}
+		}
+	}
+	
+	/**
+	 * Scores of the labels not in {@code indices} are undefined.
+	 * If most labels are included, all labels are scored row by row; otherwise, each included label is scored with the features in turn.
+	 */
+	@Override
+	public void getScores(SparseFeatureVector x, int[] indices, double[] scores)
+	{
+		if (indices.length >= n_labels * SPARSE_LABEL_RATIO)
+		{
+			getScores(x, scores);
+			return;
+		}
+		
+		final float[] w = w_array;
+		final int labels = n_labels;
+		int i, index, len = x.size();
+		double score;
+		
+		for (int k : indices)
+		{
+			score = w[k];
+			
+			for (i=0; i<len; i++)
+			{
+				index = x.getIndex(i);
+				if (isValidFeatureIndex(index)) score += w[index*labels+k] * x.getWeight(i);
+			}
+			
+			scores[k] = score;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import java.io.ObjectStreamException;
+import java.nio.FloatBuffer;
+
+/**
+ * Read-only weight vector whose weights are read from a buffer (e.g., a memory-mapped file) in the layout of
+ * {@link BinaryWeightVector} or {@link MultiWeightVector}, so the weights are never loaded into the heap.
+ * The vector is serialized as {@link BinaryWeightVector} or {@link MultiWeightVector} with the weights copied.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedWeightVector extends AbstractReadOnlyWeightVector
+{
+	private static final long serialVersionUID = -6914315946071329436L;
+	private transient FloatBuffer w_buffer;
+	
+	/** @param weights the weights in the layout of {@link BinaryWeightVector} if {@code binary}; otherwise, {@link MultiWeightVector}. */
+	public MappedWeightVector(boolean binary, int labelSize, int featureSize, FloatBuffer weights)
+	{
+		super(binary, labelSize, featureSize);
+		w_buffer = weights;
+	}
+	
+	private Object writeReplace() throws ObjectStreamException
+	{
+		AbstractWeightVector vector = b_binary ? new BinaryWeightVector() : new MultiWeightVector();
+		vector.f_weights  = cloneWeights();
+		vector.n_labels   = n_labels;
+		vector.n_features = n_features;
+		return vector;
+	}
+	
+	@Override
+	public float get(int weightIndex)
+	{
+		return w_buffer.get(weightIndex);
+	}
+	
+	@Override
+	public int size()
+	{
+		return w_buffer.limit();
+	}
+}
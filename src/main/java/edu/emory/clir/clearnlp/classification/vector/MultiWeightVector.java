@@ -76,10 +76,28 @@ public class MultiWeightVector extends AbstractWeightVector implements Serializa
 	@Override
 	public double[] getScores(SparseFeatureVector x)
 	{
-		double[] scores = f_weights.toDoubleArray(0, n_labels);
+		double[] scores = new double[n_labels];
+		getScores(x, scores);
+		return scores;
+	}
+	
+	@Override
+	public double[] getScores(SparseFeatureVector x, int[] include)
+	{
+		double[] scores = new double[n_labels];
+		getScores(x, include, scores);
+		return scores;
+	}
+	
+	@Override
+	public void getScores(SparseFeatureVector x, double[] scores)
+	{
 		int i, j, index, len = x.size();
 		double weight;
 		
+		for (j=0; j<n_labels; j++)
+			scores[j] = get(j);
+		
 		for (i=0; i<len; i++)
 		{
 			index = x.getIndex(i);
@@ -93,25 +111,16 @@ public class MultiWeightVector extends AbstractWeightVector implements Serializa
 					scores[j] += get(index+j) * weight;
 			}
 		}
-		
-		return scores;
 	}
 	
 	@Override
-	public double[] getScores(SparseFeatureVector x, int[] indices)
+	public void getScores(SparseFeatureVector x, int[] indices, double[] scores)
 	{
-		double[] scores = f_weights.toDoubleArray(0, n_labels);
-		int i = 0, index, len = x.size();
+		int i, j, index, len = x.size();
 		double weight;
 		
-//		for (int j : include)
-//		{
-//			for (; i<j; i++) scores[i] = MathUtils.DOUBLE_NEGATIVE_MIN;
-//			i = j+1;
-//		}
-//		
-//		for (; i<n_labels; i++)
-//			scores[i] = MathUtils.DOUBLE_NEGATIVE_MIN;
+		for (j=0; j<n_labels; j++)
+			scores[j] = get(j);
 		
 		for (i=0; i<len; i++)
 		{
@@ -122,12 +131,10 @@ public class MultiWeightVector extends AbstractWeightVector implements Serializa
 				index  = getWeightIndex(index);
 				weight = x.getWeight(i);
 				
-				for (int j : indices)
-					scores[j] += get(index+j) * weight;
+				for (int k : indices)
+					scores[k] += get(index+k) * weight;
 			}
 		}
-		
-		return scores;
 	}
 	
 	@Override
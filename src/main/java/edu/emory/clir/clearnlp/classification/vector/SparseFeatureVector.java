@@ -39,6 +39,13 @@ public class SparseFeatureVector extends AbstractFeatureVector
 		init();
 	}
 	
+	/** Creates a vector without its own features for subclasses that override the accessors (e.g., {@link #getIndex(int)}, {@link #size()}). */
+	protected SparseFeatureVector(IntArrayList indices)
+	{
+		super(false);
+		i_indices = indices;
+	}
+	
 	private void init()
 	{
 		i_indices = new IntArrayList();
@@ -61,6 +68,13 @@ public class SparseFeatureVector extends AbstractFeatureVector
 		d_weights.add(weight);
 	}
 	
+	/** Removes all features from this vector so it can be reused. */
+	public void clear()
+	{
+		i_indices.clear();
+		if (hasWeight()) d_weights.clear();
+	}
+	
 	/** @return the index'th feature index. */
 	public int getIndex(int index)
 	{
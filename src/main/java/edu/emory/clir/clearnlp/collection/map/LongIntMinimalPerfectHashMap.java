@@ -0,0 +1,195 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.collection.map;
+
+import java.util.Arrays;
+
+import edu.emory.clir.clearnlp.util.MathUtils;
+
+/**
+ * Read-only map from long keys to non-negative integer values using the same hash-and-displace scheme as {@link StringIntMinimalPerfectHashMap}.
+ * Keys are not stored; each slot keeps the value and a 32-bit fingerprint of its key, so a key not in the map is rejected
+ * unless its fingerprint collides with the key in its slot (a probability of 2<sup>-32</sup>).
+ * Keys are expected to be hash values themselves (e.g., FNV-1a), whose upper 32 bits serve as their fingerprints.
+ * The map takes about 11 bytes per key, whereas an open-addressing hash map of long keys and integer values takes 16 to 32 bytes.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LongIntMinimalPerfectHashMap
+{
+	private int[]  g_hashes;
+	/** The fingerprint of the key in the upper 32 bits and its value in the lower 32 bits of each slot; {@code -1} if empty. */
+	private long[] g_slots;
+	private int    n_size;
+	
+	/**
+	 * @param keys the distinct keys.
+	 * @param values the non-negative value of each key.
+	 * @throws IllegalArgumentException if any key is duplicated or any value is negative.
+	 */
+	public LongIntMinimalPerfectHashMap(long[] keys, int[] values)
+	{
+		n_size = keys.length;
+		initHashFunction(keys, values);
+	}
+	
+	private void initHashFunction(long[] keys, int[] values)
+	{
+		int vsize = (int)MathUtils.nextPrimeNumber((int)(1.25 * keys.length) + 1);
+		int hsize = Math.max(1, vsize / 5);
+		int[] hashes = new int[hsize];
+		int[] slots  = new int[vsize];
+		int i, j, b, d, len, slot;
+		
+		// group the keys by their buckets, where bucket b has keys[order[begin[b]]], ..., keys[order[begin[b+1]-1]]
+		int[] begin = new int[hsize+1];
+		int[] order = new int[keys.length];
+		
+		for (long key : keys) begin[hash(key, 0, hsize)+1]++;
+		for (b=0; b<hsize; b++) begin[b+1] += begin[b];
+		int[] fill = Arrays.copyOf(begin, hsize);
+		for (i=0; i<keys.length; i++) order[fill[hash(keys[i], 0, hsize)]++] = i;
+		
+		// process buckets in descending order of their sizes
+		int[] buckets = getBucketsInDescendingOrder(begin, hsize);
+		int[] current = new int[maxBucketSize(begin, hsize)];
+		Arrays.fill(slots, -1);
+		
+		// |bucket| > 1: search for the displacement that puts all keys in the bucket to empty slots
+		for (i=0; i<hsize; i++)
+		{
+			b = buckets[i];
+			len = begin[b+1] - begin[b];
+			if (len <= 1) break;
+			checkDuplicates(keys, order, begin[b], begin[b+1]);
+			
+			for (d=1; ; d++)
+			{
+				for (j=0; j<len; j++)
+				{
+					slot = hash(keys[order[begin[b]+j]], d, vsize);
+					if (slots[slot] != -1 || contains(current, j, slot)) break;
+					current[j] = slot;
+				}
+				
+				if (j == len) break;
+			}
+			
+			hashes[b] = d;
+			for (j=0; j<len; j++) slots[current[j]] = order[begin[b]+j];
+		}
+		
+		// |bucket| == 1: put the key to the next empty slot and save the slot as a negative displacement
+		for (slot=0; i<hsize; i++)
+		{
+			b = buckets[i];
+			if (begin[b+1] == begin[b]) break;
+			while (slots[slot] != -1) slot++;
+			hashes[b] = -slot-1;
+			slots[slot] = order[begin[b]];
+		}
+		
+		g_hashes = hashes;
+		g_slots  = new long[vsize];
+		Arrays.fill(g_slots, -1);
+		
+		for (i=0; i<vsize; i++)
+		{
+			if ((j = slots[i]) < 0) continue;
+			if (values[j] < 0) throw new IllegalArgumentException("Negative value: "+values[j]);
+			g_slots[i] = ((long)fingerprint(keys[j]) << 32) | values[j];
+		}
+	}
+	
+	/** @return the value of the specific key if exists; otherwise, {@code -1}. */
+	public int get(long key)
+	{
+		int d = g_hashes[hash(key, 0, g_hashes.length)];
+		long slot = g_slots[(d < 0) ? -d-1 : hash(key, d, g_slots.length)];
+		return (slot != -1 && (int)(slot >>> 32) == fingerprint(key)) ? (int)slot : -1;
+	}
+	
+	/** @return the number of keys in this map. */
+	public int size()
+	{
+		return n_size;
+	}
+	
+	/** @return the number of bytes taken by the arrays of this map. */
+	public long getMemorySize()
+	{
+		return 4L * g_hashes.length + 8L * g_slots.length;
+	}
+	
+	/** Called by {@link #initHashFunction(long[], int[])}. */
+	private int[] getBucketsInDescendingOrder(int[] begin, int hsize)
+	{
+		int max = maxBucketSize(begin, hsize);
+		int[] count    = new int[max+1];
+		int[] position = new int[max+1];
+		int[] buckets  = new int[hsize];
+		int b, size;
+		
+		// position[size] = the number of buckets larger than the size
+		for (b=0; b<hsize; b++) count[begin[b+1]-begin[b]]++;
+		for (size=max-1; size>=0; size--) position[size] = position[size+1] + count[size+1];
+		for (b=0; b<hsize; b++) buckets[position[begin[b+1]-begin[b]]++] = b;
+		
+		return buckets;
+	}
+	
+	/** Called by {@link #initHashFunction(long[], int[])}. */
+	private int maxBucketSize(int[] begin, int hsize)
+	{
+		int b, max = 0;
+		for (b=0; b<hsize; b++) max = Math.max(max, begin[b+1]-begin[b]);
+		return max;
+	}
+	
+	/** Called by {@link #initHashFunction(long[], int[])}; duplicated keys in a bucket would never find their displacement. */
+	private void checkDuplicates(long[] keys, int[] order, int begin, int end)
+	{
+		int i, j;
+		
+		for (i=begin; i<end; i++)
+			for (j=i+1; j<end; j++)
+				if (keys[order[i]] == keys[order[j]]) throw new IllegalArgumentException("Duplicated key: "+keys[order[i]]);
+	}
+	
+	/** Called by {@link #initHashFunction(long[], int[])}. */
+	private boolean contains(int[] array, int size, int value)
+	{
+		for (int i=0; i<size; i++)
+			if (array[i] == value) return true;
+		
+		return false;
+	}
+	
+	/** @return the slot of the specific key given the displacement in [0, size). */
+	private int hash(long key, int d, int size)
+	{
+		long h = key + d * 0x9e3779b97f4a7c15L;
+		h = (h ^ (h >>> 33)) * 0xff51afd7ed558ccdL;
+		h = (h ^ (h >>> 33)) * 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return (int)(((h >>> 32) * size) >>> 32);
+	}
+	
+	private int fingerprint(long key)
+	{
+		return (int)(key >>> 32);
+	}
+}
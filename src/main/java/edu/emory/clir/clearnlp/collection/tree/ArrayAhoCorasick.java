@@ -0,0 +1,498 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.collection.tree;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.io.Serializable;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
+import java.util.function.Function;
+
+import edu.emory.clir.clearnlp.collection.list.IntArrayList;
+import edu.emory.clir.clearnlp.collection.triple.ObjectIntIntTriple;
+import edu.emory.clir.clearnlp.util.HashUtils;
+
+/**
+ * Aho-Corasick automaton compiled from a {@link PrefixTree}, which finds the matches of all keys in one pass over the tokens.
+ * The tokens are interned to integer IDs and the transitions are kept in a double-array trie, where the child of a state {@code s}
+ * with a token ID {@code t} is in the slot {@code base[s] + t} if {@code check[base[s] + t] == s}; no map is created per state.
+ * All states are kept in one integer buffer and the tokens in one long buffer, so the automaton can be {@link #save(String) saved}
+ * to a file that is {@link #map(String) memory-mapped} instead of being deserialized. The values are shared by states
+ * whose values have the same key (see {@link #ArrayAhoCorasick(PrefixTree, Function)}) and kept in a small side table.
+ * The automaton is immutable; changes to the prefix tree after compilation are not reflected.
+ * <pre>
+ * file  : int magic, int version, int number of states, int number of tokens, int number of slots, int length of the values, (8 bytes)
+ *         serialized values, tokens (long[]), states (int[] of 6 fields per slot), where every array starts at a multiple of 8 bytes
+ * </pre>
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ArrayAhoCorasick<V> implements Serializable
+{
+	private static final long serialVersionUID = -3470866720442632918L;
+	static public final int MAGIC   = 0x434E4C44;
+	static public final int VERSION = 1;
+	static private final int HEADER = 32, ALIGN = 8;
+	static private final int ROOT = 0;
+	static private final int BASE = 0, CHECK = 1, FAILURE = 2, OUTPUT = 3, DEPTH = 4, VALUE = 5, STRIDE = 6;
+	/** The sorted 64-bit hash values of the tokens, where the ID of each token is its position + 1; ID 0 is for tokens not in the automaton. */
+	private transient LongBuffer b_tokens;
+	/**
+	 * The fields of the state in each slot of the double array: the base of its children, the slot of its parent (-1 if empty),
+	 * the slot of its longest proper suffix, the slot of its longest proper suffix with a value ({@link #ROOT} if none),
+	 * the number of tokens from the root, and the index of its value in {@link #v_values} (0 if none).
+	 */
+	private transient IntBuffer b_states;
+	/** The distinct values, where the first one is {@code null}. */
+	private Object[] v_values;
+	private int n_states;
+	
+	/** Compiles the specific tree, where each value is shared only by the states that have the same value object. */
+	public ArrayAhoCorasick(PrefixTree<String,V> tree)
+	{
+		this(tree, Function.identity());
+	}
+	
+	/**
+	 * Compiles the specific tree, where states whose values have the same key share the value of the first state in the breadth-first order.
+	 * @param key the key of each value (e.g., its content, so equal values are stored once).
+	 * @throws IllegalArgumentException if two tokens have the same 64-bit hash value.
+	 */
+	public ArrayAhoCorasick(PrefixTree<String,V> tree, Function<V,?> key)
+	{
+		List<PrefixNode<String,V>> nodes = new ArrayList<>();
+		IntArrayList slots = new IntArrayList();
+		
+		initTokens(tree.getRoot());
+		initStates(tree.getRoot(), key, nodes, slots);
+		initFailures(nodes, slots);
+	}
+	
+	private ArrayAhoCorasick(Object[] values, int stateSize, LongBuffer tokens, IntBuffer states)
+	{
+		v_values = values;
+		n_states = stateSize;
+		b_tokens = tokens;
+		b_states = states;
+	}
+
+//	====================================== INITIALIZATION ======================================
+	
+	private void initTokens(PrefixNode<String,V> root)
+	{
+		List<PrefixNode<String,V>> nodes = new ArrayList<>();
+		Set<String> tokens = new HashSet<>();
+		nodes.add(root);
+		
+		for (int i=0; i<nodes.size(); i++)
+		{
+			tokens.addAll(nodes.get(i).keySet());
+			nodes.addAll(nodes.get(i).values());
+		}
+		
+		long[] keys = tokens.stream().mapToLong(HashUtils::fnv1aHash64).sorted().toArray();
+		
+		for (int i=1; i<keys.length; i++)
+		{
+			if (keys[i-1] == keys[i])
+				throw new IllegalArgumentException("Two tokens have the same hash value: "+keys[i]);
+		}
+		
+		b_tokens = LongBuffer.wrap(keys);
+	}
+	
+	/** Places the states in the breadth-first order, where the children of each state take the first free slots that fit them all. */
+	private void initStates(PrefixNode<String,V> root, Function<V,?> key, List<PrefixNode<String,V>> nodes, IntArrayList slots)
+	{
+		Map<Object,Integer> valueIDs = new HashMap<>();
+		List<Object> values = new ArrayList<>();
+		int[] states = new int[STRIDE * 1024];
+		BitSet used = new BitSet();
+		List<PrefixNode<String,V>> children = new ArrayList<>();
+		int i, s, c, b, size = 1, free = 1;
+		long[] ids;
+		
+		Arrays.fill(states, -1);
+		setRoot(states);
+		values.add(null);
+		used.set(ROOT);
+		nodes.add(root);
+		slots.add(ROOT);
+		
+		for (i=0; i<nodes.size(); i++)
+		{
+			ids = getChildIDs(nodes.get(i), children);
+			if (ids.length == 0) continue;
+			s = slots.get(i);
+			b = getBase(used, ids, free);
+			states[s * STRIDE + BASE] = b;
+			
+			for (long id : ids)
+			{
+				c = b + (int)(id >>> 32);
+				used.set(c);
+				
+				if (c >= size)
+				{
+					size = c + 1;
+					if (size * STRIDE > states.length) states = grow(states, size * STRIDE);
+				}
+				
+				setState(states, c, s, states[s * STRIDE + DEPTH] + 1, getValueID(children.get((int)id).getValue(), key, valueIDs, values));
+				nodes.add(children.get((int)id));
+				slots.add(c);
+			}
+			
+			free = used.nextClearBit(free);
+		}
+		
+		n_states = nodes.size();
+		v_values = values.toArray();
+		b_states = IntBuffer.wrap(Arrays.copyOf(states, size * STRIDE));
+	}
+	
+	/** @return the token IDs of the children in ascending order, each of which is shifted by 32 bits and followed by the index of its child in {@code children}. */
+	private long[] getChildIDs(PrefixNode<String,V> node, List<PrefixNode<String,V>> children)
+	{
+		long[] ids = new long[node.size()];
+		int i = 0;
+		
+		children.clear();
+		
+		for (Entry<String,PrefixNode<String,V>> e : node.entrySet())
+		{
+			ids[i] = ((long)getTokenID(e.getKey()) << 32) | i;
+			children.add(e.getValue());
+			i++;
+		}
+		
+		Arrays.sort(ids);
+		return ids;
+	}
+	
+	/** @return the smallest base from the first free slot where all children fit. */
+	private int getBase(BitSet used, long[] ids, int free)
+	{
+		int first = (int)(ids[0] >>> 32), pos, b, i;
+		
+		for (pos=used.nextClearBit(Math.max(free, first)); ; pos=used.nextClearBit(pos+1))
+		{
+			b = pos - first;
+			
+			for (i=1; i<ids.length; i++)
+				if (used.get(b + (int)(ids[i] >>> 32))) break;
+			
+			if (i == ids.length) return b;
+		}
+	}
+	
+	private int getValueID(V value, Function<V,?> key, Map<Object,Integer> valueIDs, List<Object> values)
+	{
+		if (value == null) return 0;
+		Object k = key.apply(value);
+		Integer id = valueIDs.get(k);
+		
+		if (id == null)
+		{
+			id = values.size();
+			valueIDs.put(k, id);
+			values.add(value);
+		}
+		
+		return id;
+	}
+	
+	private void setRoot(int[] states)
+	{
+		setState(states, ROOT, -1, 0, 0);
+		states[ROOT * STRIDE + BASE]    = 0;
+		states[ROOT * STRIDE + FAILURE] = ROOT;
+		states[ROOT * STRIDE + OUTPUT]  = ROOT;
+	}
+	
+	private void setState(int[] states, int slot, int parent, int depth, int value)
+	{
+		slot *= STRIDE;
+		states[slot + BASE]  = 0;
+		states[slot + CHECK] = parent;
+		states[slot + DEPTH] = depth;
+		states[slot + VALUE] = value;
+	}
+	
+	private int[] grow(int[] states, int minSize)
+	{
+		int size = states.length;
+		states = Arrays.copyOf(states, Math.max(minSize, size * 2));
+		Arrays.fill(states, size, states.length, -1);
+		return states;
+	}
+	
+	/** States are visited in the breadth-first order so the failure and the output of every shallower state are set before. */
+	private void initFailures(List<PrefixNode<String,V>> nodes, IntArrayList slots)
+	{
+		int i, s, c, f, t, id;
+		
+		for (i=0; i<nodes.size(); i++)
+		{
+			s = slots.get(i);
+			
+			for (String token : nodes.get(i).keySet())
+			{
+				id = getTokenID(token);
+				c  = getChild(s, id);
+				
+				if (s == ROOT)
+					f = ROOT;
+				else
+				{
+					for (f=get(s, FAILURE); (t = getChild(f, id)) < 0 && f != ROOT; f=get(f, FAILURE));
+					if (t >= 0) f = t;
+				}
+				
+				b_states.put(c * STRIDE + FAILURE, f);
+				b_states.put(c * STRIDE + OUTPUT, (get(f, VALUE) != 0) ? f : get(f, OUTPUT));
+			}
+		}
+	}
+
+//	====================================== SERIALIZATION ======================================
+	
+	private void writeObject(ObjectOutputStream out) throws IOException
+	{
+		out.defaultWriteObject();
+		out.writeObject(toArray(b_tokens));
+		out.writeObject(toArray(b_states));
+	}
+	
+	private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException
+	{
+		in.defaultReadObject();
+		b_tokens = LongBuffer.wrap((long[])in.readObject());
+		b_states = IntBuffer.wrap((int[])in.readObject());
+	}
+	
+	static private long[] toArray(LongBuffer buffer)
+	{
+		long[] array = new long[buffer.limit()];
+		buffer.duplicate().get(array);
+		return array;
+	}
+	
+	static private int[] toArray(IntBuffer buffer)
+	{
+		int[] array = new int[buffer.limit()];
+		buffer.duplicate().get(array);
+		return array;
+	}
+
+//	====================================== MEMORY-MAPPING ======================================
+	
+	/** Saves this automaton to the specific path in the format that is {@link #map(String) memory-mapped}. */
+	public void save(String path) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream oout = new ObjectOutputStream(bout);
+		oout.writeObject(v_values);
+		oout.close();
+		
+		byte[] values = bout.toByteArray();
+		int i, tokenSize = b_tokens.limit(), stateSize = b_states.limit();
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(path), 1 << 16)))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(n_states);
+			out.writeInt(tokenSize);
+			out.writeInt(stateSize / STRIDE);
+			out.writeInt(values.length);
+			pad(out, HEADER - 24);
+			out.write(values);
+			pad(out, align(values.length) - values.length);
+			for (i=0; i<tokenSize; i++) out.writeLong(b_tokens.get(i));
+			for (i=0; i<stateSize; i++) out.writeInt(b_states.get(i));
+		}
+	}
+	
+	/** @return {@code true} if the specific path is a file {@link #save(String) saved} by this class. */
+	static public boolean isMappedFile(String path)
+	{
+		File file = new File(path);
+		if (!file.isFile() || file.length() < HEADER) return false;
+		
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+		{
+			return in.readInt() == MAGIC;
+		}
+		catch (IOException e) {return false;}
+	}
+	
+	/** @return the automaton whose tokens and states are memory-mapped from the file {@link #save(String) saved} in the specific path. */
+	@SuppressWarnings("unchecked")
+	static public <V>ArrayAhoCorasick<V> map(String path) throws IOException
+	{
+		try (RandomAccessFile file = new RandomAccessFile(path, "r"))
+		{
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = channel.map(MapMode.READ_ONLY, 0, HEADER);
+			
+			if (header.getInt() != MAGIC)	throw new IOException("Not a mapped dictionary file: "+path);
+			if (header.getInt() != VERSION)	throw new IOException("Unsupported version: "+path);
+			
+			int stateSize = header.getInt(), tokenSize = header.getInt(), slotSize = header.getInt(), valueLength = header.getInt();
+			byte[] values = new byte[valueLength];
+			channel.map(MapMode.READ_ONLY, HEADER, valueLength).get(values);
+			
+			long tokenOffset = HEADER + align(valueLength);
+			long stateOffset = tokenOffset + 8L * tokenSize;
+			LongBuffer tokens = map(channel, tokenOffset, 8L * tokenSize).asLongBuffer();
+			IntBuffer  states = map(channel, stateOffset, 4L * STRIDE * slotSize).asIntBuffer();
+			
+			try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(values)))
+			{
+				return new ArrayAhoCorasick<>((Object[])in.readObject(), stateSize, tokens, states);
+			}
+			catch (ClassNotFoundException e) {throw new IOException(e);}
+		}
+	}
+	
+	static private MappedByteBuffer map(FileChannel channel, long position, long length) throws IOException
+	{
+		if (length > Integer.MAX_VALUE) throw new IOException("The array is too large to be mapped: "+length+" bytes");
+		return channel.map(MapMode.READ_ONLY, position, length);
+	}
+	
+	/** Writes the specific number of zeros. */
+	static private void pad(DataOutputStream out, long size) throws IOException
+	{
+		for (; size > 0; size--) out.writeByte(0);
+	}
+	
+	static private long align(long offset)
+	{
+		return (offset + ALIGN - 1) / ALIGN * ALIGN;
+	}
+
+//	====================================== GETTERS ======================================
+	
+	/** @return the number of states including the root. */
+	public int size()
+	{
+		return n_states;
+	}
+	
+	/** @return the ID of the specific token if it is in any key; otherwise, {@code 0}. */
+	public int getTokenID(String token)
+	{
+		if (token == null) return 0;
+		long key = HashUtils.fnv1aHash64(token), k;
+		int mid, low = 0, high = b_tokens.limit() - 1;
+		
+		while (low <= high)
+		{
+			mid = (low + high) >>> 1;
+			k   = b_tokens.get(mid);
+			
+			if      (k < key)	low  = mid + 1;
+			else if (k > key)	high = mid - 1;
+			else				return mid + 1;
+		}
+		
+		return 0;
+	}
+	
+	private int get(int slot, int field)
+	{
+		return b_states.get(slot * STRIDE + field);
+	}
+	
+	/** @return the slot of the child of the specific state with the specific token ID if exists; otherwise, {@code -1}. */
+	private int getChild(int state, int tokenID)
+	{
+		int c = get(state, BASE) + tokenID;
+		return (c < b_states.limit() / STRIDE && get(c, CHECK) == state) ? c : -1;
+	}
+	
+	/** @return the state after reading the specific token ID from the specific state. */
+	private int next(int state, int tokenID)
+	{
+		if (tokenID == 0) return ROOT;
+		int t;
+		
+		while ((t = getChild(state, tokenID)) < 0)
+		{
+			if (state == ROOT) return ROOT;
+			state = get(state, FAILURE);
+		}
+		
+		return t;
+	}
+	
+	/**
+	 * Finds the same matches as {@link PrefixTree#getAll(Object[], int, Function, boolean, boolean)} in one pass,
+	 * where {@code f} is applied once per token instead of once per key lookup.
+	 */
+	@SuppressWarnings("unchecked")
+	public <A>List<ObjectIntIntTriple<V>> getAll(A[] array, int beginIndex, Function<A,String> f, boolean removeSubset, boolean removeOverlap)
+	{
+		List<ObjectIntIntTriple<V>> list = new ArrayList<>();
+		int i, s, state = ROOT, size = array.length;
+		if (beginIndex >= size) return list;
+		// the state of the longest match beginning at each index
+		int[] matches = new int[size];
+		
+		for (i=beginIndex; i<size; i++)
+		{
+			state = next(state, getTokenID(f.apply(array[i])));
+			
+			// every later match beginning at the same index is longer
+			for (s=(get(state, VALUE) != 0) ? state : get(state, OUTPUT); s!=ROOT; s=get(s, OUTPUT))
+				matches[i - get(s, DEPTH) + 1] = s;
+		}
+		
+		for (i=beginIndex; i<size; i++)
+		{
+			if ((s = matches[i]) != ROOT)
+				PrefixTree.addMatch(list, (V)v_values[get(s, VALUE)], i, i + get(s, DEPTH) - 1, removeSubset, removeOverlap);
+		}
+		
+		return list;
+	}
+}
@@ -117,18 +117,26 @@ public class PrefixTree<K extends Comparable<K>,V> implements Serializable
 	private <A>void getAllAux(A[] keys, int beginIndex, Function<A,K> f, List<ObjectIntIntTriple<V>> list, boolean removeSubset, boolean removeOverlap)
 	{
 		ObjectIntPair<V> v = get(keys, beginIndex, f);
-		if (v == null) return;
+		if (v != null) addMatch(list, v.o, beginIndex, v.i, removeSubset, removeOverlap);
+	}
+	
+	/**
+	 * Adds the longest match starting at {@code beginIndex} to the list of matches sorted by their begin indices.
+	 * @param endIndex inclusive
+	 */
+	static <V>void addMatch(List<ObjectIntIntTriple<V>> list, V value, int beginIndex, int endIndex, boolean removeSubset, boolean removeOverlap)
+	{
 		ObjectIntIntTriple<V> t = DSUtils.getLast(list);
-		if (removeSubset  && t != null && t.i2 >= v.i) return;
+		if (removeSubset  && t != null && t.i2 >= endIndex) return;
 		
 		if (removeOverlap && t != null && t.i2 >= beginIndex)
 		{
-			if (t.i2 - t.i1 < v.i - beginIndex)
+			if (t.i2 - t.i1 < endIndex - beginIndex)
 				DSUtils.removeLast(list);
 			else
 				return;
 		}
 		
-		list.add(new ObjectIntIntTriple<V>(v.o, beginIndex, v.i));
+		list.add(new ObjectIntIntTriple<V>(value, beginIndex, endIndex));
 	}
 }
@@ -30,20 +30,29 @@ import org.tukaani.xz.XZInputStream;
 import org.tukaani.xz.XZOutputStream;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractOnlineTrainer;
 import edu.emory.clir.clearnlp.classification.trainer.AdaGradSVM;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.configuration.AbstractConfiguration;
 import edu.emory.clir.clearnlp.component.evaluation.AbstractEval;
 import edu.emory.clir.clearnlp.component.state.AbstractState;
 import edu.emory.clir.clearnlp.component.utils.CFlag;
+import edu.emory.clir.clearnlp.component.utils.DecodeContext;
+import edu.emory.clir.clearnlp.component.utils.MappedModelFile;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
 import edu.emory.clir.clearnlp.feature.AbstractFeatureExtractor;
 
 
 
 /**
+ * Once loaded for decode and {@link #freeze() frozen}, a component is a read-only view of its models, feature extractors, and lexicons,
+ * and {@link #process(DEPTree)} can be called by multiple threads on the same instance as long as each thread processes different trees.
+ * All mutable state of a call lives either in the state created for the tree or in the {@link DecodeContext} owned by the calling thread.
+ * Components in the other modes (collect, train, bootstrap, evaluate) keep shared instances and counts, and must be confined to one thread,
+ * except that training instances can be generated by multiple threads using {@link #collectInstances(List)}.
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
@@ -55,6 +64,11 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	protected EvalType      c_eval;
 	protected CFlag         c_flag;
 	
+	private final ThreadLocal<DecodeContext> t_context = ThreadLocal.withInitial(this::createDecodeContext);
+	/** The training instances of each model generated by the current thread in {@link #collectInstances(List)}. */
+	private final ThreadLocal<List<List<StringInstance>>> t_instances = new ThreadLocal<>();
+	private volatile boolean b_frozen;
+	
 	public AbstractStatisticalComponent() {}
 	
 	/** Constructs a statistical component for collect. */
@@ -119,6 +133,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected void initDecode(ObjectInputStream in)
 	{
+		checkMutable();
 		setFlag(CFlag.DECODE);
 		
 		try
@@ -142,6 +157,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setConfiguration(ConfigurationType configuration)
 	{
+		checkMutable();
 		t_configuration = configuration;
 	}
 	
@@ -149,11 +165,13 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 
 	/**
 	 * Loads all models and objects of this component.
+	 * If the specific stream is from {@link MappedModelFile#open(String)}, the mapped models are used.
 	 * @throws Exception
 	 */
 	@SuppressWarnings("unchecked")
 	public void load(ObjectInputStream in) throws Exception
 	{
+		checkMutable();
 		setFeatureExtractors((FeatureType[])in.readObject());
 		setLexicons(in.readObject());
 		setModels(loadModels(in));
@@ -172,6 +190,9 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	private StringModel[] loadModels(ObjectInputStream in) throws Exception
 	{
+		if (in instanceof MappedModelFile.ModelInputStream)
+			return ((MappedModelFile.ModelInputStream)in).getModels();
+		
 		int i, len = in.readInt();
 		StringModel[] models = new StringModel[len];
 		
@@ -209,6 +230,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void byteArrayToModels(byte[] bytes) throws Exception
 	{
+		checkMutable();
 		ObjectInputStream oin = new ObjectInputStream(new XZInputStream(new BufferedInputStream(new ByteArrayInputStream(bytes))));
 		for (StringModel model : s_models) model.load(oin);
 		oin.close();
@@ -231,6 +253,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setFeatureExtractors(FeatureType[] features)
 	{
+		checkMutable();
 		f_extractors = features;
 	}
 	
@@ -248,6 +271,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setModels(StringModel[] models)
 	{
+		checkMutable();
 		s_models = models;
 	}
 	
@@ -256,11 +280,12 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	protected List<StringInstance> process(StateType state)
 	{
 		List<StringInstance> instances = isTrainOrBootstrap() ? new ArrayList<>() : null;
+		CFlag flag = c_flag;
 		LabelType label;
 		
 		while (!state.isTerminate())
 		{
-			switch (c_flag)
+			switch (flag)
 			{
 			case TRAIN    : label = train(state, instances); break;
 			case BOOTSTRAP: label = bootstrap(state, instances); break;
@@ -291,12 +316,111 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected LabelType decode(StateType state)
 	{
-		StringFeatureVector vector = createStringFeatureVector(state);
+		SparseFeatureVector vector = createSparseFeatureVector(state);
 		return getAutoLabel(state, vector);
 	}
 	
+	protected LabelType getAutoLabel(StateType state, StringFeatureVector vector)
+	{
+		return getAutoLabel(state, s_models[getModelIndex(state)].toSparseFeatureVector(vector));
+	}
+	
+	/**
+	 * @return the sparse feature vector of the current state for the model returned by {@link #getModelIndex(AbstractState)}.
+	 * If the model is {@link #compile() compiled}, the vector is extracted without string features into the vector of the {@link DecodeContext},
+	 * which gets overwritten by the next call.
+	 */
+	protected SparseFeatureVector createSparseFeatureVector(StateType state)
+	{
+		StringModel model = s_models[getModelIndex(state)];
+		CompiledFeatureMap map = model.getCompiledFeatureMap();
+		if (map == null) return model.toSparseFeatureVector(createStringFeatureVector(state));
+		
+		SparseFeatureVector x = getDecodeContext().getFeatureVector();
+		createSparseFeatureVector(state, map, x);
+		return x;
+	}
+	
+	/** @return the index of the model used to predict the label of the current state. */
+	protected int getModelIndex(StateType state)
+	{
+		return 0;
+	}
+	
 	abstract protected StringFeatureVector createStringFeatureVector(StateType state);
-	abstract protected LabelType getAutoLabel(StateType state, StringFeatureVector vector);
+	/** Clears and fills the specific vector with the features of the current state looked up from the compiled map. */
+	abstract protected void createSparseFeatureVector(StateType state, CompiledFeatureMap map, SparseFeatureVector x);
+	/** @param vector the feature vector converted by the model returned by {@link #getModelIndex(AbstractState)}. */
+	abstract protected LabelType getAutoLabel(StateType state, SparseFeatureVector vector);
+	
+	/** @return a new scratch space for a thread; override to keep component-specific buffers. */
+	protected DecodeContext createDecodeContext()
+	{
+		return new DecodeContext(s_models.length);
+	}
+	
+	/** @return the scratch space of this component owned by the current thread. */
+	protected DecodeContext getDecodeContext()
+	{
+		return t_context.get();
+	}
+	
+	/** @return the score buffer of the specific model owned by the current thread. */
+	protected double[] getScoreBuffer(int modelIndex)
+	{
+		return getDecodeContext().getScoreBuffer(modelIndex, s_models[modelIndex]);
+	}
+	
+//	====================================== INSTANCES ======================================
+	
+	/** Adds the training instances to the specific model, or keeps them for the current thread if it is in {@link #collectInstances(List)}. */
+	protected void addInstances(int modelIndex, List<StringInstance> instances)
+	{
+		List<List<StringInstance>> buffer = t_instances.get();
+		
+		if (buffer != null)	buffer.get(modelIndex).addAll(instances);
+		else				s_models[modelIndex].addInstances(instances);
+	}
+	
+	/** @see #addInstances(int, List) */
+	protected void addInstance(int modelIndex, StringInstance instance)
+	{
+		List<List<StringInstance>> buffer = t_instances.get();
+		
+		if (buffer != null)	buffer.get(modelIndex).add(instance);
+		else				s_models[modelIndex].addInstance(instance);
+	}
+	
+	/**
+	 * Processes the trees for training or bootstrap without adding the generated instances to the models.
+	 * Multiple threads can call this method on the same component as long as each thread processes different trees.
+	 * @return the training instances of each model in the order they are generated, to be added by {@link #addCollectedInstances(List)}.
+	 */
+	public List<List<StringInstance>> collectInstances(List<DEPTree> trees)
+	{
+		List<List<StringInstance>> buffer = new ArrayList<>(s_models.length);
+		for (int i=0; i<s_models.length; i++) buffer.add(new ArrayList<>());
+		t_instances.set(buffer);
+		
+		try
+		{
+			for (DEPTree tree : trees)
+				process(tree);
+		}
+		finally
+		{
+			t_instances.remove();
+		}
+		
+		return buffer;
+	}
+	
+	/** Adds the training instances returned by {@link #collectInstances(List)} to the models; must be called by one thread at a time. */
+	public void addCollectedInstances(List<List<StringInstance>> instances)
+	{
+		for (int i=0; i<s_models.length; i++)
+			s_models[i].addInstances(instances.get(i));
+	}
 	
 //	====================================== EVAL ======================================
 	
@@ -316,6 +440,7 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	public void setFlag(CFlag flag)
 	{
+		checkMutable();
 		c_flag = flag;
 	}
 	
@@ -354,12 +479,75 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 		return isDecode() || isEvaluate();
 	}
 	
+//	====================================== FREEZE ======================================
+	
+	/**
+	 * Compiles the feature maps of all models so that decode looks up features without creating string features.
+	 * @throws IllegalStateException if this component is not in the decode mode or is frozen.
+	 */
+	public void compile()
+	{
+		compile(false);
+	}
+	
+	/**
+	 * Same as {@link #compile()}; if {@code arrayWeights}, the weight vectors of all models are also replaced by
+	 * {@link edu.emory.clir.clearnlp.classification.vector.ArrayMultiWeightVector} (see {@link StringModel#useArrayWeightVector()}).
+	 * @throws IllegalStateException if this component is not in the decode mode or is frozen.
+	 */
+	public void compile(boolean arrayWeights)
+	{
+		checkMutable();
+		if (!isDecode()) throw new IllegalStateException("Only a component in the decode mode can be compiled: "+c_flag);
+		
+		for (StringModel model : s_models)
+		{
+			model.compileFeatureMap();
+			if (arrayWeights) model.useArrayWeightVector();
+		}
+	}
+	
+	/**
+	 * Same as {@link #compile()} but also releases the string feature maps of all models (see {@link StringModel#compactFeatureMap()}),
+	 * which cuts the heap of the models; this component can be neither trained nor saved afterwards.
+	 * @throws IllegalStateException if this component is not in the decode mode or is frozen.
+	 */
+	public void compact()
+	{
+		checkMutable();
+		if (!isDecode()) throw new IllegalStateException("Only a component in the decode mode can be compacted: "+c_flag);
+		for (StringModel model : s_models) model.compactFeatureMap();
+	}
+	
+	/**
+	 * Makes this component a read-only view that can be shared across threads (see the class description).
+	 * Any later attempt to change the configuration, feature extractors, lexicons, models, or flag throws {@link IllegalStateException}.
+	 * @throws IllegalStateException if this component is not in the decode mode.
+	 */
+	public void freeze()
+	{
+		if (!isDecode()) throw new IllegalStateException("Only a component in the decode mode can be frozen: "+c_flag);
+		b_frozen = true;
+	}
+	
+	public boolean isFrozen()
+	{
+		return b_frozen;
+	}
+	
+	/** @throws IllegalStateException if this component is frozen. */
+	protected void checkMutable()
+	{
+		if (b_frozen) throw new IllegalStateException("This component is frozen for decode.");
+	}
+	
 //	====================================== ONLINE TRAIN ======================================
 	
 	abstract public void onlineTrain(List<DEPTree> trees);
 	
 	protected void onlineTrainSingleAdaGrad(List<DEPTree> trees)
 	{
+		checkMutable();
 		// Given the list of gold-standard trees, measure how accurate the current model performs
 		double currScore = onlineScore(trees);
 		if (currScore == 100) return;
@@ -391,6 +579,16 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 	
 	protected double onlineScore(List<DEPTree> trees)
 	{
+		return evaluate(trees).getScore();
+	}
+	
+	/**
+	 * Evaluates this component on the specific gold-standard trees, whose labels get overwritten by the predictions.
+	 * @return the evaluation of the trees.
+	 */
+	public EvalType evaluate(List<DEPTree> trees)
+	{
+		checkMutable();
 		CFlag originalFlag = c_flag;
 		c_flag = CFlag.EVALUATE;
 		initEval();
@@ -399,11 +597,12 @@ abstract public class AbstractStatisticalComponent<LabelType, StateType extends
 			process(tree);
 		
 		c_flag = originalFlag;
-		return c_eval.getScore();
+		return c_eval;
 	}
 	
 	protected void onlineBootstrap(List<DEPTree> trees)
 	{
+		checkMutable();
 		CFlag originalFlag = c_flag;
 		c_flag = CFlag.BOOTSTRAP;
 		
@@ -136,9 +136,11 @@ public class AbstractConfiguration implements ConfigurationXML
 		return TLanguage.getType(language);
 	}
 	
+	/** @return the number of threads, or {@code 1} if not specified. */
 	public int getThreadSize()
 	{
-		return XmlUtils.getIntegerTextContent(getFirstElement(E_THREAD_SIZE));
+		Element element = getFirstElement(E_THREAD_SIZE);
+		return (element != null) ? XmlUtils.getIntegerTextContent(element) : 1;
 	}
 	
 //	=================================== ELEMENT ===================================  
@@ -232,14 +234,21 @@ public class AbstractConfiguration implements ConfigurationXML
 		double  alpha   = XmlUtils.getDoubleAttribute (eTrainer, "alpha");
 		double  rho     = XmlUtils.getDoubleAttribute (eTrainer, "rho");
 		double  bias    = XmlUtils.getDoubleAttribute (eTrainer, "bias");
+		AbstractAdaGrad trainer;
 		
 		switch (type)
 		{
-		case V_SUPPORT_VECTOR_MACHINE: return new AdaGradSVM(model, labelCutoff, featureCutoff, average, alpha, rho, bias);
-		case V_LOGISTIC_REGRESSION   : return new AdaGradLR (model, labelCutoff, featureCutoff, average, alpha, rho, bias);
+		case V_SUPPORT_VECTOR_MACHINE: trainer = new AdaGradSVM(model, labelCutoff, featureCutoff, average, alpha, rho, bias); break;
+		case V_LOGISTIC_REGRESSION   : trainer = new AdaGradLR (model, labelCutoff, featureCutoff, average, alpha, rho, bias); break;
+		default: throw new IllegalArgumentException(type+" is not a valid algorithm type.");
 		}
 		
-		throw new IllegalArgumentException(type+" is not a valid algorithm type.");
+		// optional: threads="4" deterministic="true"
+		if (eTrainer.hasAttribute(A_NUMBER_OF_THREADS))
+			trainer.setNumberOfThreads(XmlUtils.getIntegerAttribute(eTrainer, A_NUMBER_OF_THREADS));
+		
+		trainer.setDeterministic(XmlUtils.getBooleanAttribute(eTrainer, A_DETERMINISTIC));
+		return trainer;
 	}
 	
 	private AbstractLiblinear getTrainerLiblinear(Element eTrainer, StringModel model)
@@ -55,6 +55,7 @@ public interface ConfigurationXML
 	String A_LABEL_CUTOFF		= "labelCutoff";
 	String A_FEATURE_CUTOFF		= "featureCutoff";
 	String A_NUMBER_OF_THREADS	= "threads";
+	String A_DETERMINISTIC		= "deterministic";
 	String ALG_ADAGRAD			= "adagrad";
 	String ALG_LIBLINEAR		= "liblinear";
 	String E_THREAD_SIZE  		= "thread_size";
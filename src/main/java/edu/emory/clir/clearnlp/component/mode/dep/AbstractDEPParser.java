@@ -16,15 +16,19 @@
 package edu.emory.clir.clearnlp.component.mode.dep;
 
 import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
-import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.mode.dep.state.AbstractDEPState;
+import edu.emory.clir.clearnlp.component.mode.dep.state.DEPStateBeam;
+import edu.emory.clir.clearnlp.component.mode.dep.state.DEPStateBeam.Hypothesis;
 import edu.emory.clir.clearnlp.component.mode.dep.state.DEPStateBranch;
 import edu.emory.clir.clearnlp.dependency.DEPNode;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
@@ -36,6 +40,9 @@ import edu.emory.clir.clearnlp.dependency.DEPTree;
 public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEPLabel, AbstractDEPState, DEPEval, DEPFeatureExtractor, DEPConfiguration> implements DEPTransition
 {
 	private int[][] label_indices;
+	/** The parsed labels of the model indexed by their label indices. */
+	private DEPLabel[] d_labels;
+	private final DEPRepairStats r_stats = new DEPRepairStats();
 	
 	/** Creates a dependency parser for train. */
 	public AbstractDEPParser(DEPConfiguration configuration, DEPFeatureExtractor[] extractors, Object lexicons)
@@ -67,7 +74,10 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 	
 	private void init()
 	{
-		label_indices = AbstractDEPState.initLabelIndices(s_models[0].getLabels());
+		String[] labels = s_models[0].getLabels();
+		label_indices = AbstractDEPState.initLabelIndices(labels);
+		d_labels = new DEPLabel[labels.length];
+		for (int i=0; i<labels.length; i++) d_labels[i] = new DEPLabel(labels[i]);
 	}
 	
 //	====================================== LEXICONS ======================================
@@ -90,6 +100,12 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 	@Override
 	public void process(DEPTree tree)
 	{
+		if (isDecodeOrEvaluate() && t_configuration.getDecodeBeamSize() > 1)
+		{
+			processBeam(tree);
+			return;
+		}
+		
 		AbstractDEPState state = new DEPStateBranch(tree, c_flag, t_configuration);
 		List<StringInstance> instances = process(state);
 		
@@ -101,7 +117,7 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 		}
 		
 		if (isTrainOrBootstrap())
-			s_models[0].addInstances(instances);
+			addInstances(0, instances);
 		else
 		{
 			processHeadless(state);
@@ -109,6 +125,74 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 		}
 	}
 
+	private void processBeam(DEPTree tree)
+	{
+		DEPStateBeam state = new DEPStateBeam(tree, c_flag, t_configuration);
+		state.setBest(beamSearch(state, t_configuration.getDecodeBeamSize()));
+		processHeadless(state);
+		if (isEvaluate()) c_eval.countCorrect(tree, state.getOracle());
+	}
+	
+	/**
+	 * Advances all hypotheses in the beam by one transition at a time, where each hypothesis is expanded by its top labels
+	 * and the best {@code beamSize} hypotheses are kept for the next transition until all hypotheses are terminated.
+	 * @return the hypothesis with the highest score.
+	 */
+	private Hypothesis beamSearch(DEPStateBeam state, int beamSize)
+	{
+		DEPDecodeContext context = (DEPDecodeContext)getDecodeContext();
+		List<Hypothesis> beam = new ArrayList<>(beamSize), next = new ArrayList<>(beamSize * beamSize);
+		int[] top = context.getTopIndices(beamSize);
+		double[] scores = getScoreBuffer(0);
+		boolean terminate = false;
+		List<Hypothesis> tmp;
+		int[] indices;
+		int i, size;
+		
+		beam.add(state.getHypothesis());
+		
+		while (!terminate)
+		{
+			terminate = true;
+			next.clear();
+			
+			for (Hypothesis hypothesis : beam)
+			{
+				if (hypothesis.isTerminate())
+				{
+					next.add(hypothesis);
+					continue;
+				}
+				
+				state.setHypothesis(hypothesis);
+				indices = state.getLabelIndices(label_indices);
+				s_models[0].getScores(createSparseFeatureVector(state), indices, scores);
+				size = s_models[0].getTopLabelIndices(scores, indices, top);
+				
+				for (i=0; i<size; i++)
+				{
+					if (i == 0 && size > 1)
+						next.add(state.expand(d_labels[top[0]], sigmoid(scores[top[0]]), d_labels[top[1]], sigmoid(scores[top[1]])));
+					else
+						next.add(state.expand(d_labels[top[i]], sigmoid(scores[top[i]]), null, 0));
+				}
+				
+				terminate = false;
+			}
+			
+			Collections.sort(next);
+			tmp = beam; beam = next; next = tmp;
+			if (beam.size() > beamSize) beam.subList(beamSize, beam.size()).clear();
+		}
+		
+		return beam.get(0);
+	}
+	
+	static private double sigmoid(double score)
+	{
+		return 1/(1+Math.exp(-score));
+	}
+	
 	@Override
 	protected StringFeatureVector createStringFeatureVector(AbstractDEPState state)
 	{
@@ -116,69 +200,127 @@ public abstract class AbstractDEPParser extends AbstractStatisticalComponent<DEP
 	}
 	
 	@Override
-	protected DEPLabel getAutoLabel(AbstractDEPState state, StringFeatureVector vector)
+	protected void createSparseFeatureVector(AbstractDEPState state, CompiledFeatureMap map, SparseFeatureVector x)
+	{
+		f_extractors[0].createSparseFeatureVector(state, map, x);
+	}
+	
+	@Override
+	protected DEPLabel getAutoLabel(AbstractDEPState state, SparseFeatureVector vector)
 	{
-		StringPrediction[] ps = getPredictions(state, vector);
-		DEPLabel autoLabel = new DEPLabel(ps[0]);
-		if (autoLabel.isArc(ARC_NO)) state.save2ndHead(ps);
-		state.saveBranch(ps);
+		DEPLabel[] labels = getPredictions(state, vector);
+		DEPLabel autoLabel = labels[0];
+		if (autoLabel.isArc(ARC_NO)) state.save2ndHead(labels);
+		state.saveBranch(labels);
 		return autoLabel;
 	}
 	
-	protected StringPrediction[] getPredictions(AbstractDEPState state, StringFeatureVector vector)
+	/** @return the top 2 labels from the {@link DEPDecodeContext} of the current thread, which get overwritten by the next call. */
+	protected DEPLabel[] getPredictions(AbstractDEPState state, SparseFeatureVector vector)
 	{
-		int[] indices = state.getLabelIndices(label_indices);		
-		StringPrediction[] ps = (indices != null) ? s_models[0].predictTop2(vector, indices) : s_models[0].predictTop2(vector);
-		for (StringPrediction p : ps) p.setScore(1/(1+Math.exp(-p.getScore())));
-		return ps;
+		DEPDecodeContext context = (DEPDecodeContext)getDecodeContext();
+		int[] indices = state.getLabelIndices(label_indices);
+		double[] scores = getScoreBuffer(0);
+		int[] top2 = context.getTop2Indices();
+		DEPLabel[] labels = context.getTop2Labels();
+		
+		s_models[0].getScores(vector, indices, scores);
+		s_models[0].getTop2LabelIndices(scores, indices, top2);
+		
+		for (int i=0; i<2; i++)
+			labels[i].set(d_labels[top2[i]], 1/(1+Math.exp(-scores[top2[i]])));
+		
+		return labels;
+	}
+	
+	@Override
+	protected DEPDecodeContext createDecodeContext()
+	{
+		return new DEPDecodeContext(s_models.length);
 	}
 	
 //	====================================== POST-PROCESS ======================================
 	
+	/** @return the statistics of the repair of nodes without heads, which is counted during decode and evaluate. */
+	public DEPRepairStats getRepairStats()
+	{
+		return r_stats;
+	}
+	
 	private void processHeadless(AbstractDEPState state)
 	{
-		ObjectIntPair<StringPrediction> max;
-		int i, size = state.getTreeSize();
+		int i, size = state.getTreeSize(), headless = 0, secondHeads = 0, candidates = 0;
+		long st = System.nanoTime();
 		DEPNode node;
 		
 		for (i=1; i<size; i++)
 		{
 			node = state.getNode(i);
+			if (node.hasHead()) continue;
+			headless++;
 			
-			if (!node.hasHead() && !state.find2ndHead(node))
-			{
-				max = new ObjectIntPair<StringPrediction>(null, -1000);
-				processHeadlessAll(state, node, max, label_indices[AbstractDEPState.RIGHT_ARC], -1);
-				processHeadlessAll(state, node, max, label_indices[AbstractDEPState. LEFT_ARC] ,  1);
-				
-				if (max.o == null)
-					node.setHead(state.getNode(0), t_configuration.getRootLabel());
-				else
-					node.setHead(state.getNode(max.i), new DEPLabel(max.o).getDeprel());
-			}
+			if (state.find2ndHead(node))
+				secondHeads++;
+			else
+				candidates += processHeadless(state, node);
 		}
+		
+		r_stats.add(headless, secondHeads, candidates, (headless > 0) ? System.nanoTime() - st : 0);
 	}
 	
-	private void processHeadlessAll(AbstractDEPState state, DEPNode node, ObjectIntPair<StringPrediction> max, int[] indices, int dir)
+	/**
+	 * Attaches the specific node to the preceding or following node with the highest score that is not its descendant,
+	 * where the candidates are within {@link DEPConfiguration#getHeadlessWindow()} from the node or the root.
+	 * @return the number of scored candidates.
+	 */
+	private int processHeadless(AbstractDEPState state, DEPNode node)
 	{
-		int i, currID = node.getID(), size = state.getTreeSize();
-		StringFeatureVector vector;
-		StringPrediction p;
-		DEPNode head;
+		int i, dir, label, currID = node.getID(), size = state.getTreeSize(), maxHead = -1, maxLabel = -1, candidates = 0;
+		int window = t_configuration.getHeadlessWindow();
+		int begin  = (window > 0) ? Math.max(0, currID - window) : 0;
+		int end    = (window > 0) ? Math.min(size, currID + window + 1) : size;
+		double[] scores = getScoreBuffer(0);
+		double maxScore = 0;
+		int[] indices;
 		
-		for (i=currID+dir; 0 <= i&&i < size; i+=dir)
+		for (dir=-1; dir<=1; dir+=2)
 		{
-			head = state.getNode(i);
-
-			if (!head.isDescendantOf(node))
+			indices = label_indices[(dir < 0) ? AbstractDEPState.RIGHT_ARC : AbstractDEPState.LEFT_ARC];
+			
+			for (i=nextCandidate(currID, dir, begin, end); i>=0; i=nextCandidate(i, dir, begin, end))
 			{
-				if (dir < 0)	state.reset(i, currID);
-				else			state.reset(currID, i);
-				vector = createStringFeatureVector(state);
-				p = s_models[0].predictBest(vector, indices);
-				if (max.o == null || max.o.compareTo(p) < 0) max.set(p, i);	
+				if (!state.getNode(i).isDescendantOf(node))
+				{
+					if (dir < 0)	state.reset(i, currID);
+					else			state.reset(currID, i);
+					s_models[0].getScores(createSparseFeatureVector(state), indices, scores);
+					label = s_models[0].getBestLabelIndex(scores, indices);
+					candidates++;
+					
+					if (maxHead < 0 || maxScore < scores[label])
+					{
+						maxHead  = i;
+						maxLabel = label;
+						maxScore = scores[label];
+					}
+				}
 			}
 		}
+		
+		if (maxHead < 0)
+			node.setHead(state.getNode(0), t_configuration.getRootLabel());
+		else
+			node.setHead(state.getNode(maxHead), d_labels[maxLabel].getDeprel());
+		
+		return candidates;
+	}
+	
+	/** @return the next candidate head after {@code i} in the specific direction within {@code [begin, end)}, followed by the root on the left; {@code -1} if none. */
+	static private int nextCandidate(int i, int dir, int begin, int end)
+	{
+		i += dir;
+		if (begin <= i && i < end) return i;
+		return (dir < 0 && begin > 0 && i == begin - 1) ? 0 : -1;
 	}
 	
 //	====================================== ONLINE TRAIN ======================================
@@ -29,9 +29,14 @@ import edu.emory.clir.clearnlp.util.XmlUtils;
  */
 public class DEPConfiguration extends AbstractConfiguration
 {
+	/** The default window of {@link #getHeadlessWindow()}. */
+	static public final int DEFAULT_HEADLESS_WINDOW = 0;
+	
 	private boolean eval_punct;
 	private String root_label;
 	private int beam_size;
+	private int decode_beam_size = 1;
+	private int headless_window = DEFAULT_HEADLESS_WINDOW;
 	
 //	============================== Initialization ==============================
 	
@@ -54,10 +59,14 @@ public class DEPConfiguration extends AbstractConfiguration
 		boolean evalPunct = XmlUtils.getBooleanTextContent(XmlUtils.getFirstElementByTagName(eMode, "evaluate_punctuation"));
 		String rootLabel  = XmlUtils.getTrimmedTextContent(XmlUtils.getFirstElementByTagName(eMode, "root_label"));
 		int beamSize = XmlUtils.getIntegerTextContent(XmlUtils.getFirstElementByTagName(eMode, "beam_size"));
+		Element eWindow  = XmlUtils.getFirstElementByTagName(eMode, "headless_window");
+		Element eDecodeBeam = XmlUtils.getFirstElementByTagName(eMode, "decode_beam_size");
 		
 		setEvaluatePunctuation(evalPunct);
 		setRootLabel(rootLabel);
 		setBeamSize(beamSize);
+		if (eWindow != null) setHeadlessWindow(XmlUtils.getIntegerTextContent(eWindow));
+		if (eDecodeBeam != null) setDecodeBeamSize(XmlUtils.getIntegerTextContent(eDecodeBeam));
 	}
 	
 	public int getBeamSize()
@@ -70,6 +79,36 @@ public class DEPConfiguration extends AbstractConfiguration
 		beam_size = size;
 	}
 	
+	/**
+	 * @return the size of the beam search during decode and evaluate, which trades decoding speed for accuracy:
+	 * {@code 1} (default) parses greedily with the branching of {@link #getBeamSize()} as in training,
+	 * and a larger size keeps that many hypotheses per transition (see {@link AbstractDEPParser}),
+	 * which costs about as many feature extractions and scorings per transition.
+	 */
+	public int getDecodeBeamSize()
+	{
+		return decode_beam_size;
+	}
+	
+	public void setDecodeBeamSize(int size)
+	{
+		decode_beam_size = size;
+	}
+	
+	/**
+	 * @return the maximum distance between a node left without a head after parsing and its candidate heads,
+	 * where the root is always a candidate; {@code 0} (default) considers all nodes, which costs quadratic time for long sentences.
+	 */
+	public int getHeadlessWindow()
+	{
+		return headless_window;
+	}
+	
+	public void setHeadlessWindow(int window)
+	{
+		headless_window = window;
+	}
+	
 	public String getRootLabel()
 	{
 		return root_label;
@@ -0,0 +1,50 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.mode.dep;
+
+import edu.emory.clir.clearnlp.component.utils.DecodeContext;
+
+/**
+ * Scratch space of {@link AbstractDEPParser} owned by one thread.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DEPDecodeContext extends DecodeContext
+{
+	private DEPLabel[] top2_labels;
+	private int[] top_indices;
+	
+	public DEPDecodeContext(int modelSize)
+	{
+		super(modelSize);
+		top2_labels = new DEPLabel[]{new DEPLabel(), new DEPLabel()};
+	}
+	
+	/** @return the array of 2 labels overwritten by every transition. */
+	public DEPLabel[] getTop2Labels()
+	{
+		return top2_labels;
+	}
+	
+	/** @return the buffer of the specific size for the label indices of the top predictions in beam search. */
+	public int[] getTopIndices(int size)
+	{
+		if (top_indices == null || top_indices.length != size)
+			top_indices = new int[size];
+		
+		return top_indices;
+	}
+}
\ No newline at end of file
@@ -29,6 +29,8 @@ import edu.emory.clir.clearnlp.feature.common.CommonFeatureToken;
 public class DEPFeatureExtractor extends CommonFeatureExtractor<AbstractDEPState>
 {
 	private static final long serialVersionUID = -7336596053366459297L;
+	/** Distances between the stack and the input, from -1 to 6, created once (see {@link AbstractDEPState#distanceBetweenStackAndInput()}). */
+	private static final String[] DISTANCES = {"-1", "0", "1", "2", "3", "4", "5", "6"};
 
 	public DEPFeatureExtractor(InputStream in)
 	{
@@ -40,8 +42,14 @@ public class DEPFeatureExtractor extends CommonFeatureExtractor<AbstractDEPState
 	{
 		switch (token.getField())
 		{
-		case t: return Integer.toString(state.distanceBetweenStackAndInput());
+		case t: return getDistance(state.distanceBetweenStackAndInput());
 		default: return super.getFeature(token, state, node);
 		}
 	}
+	
+	private String getDistance(int distance)
+	{
+		int index = distance + 1;
+		return (0 <= index && index < DISTANCES.length) ? DISTANCES[index] : Integer.toString(distance);
+	}
 }
@@ -80,6 +80,11 @@ public class DEPLabel implements Serializable, Comparable<DEPLabel>
 		set(p.getLabel(), p.getScore());
 	}
 	
+	public DEPLabel(DEPLabel label)
+	{
+		set(label, label.d_score);
+	}
+	
 	public void set(String label, double score)
 	{
 		int idx = label.indexOf(DELIM);
@@ -89,6 +94,15 @@ public class DEPLabel implements Serializable, Comparable<DEPLabel>
 		setScore (score);
 	}
 	
+	/** Copies the arc, list, and deprel of the specific label without parsing. */
+	public void set(DEPLabel label, double score)
+	{
+		setArc   (label.s_arc);
+		setList  (label.s_list);
+		setDeprel(label.s_deprel);
+		setScore (score);
+	}
+	
 	public String getArc()
 	{
 		return s_arc;
@@ -0,0 +1,106 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.mode.dep;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts how often {@link AbstractDEPParser} repairs nodes left without heads after parsing and how long it takes.
+ * The counters can be updated by many threads decoding with the same parser.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DEPRepairStats
+{
+	private final LongAdder n_trees         = new LongAdder();
+	private final LongAdder n_repairedTrees = new LongAdder();
+	private final LongAdder n_headless      = new LongAdder();
+	private final LongAdder n_secondHeads   = new LongAdder();
+	private final LongAdder n_candidates    = new LongAdder();
+	private final LongAdder n_nanos         = new LongAdder();
+	
+	/**
+	 * @param headless the number of nodes without heads after parsing.
+	 * @param secondHeads the number of nodes among them attached to their 2nd heads.
+	 * @param candidates the number of candidate heads scored for the rest.
+	 * @param nanos the time spent on the repair.
+	 */
+	void add(int headless, int secondHeads, int candidates, long nanos)
+	{
+		n_trees.increment();
+		if (headless == 0) return;
+		
+		n_repairedTrees.increment();
+		n_headless   .add(headless);
+		n_secondHeads.add(secondHeads);
+		n_candidates .add(candidates);
+		n_nanos      .add(nanos);
+	}
+	
+	/** @return the number of trees processed. */
+	public long getTreeCount()
+	{
+		return n_trees.sum();
+	}
+	
+	/** @return the number of trees with at least one node without a head after parsing. */
+	public long getRepairedTreeCount()
+	{
+		return n_repairedTrees.sum();
+	}
+	
+	/** @return the number of nodes without heads after parsing. */
+	public long getHeadlessCount()
+	{
+		return n_headless.sum();
+	}
+	
+	/** @return the number of headless nodes attached to their 2nd heads without scoring. */
+	public long getSecondHeadCount()
+	{
+		return n_secondHeads.sum();
+	}
+	
+	/** @return the number of candidate heads scored, each of which costs one feature extraction. */
+	public long getCandidateCount()
+	{
+		return n_candidates.sum();
+	}
+	
+	/** @return the total time spent on the repair in nanoseconds. */
+	public long getNanos()
+	{
+		return n_nanos.sum();
+	}
+	
+	public void reset()
+	{
+		n_trees        .reset();
+		n_repairedTrees.reset();
+		n_headless     .reset();
+		n_secondHeads  .reset();
+		n_candidates   .reset();
+		n_nanos        .reset();
+	}
+	
+	@Override
+	public String toString()
+	{
+		return String.format("Headless repair: %d/%d trees, %d nodes (%d by 2nd heads), %d candidates, %d ms",
+				getRepairedTreeCount(), getTreeCount(), getHeadlessCount(), getSecondHeadCount(), getCandidateCount(), TimeUnit.NANOSECONDS.toMillis(getNanos()));
+	}
+}
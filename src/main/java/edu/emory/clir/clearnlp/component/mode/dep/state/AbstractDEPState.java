@@ -20,7 +20,6 @@ import java.util.List;
 import java.util.PriorityQueue;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.collection.list.IntArrayList;
 import edu.emory.clir.clearnlp.collection.pair.ObjectDoublePair;
 import edu.emory.clir.clearnlp.collection.stack.IntPStack;
@@ -144,7 +143,7 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 		DEPNode input = getInput();
 		int i = 1;
 
-		while ((stack = i_stack.peek(i++)) >= 0)
+		while ((stack = peekStack(i++)) >= 0)
 		{
 			if (getOracle(stack).getNode() == input)
 				return false;
@@ -257,7 +256,7 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 			index = i_input + token.getOffset();
 			if (index > getStackID()) node = getNode(index); break;
 		case k:
-			index = (token.getOffset() <= 0) ? i_stack.peek(-token.getOffset()) : i_inter.peek(token.getOffset()-1);
+			index = (token.getOffset() <= 0) ? peekStack(-token.getOffset()) : peekInter(token.getOffset()-1);
 			node = getNode(index); break;
 		}
 		
@@ -266,7 +265,19 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 	
 	public int getStackID()
 	{
-		return i_stack.peek();
+		return peekStack(0);
+	}
+	
+	/** @return the ID of the n'th node from the top of the stack if exists; otherwise, {@code -1}. */
+	protected int peekStack(int n)
+	{
+		return i_stack.peek(n);
+	}
+	
+	/** @return the ID of the n'th node from the top of the intermediate stack (passed nodes) if exists; otherwise, {@code -1}. */
+	protected int peekInter(int n)
+	{
+		return i_inter.peek(n);
 	}
 	
 	public int getInputID()
@@ -354,12 +365,12 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 	
 //	====================================== 2nd Heads ======================================
 
-	/** PRE: ps[0].isArc("NO"). */
-	public void save2ndHead(StringPrediction[] ps)
+	/** PRE: labels[0].isArc("NO"). */
+	public void save2ndHead(DEPLabel[] labels)
 	{
-		if (ps[0].getScore() - ps[1].getScore() < 1)
+		if (labels[0].getScore() - labels[1].getScore() < 1)
 		{
-			DEPLabel label = new DEPLabel(ps[1].getLabel());
+			DEPLabel label = labels[1];
 			if (label.isArc(ARC_NO)) return;
 			DEPNode curr, head;
 			
@@ -374,7 +385,7 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 				curr = getInput();
 			}
 			
-			snd_heads[curr.getID()].add(new ObjectDoublePair<DEPArc>(new DEPArc(head, label.getDeprel()), ps[1].getScore()));
+			snd_heads[curr.getID()].add(new ObjectDoublePair<DEPArc>(new DEPArc(head, label.getDeprel()), label.getScore()));
 		}
 	}
 	
@@ -401,7 +412,7 @@ public abstract class AbstractDEPState extends AbstractState<DEPArc,DEPLabel> im
 
 	public abstract boolean startBranching();
 	public abstract boolean nextBranch();
-	public abstract void saveBranch(StringPrediction[] ps);
+	public abstract void saveBranch(DEPLabel[] labels);
 	public abstract void saveBest(List<StringInstance> instances);
 	public abstract List<StringInstance> setBest();
 	
@@ -0,0 +1,332 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.mode.dep.state;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.collection.pair.ObjectDoublePair;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPLabel;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPTransition;
+import edu.emory.clir.clearnlp.component.utils.CFlag;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.arc.DEPArc;
+
+/**
+ * State for beam search, where every parse in the beam is kept as a {@link Hypothesis} that shares its stacks and arcs
+ * with the hypotheses it is derived from: the stacks are linked lists whose tails are shared, and the arcs are a chain
+ * from the latest arc to the first one so that hypotheses with the same history share the same chain.
+ * Only one hypothesis is {@link #setHypothesis(Hypothesis) applied} to the tree at a time; switching hypotheses
+ * removes the arcs after their latest common arc and adds the arcs of the new one, so the tree is the same as
+ * it would be after parsing the new hypothesis from scratch. Decode only; this state does not collect instances.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DEPStateBeam extends AbstractDEPState implements DEPTransition
+{
+	private Hypothesis h_current;
+
+//	====================================== Initialization ======================================
+	
+	public DEPStateBeam(DEPTree tree, CFlag flag, DEPConfiguration configuration)
+	{
+		super(tree, flag, configuration);
+		h_current = new Hypothesis(new Cell(0, null), null, 1, null, null, 0, 0);
+		i_input = h_current.input;
+	}
+
+//	====================================== Hypothesis ======================================
+	
+	/** @return the hypothesis currently applied to the tree. */
+	public Hypothesis getHypothesis()
+	{
+		return h_current;
+	}
+	
+	/** Applies the specific hypothesis to the tree, which becomes the current state. */
+	public void setHypothesis(Hypothesis hypothesis)
+	{
+		Arc curr = h_current.arcs, next = hypothesis.arcs;
+		List<Arc> redo = new ArrayList<>();
+		
+		while (depth(curr) > depth(next))
+		{
+			remove(curr);
+			curr = curr.prev;
+		}
+		
+		while (depth(next) > depth(curr))
+		{
+			redo.add(next);
+			next = next.prev;
+		}
+		
+		while (curr != next)
+		{
+			remove(curr);
+			curr = curr.prev;
+			redo.add(next);
+			next = next.prev;
+		}
+		
+		for (int i=redo.size()-1; i>=0; i--)
+			add(redo.get(i));
+		
+		h_current = hypothesis;
+		i_input   = hypothesis.input;
+	}
+	
+	/**
+	 * @param label the label predicted for the current hypothesis.
+	 * @param score the score of the label.
+	 * @param runnerUp the label with the 2nd highest score, which is saved as a 2nd head of the new hypothesis
+	 * if {@code label} does not make an arc and the scores are close (see {@link #save2ndHead(DEPLabel[])}); can be {@code null}.
+	 * @return a new hypothesis that applies the transition of the specific label to the current hypothesis, which remains unchanged.
+	 */
+	public Hypothesis expand(DEPLabel label, double score, DEPLabel runnerUp, double runnerUpScore)
+	{
+		Hypothesis h = h_current;
+		Cell  stack  = h.stack;
+		Cell  inter  = h.inter;
+		int   input  = h.input;
+		Arc   arcs   = h.arcs;
+		SndHead heads = h.heads;
+		
+		if (label.isArc(ARC_LEFT))
+		{
+			arcs = new Arc(stack.id, input, label.getDeprel(), arcs);
+			if (label.isList(LIST_REDUCE))	stack = stack.next;
+			else						  {	inter = new Cell(stack.id, inter); stack = stack.next; }
+		}
+		else if (label.isArc(ARC_RIGHT))
+		{
+			arcs = new Arc(input, stack.id, label.getDeprel(), arcs);
+			
+			if (label.isList(LIST_SHIFT))
+			{
+				for (; inter != null; inter = inter.next) stack = new Cell(inter.id, stack);
+				stack = new Cell(input++, stack);
+			}
+			else
+			{
+				inter = new Cell(stack.id, inter);
+				stack = stack.next;
+			}
+		}
+		else
+		{
+			if (runnerUp != null && !runnerUp.isArc(ARC_NO) && score - runnerUpScore < 1)
+			{
+				if (runnerUp.isArc(ARC_LEFT))	heads = new SndHead(stack.id, input, runnerUp.getDeprel(), runnerUpScore, heads);
+				else							heads = new SndHead(input, stack.id, runnerUp.getDeprel(), runnerUpScore, heads);
+			}
+			
+			if (label.isList(LIST_SHIFT))
+			{
+				for (; inter != null; inter = inter.next) stack = new Cell(inter.id, stack);
+				stack = new Cell(input++, stack);
+			}
+			else if (label.isList(LIST_REDUCE))
+				stack = stack.next;
+			else
+			{
+				inter = new Cell(stack.id, inter);
+				stack = stack.next;
+			}
+		}
+		
+		return new Hypothesis(stack, inter, input, arcs, heads, h.totalScore + score, h.numTransitions + 1);
+	}
+	
+	/** Applies the specific hypothesis to the tree and keeps its 2nd heads for {@link #find2ndHead(DEPNode)}. */
+	public void setBest(Hypothesis hypothesis)
+	{
+		setHypothesis(hypothesis);
+		
+		for (SndHead h = hypothesis.heads; h != null; h = h.prev)
+			snd_heads[h.dependent].add(new ObjectDoublePair<DEPArc>(new DEPArc(getNode(h.head), h.label), h.score));
+	}
+	
+	private void remove(Arc arc)
+	{
+		getNode(arc.dependent).setHead(null, null);
+	}
+	
+	private void add(Arc arc)
+	{
+		getNode(arc.dependent).setHead(getNode(arc.head), arc.label);
+	}
+	
+	static private int depth(Arc arc)
+	{
+		return (arc != null) ? arc.depth : 0;
+	}
+
+//	====================================== Transition ======================================
+	
+	@Override
+	protected int peekStack(int n)
+	{
+		return peek(h_current.stack, n);
+	}
+	
+	@Override
+	protected int peekInter(int n)
+	{
+		return peek(h_current.inter, n);
+	}
+	
+	static private int peek(Cell cell, int n)
+	{
+		for (; cell != null; cell = cell.next)
+			if (n-- == 0) return cell.id;
+		
+		return -1;
+	}
+	
+	@Override
+	public void next(DEPLabel label)
+	{
+		setHypothesis(expand(label, label.getScore(), null, 0));
+	}
+	
+	@Override
+	public boolean isTerminate()
+	{
+		return h_current.isTerminate();
+	}
+	
+	@Override
+	public void reset(int stackID, int inputID)
+	{
+		h_current = new Hypothesis(new Cell(stackID, null), null, inputID, h_current.arcs, h_current.heads, h_current.totalScore, h_current.numTransitions);
+		i_input   = inputID;
+	}
+
+//	====================================== Branch ======================================
+	
+	@Override
+	public boolean startBranching() {return false;}
+	
+	@Override
+	public boolean nextBranch() {return false;}
+	
+	@Override
+	public void saveBranch(DEPLabel[] labels) {}
+	
+	@Override
+	public void saveBest(List<StringInstance> instances) {}
+	
+	@Override
+	public List<StringInstance> setBest() {return null;}
+
+//	====================================== Structures ======================================
+	
+	/** Immutable parse state in the beam. */
+	public class Hypothesis implements Comparable<Hypothesis>
+	{
+		private final Cell    stack;
+		private final Cell    inter;
+		private final int     input;
+		private final Arc     arcs;
+		private final SndHead heads;
+		private final double  totalScore;
+		private final int     numTransitions;
+		
+		private Hypothesis(Cell stack, Cell inter, int input, Arc arcs, SndHead heads, double totalScore, int numTransitions)
+		{
+			this.stack = stack;
+			this.inter = inter;
+			this.input = input;
+			this.arcs  = arcs;
+			this.heads = heads;
+			this.totalScore     = totalScore;
+			this.numTransitions = numTransitions;
+		}
+		
+		public boolean isTerminate()
+		{
+			return input >= t_size;
+		}
+		
+		/** @return the average score of the transitions, which is comparable across hypotheses with different numbers of transitions. */
+		public double getScore()
+		{
+			return (numTransitions > 0) ? totalScore / numTransitions : 0;
+		}
+		
+		/** Hypotheses with higher scores come first. */
+		@Override
+		public int compareTo(Hypothesis o)
+		{
+			return Double.compare(o.getScore(), getScore());
+		}
+	}
+	
+	/** Cell of an immutable stack of node IDs, where the first cell is the top. */
+	static private class Cell
+	{
+		private final int  id;
+		private final Cell next;
+		
+		private Cell(int id, Cell next)
+		{
+			this.id   = id;
+			this.next = next;
+		}
+	}
+	
+	/** Dependency arc added by a transition, linked to the arc added before it. */
+	static private class Arc
+	{
+		private final int    dependent;
+		private final int    head;
+		private final String label;
+		private final Arc    prev;
+		private final int    depth;
+		
+		private Arc(int dependent, int head, String label, Arc prev)
+		{
+			this.dependent = dependent;
+			this.head      = head;
+			this.label     = label;
+			this.prev      = prev;
+			this.depth     = depth(prev) + 1;
+		}
+	}
+	
+	/** 2nd head saved by a transition, linked to the 2nd head saved before it. */
+	static private class SndHead
+	{
+		private final int     dependent;
+		private final int     head;
+		private final String  label;
+		private final double  score;
+		private final SndHead prev;
+		
+		private SndHead(int dependent, int head, String label, double score, SndHead prev)
+		{
+			this.dependent = dependent;
+			this.head      = head;
+			this.label     = label;
+			this.score     = score;
+			this.prev      = prev;
+		}
+	}
+}
@@ -20,7 +20,6 @@ import java.util.List;
 import java.util.PriorityQueue;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.collection.stack.IntPStack;
 import edu.emory.clir.clearnlp.collection.triple.ObjectObjectDoubleTriple;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
@@ -106,22 +105,23 @@ public class DEPStateBranch extends AbstractDEPState implements DEPTransition
 										   : total_score / num_transitions; 
 	}
 	
-	public void saveBranch(StringPrediction[] ps)
+	/** @param labels the top 2 labels, which get overwritten after this call. */
+	public void saveBranch(DEPLabel[] labels)
 	{
 		if (save_branch)
 		{
-			StringPrediction fst = ps[0];
-			StringPrediction snd = ps[1];
+			DEPLabel fst = labels[0];
+			DEPLabel snd = labels[1];
 			
 			if (fst.getScore() - snd.getScore() < 1)
-				addBranch(new DEPLabel(fst), new DEPLabel(snd));
+				addBranch(fst, snd);
 		}
 	}
 	
 	private void addBranch(DEPLabel fstLabel, DEPLabel sndLabel)
 	{
 		if (!fstLabel.isArc(sndLabel) || !fstLabel.isList(sndLabel))
-			q_branches.add(new DEPBranch(sndLabel));
+			q_branches.add(new DEPBranch(new DEPLabel(sndLabel)));
 	}
 	
 	private class DEPBranch implements Comparable<DEPBranch>
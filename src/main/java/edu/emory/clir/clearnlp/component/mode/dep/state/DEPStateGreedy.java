@@ -18,8 +18,8 @@ package edu.emory.clir.clearnlp.component.mode.dep.state;
 import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPLabel;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPTransition;
 import edu.emory.clir.clearnlp.component.utils.CFlag;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
@@ -48,7 +48,7 @@ public class DEPStateGreedy extends AbstractDEPState implements DEPTransition
 	public boolean nextBranch() {return false;}
 
 	@Override
-	public void saveBranch(StringPrediction[] ps) {}
+	public void saveBranch(DEPLabel[] labels) {}
 
 	@Override
 	public void saveBest(List<StringInstance> instances) {}
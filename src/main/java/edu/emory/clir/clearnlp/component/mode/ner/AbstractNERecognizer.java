@@ -20,6 +20,8 @@ import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
@@ -78,6 +80,7 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 	@Override
 	public void setLexicons(Object lexicons)
 	{
+		checkMutable();
 		ner_lexicon = (NERLexicon)lexicons;
 	}
 	
@@ -105,7 +108,7 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 			List<StringInstance> instances = process(state);
 			
 			if (isTrainOrBootstrap())
-				s_models[0].addInstances(instances);
+				addInstances(0, instances);
 			else
 			{
 				state.postProcess();
@@ -121,9 +124,18 @@ public abstract class AbstractNERecognizer extends AbstractStatisticalComponent<
 	}
 	
 	@Override
-	protected String getAutoLabel(NERState state, StringFeatureVector vector)
+	protected void createSparseFeatureVector(NERState state, CompiledFeatureMap map, SparseFeatureVector x)
 	{
-		return s_models[0].predictBest(vector).getLabel();
+		f_extractors[0].createSparseFeatureVector(state, map, x);
+	}
+	
+	@Override
+	protected String getAutoLabel(NERState state, SparseFeatureVector vector)
+	{
+		StringModel model = s_models[0];
+		double[] scores = getScoreBuffer(0);
+		model.getScores(vector, null, scores);
+		return model.getLabel(model.getBestLabelIndex(scores, null));
 	}
 	
 //	====================================== ONLINE TRAIN ======================================
@@ -21,6 +21,7 @@ import java.util.function.Function;
 
 import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
 import edu.emory.clir.clearnlp.collection.pair.ObjectIntPair;
+import edu.emory.clir.clearnlp.collection.tree.ArrayAhoCorasick;
 import edu.emory.clir.clearnlp.collection.tree.PrefixNode;
 import edu.emory.clir.clearnlp.collection.tree.PrefixTree;
 import edu.emory.clir.clearnlp.collection.triple.ObjectIntIntTriple;
@@ -41,18 +42,18 @@ public class NERState extends AbstractTagState
 {
 	/** Information from prefix-tree. */
 	private List<ObjectIntIntTriple<NERInfoSet>> info_list;
-	private PrefixTree<String,NERInfoSet> ne_dictionary;
+	private ArrayAhoCorasick<NERInfoSet> ne_dictionary;
 	private String[] ambiguity_classes;
 	
 //	====================================== INITIALIZATION ======================================
 	
-	public NERState(DEPTree tree, CFlag flag, PrefixTree<String,NERInfoSet> namedEntityDictionary)
+	public NERState(DEPTree tree, CFlag flag, ArrayAhoCorasick<NERInfoSet> namedEntityDictionary)
 	{
 		super(tree, flag);
 		init(namedEntityDictionary);
 	}
 	
-	public void init(PrefixTree<String,NERInfoSet> namedEntityDictionary)
+	public void init(ArrayAhoCorasick<NERInfoSet> namedEntityDictionary)
 	{
 		ne_dictionary = namedEntityDictionary;
 //		info_list = ne_dictionary.getAll(d_tree.toNodeArray(), 1, DEPNode::getWordForm, true, false);
@@ -190,14 +191,14 @@ public class NERState extends AbstractTagState
 	
 //	====================================== DICTIONARY ======================================
 
-	/** For training. */
-	public void adjustDictionary()
+	/** For training; the compiled dictionary of this state needs to be recompiled from the specific dictionary afterwards. */
+	public void adjustDictionary(PrefixTree<String,NERInfoSet> dictionary)
 	{
 		IntObjectHashMap<String> goldMap = collectNamedEntityMap(g_oracle, String::toString);
-		populateDictionary(goldMap);
+		populateDictionary(dictionary, goldMap);
 	}
 	
-	private IntObjectHashMap<ObjectIntIntTriple<NERInfoSet>> populateDictionary(IntObjectHashMap<String> goldMap)
+	private IntObjectHashMap<ObjectIntIntTriple<NERInfoSet>> populateDictionary(PrefixTree<String,NERInfoSet> dictionary, IntObjectHashMap<String> goldMap)
 	{
 		IntObjectHashMap<ObjectIntIntTriple<NERInfoSet>> dictMap = toNERInfoMap();
 		NERInfoSet list;
@@ -209,7 +210,7 @@ public class NERState extends AbstractTagState
 			dictMap.remove(p.i);
 			bIdx = p.i / t_size;
 			eIdx = p.i % t_size;
-			list = pick(ne_dictionary, p.o, d_tree.toNodeArray(), bIdx, eIdx+1, DEPNode::getWordForm, 1);
+			list = pick(dictionary, p.o, d_tree.toNodeArray(), bIdx, eIdx+1, DEPNode::getWordForm, 1);
 			list.addCorrectCount(1);
 		}
 		
@@ -21,8 +21,11 @@ import java.util.List;
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
+import edu.emory.clir.clearnlp.component.utils.DecodeContext;
 import edu.emory.clir.clearnlp.dependency.DEPLib;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
 
@@ -78,6 +81,7 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 	@Override
 	public void setLexicons(Object lexicons)
 	{
+		checkMutable();
 		pos_lexicon = (POSLexicon)lexicons;
 	}
 	
@@ -105,7 +109,7 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 			List<StringInstance> instances = process(state);
 			
 			if (isTrainOrBootstrap())
-				s_models[0].addInstances(instances);
+				addInstances(0, instances);
 			else 
 			{
 				if (isEvaluate()) c_eval.countCorrect(tree, state.getOracle());
@@ -121,9 +125,17 @@ public abstract class AbstractPOSTagger extends AbstractStatisticalComponent<Str
 	}
 	
 	@Override
-	protected String getAutoLabel(POSState state, StringFeatureVector vector)
+	protected void createSparseFeatureVector(POSState state, CompiledFeatureMap map, SparseFeatureVector x)
 	{
-		StringPrediction[] ps = s_models[0].predictTop2(vector);
+		f_extractors[0].createSparseFeatureVector(state, map, x);
+	}
+	
+	@Override
+	protected String getAutoLabel(POSState state, SparseFeatureVector vector)
+	{
+		DecodeContext context = getDecodeContext();
+		StringPrediction[] ps = context.getTop2Predictions();
+		s_models[0].predictTop2(vector, null, getScoreBuffer(0), context.getTop2Indices(), ps);
 		state.save2ndLabel(ps, DEPLib.FEAT_POS2);
 		return ps[0].getLabel();
 	}
@@ -20,7 +20,8 @@ import java.util.List;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
-import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.mode.srl.state.AbstractSRLState;
@@ -91,7 +92,7 @@ public abstract class AbstractSRLabeler extends AbstractStatisticalComponent<Str
 	private void addInstances(AbstractSRLState state, List<StringInstance> instances)
 	{
 		for (StringInstance instance : instances)
-			s_models[instance.getFeatureVector().getModelID()].addInstance(instance);
+			addInstance(instance.getFeatureVector().getModelID(), instance);
 	}
 	
 	@Override
@@ -103,10 +104,25 @@ public abstract class AbstractSRLabeler extends AbstractStatisticalComponent<Str
 	}
 
 	@Override
-	protected String getAutoLabel(AbstractSRLState state, StringFeatureVector vector)
+	protected void createSparseFeatureVector(AbstractSRLState state, CompiledFeatureMap map, SparseFeatureVector x)
 	{
-		StringPrediction p = s_models[state.getModelIndex()].predictBest(vector);
-		return p.getLabel();
+		f_extractors[0].createSparseFeatureVector(state, map, x);
+	}
+	
+	@Override
+	protected int getModelIndex(AbstractSRLState state)
+	{
+		return state.getModelIndex();
+	}
+
+	@Override
+	protected String getAutoLabel(AbstractSRLState state, SparseFeatureVector vector)
+	{
+		int index = getModelIndex(state);
+		StringModel model = s_models[index];
+		double[] scores = getScoreBuffer(index);
+		model.getScores(vector, null, scores);
+		return model.getLabel(model.getBestLabelIndex(scores, null));
 	}
 
 //	====================================== ONLINE TRAIN ======================================
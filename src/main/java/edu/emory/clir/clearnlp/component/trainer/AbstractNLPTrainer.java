@@ -15,11 +15,24 @@
  */
 package edu.emory.clir.clearnlp.component.trainer;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import edu.emory.clir.clearnlp.bin.helper.AbstractNLPTrain;
+import edu.emory.clir.clearnlp.classification.instance.StringInstance;
 import edu.emory.clir.clearnlp.classification.model.StringModel;
 import edu.emory.clir.clearnlp.classification.trainer.AbstractTrainer;
 import edu.emory.clir.clearnlp.collection.list.FloatArrayList;
@@ -28,6 +41,8 @@ import edu.emory.clir.clearnlp.component.AbstractStatisticalComponent;
 import edu.emory.clir.clearnlp.component.configuration.AbstractConfiguration;
 import edu.emory.clir.clearnlp.component.evaluation.AbstractEval;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.CachedTSVReader;
+import edu.emory.clir.clearnlp.reader.MappedTSVReader;
 import edu.emory.clir.clearnlp.reader.TSVReader;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
@@ -38,13 +53,63 @@ import edu.emory.clir.clearnlp.util.IOUtils;
  */
 public abstract class AbstractNLPTrainer
 {
+	/** The number of bytes read by a thread at a time when instances are generated in parallel. */
+	static private final int RANGE_SIZE = 1 << 20;
+	/** The number of cached trees read by a thread at a time when instances are generated in parallel. */
+	static private final int BATCH_SIZE = 256;
 	protected AbstractConfiguration t_configuration;
+	protected int n_threads;
+	/** The directory of binary caches of the training and development files; if {@code null}, the files are read as text. */
+	protected String s_cacheDir;
+	/** The trees of the training and development files loaded in memory, which can be shared across trainers; if {@code null}, the files are read. */
+	protected Map<String,CachedTSVReader> m_corpus;
 	
 //	====================================== CONSTRUCTORS ======================================
 	
 	public AbstractNLPTrainer(InputStream configuration)
 	{	
 		t_configuration = createConfiguration(configuration);
+		setNumberOfThreads(t_configuration.getThreadSize());
+	}
+	
+	/** @param numThreads the number of threads generating training instances; if {@code 1}, trees are processed sequentially. */
+	public void setNumberOfThreads(int numThreads)
+	{
+		n_threads = Math.max(1, numThreads);
+	}
+	
+	/** @param cacheDir the directory where binary caches of the training and development files are created and read ({@code null} to read the files as text). */
+	public void setCacheDirectory(String cacheDir)
+	{
+		s_cacheDir = cacheDir;
+	}
+	
+	/** @param corpus the corpus returned by {@link #loadCorpus(List)}, which is read instead of the files it contains. */
+	public void setCorpus(Map<String,CachedTSVReader> corpus)
+	{
+		m_corpus = corpus;
+	}
+	
+	/**
+	 * Loads the binary caches of the specific files in memory, which must be created in the cache directory.
+	 * The corpus can be shared by trainers using the same columns, which read their own trees from the corpus.
+	 * @return the map between the filenames and the readers holding their trees.
+	 */
+	public Map<String,CachedTSVReader> loadCorpus(List<String> filelist) throws IOException
+	{
+		Map<String,CachedTSVReader> corpus = new HashMap<>();
+		CachedTSVReader reader;
+		
+		for (String filename : filelist)
+		{
+			reader = new CachedTSVReader((TSVReader)t_configuration.getReader(), s_cacheDir);
+			reader.open(filename);
+			reader.load();
+			reader.close();
+			corpus.put(filename, reader);
+		}
+		
+		return corpus;
 	}
 	
 	public ObjectDoublePair<AbstractStatisticalComponent<?,?,?,?,?>> train(List<String> trainFiles, List<String> developFiles)
@@ -104,6 +169,7 @@ public abstract class AbstractNLPTrainer
 		process(component, trainFiles, true);
 		
 		// evaluate
+		for (StringModel model : component.getModels()) model.setNumberOfThreads(n_threads);
 		AbstractTrainer[] trainers = t_configuration.getTrainers(component.getModels());
 		component = createComponentForEvaluate(lexicons, component.getModels());
 		double score = trainPipeline(component, trainers, developFiles);
@@ -267,6 +333,12 @@ public abstract class AbstractNLPTrainer
 	
 	public void process(AbstractStatisticalComponent<?,?,?,?,?> component, List<String> filelist, boolean log)
 	{
+		if (n_threads > 1 && component.isTrainOrBootstrap())
+		{
+			processParallel(component, filelist, log);
+			return;
+		}
+		
 		for (String filename : filelist)
 		{
 			process(component, filename);
@@ -278,8 +350,7 @@ public abstract class AbstractNLPTrainer
 	
 	public void process(AbstractStatisticalComponent<?,?,?,?,?> component, String filename)
 	{
-		TSVReader reader = (TSVReader)t_configuration.getReader();
-		reader.open(IOUtils.createFileInputStream(filename));
+		TSVReader reader = open(filename);
 		DEPTree tree;
 		
 		while ((tree = reader.next()) != null)
@@ -287,4 +358,134 @@ public abstract class AbstractNLPTrainer
 
 		reader.close();
 	}
+	
+	/** @return the reader of the specific file, which reads the trees of the file in the corpus if exists, or the binary cache of the file if the cache directory is set. */
+	private TSVReader open(String filename)
+	{
+		TSVReader reader = (TSVReader)t_configuration.getReader();
+		CachedTSVReader cached = (m_corpus != null) ? m_corpus.get(filename) : null;
+		
+		if (cached != null)
+		{
+			cached = new CachedTSVReader(cached);
+			
+			try
+			{
+				cached.open(0, cached.getTreeSize());
+			}
+			catch (IOException e) {throw new IllegalStateException(e);}
+			
+			return cached;
+		}
+		
+		if (s_cacheDir == null)
+		{
+			reader = new MappedTSVReader(reader);
+			reader.open(IOUtils.createFileInputStream(filename));
+			return reader;
+		}
+		
+		cached = new CachedTSVReader(reader, s_cacheDir);
+		
+		try
+		{
+			cached.open(filename);
+		}
+		catch (IOException e) {throw new IllegalStateException(e);}
+		
+		return cached;
+	}
+	
+	/**
+	 * Generates training instances from ranges of the files using multiple threads, where each thread reads and processes the trees in its own range,
+	 * and adds them to the models in the order of the trees so that the models are the same as the ones trained by processing the trees sequentially.
+	 */
+	private void processParallel(AbstractStatisticalComponent<?,?,?,?,?> component, List<String> filelist, boolean log)
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(n_threads);
+		Deque<Future<List<List<StringInstance>>>> futures = new ArrayDeque<>();
+		TSVReader reader = (TSVReader)t_configuration.getReader();
+		long[] offsets;
+		int i;
+		
+		try
+		{
+			for (String filename : filelist)
+			{
+				if (s_cacheDir != null || (m_corpus != null && m_corpus.containsKey(filename)))
+					submitCached(component, filename, executor, futures);
+				else
+				{
+					offsets = MappedTSVReader.split(filename, (int)Math.max(1, new File(filename).length() / RANGE_SIZE));
+					
+					for (i=1; i<offsets.length; i++)
+					{
+						final long beginIndex = offsets[i-1], endIndex = offsets[i];
+						submit(component, () -> read(reader, filename, beginIndex, endIndex), executor, futures);
+					}
+				}
+				
+				if (log) BinUtils.LOG.info(".");
+			}
+			
+			while (!futures.isEmpty()) component.addCollectedInstances(futures.poll().get());
+		}
+		catch (IOException | InterruptedException | ExecutionException e) {throw new IllegalStateException(e);}
+		finally
+		{
+			executor.shutdownNow();
+		}
+		
+		if (log) BinUtils.LOG.info("\n\n");
+	}
+	
+	/** Submits the ranges of the cached trees in the specific file. */
+	private void submitCached(AbstractStatisticalComponent<?,?,?,?,?> component, String filename, ExecutorService executor, Deque<Future<List<List<StringInstance>>>> futures) throws IOException, InterruptedException, ExecutionException
+	{
+		CachedTSVReader cached = (CachedTSVReader)open(filename);
+		int i, size = cached.getTreeSize();
+		cached.close();
+		
+		for (i=0; i<size; i+=BATCH_SIZE)
+		{
+			final int beginIndex = i, endIndex = Math.min(i+BATCH_SIZE, size);
+			
+			submit(component, () ->
+			{
+				CachedTSVReader reader = new CachedTSVReader(cached);
+				reader.open(beginIndex, endIndex);
+				return read(reader);
+			}, executor, futures);
+		}
+	}
+	
+	/** Submits the task reading a range of trees, and adds the instances of the earliest ranges to the models while too many ranges are pending. */
+	private void submit(AbstractStatisticalComponent<?,?,?,?,?> component, Callable<List<DEPTree>> trees, ExecutorService executor, Deque<Future<List<List<StringInstance>>>> futures) throws InterruptedException, ExecutionException
+	{
+		futures.add(executor.submit(() -> component.collectInstances(trees.call())));
+		
+		while (futures.size() > 2 * n_threads)
+			component.addCollectedInstances(futures.poll().get());
+	}
+	
+	/** @return the trees between the specific offsets of the file, read with the same columns as the specific reader. */
+	private List<DEPTree> read(TSVReader reader, String filename, long beginIndex, long endIndex) throws IOException
+	{
+		MappedTSVReader mapped = new MappedTSVReader(reader);
+		mapped.open(filename, beginIndex, endIndex);
+		return read(mapped);
+	}
+	
+	/** @return all trees read by the specific reader, which gets closed. */
+	private List<DEPTree> read(TSVReader reader)
+	{
+		List<DEPTree> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		return trees;
+	}
 }
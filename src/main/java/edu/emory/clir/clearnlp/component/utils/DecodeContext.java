@@ -0,0 +1,76 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+
+/**
+ * Scratch space owned by one thread that is reused across all calls to a statistical component.
+ * An instance of this class must never be shared across threads; components keep one per thread
+ * so that the models, feature extractors, and lexicons can be shared read-only.
+ * Objects returned by this class are overwritten by the next decision, so they must not be kept by states or trees.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class DecodeContext
+{
+	private double[][] score_buffers;
+	private SparseFeatureVector f_vector;
+	private StringPrediction[] top2_predictions;
+	private int[] top2_indices;
+	
+	public DecodeContext(int modelSize)
+	{
+		score_buffers    = new double[modelSize][];
+		f_vector         = new SparseFeatureVector();
+		top2_predictions = new StringPrediction[]{new StringPrediction(null, 0), new StringPrediction(null, 0)};
+		top2_indices     = new int[2];
+	}
+	
+	/**
+	 * @param modelIndex the index of the model in its component.
+	 * @return the score buffer for the specific model, whose values get overwritten by every prediction.
+	 */
+	public double[] getScoreBuffer(int modelIndex, StringModel model)
+	{
+		double[] scores = score_buffers[modelIndex];
+		
+		if (scores == null || scores.length != model.getWeightVector().getScoreSize())
+			score_buffers[modelIndex] = scores = model.createScoreBuffer();
+		
+		return scores;
+	}
+	
+	/** @return the feature vector to be filled by the compiled feature extraction. */
+	public SparseFeatureVector getFeatureVector()
+	{
+		return f_vector;
+	}
+	
+	/** @return the array of 2 predictions to be filled by {@link StringModel#predictTop2(SparseFeatureVector, int[], double[], int[], StringPrediction[])}. */
+	public StringPrediction[] getTop2Predictions()
+	{
+		return top2_predictions;
+	}
+	
+	/** @return the buffer of size 2 for the label indices of the top 2 predictions. */
+	public int[] getTop2Indices()
+	{
+		return top2_indices;
+	}
+}
\ No newline at end of file
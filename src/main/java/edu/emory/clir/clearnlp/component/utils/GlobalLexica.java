@@ -24,7 +24,7 @@ import java.util.stream.Collectors;
 
 import org.w3c.dom.Element;
 
-import edu.emory.clir.clearnlp.collection.tree.PrefixTree;
+import edu.emory.clir.clearnlp.collection.tree.ArrayAhoCorasick;
 import edu.emory.clir.clearnlp.ner.NERInfoSet;
 import edu.emory.clir.clearnlp.util.DSUtils;
 import edu.emory.clir.clearnlp.util.XmlUtils;
@@ -36,7 +36,7 @@ import edu.emory.clir.clearnlp.util.XmlUtils;
 public class GlobalLexica
 {
 	static private List<Map<String,Set<String>>> distributional_semantics_words;
-	static private PrefixTree<String,NERInfoSet> named_entity_dictionary;
+	static private ArrayAhoCorasick<NERInfoSet> named_entity_dictionary;
 	
 	static public void init(InputStream in)
 	{
@@ -51,7 +51,7 @@ public class GlobalLexica
 	static public void initNamedEntityDictionary(String path)
 	{
 		if (path != null && !path.isEmpty())
-			named_entity_dictionary = NLPUtils.getNERDictionary(path);
+			named_entity_dictionary = NLPUtils.getNERAutomaton(path);
 	}
 	
 	static public void initDistributionalSemanticsWords(List<String> paths)
@@ -59,7 +59,7 @@ public class GlobalLexica
 		distributional_semantics_words = paths.stream().map(path -> NLPUtils.getDistributionalSemantics(path)).collect(Collectors.toCollection(ArrayList::new));
 	}
 	
-	static public PrefixTree<String,NERInfoSet> getNamedEntityDictionary()
+	static public ArrayAhoCorasick<NERInfoSet> getNamedEntityDictionary()
 	{
 		return named_entity_dictionary;
 	}
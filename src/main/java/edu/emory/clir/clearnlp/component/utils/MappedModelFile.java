@@ -0,0 +1,300 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component.utils;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.map.LabelMap;
+import edu.emory.clir.clearnlp.classification.map.MappedFeatureMap;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.MappedWeightVector;
+
+/**
+ * Flat binary format of the models of a statistical component, which is memory-mapped for decode instead of being deserialized.
+ * The file consists of the header, the serialized feature extractors and lexicons, and the regions of the models:
+ * <pre>
+ * header: int magic, int version, int length of the serialized objects, int number of models, (long offset, long length) of each model
+ * model : int binary, int label size, int feature size, int feature type size, int key size, int weight size, int label count, int label bytes,
+ *         labels (int length + UTF-8 bytes each), sorted feature keys (long[]), feature indices (int[]), weights (float[])
+ * </pre>
+ * All numbers are big-endian, and every array starts at a multiple of 8 bytes from the beginning of its model region.
+ * Each model region is mapped separately, so the weights and feature maps are shared across processes through the page cache.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedModelFile
+{
+	static public final int MAGIC   = 0x434E4C4D;
+	static public final int VERSION = 1;
+	static private final int HEADER = 16, MODEL_HEADER = 32, ALIGN = 8;
+	
+	private MappedModelFile() {}
+
+//	====================================== CONVERSION ======================================
+	
+	/**
+	 * Converts the serialized component from {@link edu.emory.clir.clearnlp.component.AbstractStatisticalComponent#save(ObjectOutputStream)}
+	 * to the mapped format without creating the component.
+	 * @throws IllegalArgumentException if the feature map of any model cannot be {@link StringModel#compileFeatureMap() compiled}.
+	 */
+	static public void convert(ObjectInputStream in, String outputPath) throws Exception
+	{
+		Object extractors = in.readObject();
+		Object lexicons   = in.readObject();
+		int i, size = in.readInt();
+		StringModel[] models = new StringModel[size];
+		
+		for (i=0; i<size; i++)
+			models[i] = new StringModel(in);
+		
+		write(outputPath, extractors, lexicons, models);
+	}
+	
+	static public void write(String outputPath, Object extractors, Object lexicons, StringModel[] models) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream oout = new ObjectOutputStream(bout);
+		oout.writeObject(extractors);
+		oout.writeObject(lexicons);
+		oout.close();
+		
+		byte[] objects = bout.toByteArray();
+		byte[][] labels = new byte[models.length][];
+		long[] offsets = new long[models.length], lengths = new long[models.length];
+		long offset = align(HEADER + 16L * models.length + objects.length);
+		int i;
+		
+		for (i=0; i<models.length; i++)
+		{
+			if (!models[i].compileFeatureMap()) throw new IllegalArgumentException("The feature map cannot be compiled: model "+i);
+			labels [i] = toLabelBytes(models[i].getLabels());
+			offsets[i] = offset;
+			lengths[i] = getModelLength(models[i], labels[i].length);
+			offset = align(offset + lengths[i]);
+		}
+		
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(outputPath), 1 << 16));
+		out.writeInt(MAGIC);
+		out.writeInt(VERSION);
+		out.writeInt(objects.length);
+		out.writeInt(models.length);
+		
+		for (i=0; i<models.length; i++)
+		{
+			out.writeLong(offsets[i]);
+			out.writeLong(lengths[i]);
+		}
+		
+		out.write(objects);
+		offset = HEADER + 16L * models.length + objects.length;
+		
+		for (i=0; i<models.length; i++)
+		{
+			pad(out, offsets[i] - offset);
+			writeModel(out, models[i], labels[i]);
+			offset = offsets[i] + lengths[i];
+		}
+		
+		out.close();
+	}
+	
+	static private byte[] toLabelBytes(String[] labels) throws IOException
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(bout);
+		byte[] b;
+		
+		for (String label : labels)
+		{
+			b = label.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(b.length);
+			out.write(b);
+		}
+		
+		return bout.toByteArray();
+	}
+	
+	static private long getModelLength(StringModel model, int labelBytes)
+	{
+		long keySize = model.getCompiledFeatureMap().size();
+		return align(align(MODEL_HEADER + labelBytes) + 8L * keySize + 4L * keySize) + 4L * model.getWeightVector().size();
+	}
+	
+	static private void writeModel(DataOutputStream out, StringModel model, byte[] labels) throws IOException
+	{
+		CompiledFeatureMap map = model.getCompiledFeatureMap();
+		AbstractWeightVector vector = model.getWeightVector();
+		int i, keySize = map.size(), weightSize = vector.size();
+		long[] keys = new long[keySize];
+		int[] indices = new int[keySize];
+		
+		MappedFeatureMap.toSortedKeys(map, keys, indices);
+		out.writeInt(vector.isBinaryLabel() ? 1 : 0);
+		out.writeInt(vector.getLabelSize());
+		out.writeInt(vector.getFeatureSize());
+		out.writeInt(map.getTypeSize());
+		out.writeInt(keySize);
+		out.writeInt(weightSize);
+		out.writeInt(model.getLabels().length);
+		out.writeInt(labels.length);
+		out.write(labels);
+		
+		pad(out, align(MODEL_HEADER + labels.length) - (MODEL_HEADER + labels.length));
+		for (i=0; i<keySize; i++) out.writeLong(keys[i]);
+		for (i=0; i<keySize; i++) out.writeInt(indices[i]);
+		
+		pad(out, align(12L * keySize) - 12L * keySize);
+		for (i=0; i<weightSize; i++) out.writeFloat(vector.get(i));
+	}
+	
+	/** Writes the specific number of zeros. */
+	static private void pad(DataOutputStream out, long size) throws IOException
+	{
+		for (; size > 0; size--) out.writeByte(0);
+	}
+	
+	static private long align(long offset)
+	{
+		return (offset + ALIGN - 1) / ALIGN * ALIGN;
+	}
+
+//	====================================== LOADING ======================================
+	
+	/** @return {@code true} if the specific path is a file in the mapped format. */
+	static public boolean isMappedModel(String path)
+	{
+		File file = new File(path);
+		if (!file.isFile() || file.length() < HEADER) return false;
+		
+		try (DataInputStream in = new DataInputStream(new FileInputStream(file)))
+		{
+			return in.readInt() == MAGIC;
+		}
+		catch (IOException e) {return false;}
+	}
+	
+	/**
+	 * Maps the models in the specific file and returns the stream of the serialized feature extractors and lexicons,
+	 * which can be passed to the constructors of statistical components for decode in place of the stream of a serialized component.
+	 */
+	static public ModelInputStream open(String path) throws IOException
+	{
+		try (RandomAccessFile file = new RandomAccessFile(path, "r"))
+		{
+			FileChannel channel = file.getChannel();
+			ByteBuffer header = read(channel, 0, HEADER);
+			
+			if (header.getInt() != MAGIC)	throw new IOException("Not a mapped model file: "+path);
+			if (header.getInt() != VERSION)	throw new IOException("Unsupported version: "+path);
+			
+			int i, objectLength = header.getInt(), size = header.getInt();
+			ByteBuffer table = read(channel, HEADER, 16 * size);
+			StringModel[] models = new StringModel[size];
+			
+			for (i=0; i<size; i++)
+			{
+				models[i] = toModel(channel, table.getLong());
+				table.getLong();	// length of the model region
+			}
+			
+			return new ModelInputStream(read(channel, HEADER + 16 * size, objectLength).array(), models);
+		}
+	}
+	
+	static private ByteBuffer read(FileChannel channel, long position, int length) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		
+		while (buffer.hasRemaining())
+			if (channel.read(buffer, position + buffer.position()) < 0) throw new IOException("Unexpected end of file.");
+		
+		return ByteBuffer.wrap(buffer.array());
+	}
+	
+	static private StringModel toModel(FileChannel channel, long offset) throws IOException
+	{
+		ByteBuffer buffer = read(channel, offset, MODEL_HEADER);
+		boolean binary  = buffer.getInt() == 1;
+		int labelSize   = buffer.getInt();
+		int featureSize = buffer.getInt();
+		int typeSize    = buffer.getInt();
+		int keySize     = buffer.getInt();
+		int weightSize  = buffer.getInt();
+		String[] labels = new String[buffer.getInt()];
+		int i, labelBytes = buffer.getInt();
+		byte[] b;
+		
+		buffer = read(channel, offset + MODEL_HEADER, labelBytes);
+		
+		for (i=0; i<labels.length; i++)
+		{
+			b = new byte[buffer.getInt()];
+			buffer.get(b);
+			labels[i] = new String(b, StandardCharsets.UTF_8);
+		}
+		
+		long keyOffset    = offset + align(MODEL_HEADER + labelBytes);
+		long weightOffset = keyOffset + align(12L * keySize);
+		
+		MappedFeatureMap map = new MappedFeatureMap(typeSize, map(channel, keyOffset, 8L * keySize).asLongBuffer(), map(channel, keyOffset + 8L * keySize, 4L * keySize).asIntBuffer());
+		MappedWeightVector vector = new MappedWeightVector(binary, labelSize, featureSize, map(channel, weightOffset, 4L * weightSize).asFloatBuffer());
+		return new StringModel(vector, new LabelMap(labels), map);
+	}
+	
+	static private MappedByteBuffer map(FileChannel channel, long position, long length) throws IOException
+	{
+		if (length > Integer.MAX_VALUE) throw new IOException("The array is too large to be mapped: "+length+" bytes");
+		return channel.map(MapMode.READ_ONLY, position, length);
+	}
+	
+	/**
+	 * Stream of the serialized feature extractors and lexicons of a mapped model file, which carries the mapped models.
+	 * @see edu.emory.clir.clearnlp.component.AbstractStatisticalComponent#load(ObjectInputStream)
+	 */
+	static public class ModelInputStream extends ObjectInputStream
+	{
+		private StringModel[] s_models;
+		
+		private ModelInputStream(byte[] objects, StringModel[] models) throws IOException
+		{
+			super(new ByteArrayInputStream(objects));
+			s_models = models;
+		}
+		
+		public StringModel[] getModels()
+		{
+			return s_models;
+		}
+	}
+}
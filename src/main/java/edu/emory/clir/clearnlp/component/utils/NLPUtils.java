@@ -16,6 +16,7 @@
 package edu.emory.clir.clearnlp.component.utils;
 
 import java.io.BufferedInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
@@ -25,6 +26,7 @@ import java.util.Set;
 
 import org.tukaani.xz.XZInputStream;
 
+import edu.emory.clir.clearnlp.collection.tree.ArrayAhoCorasick;
 import edu.emory.clir.clearnlp.collection.tree.PrefixTree;
 import edu.emory.clir.clearnlp.component.mode.dep.AbstractDEPParser;
 import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
@@ -50,6 +52,7 @@ import edu.emory.clir.clearnlp.tokenization.AbstractTokenizer;
 import edu.emory.clir.clearnlp.tokenization.EnglishTokenizer;
 import edu.emory.clir.clearnlp.util.BinUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
 import edu.emory.clir.clearnlp.util.lang.TLanguage;
 
 /**
@@ -165,6 +168,52 @@ public class NLPUtils
 		return getNERDictionary(NLPUtils.getObjectInputStream(modelPath));
 	}
 	
+	/** @return the named entity gazetteers compiled for decode, which are compiled here if the stream has a {@link PrefixTree}. */
+	@SuppressWarnings("unchecked")
+	static public ArrayAhoCorasick<NERInfoSet> getNERAutomaton(ObjectInputStream in)
+	{
+		BinUtils.LOG.info("Loading named entity gazetteers.\n");
+		ArrayAhoCorasick<NERInfoSet> automaton = null;
+		
+		try
+		{
+			Object dictionary = in.readObject();
+			
+			if (dictionary instanceof PrefixTree)
+				automaton = compileNERDictionary((PrefixTree<String,NERInfoSet>)dictionary);
+			else
+				automaton = (ArrayAhoCorasick<NERInfoSet>)dictionary;
+		}
+		catch (Exception e) {e.printStackTrace();}
+		
+		return automaton;
+	}
+	
+	/** @param modelPath the path of a serialized {@link PrefixTree} or {@link ArrayAhoCorasick}, or a file {@link ArrayAhoCorasick#save(String) saved} to be memory-mapped. */
+	static public ArrayAhoCorasick<NERInfoSet> getNERAutomaton(String modelPath)
+	{
+		if (ArrayAhoCorasick.isMappedFile(modelPath))
+		{
+			BinUtils.LOG.info("Mapping named entity gazetteers.\n");
+			
+			try
+			{
+				return ArrayAhoCorasick.map(modelPath);
+			}
+			catch (IOException e) {e.printStackTrace();}
+			
+			return null;
+		}
+		
+		return getNERAutomaton(NLPUtils.getObjectInputStream(modelPath));
+	}
+	
+	/** @return the automaton compiled from the specific dictionary, where entries with the same categories and count share one read-only {@link NERInfoSet}. */
+	static public ArrayAhoCorasick<NERInfoSet> compileNERDictionary(PrefixTree<String,NERInfoSet> dictionary)
+	{
+		return new ArrayAhoCorasick<>(dictionary, set -> set.joinTags(StringConst.TAB) + StringConst.NEW_LINE + set.getCorrectCount());
+	}
+	
 	@SuppressWarnings("unchecked")
 	static public Map<String,Set<String>> getDistributionalSemantics(ObjectInputStream in)
 	{
@@ -185,11 +234,20 @@ public class NLPUtils
 		return getDistributionalSemantics(getObjectInputStream(modelPath));
 	}
 	
+	/**
+	 * @return the stream of {@link MappedModelFile#open(String) the mapped model file} if the path is one;
+	 * otherwise, the stream of the model file in the classpath, or in the filesystem if it is not in the classpath.
+	 */
 	static public ObjectInputStream getObjectInputStream(String modelPath)
 	{
 		try
 		{
-			return new ObjectInputStream(new XZInputStream(new BufferedInputStream(IOUtils.getInputStreamsFromClasspath(modelPath))));
+			if (MappedModelFile.isMappedModel(modelPath))
+				return MappedModelFile.open(modelPath);
+			
+			InputStream in = IOUtils.getInputStreamsFromClasspath(modelPath);
+			if (in == null && new File(modelPath).isFile()) in = IOUtils.createFileInputStream(modelPath);
+			return new ObjectInputStream(new XZInputStream(new BufferedInputStream(in)));
 		}
 		catch (IOException e) {e.printStackTrace();}
 
@@ -48,6 +48,11 @@ import edu.emory.clir.clearnlp.util.constant.StringConst;
 public class DEPNode implements Comparable<DEPNode>, Serializable
 {
 	private static final long serialVersionUID = 3794720014142939766L;
+	/** Valencies are created once so that features can be extracted without creating strings. */
+	private static final String[]   VALENCY_LEFT  = {StringConst.EMPTY, StringConst.LESS_THAN, StringConst.LESS_THAN+StringConst.LESS_THAN};
+	private static final String[]   VALENCY_RIGHT = {StringConst.EMPTY, StringConst.GREATER_THAN, StringConst.GREATER_THAN+StringConst.GREATER_THAN};
+	private static final String[][] VALENCY_ALL   = initValencyAll();
+	
 	/** The ID of this node (default: {@link DEPLib#NULL_ID}). */
 	private int		n_id;
 	/** The word-form of this node. */
@@ -944,7 +949,7 @@ public class DEPNode implements Comparable<DEPNode>, Serializable
 		{
 		case  l: return getLeftValency();
 		case  r: return getRightValency();
-		case  a: return getLeftValency()+"-"+getRightValency();
+		case  a: return VALENCY_ALL[countLeftValency()][countRightValency()];
 		default: return null;
 		}
 	}
@@ -955,17 +960,7 @@ public class DEPNode implements Comparable<DEPNode>, Serializable
 	 */
 	public String getLeftValency()
 	{
-		StringBuilder build = new StringBuilder();
-		
-		if (getLeftMostDependent() != null)
-		{
-			build.append(StringConst.LESS_THAN);
-			
-			if (getLeftMostDependent(1) != null)
-				build.append(StringConst.LESS_THAN);
-		}
-		
-		return build.toString();
+		return VALENCY_LEFT[countLeftValency()];
 	}
 	
 	/**
@@ -974,17 +969,34 @@ public class DEPNode implements Comparable<DEPNode>, Serializable
 	 */
 	public String getRightValency()
 	{
-		StringBuilder build = new StringBuilder();
+		return VALENCY_RIGHT[countRightValency()];
+	}
+	
+	/** @return the number of left dependents up to 2. */
+	private int countLeftValency()
+	{
+		if (getLeftMostDependent() == null) return 0;
+		return (getLeftMostDependent(1) != null) ? 2 : 1;
+	}
+	
+	/** @return the number of right dependents up to 2. */
+	private int countRightValency()
+	{
+		if (getRightMostDependent() == null) return 0;
+		return (getRightMostDependent(1) != null) ? 2 : 1;
+	}
+	
+	/** @return "{@code left}-{@code right}" for all pairs of left and right valencies. */
+	static private String[][] initValencyAll()
+	{
+		String[][] valencies = new String[VALENCY_LEFT.length][VALENCY_RIGHT.length];
+		int l, r;
 		
-		if (getRightMostDependent() != null)
-		{
-			build.append(StringConst.GREATER_THAN);
-			
-			if (getRightMostDependent(1) != null)
-				build.append(StringConst.GREATER_THAN);
-		}
+		for (l=0; l<VALENCY_LEFT.length; l++)
+			for (r=0; r<VALENCY_RIGHT.length; r++)
+				valencies[l][r] = VALENCY_LEFT[l] + StringConst.HYPHEN + VALENCY_RIGHT[r];
 		
-		return build.toString();
+		return valencies;
 	}
 	
 	/**
@@ -26,6 +26,7 @@ import java.util.function.Function;
 import com.carrotsearch.hppc.cursors.IntCursor;
 
 import edu.emory.clir.clearnlp.collection.set.IntHashSet;
+import edu.emory.clir.clearnlp.feature.common.TokenFeatureCache;
 import edu.emory.clir.clearnlp.srl.SRLTree;
 import edu.emory.clir.clearnlp.util.StringUtils;
 import edu.emory.clir.clearnlp.util.arc.DEPArc;
@@ -40,6 +41,8 @@ public class DEPTree implements Iterable<DEPNode>
 {
 	private DEPNode[] d_tree;
 	private int n_size;
+	/** Created by {@link #getTokenCache()}. */
+	private TokenFeatureCache t_cache;
 	
 //	====================================== Constructors ======================================
 
@@ -185,6 +188,13 @@ public class DEPTree implements Iterable<DEPNode>
 		return n_size;
 	}
 	
+	/** @return the cache of token features derived from the word-forms of this tree, which is created on the first call and shared by all components. */
+	public TokenFeatureCache getTokenCache()
+	{
+		if (t_cache == null) t_cache = new TokenFeatureCache(d_tree.length);
+		return t_cache;
+	}
+	
 	/**
 	 * Remove the DEPNode with the specific ID
 	 * @param id
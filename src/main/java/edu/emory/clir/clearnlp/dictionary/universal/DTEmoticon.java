@@ -17,10 +17,11 @@ package edu.emory.clir.clearnlp.dictionary.universal;
 
 import java.io.InputStream;
 import java.util.Set;
-import java.util.regex.Matcher;
 
+import edu.emory.clir.clearnlp.collection.set.CharHashSet;
 import edu.emory.clir.clearnlp.collection.tree.CharAffixTree;
 import edu.emory.clir.clearnlp.dictionary.PathTokenizer;
+import edu.emory.clir.clearnlp.util.CharUtils;
 import edu.emory.clir.clearnlp.util.DSUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
 import edu.emory.clir.clearnlp.util.MetaUtils;
@@ -35,6 +36,8 @@ public class DTEmoticon
 	private Set<String>   s_emoticon;
 	private CharAffixTree t_prefix;
 	private CharAffixTree t_suffix;
+	private CharHashSet   c_first;
+	private CharHashSet   c_last;
 	
 	public DTEmoticon()
 	{
@@ -51,27 +54,46 @@ public class DTEmoticon
 		s_emoticon = DSUtils.createStringHashSet(in, true, false);
 		t_prefix = new CharAffixTree(true);		t_prefix.addAll(s_emoticon);
 		t_suffix = new CharAffixTree(false);	t_suffix.addAll(s_emoticon);
+		c_first  = new CharHashSet();
+		c_last   = new CharHashSet();
+		
+		for (String emoticon : s_emoticon)
+		{
+			if (emoticon.isEmpty()) continue;
+			c_first.add(emoticon.charAt(0));
+			c_last .add(emoticon.charAt(emoticon.length()-1));
+		}
 	}
 	
 	public int[] getEmoticonRange(String s)
 	{
-		s = StringUtils.toLowerCase(s);
-		
-		if (s_emoticon.contains(s))
-			return new int[]{0, s.length()};
-		
-		Matcher m = MetaUtils.EMOTICON.matcher(s);
+		return getEmoticonRange(s, 0, s.length());
+	}
+	
+	/**
+	 * Dictionary lookups are skipped unless the lowercase of the first or the last character begins or ends an emoticon,
+	 * so the substring and its lowercase are created only for tokens that may be emoticons.
+	 * @return the range of the emoticon in the substring of {@code s} between the specific indices if exists; otherwise, {@code null}.
+	 */
+	public int[] getEmoticonRange(String s, int beginIndex, int endIndex)
+	{
+		boolean first = c_first.contains(CharUtils.toLowerCase(s.charAt(beginIndex)));
+		boolean last  = c_last .contains(CharUtils.toLowerCase(s.charAt(endIndex-1)));
+		String lower = (first || last) ? StringUtils.toLowerCase(s.substring(beginIndex, endIndex)) : null;
+		int[] ps;
+		int idx;
 		
-		if (m.find())
-			return new int[]{m.start(), m.end()};
+		if (first && s_emoticon.contains(lower))
+			return new int[]{beginIndex, endIndex};
 		
-		int idx;
+		if ((ps = MetaUtils.getEmoticonRange(s, beginIndex, endIndex)) != null)
+			return ps;
 		
-		if ((idx = t_prefix.getAffixIndex(s, false)) >= 0)
-			return new int[]{0, idx+1};
+		if (first && (idx = t_prefix.getAffixIndex(lower, false)) >= 0)
+			return new int[]{beginIndex, beginIndex+idx+1};
 		
-		if ((idx = t_suffix.getAffixIndex(s, false)) >= 0)
-			return new int[]{idx, s.length()};
+		if (last && (idx = t_suffix.getAffixIndex(lower, false)) >= 0)
+			return new int[]{beginIndex+idx, endIndex};
 		
 		return null;
 	}
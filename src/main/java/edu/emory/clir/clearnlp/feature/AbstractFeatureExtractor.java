@@ -26,17 +26,15 @@ import java.util.Set;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
 
+import edu.emory.clir.clearnlp.classification.map.CompiledFeatureMap;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
 import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
 import edu.emory.clir.clearnlp.component.state.AbstractState;
 import edu.emory.clir.clearnlp.dependency.DEPNode;
 import edu.emory.clir.clearnlp.dependency.DEPTree;
-import edu.emory.clir.clearnlp.feature.common.OrthographicType;
 import edu.emory.clir.clearnlp.feature.type.FeatureXml;
 import edu.emory.clir.clearnlp.feature.type.FieldType;
-import edu.emory.clir.clearnlp.util.CharUtils;
 import edu.emory.clir.clearnlp.util.XmlUtils;
-import edu.emory.clir.clearnlp.util.constant.CharConst;
-import edu.emory.clir.clearnlp.util.constant.MetaConst;
 import edu.emory.clir.clearnlp.util.constant.StringConst;
 
 /**
@@ -180,6 +178,113 @@ abstract public class AbstractFeatureExtractor<FeatureTemplateType extends Abstr
 			vector.addFeature(type, prev);
 	}
 	
+//	====================================== Compiled feature extraction ======================================
+	
+	/**
+	 * Same as {@link #createStringFeatureVector(AbstractState)} followed by {@link edu.emory.clir.clearnlp.classification.model.StringModel#toSparseFeatureVector(StringFeatureVector)},
+	 * but looks up the features from the compiled map without joining their field values into strings.
+	 */
+	public SparseFeatureVector createSparseFeatureVector(StateType state, CompiledFeatureMap map)
+	{
+		SparseFeatureVector x = new SparseFeatureVector();
+		addFeatures(x, map, state);
+		x.trimToSize();
+		return x;
+	}
+	
+	/** Same as {@link #createSparseFeatureVector(AbstractState, CompiledFeatureMap)} but clears and fills the specific vector, which can be reused across states. */
+	public void createSparseFeatureVector(StateType state, CompiledFeatureMap map, SparseFeatureVector x)
+	{
+		x.clear();
+		addFeatures(x, map, state);
+	}
+	
+	/** Called by {@link #createSparseFeatureVector(AbstractState, CompiledFeatureMap, SparseFeatureVector)}. */
+	private void addFeatures(SparseFeatureVector x, CompiledFeatureMap map, StateType state)
+	{
+		int i, id = 1, size = f_templates.size();
+		FeatureTemplateType template;
+		
+		for (i=0; i<size; i++)
+		{
+			template = f_templates.get(i);
+			
+			switch (template.getFeatureType())
+			{
+			case BINARY: addSimpleFeatures(x, map, template, 0   , state); break;
+			case SIMPLE: addSimpleFeatures(x, map, template, id++, state); break;
+			case SET   : addSetFeatures   (x, map, template, id++, state); break;
+			}
+		}
+	}
+	
+	/** Called by {@link #addFeatures(SparseFeatureVector, CompiledFeatureMap, AbstractState)}. */
+	private void addSimpleFeatures(SparseFeatureVector x, CompiledFeatureMap map, FeatureTemplateType template, int typeID, StateType state)
+	{
+		if (!map.containsType(typeID)) return;
+		FeatureTokenType[] tokens = template.getFeatureTokens();
+		long key = map.getBasis(typeID);
+		int i, size = tokens.length;
+		String ftr;
+		
+		for (i=0; i<size; i++)
+		{
+			ftr = getFeature(tokens[i], state);
+			if (ftr == null) return;
+			
+			if (i > 0) key = CompiledFeatureMap.append(key, DELIM);
+			key = CompiledFeatureMap.append(key, ftr);
+		}
+		
+		addFeature(x, map, key);
+	}
+	
+	/** Called by {@link #addFeatures(SparseFeatureVector, CompiledFeatureMap, AbstractState)}. */
+	private void addSetFeatures(SparseFeatureVector x, CompiledFeatureMap map, FeatureTemplateType template, int typeID, StateType state)
+	{
+		if (!map.containsType(typeID)) return;
+		FeatureTokenType[] tokens = template.getFeatureTokens();
+		int i, size = tokens.length;
+		
+		String[][] fields = new String[size][];
+		
+		for (i=0; i<size; i++)
+		{
+			fields[i] = getFeatures(tokens[i], state);
+			if (fields[i] == null) return;
+		}
+		
+		addSetFeaturesAux(x, map, fields, 0, map.getBasis(typeID), true);
+	}
+	
+	/**
+	 * Called by {@link #addSetFeatures(SparseFeatureVector, CompiledFeatureMap, AbstractFeatureTemplate, int, AbstractState)}.
+	 * @param empty {@code true} if the feature represented by {@code prev} is empty.
+	 */
+	private void addSetFeaturesAux(SparseFeatureVector x, CompiledFeatureMap map, String[][] fields, int index, long prev, boolean empty)
+	{
+		if (index < fields.length)
+		{
+			for (String field : fields[index])
+			{
+				if (empty)
+					addSetFeaturesAux(x, map, fields, index+1, CompiledFeatureMap.append(prev, field), field.isEmpty());
+				else
+					addSetFeaturesAux(x, map, fields, index+1, CompiledFeatureMap.append(CompiledFeatureMap.append(prev, DELIM), field), false);
+			}
+		}
+		else
+			addFeature(x, map, prev);
+	}
+	
+	private void addFeature(SparseFeatureVector x, CompiledFeatureMap map, long key)
+	{
+		int index = map.getFeatureIndex(key);
+		if (index > 0) x.addFeature(index);
+	}
+	
+//	====================================== Field extraction ======================================
+	
 	private String getFeature(FeatureTokenType token, StateType state)
 	{
 		DEPNode node = state.getNode(token);
@@ -220,107 +325,9 @@ abstract public class AbstractFeatureExtractor<FeatureTemplateType extends Abstr
 		return list.isEmpty() ? null : list.toArray(new String[list.size()]);
 	}
 	
+	/** @return the orthographic features of the node, which are cached in {@link DEPTree#getTokenCache()} of the state. */
 	protected String[] getOrthographicFeatures(StateType state, DEPNode node)
 	{
-		List<String> list = new ArrayList<>();
-		
-		if (node.isSimplifiedForm(MetaConst.HYPERLINK))
-			list.add(OrthographicType.HYPERLINK);
-		else
-		{
-			char[] cs = node.getWordForm().toCharArray();
-			getOrthographicFeautureAux(state, node, list, cs);
-		}
-		
-		return list.isEmpty() ? null : list.toArray(new String[list.size()]);
-	}
-	
-	/** Called by {@link #getOrthographicFeatures(AbstractState, DEPNode)}. */
-	private void getOrthographicFeautureAux(StateType state, DEPNode node, List<String> list, char[] cs)
-	{
-		boolean hasDigit  = false;
-		boolean hasPeriod = false;
-		boolean hasHyphen = false;
-		boolean hasPunct  = false;
-		boolean fstUpper  = false;
-		boolean allDigit  = true;
-		boolean allPunct  = true;
-		boolean allUpper  = true;
-		boolean allLower  = true;
-		boolean noLower   = true;
-		boolean allDigitOrPunct = true;
-		int countUpper = 0;
-		
-		boolean upper, lower, punct, digit;
-		int i, size = cs.length;
-		char c;
-		
-		for (i=0; i<size; i++)
-		{
-			c = cs[i];
-			
-			upper = CharUtils.isUpperCase(c);
-			lower = CharUtils.isLowerCase(c);
-			digit = CharUtils.isDigit(c);
-			punct = CharUtils.isPunctuation(c);
-			
-			if (upper)
-			{
-				if (i == 0)	fstUpper = true;
-				else		countUpper++;
-			}
-			else
-				allUpper = false;
-			
-			if (lower)	noLower  = false;	
-			else		allLower = false;
-			
-			if (digit)	hasDigit = true;
-			else		allDigit = false;
-
-			if (punct)
-			{
-				hasPunct = true;
-				if (c == CharConst.PERIOD) hasPeriod = true;
-				if (c == CharConst.HYPHEN) hasHyphen = true;
-			}
-			else
-				allPunct = false;
-			
-			if (!digit && !punct)
-				allDigitOrPunct = false;
-		}
-		
-		if (allUpper)
-			list.add(OrthographicType.ALL_UPPER);
-		else if (allLower)
-			list.add(OrthographicType.ALL_LOWER);
-		else if (allDigit)
-			list.add(OrthographicType.ALL_DIGIT);
-		else if (allPunct)
-			list.add(OrthographicType.ALL_PUNCT);
-		else if (allDigitOrPunct)
-			list.add(OrthographicType.ALL_DIGIT_OR_PUNCT);
-		else if (noLower)
-			list.add(OrthographicType.NO_LOWER);
-		
-		if (!allUpper)
-		{
-			if (fstUpper && !state.isFirstNode(node))
-				list.add(OrthographicType.FST_UPPER);
-			if (countUpper == 1)
-				list.add(OrthographicType.UPPER_1);
-			else if (countUpper > 1)
-				list.add(OrthographicType.UPPER_2);
-		}
-		
-		if (!allDigit && hasDigit)
-			list.add(OrthographicType.HAS_DIGIT);
-		
-		if (hasPeriod)	list.add(OrthographicType.HAS_PERIOD);
-		if (hasHyphen)	list.add(OrthographicType.HAS_HYPHEN);
-		
-		if (!allPunct && !hasPeriod && !hasHyphen && hasPunct)
-			list.add(OrthographicType.HAS_OTHER_PUNCT);
+		return state.getTree().getTokenCache().getOrthographicFeatures(node, state.isFirstNode(node));
 	}
 }
\ No newline at end of file
@@ -21,12 +21,10 @@ import org.w3c.dom.Element;
 
 import edu.emory.clir.clearnlp.collection.pair.Pair;
 import edu.emory.clir.clearnlp.component.state.AbstractState;
-import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
 import edu.emory.clir.clearnlp.dependency.DEPNode;
 import edu.emory.clir.clearnlp.feature.AbstractFeatureExtractor;
 import edu.emory.clir.clearnlp.feature.type.DirectionType;
 import edu.emory.clir.clearnlp.feature.type.FieldType;
-import edu.emory.clir.clearnlp.util.StringUtils;
 
 /**
  * @since 3.0.0
@@ -55,10 +53,10 @@ public class CommonFeatureExtractor<StateType extends AbstractState<?,?>> extend
 		{
 		case f : return node.getWordForm();
 		case f2: return node.getSimplifiedWordForm();
-		case f3: return node.getLowerSimplifiedWordForm();
-		case f4: return node.getWordShape(2);
-		case pf: return StringUtils.getPrefix(node.getSimplifiedWordForm(), (int)token.getValue());
-		case sf: return StringUtils.getSuffix(node.getSimplifiedWordForm(), (int)token.getValue());
+		case f3: return getTokenCache(state).getLowerSimplifiedWordForm(node);
+		case f4: return getTokenCache(state).getWordShape(node, 2);
+		case pf: return getTokenCache(state).getPrefix(node, (int)token.getValue());
+		case sf: return getTokenCache(state).getSuffix(node, (int)token.getValue());
 		case m : return node.getLemma();
 		case p : return node.getPOSTag();
 		case n : return node.getNamedEntityTag();
@@ -79,13 +77,29 @@ public class CommonFeatureExtractor<StateType extends AbstractState<?,?>> extend
 		{
 		case ds  : return toLabelArray(node.getDependentList(), (FieldType)token.getValue());
 		case ds2 : return toLabelArray(node.getGrandDependentList(), (FieldType)token.getValue());
-		case dsw : return GlobalLexica.getDistributionalSemanticFeatures((int)token.getValue(), node.getWordForm());
-		case dsls: return GlobalLexica.getDistributionalSemanticFeatures((int)token.getValue(), node.getLowerSimplifiedWordForm());
+		case dsw : return getTokenCache(state).getDistributionalSemanticFeatures((int)token.getValue(), node, false);
+		case dsls: return getTokenCache(state).getDistributionalSemanticFeatures((int)token.getValue(), node, true);
 		case orth: return getOrthographicFeatures(state, node);
 		default  : return null;
 		}
 	}
 	
+	/** @return the same value as {@link DEPNode#getFormFeature(FieldType)}, where the lowercase form is taken from the token cache. */
+	protected String getFormFeature(CommonFeatureToken token, StateType state, DEPNode node)
+	{
+		switch (token.getField())
+		{
+		case f3: return getTokenCache(state).getLowerSimplifiedWordForm(node);
+		default: return node.getFormFeature(token.getField());
+		}
+	}
+	
+	/** @return the cache of token features shared by all extractors that process the tree of the state. */
+	protected TokenFeatureCache getTokenCache(StateType state)
+	{
+		return state.getTree().getTokenCache();
+	}
+	
 	protected String getBooleanFeatureValue(CommonFeatureToken token, StateType state, DEPNode node)
 	{
 		int field = (int)token.getValue();
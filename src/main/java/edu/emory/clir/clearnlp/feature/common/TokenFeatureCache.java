@@ -0,0 +1,320 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.feature.common;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.emory.clir.clearnlp.component.utils.GlobalLexica;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.util.CharUtils;
+import edu.emory.clir.clearnlp.util.StringUtils;
+import edu.emory.clir.clearnlp.util.constant.CharConst;
+import edu.emory.clir.clearnlp.util.constant.MetaConst;
+
+/**
+ * Token features derived from the word-forms of a tree (e.g., lowercase forms, word shapes, affixes, orthographic and distributional semantic features),
+ * computed on the first request and reused by every feature extractor that processes the tree afterwards, across all components of the pipeline.
+ * The features of a node are computed again if its word-form changes or another node takes its ID.
+ * Like {@link edu.emory.clir.clearnlp.dependency.DEPTree}, this cache is not thread-safe.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TokenFeatureCache
+{
+	/** Placeholder for features that have been computed but do not exist. */
+	static private final String[] NONE = new String[0];
+	private Entry[] t_entries;
+	
+	/** @param size the number of nodes in the tree, including the root. */
+	public TokenFeatureCache(int size)
+	{
+		t_entries = new Entry[size];
+	}
+	
+	/** Discards all cached features. */
+	public void clear()
+	{
+		Arrays.fill(t_entries, null);
+	}
+
+//	====================================== Features ======================================
+	
+	/** @return the same value as {@link DEPNode#getLowerSimplifiedWordForm()}. */
+	public String getLowerSimplifiedWordForm(DEPNode node)
+	{
+		Entry entry = getEntry(node);
+		if (entry.lower == null) entry.lower = node.getLowerSimplifiedWordForm();
+		return entry.lower;
+	}
+	
+	/** @return the same value as {@link DEPNode#getWordShape(int)}. */
+	public String getWordShape(DEPNode node, int maxRepetitions)
+	{
+		Entry entry = getEntry(node);
+		
+		if (entry.shape == null || entry.shapeRepetitions != maxRepetitions)
+		{
+			entry.shape = node.getWordShape(maxRepetitions);
+			entry.shapeRepetitions = maxRepetitions;
+		}
+		
+		return entry.shape;
+	}
+	
+	/** @return the same value as {@link StringUtils#getPrefix(String, int)} for the simplified word-form of the node. */
+	public String getPrefix(DEPNode node, int n)
+	{
+		if (n >= node.getSimplifiedWordForm().length()) return null;
+		Entry entry = getEntry(node);
+		entry.prefixes = ensureCapacity(entry.prefixes, n);
+		if (entry.prefixes[n] == null) entry.prefixes[n] = getLowerSimplifiedWordForm(node).substring(0, n);
+		return entry.prefixes[n];
+	}
+	
+	/** @return the same value as {@link StringUtils#getSuffix(String, int)} for the simplified word-form of the node. */
+	public String getSuffix(DEPNode node, int n)
+	{
+		String form = node.getSimplifiedWordForm();
+		if (n >= form.length()) return null;
+		Entry entry = getEntry(node);
+		entry.suffixes = ensureCapacity(entry.suffixes, n);
+		if (entry.suffixes[n] == null) entry.suffixes[n] = getLowerSimplifiedWordForm(node).substring(form.length()-n);
+		return entry.suffixes[n];
+	}
+	
+	/**
+	 * @param firstNode {@code true} if the node is the first token of the sentence, which is not considered to start with an uppercase letter.
+	 * @return the orthographic features of the node; {@code null} if there is none.
+	 * The returned array is shared by later calls so it must not be modified.
+	 */
+	public String[] getOrthographicFeatures(DEPNode node, boolean firstNode)
+	{
+		Entry entry = getEntry(node);
+		
+		if (firstNode)
+		{
+			if (entry.orthFirst == null) entry.orthFirst = toCache(getOrthographicFeaturesAux(node, true));
+			return fromCache(entry.orthFirst);
+		}
+		else
+		{
+			if (entry.orth == null) entry.orth = toCache(getOrthographicFeaturesAux(node, false));
+			return fromCache(entry.orth);
+		}
+	}
+	
+	/**
+	 * @param lowerSimplified if {@code true}, uses the lowercase simplified word-form of the node; otherwise, the word-form.
+	 * @return the same values as {@link GlobalLexica#getDistributionalSemanticFeatures(int, String)}; {@code null} if there is none.
+	 * The returned array is shared by later calls so it must not be modified.
+	 */
+	public String[] getDistributionalSemanticFeatures(int index, DEPNode node, boolean lowerSimplified)
+	{
+		if (index < 0) return null;
+		Entry entry = getEntry(node);
+		String[][] features;
+		
+		if (lowerSimplified)	features = entry.dsls = ensureCapacity(entry.dsls, index);
+		else					features = entry.dsw  = ensureCapacity(entry.dsw , index);
+		
+		if (features[index] == null)
+		{
+			String word = lowerSimplified ? getLowerSimplifiedWordForm(node) : node.getWordForm();
+			features[index] = toCache(GlobalLexica.getDistributionalSemanticFeatures(index, word));
+		}
+		
+		return fromCache(features[index]);
+	}
+
+//	====================================== Helper methods ======================================
+	
+	/** @return the entry of the specific node, which is reset if the node or its word-form has changed since the entry was created. */
+	private Entry getEntry(DEPNode node)
+	{
+		int id = node.getID();
+		
+		if (id >= t_entries.length)
+			t_entries = Arrays.copyOf(t_entries, Math.max(id+1, t_entries.length * 2));
+		
+		Entry entry = t_entries[id];
+		
+		if (entry == null || !entry.isFor(node))
+			t_entries[id] = entry = new Entry(node);
+		
+		return entry;
+	}
+	
+	static private String[] ensureCapacity(String[] array, int index)
+	{
+		if (array == null)			return new String[index+1];
+		if (index >= array.length)	return Arrays.copyOf(array, index+1);
+		return array;
+	}
+	
+	static private String[][] ensureCapacity(String[][] array, int index)
+	{
+		if (array == null)			return new String[index+1][];
+		if (index >= array.length)	return Arrays.copyOf(array, index+1);
+		return array;
+	}
+	
+	static private String[] toCache(String[] features)
+	{
+		return (features != null) ? features : NONE;
+	}
+	
+	static private String[] fromCache(String[] features)
+	{
+		return (features != NONE) ? features : null;
+	}
+
+//	====================================== Orthographic features ======================================
+	
+	static private String[] getOrthographicFeaturesAux(DEPNode node, boolean firstNode)
+	{
+		List<String> list = new ArrayList<>();
+		
+		if (node.isSimplifiedForm(MetaConst.HYPERLINK))
+			list.add(OrthographicType.HYPERLINK);
+		else
+			getOrthographicFeaturesAux(list, node.getWordForm().toCharArray(), firstNode);
+		
+		return list.isEmpty() ? null : list.toArray(new String[list.size()]);
+	}
+	
+	/** Called by {@link #getOrthographicFeaturesAux(DEPNode, boolean)}. */
+	static private void getOrthographicFeaturesAux(List<String> list, char[] cs, boolean firstNode)
+	{
+		boolean hasDigit  = false;
+		boolean hasPeriod = false;
+		boolean hasHyphen = false;
+		boolean hasPunct  = false;
+		boolean fstUpper  = false;
+		boolean allDigit  = true;
+		boolean allPunct  = true;
+		boolean allUpper  = true;
+		boolean allLower  = true;
+		boolean noLower   = true;
+		boolean allDigitOrPunct = true;
+		int countUpper = 0;
+		
+		boolean upper, lower, punct, digit;
+		int i, size = cs.length;
+		char c;
+		
+		for (i=0; i<size; i++)
+		{
+			c = cs[i];
+			
+			upper = CharUtils.isUpperCase(c);
+			lower = CharUtils.isLowerCase(c);
+			digit = CharUtils.isDigit(c);
+			punct = CharUtils.isPunctuation(c);
+			
+			if (upper)
+			{
+				if (i == 0)	fstUpper = true;
+				else		countUpper++;
+			}
+			else
+				allUpper = false;
+			
+			if (lower)	noLower  = false;	
+			else		allLower = false;
+			
+			if (digit)	hasDigit = true;
+			else		allDigit = false;
+			
+			if (punct)
+			{
+				hasPunct = true;
+				if (c == CharConst.PERIOD) hasPeriod = true;
+				if (c == CharConst.HYPHEN) hasHyphen = true;
+			}
+			else
+				allPunct = false;
+			
+			if (!digit && !punct)
+				allDigitOrPunct = false;
+		}
+		
+		if (allUpper)
+			list.add(OrthographicType.ALL_UPPER);
+		else if (allLower)
+			list.add(OrthographicType.ALL_LOWER);
+		else if (allDigit)
+			list.add(OrthographicType.ALL_DIGIT);
+		else if (allPunct)
+			list.add(OrthographicType.ALL_PUNCT);
+		else if (allDigitOrPunct)
+			list.add(OrthographicType.ALL_DIGIT_OR_PUNCT);
+		else if (noLower)
+			list.add(OrthographicType.NO_LOWER);
+		
+		if (!allUpper)
+		{
+			if (fstUpper && !firstNode)
+				list.add(OrthographicType.FST_UPPER);
+			if (countUpper == 1)
+				list.add(OrthographicType.UPPER_1);
+			else if (countUpper > 1)
+				list.add(OrthographicType.UPPER_2);
+		}
+		
+		if (!allDigit && hasDigit)
+			list.add(OrthographicType.HAS_DIGIT);
+		
+		if (hasPeriod)	list.add(OrthographicType.HAS_PERIOD);
+		if (hasHyphen)	list.add(OrthographicType.HAS_HYPHEN);
+		
+		if (!allPunct && !hasPeriod && !hasHyphen && hasPunct)
+			list.add(OrthographicType.HAS_OTHER_PUNCT);
+	}
+
+//	====================================== Entry ======================================
+	
+	/** Features of one node, each of which is {@code null} until it is requested. */
+	static private class Entry
+	{
+		private final DEPNode node;
+		private final String  wordForm;
+		private final String  simplifiedWordForm;
+		
+		private String     lower;
+		private String     shape;
+		private int        shapeRepetitions;
+		private String[]   prefixes;
+		private String[]   suffixes;
+		private String[]   orth;
+		private String[]   orthFirst;
+		private String[][] dsw;
+		private String[][] dsls;
+		
+		private Entry(DEPNode node)
+		{
+			this.node = node;
+			this.wordForm = node.getWordForm();
+			this.simplifiedWordForm = node.getSimplifiedWordForm();
+		}
+		
+		private boolean isFor(DEPNode node)
+		{
+			return this.node == node && wordForm == node.getWordForm() && simplifiedWordForm == node.getSimplifiedWordForm();
+		}
+	}
+}
@@ -0,0 +1,545 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.reader;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import com.carrotsearch.hppc.LongArrayList;
+
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+import edu.emory.clir.clearnlp.util.arc.DEPArc;
+import edu.emory.clir.clearnlp.util.arc.SRLArc;
+
+/**
+ * Dependency reader that reads trees from a binary cache of a TSV file instead of the text.
+ * The cache is created by {@link #open(String)} when it does not exist or is stale, which is detected
+ * by the length, the last-modified time, and the CRC32 checksum of the source file, and the columns of this reader, stored in the cache.
+ * The checksum is computed only when the length matches but the last-modified time does not, so a valid cache is opened without reading the source.
+ * Strings are interned in the vocabulary of the cache so that trees read from the same cache share their strings,
+ * and heads are stored as integers so that nothing gets split or parsed when the trees are read.
+ * The cache also keeps the offsets of its trees so that any range of trees can be read by {@link #open(int, int)},
+ * and the trees can be {@link #load() loaded} in memory to be shared by multiple readers.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class CachedTSVReader extends TSVReader
+{
+	static public final String EXTENSION = "cache";
+	static private final int MAGIC   = 0x544e4c50;
+	static private final int VERSION = 2;
+	/** The position of the last-modified time of the source file in the header. */
+	static private final int MODIFIED_POSITION = 16;
+	/** The size of the buffers used to read and write files. */
+	static private final int BUFFER_SIZE = 1 << 16;
+	/** The number of bytes at the end of the cache storing the offset of the vocabulary. */
+	static private final int TRAILER_SIZE = 8;
+	/** The value indicating {@code null}. */
+	static private final int NULL = -1;
+	
+	private String   s_cacheDir;
+	private File     f_cache;
+	private String[] s_vocab;
+	/** The offsets of the trees in the cache, where {@code l_offsets[i+1]} is the end of the {@code i}'th tree. */
+	private long[]   l_offsets;
+	/** The trees of the cache loaded in memory by {@link #load()}; if {@code null}, trees are read from the cache file. */
+	private byte[]   b_trees;
+	private DataInputStream d_in;
+	private int i_tree;
+	private int i_end;
+	
+	/** @param cacheDir the directory where caches are stored. */
+	public CachedTSVReader(TSVReader reader, String cacheDir)
+	{
+		super(reader.i_id, reader.i_form, reader.i_lemma, reader.i_posTag, reader.i_namedEntityTag, reader.i_feats, reader.i_headID, reader.i_deprel, reader.i_xheads, reader.i_sheads);
+		s_cacheDir = cacheDir;
+	}
+	
+	/** Shares the cache opened by the specific reader so that its trees can be read by {@link #open(int, int)} from another thread. */
+	public CachedTSVReader(CachedTSVReader reader)
+	{
+		this(reader, reader.s_cacheDir);
+		f_cache   = reader.f_cache;
+		s_vocab   = reader.s_vocab;
+		l_offsets = reader.l_offsets;
+		b_trees   = reader.b_trees;
+	}
+	
+	@Override
+	public AbstractReader<DEPTree> clone()
+	{
+		return new CachedTSVReader(this, s_cacheDir);
+	}
+
+//	====================================== Open ======================================
+	
+	/** Opens the cache of the specific TSV file, which is created if it does not exist or is stale, and reads all trees from the beginning. */
+	public void open(String filename) throws IOException
+	{
+		File source = new File(filename);
+		File cache  = getCacheFile(source);
+		
+		if (!isValid(source, cache))
+			build(source, cache);
+		
+		load(cache);
+		open(0, getTreeSize());
+	}
+	
+	/** Reads the trees from the {@code beginIndex}'th tree (inclusive) to the {@code endIndex}'th tree (exclusive) in the opened cache. */
+	public void open(int beginIndex, int endIndex) throws IOException
+	{
+		if (d_in != null) close();
+		
+		if (b_trees != null)
+			d_in = new DataInputStream(new ByteArrayInputStream(b_trees, (int)(l_offsets[beginIndex] - l_offsets[0]), (int)(l_offsets[endIndex] - l_offsets[beginIndex])));
+		else
+		{
+			FileChannel channel = new FileInputStream(f_cache).getChannel();
+			channel.position(l_offsets[beginIndex]);
+			d_in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+		}
+		
+		i_tree = beginIndex;
+		i_end  = endIndex;
+	}
+	
+	/**
+	 * Loads the trees of the opened cache in memory so that this reader and the readers sharing its cache read them without I/O.
+	 * The trees are kept in their binary form, which is much smaller than the trees themselves.
+	 */
+	public void load() throws IOException
+	{
+		long size = getByteSize();
+		if (size > Integer.MAX_VALUE - 8) throw new IOException("Too large to be loaded in memory: "+f_cache);
+		ByteBuffer buffer = ByteBuffer.allocate((int)size);
+		
+		try (FileChannel channel = new FileInputStream(f_cache).getChannel())
+		{
+			channel.position(l_offsets[0]);
+			while (buffer.hasRemaining() && channel.read(buffer) >= 0);
+		}
+		
+		b_trees = buffer.array();
+	}
+	
+	/** @return the number of bytes taken by the trees in the opened cache. */
+	public long getByteSize()
+	{
+		return l_offsets[getTreeSize()] - l_offsets[0];
+	}
+	
+	/** @return the number of trees in the opened cache. */
+	public int getTreeSize()
+	{
+		return l_offsets.length - 1;
+	}
+	
+	/** @return the cache of the specific source file in the cache directory. */
+	public File getCacheFile(File source)
+	{
+		String name = source.getName()+"."+Integer.toHexString(source.getAbsolutePath().hashCode())+"."+EXTENSION;
+		return new File(s_cacheDir, name);
+	}
+	
+	/** @return the CRC32 checksum of the specific file. */
+	static public long getChecksum(File file) throws IOException
+	{
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+		CRC32 crc = new CRC32();
+		
+		try (FileChannel channel = new FileInputStream(file).getChannel())
+		{
+			while (channel.read(buffer) >= 0)
+			{
+				buffer.flip();
+				crc.update(buffer);
+				buffer.clear();
+			}
+		}
+		
+		return crc.getValue();
+	}
+	
+	/**
+	 * @return {@code true} if the specific cache was created from the specific source file using the same columns as this reader.
+	 * If only the last-modified time of the source file differs, its checksum is compared and the time is updated in the cache when they match.
+	 */
+	private boolean isValid(File source, File cache) throws IOException
+	{
+		if (!cache.isFile()) return false;
+		long length, modified, checksum;
+		
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(cache))))
+		{
+			if (in.readInt() != MAGIC || in.readInt() != VERSION)
+				return false;
+			
+			length   = in.readLong();
+			modified = in.readLong();
+			checksum = in.readLong();
+			
+			for (int column : getColumns())
+				if (in.readInt() != column) return false;
+		}
+		catch (EOFException e) {return false;}
+		
+		if (length != source.length()) return false;
+		if (modified == source.lastModified()) return true;
+		
+		modified = source.lastModified();
+		if (checksum != getChecksum(source)) return false;
+		
+		try (RandomAccessFile out = new RandomAccessFile(cache, "rw"))
+		{
+			out.seek(MODIFIED_POSITION);
+			out.writeLong(modified);
+		}
+		
+		return true;
+	}
+	
+	/** Loads the vocabulary and the tree index of the specific cache. */
+	private void load(File cache) throws IOException
+	{
+		try (FileChannel channel = new FileInputStream(cache).getChannel())
+		{
+			ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+			channel.position(channel.size() - TRAILER_SIZE);
+			while (trailer.hasRemaining() && channel.read(trailer) >= 0);
+			trailer.flip();
+			
+			long vocabOffset = trailer.getLong();
+			channel.position(vocabOffset);
+			
+			DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), BUFFER_SIZE));
+			String[] vocab = new String[in.readInt()];
+			long[] offsets;
+			byte[] b;
+			int i;
+			
+			for (i=0; i<vocab.length; i++)
+			{
+				b = new byte[in.readInt()];
+				in.readFully(b);
+				vocab[i] = new String(b, StandardCharsets.UTF_8);
+			}
+			
+			offsets = new long[in.readInt()+1];
+			offsets[offsets.length-1] = vocabOffset;
+			
+			for (i=0; i<offsets.length-1; i++)
+				offsets[i] = in.readLong();
+			
+			f_cache   = cache;
+			s_vocab   = vocab;
+			l_offsets = offsets;
+		}
+	}
+	
+	@Override
+	public void close()
+	{
+		if (d_in == null)
+		{
+			if (b_reader != null) super.close();
+			return;
+		}
+		
+		try
+		{
+			d_in.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		d_in = null;
+	}
+	
+	private int[] getColumns()
+	{
+		return new int[]{i_id, i_form, i_lemma, i_posTag, i_namedEntityTag, i_feats, i_headID, i_deprel, i_xheads, i_sheads};
+	}
+
+//	====================================== Read ======================================
+	
+	@Override
+	public DEPTree next()
+	{
+		if (d_in == null) return super.next();
+		if (i_tree >= i_end) return null;
+		DEPTree tree = null;
+		
+		try
+		{
+			tree = readTree();
+			i_tree++;
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		return tree;
+	}
+	
+	/** Reads the next tree in the same way as {@link TSVReader#getDEPTree(List)} creates it. */
+	private DEPTree readTree() throws IOException
+	{
+		int i, id, size = d_in.readInt();
+		List<DEPNode> nodes = new ArrayList<>(size);
+		String form, lemma, pos, nament, feats;
+		DEPNode node, head;
+		String label;
+		
+		for (i=0; i<size; i++)
+		{
+			id     = d_in.readInt();
+			form   = readString();
+			lemma  = readString();
+			pos    = readString();
+			nament = readString();
+			feats  = readString();
+			nodes.add(new DEPNode(id, form, lemma, pos, nament, new DEPFeat(feats)));
+		}
+		
+		DEPTree tree = new DEPTree(nodes);
+		
+		for (i=1; i<=size; i++)
+		{
+			node  = tree.get(i);
+			id    = d_in.readInt();
+			label = readString();
+			
+			if (id != NULL || label != null)
+			{
+				head = (id == NULL) ? null : tree.get(id);
+				node.setHead(head, label);
+			}
+			
+			if ((id = d_in.readInt()) != NULL)
+			{
+				List<DEPArc> arcs = new ArrayList<>(id);
+				for (; id>0; id--) arcs.add(new DEPArc(tree.get(d_in.readInt()), readString()));
+				node.setSecondaryHeads(arcs);
+			}
+			
+			if ((id = d_in.readInt()) != NULL)
+			{
+				List<SRLArc> arcs = new ArrayList<>(id);
+				for (; id>0; id--) arcs.add(new SRLArc(tree.get(d_in.readInt()), readString()));
+				node.setSemanticHeads(arcs);
+			}
+		}
+		
+		return tree;
+	}
+	
+	private String readString() throws IOException
+	{
+		int index = d_in.readInt();
+		return (index == NULL) ? null : s_vocab[index];
+	}
+
+//	====================================== Build ======================================
+	
+	/** Creates the cache of the specific source file, which is written to a temporary file first so that other readers never see a partial cache. */
+	private void build(File source, File cache) throws IOException
+	{
+		long modified = source.lastModified();
+		long checksum = getChecksum(source);
+		File dir = cache.getAbsoluteFile().getParentFile();
+		dir.mkdirs();
+		File tmp = File.createTempFile(cache.getName(), null, dir);
+		
+		try
+		{
+			write(source, tmp, modified, checksum);
+			
+			try
+			{
+				Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			}
+			catch (AtomicMoveNotSupportedException e)
+			{
+				Files.move(tmp.toPath(), cache.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally
+		{
+			tmp.delete();
+		}
+	}
+	
+	/**
+	 * Writes the header, the trees, the vocabulary, the tree index, and the offset of the vocabulary.
+	 * Each tree is written as the number of nodes, the fields of the nodes, and the heads of the nodes,
+	 * where strings are written as their indices in the vocabulary and heads are written as the positions of their nodes in the tree.
+	 */
+	private void write(File source, File cache, long modified, long checksum) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream record = new DataOutputStream(bytes);
+		Map<String,Integer> vocab = new HashMap<>();
+		LongArrayList offsets = new LongArrayList();
+		MappedTSVReader reader = new MappedTSVReader(this);
+		DEPTree tree;
+		long offset;
+		
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(cache), BUFFER_SIZE)))
+		{
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeLong(source.length());
+			out.writeLong(modified);
+			out.writeLong(checksum);
+			for (int column : getColumns()) out.writeInt(column);
+			offset = 32 + 4 * getColumns().length;
+			
+			reader.open(new FileInputStream(source));
+			
+			while ((tree = reader.next()) != null)
+			{
+				bytes.reset();
+				writeTree(record, tree, vocab);
+				bytes.writeTo(out);
+				offsets.add(offset);
+				offset += bytes.size();
+			}
+			
+			reader.close();
+			writeVocabulary(out, vocab);
+			out.writeInt(offsets.size());
+			for (int i=0; i<offsets.size(); i++) out.writeLong(offsets.get(i));
+			
+			out.writeLong(offset);
+		}
+	}
+	
+	private void writeTree(DataOutputStream out, DEPTree tree, Map<String,Integer> vocab) throws IOException
+	{
+		Map<DEPNode,Integer> positions = new IdentityHashMap<>();
+		int i, size = tree.size();
+		DEPNode node;
+		
+		for (i=0; i<size; i++)
+			positions.put(tree.get(i), i);
+		
+		out.writeInt(size-1);
+		
+		for (i=1; i<size; i++)
+		{
+			node = tree.get(i);
+			out.writeInt(node.getID());
+			writeString(out, node.getWordForm(), vocab);
+			writeString(out, node.getLemma(), vocab);
+			writeString(out, node.getPOSTag(), vocab);
+			writeString(out, node.getNamedEntityTag(), vocab);
+			writeString(out, node.getFeats().toString(), vocab);
+		}
+		
+		for (i=1; i<size; i++)
+		{
+			node = tree.get(i);
+			writePosition(out, node.getHead(), positions);
+			writeString(out, node.getLabel(), vocab);
+			writeArcs(out, node.getSecondaryHeadArcList(), positions, vocab);
+			writeArcs(out, node.getSemanticHeadArcList() , positions, vocab);
+		}
+	}
+	
+	private void writeArcs(DataOutputStream out, List<? extends AbstractArc<DEPNode>> arcs, Map<DEPNode,Integer> positions, Map<String,Integer> vocab) throws IOException
+	{
+		if (arcs == null)
+		{
+			out.writeInt(NULL);
+			return;
+		}
+		
+		out.writeInt(arcs.size());
+		
+		for (AbstractArc<DEPNode> arc : arcs)
+		{
+			writePosition(out, arc.getNode(), positions);
+			writeString(out, arc.getLabel(), vocab);
+		}
+	}
+	
+	private void writePosition(DataOutputStream out, DEPNode node, Map<DEPNode,Integer> positions) throws IOException
+	{
+		Integer position = (node == null) ? null : positions.get(node);
+		out.writeInt(position == null ? NULL : position);
+	}
+	
+	private void writeString(DataOutputStream out, String s, Map<String,Integer> vocab) throws IOException
+	{
+		if (s == null)
+		{
+			out.writeInt(NULL);
+			return;
+		}
+		
+		Integer index = vocab.get(s);
+		
+		if (index == null)
+		{
+			index = vocab.size();
+			vocab.put(s, index);
+		}
+		
+		out.writeInt(index);
+	}
+	
+	private void writeVocabulary(DataOutputStream out, Map<String,Integer> vocab) throws IOException
+	{
+		String[] strings = new String[vocab.size()];
+		byte[] b;
+		
+		for (Map.Entry<String,Integer> e : vocab.entrySet())
+			strings[e.getValue()] = e.getKey();
+		
+		out.writeInt(strings.length);
+		
+		for (String s : strings)
+		{
+			b = s.getBytes(StandardCharsets.UTF_8);
+			out.writeInt(b.length);
+			out.write(b);
+		}
+	}
+}
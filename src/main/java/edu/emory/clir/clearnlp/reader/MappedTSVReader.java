@@ -0,0 +1,361 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.reader;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.carrotsearch.hppc.LongArrayList;
+
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * TSV reader that memory-maps UTF-8 files, finds lines and columns by scanning bytes, and decodes only the configured columns.
+ * Trees are identical to the ones read by {@link TSVReader}, where columns not configured are {@code null}.
+ * A file can be split into byte ranges by {@link #split(String, int)}, which can be read by separate readers in parallel.
+ * If the reader is opened with a stream that is not a file, it falls back to {@link TSVReader}.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class MappedTSVReader extends TSVReader
+{
+	/** The maximum number of bytes mapped at a time, which must be greater than the longest line. */
+	static private final int MAP_SIZE = 1 << 30;
+	/** The number of bytes read at a time to find the boundaries of trees in {@link #split(String, int)}. */
+	static private final int SCAN_SIZE = 1 << 16;
+	
+	private FileChannel      f_channel;
+	private MappedByteBuffer b_buffer;
+	/** The offset of {@link #b_buffer} in the file. */
+	private long             l_mapBegin;
+	/** The offset of the next line in the file. */
+	private long             l_position;
+	/** The offset of the end of the range in the file (exclusive). */
+	private long             l_end;
+	private boolean          b_mapped;
+	
+	/** Bytes of the current line. */
+	private byte[]  b_line;
+	/** Offsets of tabs in the current line. */
+	private int[]   i_tabs;
+	/** Sorted indices of the configured columns. */
+	private int[]   i_columns;
+	
+	/** Reads the same columns as the specific reader. */
+	public MappedTSVReader(TSVReader reader)
+	{
+		this(reader.i_id, reader.i_form, reader.i_lemma, reader.i_posTag, reader.i_namedEntityTag, reader.i_feats, reader.i_headID, reader.i_deprel, reader.i_xheads, reader.i_sheads);
+	}
+	
+	/** @see TSVReader#init(int, int, int, int, int, int, int, int, int, int) */
+	public MappedTSVReader(int iID, int iForm, int iLemma, int iPOSTag, int iNERTag, int iFeats, int iHeadID, int iDeprel, int iXHeads, int iSHeads)
+	{
+		super(iID, iForm, iLemma, iPOSTag, iNERTag, iFeats, iHeadID, iDeprel, iXHeads, iSHeads);
+		b_line = new byte[1024];
+		i_tabs = new int[16];
+	}
+	
+	@Override
+	public AbstractReader<DEPTree> clone()
+	{
+		return new MappedTSVReader(this);
+	}
+
+//	====================================== Open ======================================
+	
+	/** Maps the rest of the stream if it is a file; otherwise, reads the stream as {@link TSVReader}. */
+	@Override
+	public void open(InputStream in)
+	{
+		if (in instanceof FileInputStream)
+		{
+			FileChannel channel = ((FileInputStream)in).getChannel();
+			
+			try
+			{
+				open(channel, channel.position(), channel.size());
+				f_in = in;
+			}
+			catch (IOException e) {e.printStackTrace();}
+		}
+		else
+		{
+			b_mapped = false;
+			super.open(in);
+		}
+	}
+	
+	/**
+	 * Reads the trees between the specific offsets of the file.
+	 * @param beginIndex the offset of the first byte (inclusive), which must be the beginning of a line.
+	 * @param endIndex the offset of the last byte (exclusive), which must be the end of a line.
+	 * @see #split(String, int)
+	 */
+	public void open(String filename, long beginIndex, long endIndex) throws IOException
+	{
+		open(FileChannel.open(Paths.get(filename), StandardOpenOption.READ), beginIndex, endIndex);
+		f_in = null;
+	}
+	
+	private void open(FileChannel channel, long beginIndex, long endIndex) throws IOException
+	{
+		f_channel  = channel;
+		l_position = beginIndex;
+		l_end      = endIndex;
+		b_mapped   = true;
+		b_reader   = null;
+		i_columns  = getColumns();
+		map(beginIndex);
+	}
+	
+	/** Maps the file from the specific offset. */
+	private void map(long position) throws IOException
+	{
+		l_mapBegin = position;
+		b_buffer   = f_channel.map(MapMode.READ_ONLY, position, Math.min(MAP_SIZE, l_end - position));
+	}
+	
+	/** @return the sorted indices of the configured columns. */
+	private int[] getColumns()
+	{
+		return Arrays.stream(new int[]{i_id, i_form, i_lemma, i_posTag, i_namedEntityTag, i_feats, i_headID, i_deprel, i_xheads, i_sheads}).filter(i -> i >= 0).sorted().distinct().toArray();
+	}
+	
+	@Override
+	public void close()
+	{
+		if (!b_mapped)
+		{
+			super.close();
+			return;
+		}
+		
+		try
+		{
+			if (f_channel != null) f_channel.close();
+		}
+		catch (IOException e) {e.printStackTrace();}
+		
+		f_channel = null;
+		b_buffer  = null;
+	}
+
+//	====================================== Read ======================================
+	
+	@Override
+	protected List<String[]> readLines() throws Exception
+	{
+		if (!b_mapped) return super.readLines();
+		int len;
+		
+		// skip empty lines
+		while ((len = readLine()) >= 0)
+			if (!isSkip(len)) break;
+		
+		// the end of the range
+		if (len < 0)
+		{	close();	return null;	}
+		
+		// add lines
+		List<String[]> list = new ArrayList<>();
+		list.add(split(len));
+		
+		while ((len = readLine()) >= 0)
+		{
+			if (isSkip(len))
+				return list;
+			else
+				list.add(split(len));
+		}
+		
+		return list;
+	}
+	
+	/**
+	 * Copies the next line to {@link #b_line}; lines are terminated by {@code \n}, {@code \r}, or {@code \r\n} as {@link java.io.BufferedReader#readLine()}.
+	 * @return the number of bytes in the line if exists; otherwise, {@code -1}.
+	 */
+	private int readLine() throws IOException
+	{
+		if (f_channel == null || l_position >= l_end) return -1;
+		int i, begin = (int)(l_position - l_mapBegin), limit = b_buffer.limit();
+		byte b = 0;
+		
+		for (i=begin; i<limit; i++)
+		{
+			b = b_buffer.get(i);
+			if (b == '\n' || b == '\r') break;
+		}
+		
+		// the line or its terminator crosses the end of the mapped region
+		if (l_mapBegin + limit < l_end && (i == limit || (b == '\r' && i+1 == limit)))
+		{
+			if (begin == 0) throw new IOException("A line is longer than "+MAP_SIZE+" bytes at "+l_position);
+			map(l_position);
+			return readLine();
+		}
+		
+		int len = i - begin;
+		if (b_line.length < len) b_line = new byte[len + len / 2];
+		b_buffer.position(begin);
+		b_buffer.get(b_line, 0, len);
+		
+		if (i < limit)
+		{
+			i++;
+			if (b == '\r' && i < limit && b_buffer.get(i) == '\n') i++;
+		}
+		
+		l_position = l_mapBegin + i;
+		return len;
+	}
+	
+	/** @return {@code true} if the line in {@link #b_line} consists of only white spaces as {@link TSVReader#isSkip(String)}. */
+	private boolean isSkip(int len)
+	{
+		for (int i=0; i<len; i++)
+		{
+			if ((b_line[i] & 0xFF) > ' ')
+				return false;
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Splits the line in {@link #b_line} by tabs where trailing empty columns are discarded as {@link java.util.regex.Pattern#split(CharSequence)}.
+	 * @return the columns of the line, where columns not configured are {@code null}.
+	 */
+	private String[] split(int len)
+	{
+		int i, tabs = 0, size, bIndex, eIndex;
+		
+		for (i=0; i<len; i++)
+		{
+			if (b_line[i] == '\t')
+			{
+				if (tabs == i_tabs.length) i_tabs = Arrays.copyOf(i_tabs, tabs * 2);
+				i_tabs[tabs++] = i;
+			}
+		}
+		
+		for (size=tabs+1; size>0; size--)
+		{
+			if (getColumnBeginIndex(size-1) < getColumnEndIndex(size-1, tabs, len))
+				break;
+		}
+		
+		String[] columns = new String[size];
+		
+		for (int column : i_columns)
+		{
+			if (column >= size) break;
+			bIndex = getColumnBeginIndex(column);
+			eIndex = getColumnEndIndex(column, tabs, len);
+			columns[column] = new String(b_line, bIndex, eIndex - bIndex, StandardCharsets.UTF_8);
+		}
+		
+		return columns;
+	}
+	
+	/** Called by {@link #split(int)}. */
+	private int getColumnBeginIndex(int column)
+	{
+		return (column == 0) ? 0 : i_tabs[column-1] + 1;
+	}
+	
+	/** Called by {@link #split(int)}. */
+	private int getColumnEndIndex(int column, int tabs, int len)
+	{
+		return (column < tabs) ? i_tabs[column] : len;
+	}
+
+//	====================================== Split ======================================
+	
+	/**
+	 * Splits the specific file into at most {@code size} byte ranges of similar sizes, whose boundaries are at the beginnings of empty lines
+	 * so that no tree crosses ranges; each range can be read by a separate reader using {@link #open(String, long, long)}.
+	 * @return the offsets of the ranges, where the i'th range is [offsets[i], offsets[i+1]).
+	 */
+	static public long[] split(String filename, int size) throws IOException
+	{
+		try (FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ))
+		{
+			LongArrayList offsets = new LongArrayList();
+			ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+			long offset, length = channel.size();
+			int i;
+			
+			offsets.add(0);
+			
+			for (i=1; i<size; i++)
+			{
+				offset = getTreeBoundary(channel, buffer, Math.max(length * i / size, offsets.get(offsets.size()-1)), length);
+				if (offset >= length) break;
+				if (offset > offsets.get(offsets.size()-1)) offsets.add(offset);
+			}
+			
+			offsets.add(length);
+			return offsets.toArray();
+		}
+	}
+	
+	/**
+	 * @return the beginning of the first empty line that begins after the specific offset if exists; otherwise, {@code length}.
+	 * The file is read into the specific buffer one window at a time from the offset, so only the bytes up to the boundary are read.
+	 * Called by {@link #split(String, int)}.
+	 */
+	static private long getTreeBoundary(FileChannel channel, ByteBuffer buffer, long offset, long length) throws IOException
+	{
+		long lineBegin = -1;
+		boolean skip = true;
+		int i, size;
+		byte b;
+		
+		for (; offset < length; offset += size)
+		{
+			buffer.clear();
+			if ((size = channel.read(buffer, offset)) < 0) break;
+			
+			for (i=0; i<size; i++)
+			{
+				b = buffer.get(i);
+				
+				if (b == '\n')
+				{
+					if (lineBegin >= 0 && skip) return lineBegin;
+					lineBegin = offset + i + 1;
+					skip = true;
+				}
+				else if ((b & 0xFF) > ' ')
+					skip = false;
+			}
+		}
+		
+		return (lineBegin >= 0 && skip) ? lineBegin : length;
+	}
+}
@@ -19,25 +19,26 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 
 import edu.emory.clir.clearnlp.collection.set.CharHashSet;
-import edu.emory.clir.clearnlp.dictionary.AbstractDTTokenizer;
 import edu.emory.clir.clearnlp.dictionary.universal.DTCurrency;
 import edu.emory.clir.clearnlp.dictionary.universal.DTEmoticon;
 import edu.emory.clir.clearnlp.dictionary.universal.DTUnit;
 import edu.emory.clir.clearnlp.util.CharUtils;
-import edu.emory.clir.clearnlp.util.DSUtils;
 import edu.emory.clir.clearnlp.util.IOUtils;
 import edu.emory.clir.clearnlp.util.MetaUtils;
 import edu.emory.clir.clearnlp.util.PatternUtils;
 import edu.emory.clir.clearnlp.util.StringUtils;
 import edu.emory.clir.clearnlp.util.constant.CharConst;
-import edu.emory.clir.clearnlp.util.constant.StringConst;
 
 /**
+ * Tokenizers are not modified after construction; dictionaries are only read by {@link #tokenize(String)} and {@link #segmentizeTokens(Iterator)},
+ * so one tokenizer can be shared across threads.
  * @since 1.1.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
  */
@@ -60,61 +61,181 @@ abstract public class AbstractTokenizer
 	
 //	----------------------------------- Public methods -----------------------------------
 	
-	abstract public List<List<String>> segmentize(InputStream in);
+	/**
+	 * Segments the input stream into sentences while reading it, so that the first sentence is returned before the rest of the stream is read.
+	 * The stream is read one line at a time and closed when all sentences are returned; memory is bounded by the longest line and sentence.
+	 * @return the iterator of the sentences in the specific input stream, where each sentence is a list of tokens.
+	 */
+	public Iterator<List<String>> segmentizeIterator(InputStream in)
+	{
+		return segmentizeTokens(new LineIterator(in));
+	}
+	
+	/**
+	 * Segments lines that are already tokenized by {@link #tokenize(String)} into sentences, which are identical to the ones from {@link #segmentizeIterator(InputStream)}.
+	 * Lines can be tokenized in parallel; only this segmentation needs to be sequential.
+	 * @param lines the iterator of the tokens in each line.
+	 * @return the iterator of the sentences, where each sentence is a list of tokens.
+	 */
+	abstract public Iterator<List<String>> segmentizeTokens(Iterator<List<String>> lines);
+	
+	/**
+	 * @return a list of sentences in the specific input stream, where each sentence is a list of tokens.
+	 * @see #segmentizeIterator(InputStream)
+	 */
+	public List<List<String>> segmentize(InputStream in)
+	{
+		List<List<String>> sentences = new ArrayList<>();
+		segmentizeIterator(in).forEachRemaining(sentences::add);
+		return sentences;
+	}
 	
 	/** @return a list of tokens in the specific input stream. */
 	public List<String> tokenize(InputStream in)
 	{
-		BufferedReader reader = IOUtils.createBufferedReader(in);
 		ArrayList<String> tokens = new ArrayList<>();
-		List<String> t;
-		String line;
+		new TokenIterator(new LineIterator(in)).forEachRemaining(tokens::add);
+		tokens.trimToSize();
+		return tokens;
+	}
+	
+	/** @return a list of tokens in the specific string. */
+	public List<String> tokenize(String s)
+	{
+		List<TokenSpan> spans = tokenizeSpans(s);
+		List<String> tokens = new ArrayList<>(spans.size());
+		
+		for (TokenSpan span : spans)
+			tokens.add(span.getText());
+		
+		return tokens;
+	}
+	
+	/**
+	 * Tokens are identical to {@link #tokenize(String)}; the text of each token is not created until {@link TokenSpan#getText()} is called.
+	 * @return a list of tokens in the specific string with their offsets in the string.
+	 */
+	public List<TokenSpan> tokenizeSpans(String s)
+	{
+		return tokenizeWhiteSpaces(s);
+	}
+	
+//	----------------------------------- Iterators -----------------------------------
+	
+	/** Iterates the tokens of each line in an input stream by tokenizing one line at a time; the stream is closed when the last line is read. */
+	protected class LineIterator implements Iterator<List<String>>
+	{
+		private BufferedReader b_reader;
+		private String         s_line;
+		
+		public LineIterator(InputStream in)
+		{
+			b_reader = IOUtils.createBufferedReader(in);
+			s_line   = null;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			if (s_line == null) s_line = readLine();
+			return s_line != null;
+		}
 		
-		try
+		@Override
+		public List<String> next()
 		{
-			while ((line = reader.readLine()) != null)
+			if (!hasNext()) throw new NoSuchElementException();
+			String line = s_line;
+			s_line = null;
+			return tokenize(line);
+		}
+		
+		/** @return the next line if exists; otherwise, {@code null}. */
+		private String readLine()
+		{
+			if (b_reader == null) return null;
+			String line = null;
+			
+			try
 			{
-				t = tokenizeWhiteSpaces(line);
-				if (!t.isEmpty()) tokens.addAll(t);
+				if ((line = b_reader.readLine()) == null)
+				{
+					b_reader.close();
+					b_reader = null;
+				}
+			}
+			catch (IOException e)
+			{
+				e.printStackTrace();
+				b_reader = null;
 			}
 			
-			reader.close();
+			return line;
 		}
-		catch (IOException e) {e.printStackTrace();}
-		
-		tokens.trimToSize();
-		return tokens;
 	}
 	
-	/** @return a list of tokens in the specific string. */
-	public List<String> tokenize(String s)
+	/** Iterates the tokens in lines of tokens. */
+	protected class TokenIterator implements Iterator<String>
 	{
-		List<String> tokens = tokenizeWhiteSpaces(s);
-		return tokens;
+		private Iterator<List<String>> i_lines;
+		private List<String>           l_tokens;
+		private int                    i_token;
+		
+		public TokenIterator(Iterator<List<String>> lines)
+		{
+			i_lines  = lines;
+			l_tokens = new ArrayList<>();
+			i_token  = 0;
+		}
+		
+		@Override
+		public boolean hasNext()
+		{
+			while (i_token >= l_tokens.size())
+			{
+				if (!i_lines.hasNext()) return false;
+				l_tokens = i_lines.next();
+				i_token  = 0;
+			}
+			
+			return true;
+		}
+		
+		@Override
+		public String next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			return l_tokens.get(i_token++);
+		}
+		
+		/** @return the next token without consuming it if exists; otherwise, {@code null}. */
+		public String peek()
+		{
+			return hasNext() ? l_tokens.get(i_token) : null;
+		}
 	}
 	
 //	----------------------------------- Tokenize -----------------------------------
 	
 	/**
 	 * Tokenizes white spaces.
-	 * Called by {@link #tokenize(InputStream)} and {@link #tokenize(String)}.
+	 * Called by {@link #tokenizeSpans(String)}.
 	 */
-	private List<String> tokenizeWhiteSpaces(String s)
+	private List<TokenSpan> tokenizeWhiteSpaces(String s)
 	{
-		List<String> tokens = new ArrayList<>();
+		List<TokenSpan> tokens = new ArrayList<>();
 		int i, len = s.length(), bIndex = 0;
-		char[] cs = s.toCharArray();
 		
 		for (i=0; i<len; i++)
 		{
-			if (CharUtils.isWhiteSpace(cs[i]))
+			if (CharUtils.isWhiteSpace(s.charAt(i)))
 			{
-				if (bIndex < i) tokenizeMetaInfo(tokens, s.substring(bIndex, i));
+				if (bIndex < i) tokenizeMetaInfo(tokens, s, bIndex, i);
 				bIndex = i + 1;
 			}
 		}
 		 
-		if (bIndex < len) tokenizeMetaInfo(tokens, s.substring(bIndex));
+		if (bIndex < len) tokenizeMetaInfo(tokens, s, bIndex, len);
 		if (!tokens.isEmpty()) finalize(tokens);
 		
 		return tokens;
@@ -122,51 +243,54 @@ abstract public class AbstractTokenizer
 	
 	/**
 	 * Tokenizes hyperlinks, emoticons.
-	 * Called by {@link #tokenizeAux(String)}.
+	 * Called by {@link #tokenizeWhiteSpaces(String)}.
 	 */
-	private void tokenizeMetaInfo(List<String> tokens, String s)
+	private void tokenizeMetaInfo(List<TokenSpan> tokens, String s, int beginIndex, int endIndex)
 	{
 		int[] ps;
 		
-		if ((ps = getMetaRange(s)) != null)
+		if ((ps = getMetaRange(s, beginIndex, endIndex)) != null)
 		{
-			int bIndex = ps[0], eIndex = ps[1], len = s.length();
+			int bIndex = ps[0], eIndex = ps[1];
 			
-			if (0 < bIndex)		tokenizeSymbols(tokens, s.substring(0, bIndex));
-								tokens.add(s.substring(bIndex, eIndex));
-			if (eIndex < len)	tokenizeSymbols(tokens, s.substring(eIndex));
+			if (beginIndex < bIndex)	tokenizeSymbols(tokens, s, beginIndex, bIndex);
+										tokens.add(new TokenSpan(s, bIndex, eIndex));
+			if (eIndex < endIndex)		tokenizeSymbols(tokens, s, eIndex, endIndex);
 		}
 		else
-			tokenizeSymbols(tokens, s);
+			tokenizeSymbols(tokens, s, beginIndex, endIndex);
 	}
 	
-	/** Called by {@link #tokenizeMetaInfo(List, String)}. */
-	private int[] getMetaRange(String s)
+	/**
+	 * @return the range of the hyperlink or the emoticon in {@code s} between the specific indices if exists; otherwise, {@code null}.
+	 * Called by {@link #tokenizeMetaInfo(List, String, int, int)}.
+	 */
+	private int[] getMetaRange(String s, int beginIndex, int endIndex)
 	{
 		int[] ps;
 		
-		if ((ps = d_emoticon.getEmoticonRange(s)) != null)
+		if ((ps = d_emoticon.getEmoticonRange(s, beginIndex, endIndex)) != null)
 			return ps;
 		
-		Matcher m = MetaUtils.HYPERLINK.matcher(s);
-		
-		if (m.find())
-			return new int[]{m.start(), m.end()};
-		
-		return null;
+		return MetaUtils.getHyperlinkRange(s, beginIndex, endIndex);
 	}
 	
-	/** Called by {@link #tokenizeMetaInfo(List, String)}. */
-	private void tokenizeSymbols(List<String> tokens, String s)
+	/**
+	 * Tokenizes the substring of {@code s} between the specific indices, whose characters are copied to {@code cs};
+	 * all indices in the following methods are relative to {@code cs} and get shifted by {@code offset} when tokens are added.
+	 * Called by {@link #tokenizeMetaInfo(List, String, int, int)}.
+	 */
+	private void tokenizeSymbols(List<TokenSpan> tokens, String s, int offset, int endIndex)
 	{
-		char[] cs = s.toCharArray();
-		int len = s.length();
+		char[] cs = new char[endIndex - offset];
+		s.getChars(offset, endIndex, cs, 0);
+		int len = cs.length;
 		
 		int bIndex = getFirstNonSymbolIndex(cs);
 		
 		if (bIndex == len)
 		{
-			addSymbols(tokens, s);
+			addSymbols(tokens, s, offset, cs, 0, len);
 			return;
 		}
 		
@@ -177,13 +301,13 @@ abstract public class AbstractTokenizer
 		addNextSymbolSequenceIndices(indices, cs, bIndex+1, eIndex-1);
 		indices.add(new int[]{eIndex, len});
 		
-		tokenizeSymbolsAux(tokens, s, cs, indices);
+		tokenizeSymbolsAux(tokens, s, offset, cs, indices);
 	}
 	
 	/**
 	 * @return {@code 0} if no character in {@code cs} is symbol.
 	 * @return {@code cs.length} if all characters in {@code cs} are symbols.  
-	 * Called by {@link #tokenizeSymbols(List, String)}.
+	 * Called by {@link #tokenizeSymbols(List, String, int, int)}.
 	 */
 	private int getFirstNonSymbolIndex(char[] cs)
 	{
@@ -201,7 +325,7 @@ abstract public class AbstractTokenizer
 	/**
 	 * @return {@code cs.length} if no character in {@code cs} is symbol.
 	 * @return {@code 0} if all characters in {@code cs} are symbols.  
-	 * Called by {@link #tokenizeSymbols(List, String)}.
+	 * Called by {@link #tokenizeSymbols(List, String, int, int)}.
 	 */
 	private int getLastSymbolSequenceIndex(char[] cs)
 	{
@@ -216,7 +340,7 @@ abstract public class AbstractTokenizer
 		return i+1;
 	}
 	
-	/** Called by {@link #tokenizeSymbols(List, String)}. */
+	/** Called by {@link #tokenizeSymbols(List, String, int, int)}. */
 	private void addNextSymbolSequenceIndices(List<int[]> indices, char[] cs, int bIndex, int eIndex)
 	{
 		int i, j;
@@ -235,8 +359,8 @@ abstract public class AbstractTokenizer
 		}
 	}
 	
-	/** Called by {@link #tokenizeSymbols(List, String)}. */
-	private void tokenizeSymbolsAux(List<String> tokens, String s, char[] cs, List<int[]> indices)
+	/** Called by {@link #tokenizeSymbols(List, String, int, int)}. */
+	private void tokenizeSymbolsAux(List<TokenSpan> tokens, String s, int offset, char[] cs, List<int[]> indices)
 	{
 		int i, pg, ng, bIndex, eIndex, size = indices.size() - 1;
 		boolean pb, nb;
@@ -253,12 +377,13 @@ abstract public class AbstractTokenizer
 			
 			if (bIndex < eIndex)
 			{
-				t  = s.substring(bIndex, eIndex);
 				pg = pi[1] - pi[0];
 				ng = ni[1] - ni[0];
 				
 				pb = (i == 0) ? pg > 0 : pg == 1;
 				nb = (i+1 == size) ? ng > 0 : ng == 1;
+				if (!pb && !nb) continue;
+				t  = new String(cs, bIndex, eIndex - bIndex);
 				
 				if (pb) pi[1] = adjustFirstNonSymbolIndex(cs, bIndex, t);
 				if (nb) ni[0] = adjustLastSymbolSequenceIndex(cs, eIndex, t);
@@ -275,19 +400,15 @@ abstract public class AbstractTokenizer
 			
 			if (bIndex < eIndex)
 			{
-				t = s.substring(bIndex, eIndex);
-				if (i == 0) addSymbols(tokens, t);
-				else		tokens.add(t);
+				if (i == 0) addSymbols(tokens, s, offset, cs, bIndex, eIndex);
+				else		tokens.add(new TokenSpan(s, offset+bIndex, offset+eIndex));
 			}
 			
 			bIndex = pi[1];
 			eIndex = ni[0];
 			
 			if (bIndex < eIndex)
-			{
-				t = s.substring(bIndex, eIndex);
-				addMorphemes(tokens, t);
-			}
+				addMorphemes(tokens, s, offset, cs, bIndex, eIndex);
 		}
 		
 		ni = indices.get(size);
@@ -295,10 +416,10 @@ abstract public class AbstractTokenizer
 		eIndex = ni[1];
 		
 		if (bIndex < eIndex)
-			addSymbols(tokens, s.substring(bIndex, eIndex));
+			addSymbols(tokens, s, offset, cs, bIndex, eIndex);
 	}
 	
-	/** Called by {@link #tokenizeSymbolsAux(List, String, char[], List)}. */
+	/** Called by {@link #tokenizeSymbolsAux(List, String, int, char[], List)}. */
 	private int adjustFirstNonSymbolIndex(char[] cs, int beginIndex, String t)
 	{
 		char sym = cs[beginIndex-1], curr = cs[beginIndex];
@@ -324,7 +445,7 @@ abstract public class AbstractTokenizer
 		return beginIndex;
 	}
 	
-	/** Called by {@link #tokenizeSymbolsAux(List, String, char[], List)}. */
+	/** Called by {@link #tokenizeSymbolsAux(List, String, int, char[], List)}. */
 	protected int adjustLastSymbolSequenceIndex(char[] cs, int endIndex, String t)
 	{
 		String lower = StringUtils.toLowerCase(t);
@@ -354,38 +475,37 @@ abstract public class AbstractTokenizer
 	
 //	----------------------------------- Add symbols -----------------------------------
 	
-	/** Called by {@link #tokenizeSymbols(List, String)}. */
-	private void addSymbols(List<String> tokens, String s)
+	/** Called by {@link #tokenizeSymbols(List, String, int, int)}. */
+	private void addSymbols(List<TokenSpan> tokens, String s, int offset, char[] cs, int beginIndex, int endIndex)
 	{
-		if (s.length() == 1)
+		if (endIndex - beginIndex == 1)
 		{
-			tokens.add(s);
+			tokens.add(new TokenSpan(s, offset+beginIndex, offset+endIndex));
 			return;
 		}
 		
-		int i, j, flag, len = s.length(), bIndex = 0;
-		char[] cs = s.toCharArray();
+		int i, j, flag, bIndex = beginIndex;
 		
-		for (i=0; i<len; i=j)
+		for (i=beginIndex; i<endIndex; i=j)
 		{
 			flag = getSymbolFlag(cs[i]);
-			j = getSpanIndex(cs, i, len, flag == 1);
+			j = getSpanIndex(cs, i, endIndex, flag == 1);
 					
 			if (0 < flag || i+1 < j)
 			{
-				if (bIndex < i) tokens.add(s.substring(bIndex, i));
-				tokens.add(s.substring(i, j));
+				if (bIndex < i) tokens.add(new TokenSpan(s, offset+bIndex, offset+i));
+				tokens.add(new TokenSpan(s, offset+i, offset+j));
 				bIndex = j;
 			}
 		}
 		
-		if (bIndex < len)
-			tokens.add(s.substring(bIndex));
+		if (bIndex < endIndex)
+			tokens.add(new TokenSpan(s, offset+bIndex, offset+endIndex));
 	}
 	
 	/**
 	 * @return the right-most index in the span (exclusive).
-	 * Called by {@link #addSymbols(List, String)}.
+	 * Called by {@link #addSymbols(List, String, int, char[], int, int)}.
 	 */
 	private int getSpanIndex(char[] cs, int index, int rightBound, boolean finalMark)
 	{
@@ -421,85 +541,98 @@ abstract public class AbstractTokenizer
 	
 //	----------------------------------- Add morphmes -----------------------------------
 	
-	/** Called by {@link #tokenizeSymbols(List, String)}. */
-	private void addMorphemes(List<String> tokens, String s)
+	/** Called by {@link #tokenizeSymbols(List, String, int, int)}. */
+	private void addMorphemes(List<TokenSpan> tokens, String s, int offset, char[] cs, int beginIndex, int endIndex)
 	{
-		if (s.length() == 1)
+		int len = endIndex - beginIndex;
+		
+		if (len == 1)
 		{
-			tokens.add(s);
+			tokens.add(new TokenSpan(s, offset+beginIndex, offset+endIndex));
 			return;
 		}
 		
-		char[] lcs = s.toCharArray();
-		String lower = CharUtils.toLowerCase(lcs) ? new String(lcs) : s;
+		String original = new String(cs, beginIndex, len);
+		char[] lcs = Arrays.copyOfRange(cs, beginIndex, endIndex);
+		String lower = CharUtils.toLowerCase(lcs) ? new String(lcs) : original;
+		String[] t;
+		int i;
 		
-		if (!tokenize(tokens, s, lower, lcs, d_currency) && !tokenize(tokens, s, lower, lcs, d_unit) && !tokenizeDigit(tokens, s, lcs) && !tokenizeWordsMore(tokens, s, lower, lcs))
-			tokens.add(s);
+		if ((t = d_currency.tokenize(original, lower, lcs)) != null || (t = d_unit.tokenize(original, lower, lcs)) != null)
+		{
+			addMorphemes(tokens, s, offset+beginIndex, t);
+		}
+		else if ((i = getDigitSplitIndex(lcs)) > 0)
+		{
+			tokens.add(new TokenSpan(s, offset+beginIndex, offset+beginIndex+i));
+			tokens.add(new TokenSpan(s, offset+beginIndex+i, offset+endIndex));
+		}
+		else if ((t = tokenizeWordsMore(original, lower, lcs)) != null)
+		{
+			addMorphemes(tokens, s, offset+beginIndex, t);
+		}
+		else
+			tokens.add(new TokenSpan(s, offset+beginIndex, offset+endIndex, original));
 	}
 	
-	/** Called by {@link #addMorphemes(List, String)}. */
-	protected boolean tokenize(List<String> tokens, String original, String lower, char[] lcs, AbstractDTTokenizer tokenizer)
+	/**
+	 * Adds the morphemes split by a dictionary, which are consecutive substrings of {@code s} starting at {@code beginIndex}.
+	 * Called by {@link #addMorphemes(List, String, int, char[], int, int)}.
+	 */
+	private void addMorphemes(List<TokenSpan> tokens, String s, int beginIndex, String[] morphemes)
 	{
-		String[] t = tokenizer.tokenize(original, lower, lcs);
-		
-		if (t != null)
+		for (String morpheme : morphemes)
 		{
-			DSUtils.addAll(tokens, t);
-			return true;
+			tokens.add(new TokenSpan(s, beginIndex, beginIndex+morpheme.length(), morpheme));
+			beginIndex += morpheme.length();
 		}
-		
-		return false;
 	}
 	
-	/** Called by {@link #addMorphemes(List, String)}. */
-	private boolean tokenizeDigit(List<String> tokens, String original, char[] lcs)
+	/**
+	 * @return the index splitting a digit sequence from the preceding or following symbol (e.g., "#1", "1%") if exists; otherwise, {@code -1}.
+	 * Called by {@link #addMorphemes(List, String, int, char[], int, int)}.
+	 */
+	private int getDigitSplitIndex(char[] lcs)
 	{
 		int len = lcs.length;
-		if (len < 2) return false;
+		if (len < 2) return -1;
 		
 		if (tokenizeDigitAux(lcs[0]) && CharUtils.containsDigitPunctuationOnly(lcs, 1, len))
-		{
-			tokens.add(original.substring(0, 1));
-			tokens.add(original.substring(1));
-			return true;
-		}
+			return 1;
 		
 		len--;
 		
 		if (tokenizeDigitAux(lcs[len]) && CharUtils.containsDigitPunctuationOnly(lcs, 0, len))
-		{
-			tokens.add(original.substring(0, len));
-			tokens.add(original.substring(len));
-			return true;
-		}
-		
-		return false;
+			return len;
 		
+		return -1;
 	}
 	
-	/** {@link #tokenizeDigit(List, String, char[])}. */
+	/** {@link #getDigitSplitIndex(char[])}. */
 	private boolean tokenizeDigitAux(char c)
 	{
 		return c == CharConst.POUND || c == CharConst.DOLLAR || c == CharConst.PERCENT || c == CharConst.ASTERISK || c == CharConst.EQUAL;
 	}
 	
-	/** Called by {@link #addMorphemes(List, String)}. */
-	abstract protected boolean tokenizeWordsMore(List<String> tokens, String original, String lower, char[] lcs);
+	/**
+	 * @return the morphemes of the original string, which must be consecutive substrings of the original string, if it is tokenized; otherwise, {@code null}.
+	 * Called by {@link #addMorphemes(List, String, int, char[], int, int)}.
+	 */
+	abstract protected String[] tokenizeWordsMore(String original, String lower, char[] lcs);
 	
 //	----------------------------------- Finalize -----------------------------------
 	
-	/** Called by {@link #tokenize(String)}. */
-	private void finalize(List<String> tokens)
+	/** Called by {@link #tokenizeWhiteSpaces(String)}. */
+	private void finalize(List<TokenSpan> tokens)
 	{
 		int i, j, size = tokens.size();
-		String token, lower;
+		TokenSpan token;
 		
 		for (i=0; i<size; i++)
 		{
 			token = tokens.get(i);
-			lower = StringUtils.toLowerCase(token);
 			
-			if ((j = tokenizeNo(tokens, token, lower, i)) != 0 || (mergeParenthesis(tokens, token, i)) != 0)
+			if ((j = tokenizeNo(tokens, token, i)) != 0 || (mergeParenthesis(tokens, token, i)) != 0)
 			{
 				size = tokens.size();
 				i += j;
@@ -509,30 +642,36 @@ abstract public class AbstractTokenizer
 		if (tokens.size() == 1) tokenizeLastPeriod(tokens);
 	}
 	
-	/** Called by {@link #finalize()}. */
-	private int tokenizeNo(List<String> tokens, String token, String lower, int index)
+	/** Called by {@link #finalize(List)}. */
+	private int tokenizeNo(List<TokenSpan> tokens, TokenSpan token, int index)
 	{
-		if (lower.equals("no.") && (index+1 == tokens.size() || !CharUtils.isDigit(tokens.get(index+1).charAt(0))))
+		if (isNo(token) && (index+1 == tokens.size() || !CharUtils.isDigit(tokens.get(index+1).charAt(0))))
 		{
-			tokens.set(index  , StringUtils.trim(token, 1));
-			tokens.add(index+1, StringConst.PERIOD);
+			splitLastCharacter(tokens, index);
 			return 1;
 		}
 		
 		return 0;
 	}
 	
-	/** Called by {@link #finalize()}. */
-	private int mergeParenthesis(List<String> tokens, String token, int index)
+	/** @return {@code true} if the lowercase of the specific token is "no.". */
+	private boolean isNo(TokenSpan token)
+	{
+		return token.length() == 3 && CharUtils.toLowerCase(token.charAt(0)) == 'n' && CharUtils.toLowerCase(token.charAt(1)) == 'o' && token.charAt(2) == CharConst.PERIOD;
+	}
+	
+	/** Called by {@link #finalize(List)}. */
+	private int mergeParenthesis(List<TokenSpan> tokens, TokenSpan token, int index)
 	{
 		if (token.length() == 1 && 0 <= index-1 && index+1 < tokens.size())
 		{
-			String prev = tokens.get(index-1);
-			String next = tokens.get(index+1);
+			TokenSpan prev = tokens.get(index-1);
+			TokenSpan next = tokens.get(index+1);
 			
-			if (prev.equals(StringConst.LRB) && next.equals(StringConst.RRB))
+			if (isCharacter(prev, CharConst.LRB) && isCharacter(next, CharConst.RRB))
 			{
-				tokens.set(index-1, prev+token+next);
+				String text = (prev.getEndIndex() == token.getBeginIndex() && token.getEndIndex() == next.getBeginIndex()) ? null : prev.getText()+token.getText()+next.getText();
+				tokens.set(index-1, new TokenSpan(token.getSource(), prev.getBeginIndex(), next.getEndIndex(), text));
 				tokens.remove(index);
 				tokens.remove(index);
 				return -1;
@@ -542,19 +681,32 @@ abstract public class AbstractTokenizer
 		return 0;
 	}
 	
-	/** Called by {@link #finalize()}. */
-	private void tokenizeLastPeriod(List<String> tokens)
+	/** @return {@code true} if the specific token consists of only the specific character. */
+	private boolean isCharacter(TokenSpan token, char c)
+	{
+		return token.length() == 1 && token.charAt(0) == c;
+	}
+	
+	/** Called by {@link #finalize(List)}. */
+	private void tokenizeLastPeriod(List<TokenSpan> tokens)
 	{
 		int last = tokens.size() - 1;
-		String token = tokens.get(last);
-		char[] cs = token.toCharArray();
+		TokenSpan token = tokens.get(last);
 		int len = token.length();
 		
-		if (1 < len && cs[len-1] == CharConst.PERIOD && !CharUtils.isFinalMark(cs[len-2]))
-		{
-			tokens.set(last, StringUtils.trim(token, 1));
-			tokens.add(StringConst.PERIOD);
-		}
+		if (1 < len && token.charAt(len-1) == CharConst.PERIOD && !CharUtils.isFinalMark(token.charAt(len-2)))
+			splitLastCharacter(tokens, last);
+	}
+	
+	/** Splits the last character of the token at the specific index into a separate token. */
+	private void splitLastCharacter(List<TokenSpan> tokens, int index)
+	{
+		TokenSpan token = tokens.get(index);
+		String s = token.getSource();
+		int eIndex = token.getEndIndex();
+		
+		tokens.set(index  , new TokenSpan(s, token.getBeginIndex(), eIndex-1));
+		tokens.add(index+1, new TokenSpan(s, eIndex-1, eIndex));
 	}
 	
 //	----------------------------------- Preserve -----------------------------------
@@ -562,7 +714,7 @@ abstract public class AbstractTokenizer
 	/** Called by {@link #addNextSymbolSequenceIndices(List, char[], int, int)}. */
 	abstract protected boolean preserveSymbolInBetween(char[] cs, int index);
 	
-	/** Called by {@link #addMorphemes(List, String)}. */
+	/** Called by {@link #addNextSymbolSequenceIndices(List, char[], int, int)}. */
 	private boolean preserveSymbolInDigits(char[] cs, int index)
 	{
 		char c = cs[index];
@@ -577,7 +729,7 @@ abstract public class AbstractTokenizer
 		return false;
 	}
 	
-	/** Called by {@link #addMorphemes(List, String)}. */
+	/** Called by {@link #addNextSymbolSequenceIndices(List, char[], int, int)}. */
 	private boolean preserveSymbolInAlphabets(char[] cs, int index)
 	{
 		char c = cs[index];
@@ -644,7 +796,7 @@ abstract public class AbstractTokenizer
 		return finalMark ? CharUtils.isFinalMark(cs[index]) : c == cs[index];
 	}
 	
-	/** Called by {@link #addSymbols(List, String)}. */
+	/** Called by {@link #addSymbols(List, String, int, char[], int, int)}. */
 	private int getSymbolFlag(char c)
 	{
 		if (CharUtils.isFinalMark(c))
@@ -15,10 +15,10 @@
  */
 package edu.emory.clir.clearnlp.tokenization;
 
-import java.io.BufferedReader;
-import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 import edu.emory.clir.clearnlp.dictionary.english.DTAbbreviation;
 import edu.emory.clir.clearnlp.dictionary.english.DTHyphen;
@@ -79,48 +79,80 @@ public class EnglishTokenizer extends AbstractTokenizer
 	}
 	
 	@Override
-	protected boolean tokenizeWordsMore(List<String> tokens, String original, String lower, char[] lcs)
+	protected String[] tokenizeWordsMore(String original, String lower, char[] lcs)
 	{
-		return tokenize(tokens, original, lower, lcs, d_apostrophe) || tokenize(tokens, original, lower, lcs, d_compound); 
+		String[] t = d_apostrophe.tokenize(original, lower, lcs);
+		return (t != null) ? t : d_compound.tokenize(original, lower, lcs);
 	}
 	
 //	----------------------------------- Segmentize -----------------------------------
 	
 	@Override
-	public List<List<String>> segmentize(InputStream in)
+	public Iterator<List<String>> segmentizeTokens(Iterator<List<String>> lines)
 	{
-		List<List<String>> sentences = new ArrayList<>();
-		int[] brackets = new int[R_BRACKETS.length];
-		List<String> tokens = tokenize(in);
-		int bIndex, i, size = tokens.size();
-		boolean isTerminal = false;
-		String token;
+		return new SentenceIterator(lines);
+	}
+	
+	/** Reads at most one token ahead of the current sentence to check if a final mark is followed by a closing bracket. */
+	private class SentenceIterator implements Iterator<List<String>>
+	{
+		private TokenIterator t_tokens;
+		private int[]         n_brackets;
+		private List<String>  l_next;
+		
+		public SentenceIterator(Iterator<List<String>> lines)
+		{
+			t_tokens   = new TokenIterator(lines);
+			n_brackets = new int[R_BRACKETS.length];
+			l_next     = null;
+		}
 		
-		for (i=0, bIndex=0; i<size; i++)
+		@Override
+		public boolean hasNext()
 		{
-			token = tokens.get(i);
-			countBrackets(token, brackets);
+			if (l_next == null) l_next = nextSentence();
+			return l_next != null;
+		}
+		
+		@Override
+		public List<String> next()
+		{
+			if (!hasNext()) throw new NoSuchElementException();
+			List<String> sentence = l_next;
+			l_next = null;
+			return sentence;
+		}
+		
+		/** @return the next sentence if exists; otherwise, {@code null}. */
+		private List<String> nextSentence()
+		{
+			List<String> sentence = new ArrayList<>();
+			boolean isTerminal = false;
+			String token;
 			
-			if (isTerminal || isFinalMarksOnly(token))
+			while (t_tokens.hasNext())
 			{
-				if (i+1 < size && isFollowedByBracket(tokens.get(i+1), brackets))
+				token = t_tokens.next();
+				sentence.add(token);
+				countBrackets(token, n_brackets);
+				
+				if (isTerminal || isFinalMarksOnly(token))
 				{
-					isTerminal = true;
-					continue;
+					if (t_tokens.hasNext() && isFollowedByBracket(t_tokens.peek(), n_brackets))
+					{
+						isTerminal = true;
+						continue;
+					}
+					
+					return sentence;
 				}
-				
-				sentences.add(tokens.subList(bIndex, bIndex = i+1));
-				isTerminal = false;
 			}
+			
+			return sentence.isEmpty() ? null : sentence;
 		}
-		
-		if (bIndex < size)
-			sentences.add(tokens.subList(bIndex, size));
-		
-		return sentences;
 	}
-		
-	/** Called by {@link EnglishSegmenter#getSentencesRaw(BufferedReader)}. */
+	
+	/** Called by {@link SentenceIterator#nextSentence()}. */
 	private void countBrackets(String str, int[] brackets)
 	{
 		if (str.equals("\""))
@@ -139,7 +171,7 @@ public class EnglishTokenizer extends AbstractTokenizer
 		}
 	}
 	
-	/** Called by {@link EnglishSegmenter#getSentencesRaw(BufferedReader)}. */
+	/** Called by {@link SentenceIterator#nextSentence()}. */
 	private boolean isFollowedByBracket(String str, int[] brackets)
 	{
 		int i, size = R_BRACKETS.length;
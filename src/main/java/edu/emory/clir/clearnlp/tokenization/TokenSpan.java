@@ -0,0 +1,99 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.tokenization;
+
+/**
+ * Token represented by its begin and end offsets in the source string.
+ * The text of the token is created from the source string the first time {@link #getText()} is called.
+ * The text is identical to the source string within the offsets except for tokens merged across white spaces (e.g., "( a )" becomes "(a)").
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TokenSpan implements CharSequence
+{
+	private String s_source;
+	private String s_text;
+	private int    i_begin;
+	private int    i_end;
+	
+	/** @param text the text of this token if already created; otherwise, {@code null}. */
+	public TokenSpan(String source, int beginIndex, int endIndex, String text)
+	{
+		s_source = source;
+		i_begin  = beginIndex;
+		i_end    = endIndex;
+		s_text   = text;
+	}
+	
+	public TokenSpan(String source, int beginIndex, int endIndex)
+	{
+		this(source, beginIndex, endIndex, null);
+	}
+	
+	/** @return the string this token is found in. */
+	public String getSource()
+	{
+		return s_source;
+	}
+	
+	/** @return the index of the first character of this token in the source string (inclusive). */
+	public int getBeginIndex()
+	{
+		return i_begin;
+	}
+	
+	/** @return the index after the last character of this token in the source string (exclusive). */
+	public int getEndIndex()
+	{
+		return i_end;
+	}
+	
+	/** @return {@code true} if the text of this token is different from the source string within the offsets. */
+	public boolean isMerged()
+	{
+		return s_text != null && s_text.length() != i_end - i_begin;
+	}
+	
+	public String getText()
+	{
+		if (s_text == null) s_text = s_source.substring(i_begin, i_end);
+		return s_text;
+	}
+	
+	@Override
+	public int length()
+	{
+		return (s_text != null) ? s_text.length() : i_end - i_begin;
+	}
+	
+	@Override
+	public char charAt(int index)
+	{
+		return (s_text != null) ? s_text.charAt(index) : s_source.charAt(i_begin + index);
+	}
+	
+	@Override
+	public CharSequence subSequence(int beginIndex, int endIndex)
+	{
+		return getText().subSequence(beginIndex, endIndex);
+	}
+	
+	@Override
+	public String toString()
+	{
+		return getText();
+	}
+}
@@ -417,6 +417,62 @@ public class DSUtils
 		return new Pair<DoubleIntPair,DoubleIntPair>(fst, snd);
 	}
 	
+	/**
+	 * Same as {@link #top2(double[], int[])} but saves the indices of the top 2 values to {@code top} without creating objects.
+	 * @param include the indices to consider; if {@code null}, all indices are considered.
+	 */
+	static public void top2(double[] array, int[] include, int[] top)
+	{
+		int i, j, fst, snd, size = (include != null) ? include.length : array.length;
+		
+		fst = (include != null) ? include[0] : 0;
+		snd = (include != null) ? include[1] : 1;
+		
+		if (array[fst] < array[snd])
+		{
+			i = fst; fst = snd; snd = i;
+		}
+		
+		for (j=2; j<size; j++)
+		{
+			i = (include != null) ? include[j] : j;
+			
+			if (array[fst] < array[i])
+			{
+				snd = fst;
+				fst = i;
+			}
+			else if (array[snd] < array[i])
+				snd = i;
+		}
+		
+		top[0] = fst;
+		top[1] = snd;
+	}
+	
+	/**
+	 * Saves the indices of the top {@code top.length} values to {@code top} in descending order, where ties keep the order of the indices.
+	 * @param include the indices to consider; if {@code null}, all indices are considered.
+	 * @return the number of saved indices, which is less than {@code top.length} if there are not enough indices to consider.
+	 */
+	static public int topK(double[] array, int[] include, int[] top)
+	{
+		int i, j, k, n = 0, size = (include != null) ? include.length : array.length;
+		
+		for (j=0; j<size; j++)
+		{
+			i = (include != null) ? include[j] : j;
+			if (n == top.length && array[top[n-1]] >= array[i]) continue;
+			
+			for (k=(n < top.length) ? n++ : n-1; k>0 && array[top[k-1]] < array[i]; k--)
+				top[k] = top[k-1];
+			
+			top[k] = i;
+		}
+		
+		return n;
+	}
+	
 	static public DoubleIntPair toDoubleIntPair(double[] array, int index)
 	{
 		return new DoubleIntPair(array[index], index);
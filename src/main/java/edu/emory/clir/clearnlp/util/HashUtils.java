@@ -51,14 +51,14 @@ public class HashUtils
 		return fnv1aHash64(s, FNV_BASIS_64);
 	}
 
+	/** @param basis the hash value of the preceding string, which allows to hash concatenated strings without creating them. */
 	public static long fnv1aHash64(String s, long basis)
 	{
-		char[] cs = s.toCharArray();
 		int i, len = s.length();
 		
 		for(i=0; i<len; i++)
 		{
-			basis ^= cs[i];
+			basis ^= s.charAt(i);
 			basis *= FNV_PRIME_64;
 		}
 		
@@ -15,8 +15,10 @@
  */
 package edu.emory.clir.clearnlp.util;
 
+import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import edu.emory.clir.clearnlp.collection.set.CharHashSet;
 import edu.emory.clir.clearnlp.collection.tree.CharAffixTree;
 import edu.emory.clir.clearnlp.util.constant.CharConst;
 
@@ -30,6 +32,8 @@ public class MetaUtils
 	private MetaUtils() {}
 	
 	static public final Pattern EMOTICON = Pattern.compile("[\\!\\|;:#%][-]*[\\(\\)\\[\\]\\{\\}\\|<>]+");
+	static private final CharHashSet EMOTICON_EYES   = new CharHashSet('!', '|', ';', ':', '#', '%');
+	static private final CharHashSet EMOTICON_MOUTHS = new CharHashSet('(', ')', '[', ']', '{', '}', '|', '<', '>');
 	static public final CharAffixTree FILE_EXTENSION = new CharAffixTree(false, new String[]{"3gp","7z","ace","ai","aif","aiff","amr","asf","asp","aspx","asx","avi","bat","bin","bmp","bup","cab","cbr","cda","cdl","cdr","chm","dat","divx","dll","dmg","doc","dss","dvf","dwg","eml","eps","exe","fla","flv","gif","gz","hqx","htm","html","shtml","ifo","indd","iso","jar","jsp","jpg","jpeg","lnk","log","m4a","m4b","m4p","m4v","mcd","mdb","mid","mov","mp2","mp3","mp4","mpg","mpeg","msi","mswmm","ogg","pdf","php","png","pps","ppt","ps","psd","pst","ptb","pub","qbb","qbw","qxd","ram","rar","rm","rmvb","rtf","sea","ses","sit","sitx","sql","ss","swf","tgz","tif","torrent","ttf","txt","vcd","vob","wav","wma","wmv","wpd","wps","xls","xml","xtm","zip"});
 	
 	static public final Pattern HYPERLINK = Pattern.compile(
@@ -51,7 +55,7 @@ public class MetaUtils
 
 	static public boolean containsHyperlink(String s)
 	{
-		return HYPERLINK.matcher(s).find();
+		return getHyperlinkRange(s, 0, s.length()) != null;
 	}
 	
 	static public boolean endsWithFileExtension(String s)
@@ -59,4 +63,66 @@ public class MetaUtils
 		int idx = FILE_EXTENSION.getAffixIndex(s, false);
 		return (idx > 0) ? s.charAt(idx-1) == CharConst.PERIOD : false;
 	}
+	
+	/**
+	 * Finds the first hyperlink in the substring of {@code s} between the specific indices without creating the substring.
+	 * {@link #HYPERLINK} runs only if {@link #mayContainHyperlink(CharSequence, int, int)} passes, which rejects most tokens in a single scan.
+	 * @return the range of the hyperlink in {@code s} if exists; otherwise, {@code null}.
+	 */
+	static public int[] getHyperlinkRange(String s, int beginIndex, int endIndex)
+	{
+		if (!mayContainHyperlink(s, beginIndex, endIndex))
+			return null;
+		
+		Matcher m = HYPERLINK.matcher(s).region(beginIndex, endIndex);
+		return m.find() ? new int[]{m.start(), m.end()} : null;
+	}
+	
+	/**
+	 * Every match of {@link #HYPERLINK} contains a period that is preceded by a word character and followed by
+	 * either two alphabets (TLD name) or a digit preceded by a digit (IPv4 address).
+	 * @return {@code false} if no hyperlink can be found in {@code s} between the specific indices.
+	 */
+	static public boolean mayContainHyperlink(CharSequence s, int beginIndex, int endIndex)
+	{
+		int i, last = endIndex - 1;
+		char prev, next;
+		
+		for (i=beginIndex+1; i<last; i++)
+		{
+			if (s.charAt(i) != CharConst.PERIOD) continue;
+			prev = s.charAt(i-1);
+			next = s.charAt(i+1);
+			
+			if (CharUtils.isDigit(prev) && CharUtils.isDigit(next))
+				return true;
+			
+			if ((CharUtils.isAlnum(prev) || prev == CharConst.UNDERSCORE) && CharUtils.isAlphabet(next) && i+2 < endIndex && CharUtils.isAlphabet(s.charAt(i+2)))
+				return true;
+		}
+		
+		return false;
+	}
+	
+	/**
+	 * Finds the first match of {@link #EMOTICON} in the substring of {@code s} between the specific indices in a single scan:
+	 * an eye in {@link #EMOTICON_EYES}, followed by hyphens, followed by one or more mouths in {@link #EMOTICON_MOUTHS}.
+	 * @return the range of the emoticon in {@code s} if exists; otherwise, {@code null}.
+	 */
+	static public int[] getEmoticonRange(CharSequence s, int beginIndex, int endIndex)
+	{
+		int i, j, k;
+		
+		for (i=beginIndex; i<endIndex-1; i++)
+		{
+			if (!EMOTICON_EYES.contains(s.charAt(i))) continue;
+			j = i + 1;
+			while (j < endIndex && s.charAt(j) == CharConst.HYPHEN) j++;
+			k = j;
+			while (k < endIndex && EMOTICON_MOUTHS.contains(s.charAt(k))) k++;
+			if (j < k) return new int[]{i, k};
+		}
+		
+		return null;
+	}
 }
@@ -0,0 +1,161 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.util.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Output stream that passes blocks of bytes to a background thread, which writes them to the wrapped stream,
+ * so the work of the wrapped stream (e.g., compression by {@link java.util.zip.GZIPOutputStream} or {@link org.tukaani.xz.XZOutputStream})
+ * does not block the writing thread. At most {@code capacity} blocks wait in memory; the writing thread is blocked when it is reached.
+ * An error from the wrapped stream is thrown by the next call to this stream. This stream must be written by one thread at a time.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AsyncOutputStream extends OutputStream
+{
+	static private final byte[] EOF = new byte[0];
+	private BlockingQueue<byte[]> q_blocks;
+	private OutputStream f_out;
+	private Thread t_writer;
+	volatile private IOException e_error;
+	private byte[] b_block;
+	private int i_block;
+	
+	/**
+	 * @param blockSize the number of bytes passed to the background thread at a time.
+	 * @param capacity the maximum number of blocks waiting to be written.
+	 */
+	public AsyncOutputStream(OutputStream out, int blockSize, int capacity)
+	{
+		q_blocks = new ArrayBlockingQueue<>(capacity);
+		b_block  = new byte[blockSize];
+		f_out    = out;
+		t_writer = new Thread(this::drain);
+		t_writer.setDaemon(true);
+		t_writer.start();
+	}
+	
+	/** Calls {@link #AsyncOutputStream(OutputStream, int, int)}, where {@code blockSize = 65536} and {@code capacity = 16}. */
+	public AsyncOutputStream(OutputStream out)
+	{
+		this(out, 1 << 16, 16);
+	}
+	
+	/** Writes the blocks in the queue until it reaches {@link #EOF}; blocks after an error are discarded so the writing thread is never blocked. */
+	private void drain()
+	{
+		byte[] block;
+		
+		try
+		{
+			while ((block = q_blocks.take()) != EOF)
+			{
+				if (e_error != null) continue;
+				
+				try
+				{
+					f_out.write(block);
+				}
+				catch (IOException e) {e_error = e;}
+			}
+		}
+		catch (InterruptedException e) {e_error = new IOException(e);}
+	}
+	
+	@Override
+	public void write(int b) throws IOException
+	{
+		if (i_block == b_block.length) pass(b_block.length);
+		b_block[i_block++] = (byte)b;
+	}
+	
+	@Override
+	public void write(byte[] b, int off, int len) throws IOException
+	{
+		int size;
+		
+		while (len > 0)
+		{
+			if (i_block == b_block.length) pass(b_block.length);
+			size = Math.min(len, b_block.length - i_block);
+			System.arraycopy(b, off, b_block, i_block, size);
+			i_block += size;
+			off += size;
+			len -= size;
+		}
+	}
+	
+	/** Passes the bytes written so far to the background thread; the wrapped stream is not flushed. */
+	@Override
+	public void flush() throws IOException
+	{
+		if (i_block > 0) pass(i_block);
+	}
+	
+	/** Waits until all bytes are written to the wrapped stream, then closes it. */
+	@Override
+	public void close() throws IOException
+	{
+		if (t_writer == null) return;
+		flush();
+		put(EOF);
+		
+		try
+		{
+			t_writer.join();
+		}
+		catch (InterruptedException e) {throw new IOException(e);}
+		
+		t_writer = null;
+		f_out.close();
+		checkError();
+	}
+	
+	/** Passes the first {@code size} bytes of the current block to the background thread. */
+	private void pass(int size) throws IOException
+	{
+		checkError();
+		
+		if (size == b_block.length)
+		{
+			put(b_block);
+			b_block = new byte[b_block.length];
+		}
+		else
+			put(Arrays.copyOf(b_block, size));
+		
+		i_block = 0;
+	}
+	
+	private void put(byte[] block) throws IOException
+	{
+		try
+		{
+			q_blocks.put(block);
+		}
+		catch (InterruptedException e) {throw new IOException(e);}
+	}
+	
+	private void checkError() throws IOException
+	{
+		if (e_error != null) throw e_error;
+	}
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+
+/**
+ * Writes trees to an output stream, where each tree is formatted into a buffer reused across trees
+ * and the buffer is written to the stream at once, so no intermediate string is created per node or per tree.
+ * Writers are not thread-safe; trees must be written by one thread at a time.
+ * An error from the output stream is thrown as {@link UncheckedIOException} by the call that finds it, so a failed output is never taken for a complete one.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+abstract public class AbstractWriter
+{
+	static private final int BUFFER_SIZE = 1 << 16;
+	/** The buffer that {@link #append(DEPTree)} formats each tree into. */
+	protected final StringBuilder b_build;
+	private char[] c_buffer;
+	private Writer w_out;
+	private TWriter w_type;
+	
+	/** @param out internally wrapped by {@code new OutputStreamWriter(new BufferedOutputStream(out), UTF-8)}. */
+	public AbstractWriter(TWriter type, OutputStream out)
+	{
+		b_build  = new StringBuilder(BUFFER_SIZE);
+		c_buffer = new char[BUFFER_SIZE];
+		w_out    = new OutputStreamWriter(new BufferedOutputStream(out, BUFFER_SIZE), StandardCharsets.UTF_8);
+		w_type   = type;
+	}
+	
+	/** Formats the specific tree into {@link #b_build}, which is empty when this method is called. */
+	abstract protected void append(DEPTree tree);
+	
+	public void write(DEPTree tree)
+	{
+		b_build.setLength(0);
+		append(tree);
+		int len = b_build.length();
+		
+		if (c_buffer.length < len)
+			c_buffer = new char[Math.max(len, c_buffer.length * 2)];
+		
+		b_build.getChars(0, len, c_buffer, 0);
+		
+		try
+		{
+			w_out.write(c_buffer, 0, len);
+		}
+		catch (IOException e) {throw new UncheckedIOException(e);}
+	}
+	
+	public void flush()
+	{
+		try
+		{
+			w_out.flush();
+		}
+		catch (IOException e) {throw new UncheckedIOException(e);}
+	}
+	
+	public void close()
+	{
+		try
+		{
+			w_out.close();
+		}
+		catch (IOException e) {throw new UncheckedIOException(e);}
+	}
+	
+	public TWriter getWriterType()
+	{
+		return w_type;
+	}
+	
+	public boolean isWriterType(TWriter type)
+	{
+		return w_type == type;
+	}
+}
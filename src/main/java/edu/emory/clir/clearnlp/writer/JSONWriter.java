@@ -0,0 +1,163 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map.Entry;
+
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+
+/**
+ * Writes each tree as a JSON array of its nodes in one line (JSON lines), where each node is an object with the fields
+ * {@code id}, {@code form}, {@code lemma}, {@code pos}, {@code feats}, {@code head}, {@code deprel}, {@code sheads}, {@code xheads}, and {@code ner};
+ * fields that are not assigned are omitted (e.g., {@code {"id":1,"form":"John","pos":"NNP","head":2,"deprel":"nsubj"}}).
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class JSONWriter extends AbstractWriter
+{
+	public JSONWriter(OutputStream out)
+	{
+		super(TWriter.JSON, out);
+	}
+	
+	@Override
+	protected void append(DEPTree tree)
+	{
+		int i, size = tree.size();
+		b_build.append('[');
+		
+		for (i=1; i<size; i++)
+		{
+			if (i > 1) b_build.append(',');
+			appendNode(tree.get(i));
+		}
+		
+		b_build.append(']');
+		b_build.append('\n');
+	}
+	
+	private void appendNode(DEPNode node)
+	{
+		b_build.append("{\"id\":");
+		b_build.append(node.getID());
+		appendField("form" , node.getWordForm());
+		appendField("lemma", node.getLemma());
+		appendField("pos"  , node.getPOSTag());
+		appendFeats(node.getFeats());
+		
+		if (node.hasHead())
+		{
+			b_build.append(",\"head\":");
+			b_build.append(node.getHead().getID());
+			appendField("deprel", node.getLabel());
+		}
+		
+		appendArcs("sheads", node.getSemanticHeadArcList());
+		appendArcs("xheads", node.getSecondaryHeadArcList());
+		appendField("ner", node.getNamedEntityTag());
+		b_build.append('}');
+	}
+	
+	private void appendField(String key, String value)
+	{
+		if (value == null) return;
+		b_build.append(',');
+		appendString(key);
+		b_build.append(':');
+		appendString(value);
+	}
+	
+	private void appendFeats(DEPFeat feats)
+	{
+		if (feats == null || feats.isEmpty()) return;
+		boolean first = true;
+		b_build.append(",\"feats\":{");
+		
+		for (Entry<String,String> entry : feats.entrySet())
+		{
+			if (first)	first = false;
+			else		b_build.append(',');
+			
+			appendString(entry.getKey());
+			b_build.append(':');
+			appendString(entry.getValue());
+		}
+		
+		b_build.append('}');
+	}
+	
+	private <T extends AbstractArc<DEPNode>>void appendArcs(String key, List<T> arcs)
+	{
+		if (arcs == null || arcs.isEmpty()) return;
+		boolean first = true;
+		
+		b_build.append(',');
+		appendString(key);
+		b_build.append(":[");
+		
+		for (T arc : arcs)
+		{
+			if (first)	first = false;
+			else		b_build.append(',');
+			
+			b_build.append("{\"head\":");
+			b_build.append(arc.getNode().getID());
+			appendField("label", arc.getLabel());
+			b_build.append('}');
+		}
+		
+		b_build.append(']');
+	}
+	
+	/** Appends the specific string as a JSON string, where quotes, backslashes, and control characters are escaped. */
+	private void appendString(String s)
+	{
+		int i, len = s.length();
+		char c;
+		
+		b_build.append('"');
+		
+		for (i=0; i<len; i++)
+		{
+			c = s.charAt(i);
+			
+			switch (c)
+			{
+			case '"' : b_build.append("\\\"");	break;
+			case '\\': b_build.append("\\\\");	break;
+			case '\n': b_build.append("\\n");	break;
+			case '\r': b_build.append("\\r");	break;
+			case '\t': b_build.append("\\t");	break;
+			default:
+				if (c < 0x20)
+				{
+					b_build.append("\\u00");
+					b_build.append(Character.forDigit(c >> 4, 16));
+					b_build.append(Character.forDigit(c & 0xF, 16));
+				}
+				else
+					b_build.append(c);
+			}
+		}
+		
+		b_build.append('"');
+	}
+}
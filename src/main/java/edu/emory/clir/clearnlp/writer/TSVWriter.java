@@ -0,0 +1,170 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import java.io.OutputStream;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map.Entry;
+
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPFeat;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.arc.AbstractArc;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
+
+/**
+ * Writes trees in the tab-separated format read by {@link TSVReader}, where the columns of each mode are the same as
+ * {@link DEPNode#toStringPOS()}, {@link DEPNode#toStringMorph()}, {@link DEPNode#toStringDEP()}, {@link DEPNode#toStringSRL()},
+ * and {@link DEPNode#toString()} for {@link NLPMode#ner}; each tree is followed by an empty line.
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TSVWriter extends AbstractWriter
+{
+	private NLPMode n_mode;
+	
+	public TSVWriter(OutputStream out, NLPMode mode)
+	{
+		super(TWriter.TSV, out);
+		n_mode = mode;
+	}
+	
+	@Override
+	protected void append(DEPTree tree)
+	{
+		int i, size = tree.size();
+		
+		for (i=1; i<size; i++)
+		{
+			if (i > 1) b_build.append(StringConst.NEW_LINE);
+			appendNode(tree.get(i));
+		}
+		
+		b_build.append(StringConst.NEW_LINE);
+		b_build.append(StringConst.NEW_LINE);
+	}
+	
+	private void appendNode(DEPNode node)
+	{
+		switch (n_mode)
+		{
+		case pos  : appendPOS(node);	break;
+		case morph: appendMorph(node);	break;
+		case dep  : appendDEP(node);	break;
+		case srl  : appendSRL(node);	break;
+		case ner  : appendNER(node);	break;
+		default   : throw new IllegalArgumentException("Invalid mode: "+n_mode.toString());
+		}
+	}
+	
+	private void appendPOS(DEPNode node)
+	{
+		b_build.append(node.getWordForm());		b_build.append(TSVReader.DELIM_COLUMN);
+		b_build.append(node.getPOSTag());		b_build.append(TSVReader.DELIM_COLUMN);
+		appendFeats(node.getFeats());
+	}
+	
+	private void appendMorph(DEPNode node)
+	{
+		b_build.append(node.getWordForm());		b_build.append(TSVReader.DELIM_COLUMN);
+		b_build.append(node.getLemma());		b_build.append(TSVReader.DELIM_COLUMN);
+		b_build.append(node.getPOSTag());		b_build.append(TSVReader.DELIM_COLUMN);
+		appendFeats(node.getFeats());
+	}
+	
+	private void appendDEP(DEPNode node)
+	{
+		b_build.append(node.getID());
+		b_build.append(TSVReader.DELIM_COLUMN);
+		appendMorph(node);
+		b_build.append(TSVReader.DELIM_COLUMN);
+		
+		if (node.hasHead())
+		{
+			b_build.append(node.getHead().getID());	b_build.append(TSVReader.DELIM_COLUMN);
+			b_build.append(node.getLabel());
+		}
+		else
+		{
+			b_build.append(TSVReader.BLANK);	b_build.append(TSVReader.DELIM_COLUMN);
+			b_build.append(TSVReader.BLANK);
+		}
+	}
+	
+	private void appendSRL(DEPNode node)
+	{
+		appendDEP(node);
+		b_build.append(TSVReader.DELIM_COLUMN);
+		appendArcs(node.getSemanticHeadArcList());
+	}
+	
+	private void appendNER(DEPNode node)
+	{
+		appendSRL(node);
+		b_build.append(TSVReader.DELIM_COLUMN);
+		appendArcs(node.getSecondaryHeadArcList());
+		b_build.append(TSVReader.DELIM_COLUMN);
+		
+		if (node.getNamedEntityTag() != null)	b_build.append(node.getNamedEntityTag());
+		else									b_build.append(TSVReader.BLANK);
+	}
+	
+	private void appendFeats(DEPFeat feats)
+	{
+		if (feats.isEmpty())
+		{
+			b_build.append(TSVReader.BLANK);
+			return;
+		}
+		
+		boolean first = true;
+		
+		for (Entry<String,String> entry : feats.entrySet())
+		{
+			if (first)	first = false;
+			else		b_build.append(DEPFeat.DELIM_FEATS);
+			
+			b_build.append(entry.getKey());
+			b_build.append(DEPFeat.DELIM_KEY_VALUE);
+			b_build.append(entry.getValue());
+		}
+	}
+	
+	private <T extends AbstractArc<DEPNode>>void appendArcs(List<T> arcs)
+	{
+		if (arcs == null || arcs.isEmpty())
+		{
+			b_build.append(TSVReader.BLANK);
+			return;
+		}
+		
+		Collections.sort(arcs);
+		boolean first = true;
+		
+		for (T arc : arcs)
+		{
+			if (first)	first = false;
+			else		b_build.append(TSVReader.DELIM_ARCS);
+			
+			b_build.append(arc.getNode().getID());
+			b_build.append(AbstractArc.DELIM);
+			b_build.append(arc.getLabel());
+		}
+	}
+}
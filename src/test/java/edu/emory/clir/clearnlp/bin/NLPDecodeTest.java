@@ -0,0 +1,141 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.bin;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.component.AbstractComponent;
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.writer.AbstractWriter;
+import edu.emory.clir.clearnlp.writer.TSVWriter;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class NLPDecodeTest
+{
+	static private final int SIZE = 1000;
+	
+	@Test(timeout=60000)
+	public void testProcess() throws Exception
+	{
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		NLPDecode decode = new NLPDecode();
+		AbstractComponent[] components = {new Lemmatizer(-1)};
+		
+		ByteArrayOutputStream parallel = new ByteArrayOutputStream();
+		AbstractWriter fout = new TSVWriter(parallel, NLPMode.morph);
+		decode.process(getSupplier(), fout, components, executor, 4);
+		fout.close();
+		
+		ByteArrayOutputStream sequential = new ByteArrayOutputStream();
+		Supplier<DEPTree> supplier = getSupplier();
+		fout = new TSVWriter(sequential, NLPMode.morph);
+		DEPTree tree;
+		
+		while ((tree = supplier.get()) != null)
+		{
+			components[0].process(tree);
+			fout.write(tree);
+		}
+		
+		fout.close();
+		assertEquals(sequential.toString(), parallel.toString());
+		
+		// a component fails
+		try
+		{
+			decode.process(getSupplier(), new TSVWriter(new ByteArrayOutputStream(), NLPMode.morph), new AbstractComponent[]{new Lemmatizer(SIZE/2)}, executor, 4);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+		}
+		
+		// the writer fails
+		AtomicInteger count = new AtomicInteger();
+		
+		fout = new TSVWriter(new ByteArrayOutputStream(), NLPMode.morph)
+		{
+			@Override
+			public void write(DEPTree tree)
+			{
+				if (count.incrementAndGet() == 10) throw new IllegalArgumentException();
+				super.write(tree);
+			}
+		};
+		
+		try
+		{
+			decode.process(getSupplier(), fout, components, executor, 4);
+			fail();
+		}
+		catch (IllegalStateException e)
+		{
+			assertEquals(IllegalArgumentException.class, e.getCause().getClass());
+		}
+		
+		executor.shutdown();
+	}
+	
+	private Supplier<DEPTree> getSupplier()
+	{
+		AtomicInteger id = new AtomicInteger();
+		
+		return () ->
+		{
+			int i = id.getAndIncrement();
+			if (i == SIZE) return null;
+			DEPTree tree = new DEPTree(1);
+			tree.add(new DEPNode(1, "Word"+i));
+			return tree;
+		};
+	}
+	
+	/** Sets the lemma of each node to its lowercase form; throws an exception on the specific tree. */
+	static private class Lemmatizer extends AbstractComponent
+	{
+		private final String s_fail;
+		
+		public Lemmatizer(int fail)
+		{
+			s_fail = "Word"+fail;
+		}
+		
+		@Override
+		public void process(DEPTree tree)
+		{
+			for (DEPNode node : tree)
+			{
+				if (node.getWordForm().equals(s_fail)) throw new IllegalArgumentException();
+				node.setLemma(node.getLowerSimplifiedWordForm());
+			}
+		}
+	}
+}
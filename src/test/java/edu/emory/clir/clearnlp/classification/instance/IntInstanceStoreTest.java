@@ -0,0 +1,141 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.instance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.util.DSUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class IntInstanceStoreTest
+{
+	@Test
+	public void test() throws Exception
+	{
+		test(false);
+		test(true);
+	}
+	
+	private void test(boolean hasWeight) throws Exception
+	{
+		List<IntInstance> instances = getInstances(hasWeight);
+		IntInstanceStore store = new IntInstanceStore(instances);
+		
+		assertEquals(instances.size(), store.size());
+		assertEquals(hasWeight, store.hasWeight());
+		assertFalse(store.isMapped());
+		compare(instances, store);
+		
+		DSUtils.shuffle(instances, new Random(5));
+		store.shuffle(new Random(5));
+		compare(instances, store);
+		
+		File file = File.createTempFile("instances", ".bin");
+		instances = getInstances(hasWeight);
+		store = new IntInstanceStore(file);
+		for (IntInstance instance : instances) store.add(instance.getLabel(), instance.getFeatureVector());
+		store.trimToSize();
+		
+		assertTrue(store.isMapped());
+		assertEquals(hasWeight, store.hasWeight());
+		compare(instances, store);
+		
+		DSUtils.shuffle(instances, new Random(5));
+		store.shuffle(new Random(5));
+		compare(instances, store);
+		file.delete();
+	}
+	
+	@Test
+	public void testWeightsAddedLater() throws Exception
+	{
+		List<IntInstance> instances = getInstances(false);
+		instances.addAll(getInstances(true));
+		File file = File.createTempFile("instances", ".bin");
+		
+		for (IntInstanceStore store : new IntInstanceStore[]{new IntInstanceStore(), new IntInstanceStore(file)})
+		{
+			for (IntInstance instance : instances) store.add(instance.getLabel(), instance.getFeatureVector());
+			store.trimToSize();
+			assertTrue(store.hasWeight());
+			compare(instances, store);
+		}
+		
+		file.delete();
+	}
+	
+	private void compare(List<IntInstance> instances, IntInstanceStore store)
+	{
+		IntInstance view = store.createView();
+		SparseFeatureVector x, y;
+		int i, j;
+		
+		for (i=0; i<instances.size(); i++)
+		{
+			x = instances.get(i).getFeatureVector();
+			y = store.get(i, view).getFeatureVector();
+			
+			assertEquals(instances.get(i).getLabel(), store.getLabel(i));
+			assertEquals(instances.get(i).getLabel(), view.getLabel());
+			assertEquals(x.size(), y.size());
+			assertEquals(x.getMaxIndex(), y.getMaxIndex());
+			assertEquals(store.get(i).toString(), view.toString());
+			
+			for (j=0; j<x.size(); j++)
+			{
+				assertEquals(x.getIndex(j), y.getIndex(j));
+				assertEquals(x.getWeight(j), y.getWeight(j), 0);
+			}
+		}
+	}
+	
+	private List<IntInstance> getInstances(boolean hasWeight)
+	{
+		List<IntInstance> instances = new ArrayList<>();
+		Random rand = new Random(0);
+		SparseFeatureVector x;
+		int i, j, len;
+		
+		for (i=0; i<100; i++)
+		{
+			x = new SparseFeatureVector(hasWeight);
+			len = rand.nextInt(10) + 1;
+			
+			for (j=0; j<len; j++)
+			{
+				if (hasWeight)	x.addFeature(rand.nextInt(1000), rand.nextInt(8) * 0.25);
+				else			x.addFeature(rand.nextInt(1000));
+			}
+			
+			instances.add(new IntInstance(rand.nextInt(5), x));
+		}
+		
+		return instances;
+	}
+}
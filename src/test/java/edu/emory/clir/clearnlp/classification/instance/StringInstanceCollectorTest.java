@@ -17,6 +17,8 @@ package edu.emory.clir.clearnlp.classification.instance;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+
 import org.junit.Test;
 
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
@@ -46,6 +48,46 @@ public class StringInstanceCollectorTest
 		testFeatures(collector.getFeatureMap());
 	}
 	
+	@Test
+	public void testAddAll()
+	{
+		StringInstanceCollector collector = new StringInstanceCollector();
+		StringInstanceCollector part = new StringInstanceCollector();
+		
+		collector.addInstance(new StringInstance("L1", getStringFeatureVector1()));
+		part.addInstance(new StringInstance("L2", getStringFeatureVector2()));
+		part.addInstance(new StringInstance("L2", getStringFeatureVector3()));
+		collector.addAll(part);
+		
+		assertEquals(3, collector.getInstances().size());
+		assertEquals("L1", collector.getInstances().getFirst().getLabel());
+		testLabels(collector.getLabelMap());
+		testFeatures(collector.getFeatureMap());
+	}
+	
+	@Test
+	public void testReader()
+	{
+		String s = "L1 0:a 1:b:c 2:d:0.5  \nL2 0:e:f:1\n";
+		StringInstanceReader reader = new StringInstanceReader(new ByteArrayInputStream(s.getBytes()));
+		StringInstance instance = reader.next();
+		StringFeatureVector vector = instance.getFeatureVector();
+		
+		assertEquals("L1", instance.getLabel());
+		assertEquals(3, vector.size());
+		assertEquals("a"  , vector.getValue(0));
+		assertEquals("b:c", vector.getValue(1));
+		assertEquals("d"  , vector.getValue(2));
+		assertEquals(2, vector.getType(2));
+		
+		instance = reader.next();
+		vector = instance.getFeatureVector();
+		assertEquals("L2"  , instance.getLabel());
+		assertEquals("e:f" , vector.getValue(0));
+		assertEquals(1d, vector.getWeight(0), 0);
+		assertEquals(null, reader.next());
+	}
+	
 	private StringFeatureVector getStringFeatureVector1()
 	{
 		StringFeatureVector vector = new StringFeatureVector();
@@ -0,0 +1,123 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *	 http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.map;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.collection.map.IntObjectHashMap;
+import edu.emory.clir.clearnlp.collection.map.ObjectIntHashMap;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class PerfectHashFeatureMapTest
+{
+	@Test
+	public void testGetFeatureIndex()
+	{
+		FeatureMap map = createFeatureMap(10, 1000);
+		CompiledFeatureMap compiled = new CompiledFeatureMap(map);
+		PerfectHashFeatureMap compact = new PerfectHashFeatureMap(compiled);
+		int type, i;
+		long key;
+		
+		assertEquals(compiled.size(), compact.size());
+		
+		for (type=0; type<10; type++)
+		{
+			for (i=0; i<1100; i++)
+			{
+				key = CompiledFeatureMap.append(compact.getBasis(type), "f"+i);
+				assertEquals(Math.max(0, map.getFeatureIndex(type, "f"+i)), compact.getFeatureIndex(key));
+			}
+		}
+	}
+	
+	/** Compares the heap and lookup latency of the string, compiled, and perfect hash feature maps. */
+	@Test
+	@Ignore
+	public void benchmark()
+	{
+		final int types = 50, features = 40000, lookups = 10000000;
+		Runtime runtime = Runtime.getRuntime();
+		long heap = getUsedMemory(runtime);
+		
+		FeatureMap map = createFeatureMap(types, features);
+		long stringHeap = getUsedMemory(runtime) - heap;
+		heap = getUsedMemory(runtime);
+		
+		CompiledFeatureMap compiled = new CompiledFeatureMap(map);
+		long compiledHeap = getUsedMemory(runtime) - heap;
+		heap = getUsedMemory(runtime);
+		
+		PerfectHashFeatureMap compact = new PerfectHashFeatureMap(compiled);
+		long compactHeap = getUsedMemory(runtime) - heap;
+		
+		// half of the lookups are unseen features
+		String[] values = new String[features * 2];
+		long[][] keys = new long[types][values.length];
+		int i, type, sum = 0;
+		
+		for (i=0; i<values.length; i++) values[i] = "f"+i;
+		for (type=0; type<types; type++) for (i=0; i<values.length; i++) keys[type][i] = CompiledFeatureMap.append(compiled.getBasis(type), values[i]);
+		
+		for (int iter=0; iter<3; iter++)
+		{
+			long st = System.nanoTime();
+			for (i=0; i<lookups; i++) sum += map.getFeatureIndex(i % types, values[i % values.length]);
+			long stringTime = System.nanoTime() - st;
+			
+			st = System.nanoTime();
+			for (i=0; i<lookups; i++) sum += compiled.getFeatureIndex(keys[i % types][i % values.length]);
+			long compiledTime = System.nanoTime() - st;
+			
+			st = System.nanoTime();
+			for (i=0; i<lookups; i++) sum += compact.getFeatureIndex(keys[i % types][i % values.length]);
+			long compactTime = System.nanoTime() - st;
+			
+			System.out.printf("Lookup (ns): string = %5.1f, compiled = %5.1f, perfect hash = %5.1f\n", (double)stringTime/lookups, (double)compiledTime/lookups, (double)compactTime/lookups);
+		}
+		
+		System.out.printf("Heap (MB)  : string = %5.1f, compiled = %5.1f, perfect hash = %5.1f (%d features, %d)\n", stringHeap/1e6, compiledHeap/1e6, compactHeap/1e6, compact.size(), sum);
+	}
+	
+	private long getUsedMemory(Runtime runtime)
+	{
+		for (int i=0; i<3; i++) System.gc();
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+	
+	private FeatureMap createFeatureMap(int types, int features)
+	{
+		IntObjectHashMap<ObjectIntHashMap<String>> counts = new IntObjectHashMap<>();
+		ObjectIntHashMap<String> m;
+		int type, i;
+		
+		for (type=0; type<types; type++)
+		{
+			counts.put(type, m = new ObjectIntHashMap<>());
+			for (i=0; i<features; i++) m.put("f"+i, 1);
+		}
+		
+		FeatureMap map = new FeatureMap();
+		map.expand(counts, 0);
+		return map;
+	}
+}
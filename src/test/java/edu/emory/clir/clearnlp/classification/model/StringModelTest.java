@@ -31,8 +31,9 @@ import java.util.List;
 
 import org.junit.Test;
 
-import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.IntInstanceStore;
 import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.classification.instance.StringInstanceCollector;
 import edu.emory.clir.clearnlp.classification.instance.StringInstanceReader;
 import edu.emory.clir.clearnlp.classification.prediction.StringPrediction;
 import edu.emory.clir.clearnlp.classification.vector.AbstractWeightVector;
@@ -73,7 +74,7 @@ public class StringModelTest
 		for (StringInstance inst : instances)
 			model.addInstance(inst);
 		
-		List<IntInstance> list = model.initializeForTraining(0, 0);
+		IntInstanceStore list = model.initializeForTraining(0, 0);
 		
 		assertEquals(   2, model.getLabelSize());
 		assertEquals(  13, model.getFeatureSize());
@@ -192,7 +193,7 @@ public class StringModelTest
 		for (StringInstance inst : instances)
 			model.addInstance(inst);
 		
-		List<IntInstance> list = model.initializeForTraining(0, 0);
+		IntInstanceStore list = model.initializeForTraining(0, 0);
 		
 		assertEquals( 3, model.getLabelSize());
 		assertEquals( 7, model.getFeatureSize());
@@ -342,4 +343,46 @@ public class StringModelTest
 		assertEquals("sunny", p.getLabel());
 		assertEquals(8, p.getScore(), 0);
 	}
+	
+	@Test
+	public void testAddCollectors() throws Exception
+	{
+		StringInstanceReader reader = new StringInstanceReader(IOUtils.createFileInputStream("src/test/resources/classification/model/multi-string.train"));
+		List<StringInstance> instances = new ArrayList<>();
+		StringInstance instance;
+		
+		while ((instance = reader.next()) != null)
+			for (int i=0; i<5000; i++) instances.add(instance);
+		
+		reader.close();
+		
+		StringModel sequential = new StringModel(false);
+		StringModel parallel   = new StringModel(false);
+		StringInstanceCollector collector = null;
+		
+		for (int i=0; i<instances.size(); i++)
+		{
+			sequential.addInstance(instances.get(i));
+			
+			if (i % 7000 == 0)
+			{
+				if (collector != null) parallel.addInstances(collector);
+				collector = new StringInstanceCollector();
+			}
+			
+			collector.addInstance(instances.get(i));
+		}
+		
+		parallel.addInstances(collector);
+		parallel.setNumberOfThreads(4);
+		
+		IntInstanceStore expected = sequential.initializeForTraining(0, 0);
+		IntInstanceStore actual   = parallel  .initializeForTraining(0, 0);
+		
+		assertEquals(sequential.getFeatureSize(), parallel.getFeatureSize());
+		assertEquals(expected.size(), actual.size());
+		
+		for (int i=0; i<expected.size(); i++)
+			assertEquals(expected.get(i).toString(), actual.get(i).toString());
+	}
 }
\ No newline at end of file
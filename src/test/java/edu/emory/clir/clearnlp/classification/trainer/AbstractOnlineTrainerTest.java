@@ -0,0 +1,171 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.trainer;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Ignore;
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.classification.instance.IntInstance;
+import edu.emory.clir.clearnlp.classification.instance.StringInstance;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.vector.StringFeatureVector;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AbstractOnlineTrainerTest
+{
+	@Test
+	public void testDeterministic()
+	{
+		List<StringInstance> train = createInstances(new Random(1), 3000);
+		float[] weights = train(train, 4, true, 3).getWeightVector().cloneWeights().toArray();
+		
+		for (int i=0; i<3; i++)
+			assertArrayEquals(weights, train(train, 4, true, 3).getWeightVector().cloneWeights().toArray(), 0);
+	}
+	
+	@Test
+	public void testConvergence()
+	{
+		List<StringInstance> train = createInstances(new Random(1), 3000);
+		List<StringInstance> test  = createInstances(new Random(2), 1000);
+		double sequential = accuracy(train(train, 1, false, 3), test);
+		
+		assertEquals(sequential, accuracy(train(train, 4, false, 3), test), 0.02);
+		assertEquals(sequential, accuracy(train(train, 4, true , 3), test), 0.02);
+	}
+	
+	@Test
+	public void testFailure()
+	{
+		List<StringInstance> train = createInstances(new Random(1), 1000);
+		
+		for (boolean deterministic : new boolean[]{false, true})
+		{
+			StringModel model = new StringModel(false);
+			model.addInstances(train);
+			
+			AbstractOnlineTrainer trainer = new AdaGradSVM(model, 0, 0, true, 0.01, 0.1, 0)
+			{
+				@Override
+				protected boolean update(IntInstance instance, int averageCount)
+				{
+					if (averageCount == 10) throw new IllegalArgumentException();
+					return super.update(instance, averageCount);
+				}
+			};
+			
+			trainer.setNumberOfThreads(4);
+			trainer.setDeterministic(deterministic);
+			
+			try
+			{
+				trainer.train();
+				fail();
+			}
+			catch (IllegalStateException e) {assertTrue(e.getCause() instanceof IllegalArgumentException);}
+		}
+	}
+	
+	@Test
+	@Ignore
+	public void benchmarkConvergence()
+	{
+		List<StringInstance> train = createInstances(new Random(1), 500000);
+		List<StringInstance> test  = createInstances(new Random(2), 50000);
+		final int threads = Math.max(4, Runtime.getRuntime().availableProcessors());
+		
+		benchmark("Sequential   ", train, test, 1, false);
+		benchmark("Hogwild      ", train, test, threads, false);
+		benchmark("Deterministic", train, test, threads, true);
+	}
+	
+	private void benchmark(String title, List<StringInstance> train, List<StringInstance> test, int threads, boolean deterministic)
+	{
+		StringModel model = new StringModel(false);
+		model.addInstances(train);
+		AbstractOnlineTrainer trainer = new AdaGradSVM(model, 0, 0, true, 0.01, 0.1, 0);
+		trainer.setNumberOfThreads(threads);
+		trainer.setDeterministic(deterministic);
+		long st, time = 0;
+		
+		for (int epoch=1; epoch<=5; epoch++)
+		{
+			st = System.currentTimeMillis();
+			trainer.train();
+			time += System.currentTimeMillis() - st;
+			System.out.printf("%s (%2d threads): epoch = %d, accuracy = %5.2f, time = %6d ms\n", title, threads, epoch, 100 * accuracy(model, test), time);
+		}
+	}
+	
+	private StringModel train(List<StringInstance> instances, int threads, boolean deterministic, int epochs)
+	{
+		StringModel model = new StringModel(false);
+		model.addInstances(instances);
+		AbstractOnlineTrainer trainer = new AdaGradSVM(model, 0, 0, true, 0.01, 0.1, 0);
+		trainer.setNumberOfThreads(threads);
+		trainer.setDeterministic(deterministic);
+		
+		for (int i=0; i<epochs; i++)
+			trainer.train();
+		
+		return model;
+	}
+	
+	private double accuracy(StringModel model, List<StringInstance> instances)
+	{
+		int correct = 0;
+		
+		for (StringInstance instance : instances)
+			if (instance.isLabel(model.predictBest(instance.getFeatureVector()).getLabel())) correct++;
+		
+		return (double)correct / instances.size();
+	}
+	
+	/** Each instance has a few features indicating its label and more features of noise; 10% of the labels are random. */
+	private List<StringInstance> createInstances(Random rand, int size)
+	{
+		final int labels = 10;
+		List<StringInstance> instances = new ArrayList<>(size);
+		StringFeatureVector x;
+		int i, j, label;
+		
+		for (i=0; i<size; i++)
+		{
+			label = rand.nextInt(labels);
+			x = new StringFeatureVector();
+			
+			for (j=0; j<3; j++) x.addFeature(0, label+"_"+rand.nextInt(20));
+			for (j=0; j<7; j++) x.addFeature(1, Integer.toString(rand.nextInt(1000)));
+			if (rand.nextInt(10) == 0) label = rand.nextInt(labels);
+			
+			instances.add(new StringInstance("L"+label, x));
+		}
+		
+		return instances;
+	}
+}
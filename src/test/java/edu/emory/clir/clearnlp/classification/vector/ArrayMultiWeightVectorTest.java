@@ -0,0 +1,107 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ArrayMultiWeightVectorTest
+{
+	@Test
+	public void testGetScores()
+	{
+		final int labelSize = 7, featureSize = 50;
+		Random rand = new Random(0);
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(labelSize, featureSize);
+		int i;
+		
+		for (i=0; i<labelSize*featureSize; i++)
+			vector.set(i, rand.nextFloat() - 0.5f);
+		
+		ArrayMultiWeightVector array = new ArrayMultiWeightVector(vector);
+		int[][] indices = {{3}, {1, 5}, {0, 2, 4, 6}};
+		double[] scores;
+		
+		for (SparseFeatureVector x : new SparseFeatureVector[]{createVector(rand, false, featureSize), createVector(rand, true, featureSize)})
+		{
+			assertArrayEquals(vector.getScores(x), array.getScores(x), 0);
+			
+			for (int[] include : indices)
+			{
+				scores = vector.getScores(x, include);
+				double[] s = array.getScores(x, include);
+				for (int k : include) assertEquals(scores[k], s[k], 0);
+			}
+		}
+		
+		try
+		{
+			array.expand(labelSize+1, featureSize);
+			fail();
+		}
+		catch (UnsupportedOperationException e) {}
+	}
+	
+	@Test
+	public void testSerialization() throws Exception
+	{
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(3, 2);
+		vector.set(4, 0.5f);
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(new ArrayMultiWeightVector(vector));
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		Object object = in.readObject();
+		in.close();
+		
+		assertTrue(object.getClass() == MultiWeightVector.class);
+		assertEquals(0.5f, ((MultiWeightVector)object).get(4), 0);
+	}
+	
+	private SparseFeatureVector createVector(Random rand, boolean hasWeight, int featureSize)
+	{
+		SparseFeatureVector x = new SparseFeatureVector(hasWeight);
+		int i;
+		
+		// includes an index out of the feature range, which must be skipped
+		for (i=0; i<10; i++)
+		{
+			if (hasWeight)	x.addFeature(rand.nextInt(featureSize+5), rand.nextDouble());
+			else			x.addFeature(rand.nextInt(featureSize+5));
+		}
+		
+		return x;
+	}
+}
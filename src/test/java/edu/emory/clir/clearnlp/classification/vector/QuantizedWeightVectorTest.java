@@ -0,0 +1,135 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.classification.vector;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class QuantizedWeightVectorTest
+{
+	@Test
+	public void testMultiWeights()
+	{
+		final int labelSize = 7, featureSize = 50;
+		Random rand = new Random(0);
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(labelSize, featureSize);
+		int i;
+		
+		// labels with different ranges get different scales
+		for (i=0; i<labelSize*featureSize; i++)
+			vector.set(i, (rand.nextFloat() - 0.5f) * (i % labelSize + 1));
+		
+		QuantizedWeightVector q8  = new QuantizedWeightVector(vector, 8);
+		QuantizedWeightVector q16 = new QuantizedWeightVector(vector, 16);
+		assertEquals(8 , q8 .getBits());
+		assertEquals(16, q16.getBits());
+		assertEquals(vector.size(), q8.size());
+		
+		double err8 = 0, err16 = 0;
+		
+		for (i=0; i<vector.size(); i++)
+		{
+			err8  = Math.max(err8 , Math.abs(vector.get(i) - q8 .get(i)));
+			err16 = Math.max(err16, Math.abs(vector.get(i) - q16.get(i)));
+		}
+		
+		assertTrue(err8  < labelSize * 0.5 / Byte .MAX_VALUE);
+		assertTrue(err16 < labelSize * 0.5 / Short.MAX_VALUE);
+		assertTrue(err16 < err8);
+		
+		SparseFeatureVector x = new SparseFeatureVector(true);
+		for (i=0; i<10; i++) x.addFeature(rand.nextInt(featureSize), rand.nextDouble());
+		
+		assertArrayEquals(vector.getScores(x), q16.getScores(x), 0.01);
+		double[] scores = vector.getScores(x, new int[]{1, 5});
+		double[] s = q16.getScores(x, new int[]{1, 5});
+		assertEquals(scores[1], s[1], 0.01);
+		assertEquals(scores[5], s[5], 0.01);
+	}
+	
+	@Test
+	public void testBinaryWeights()
+	{
+		BinaryWeightVector vector = new BinaryWeightVector();
+		vector.expand(2, 3);
+		vector.set(0,  1f);
+		vector.set(1, -0.5f);
+		vector.set(2,  0.25f);
+		
+		QuantizedWeightVector q = new QuantizedWeightVector(vector, 8);
+		assertEquals( 1f   , q.get(0), 0.01);
+		assertEquals(-0.5f , q.get(1), 0.01);
+		assertEquals( 0.25f, q.get(2), 0.01);
+		
+		try
+		{
+			new QuantizedWeightVector(vector, 4);
+			fail();
+		}
+		catch (IllegalArgumentException e) {}
+	}
+	
+	@Test
+	public void testReadOnly() throws Exception
+	{
+		MultiWeightVector vector = new MultiWeightVector();
+		vector.expand(3, 2);
+		vector.set(4, 0.5f);
+		QuantizedWeightVector q = new QuantizedWeightVector(vector, 16);
+		
+		try
+		{
+			q.set(4, 1f);
+			fail();
+		}
+		catch (UnsupportedOperationException e) {}
+		
+		try
+		{
+			q.expand(4, 2);
+			fail();
+		}
+		catch (UnsupportedOperationException e) {}
+		
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(q);
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		QuantizedWeightVector object = (QuantizedWeightVector)in.readObject();
+		in.close();
+		
+		assertEquals(16, object.getBits());
+		assertEquals(0.5f, object.get(4), 0.001);
+		assertEquals(0f, object.get(3), 0);
+	}
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *	 http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.collection.map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.util.HashUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class LongIntMinimalPerfectHashMapTest
+{
+	@Test
+	public void test()
+	{
+		final int size = 100000;
+		long[] keys = new long[size];
+		int[] values = new int[size];
+		int i, rejected = 0;
+		
+		for (i=0; i<size; i++)
+		{
+			keys[i] = HashUtils.fnv1aHash64("key"+i);
+			values[i] = i * 3;
+		}
+		
+		LongIntMinimalPerfectHashMap map = new LongIntMinimalPerfectHashMap(keys, values);
+		assertEquals(size, map.size());
+		assertTrue(map.getMemorySize() < 12L * size);
+		
+		for (i=0; i<size; i++)
+			assertEquals(values[i], map.get(keys[i]));
+		
+		for (i=0; i<size; i++)
+			if (map.get(HashUtils.fnv1aHash64("unseen"+i)) < 0) rejected++;
+		
+		assertEquals(size, rejected);
+	}
+	
+	@Test
+	public void testEdgeCases()
+	{
+		LongIntMinimalPerfectHashMap map = new LongIntMinimalPerfectHashMap(new long[0], new int[0]);
+		assertEquals(-1, map.get(new Random(0).nextLong()));
+		
+		map = new LongIntMinimalPerfectHashMap(new long[]{7L << 32}, new int[]{0});
+		assertEquals(0, map.get(7L << 32));
+		
+		try
+		{
+			new LongIntMinimalPerfectHashMap(new long[]{1, 2, 1}, new int[]{0, 1, 2});
+			fail();
+		}
+		catch (IllegalArgumentException e) {}
+	}
+}
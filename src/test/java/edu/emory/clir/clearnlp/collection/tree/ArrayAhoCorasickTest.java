@@ -0,0 +1,145 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.collection.tree;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.collection.triple.ObjectIntIntTriple;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class ArrayAhoCorasickTest
+{
+	@Test
+	public void testGetAll()
+	{
+		PrefixTree<String,String> tree = new PrefixTree<>();
+		tree.set(new String[]{"a","b"}, "A", String::toString);
+		tree.set(new String[]{"a","b","c"}, "B", String::toString);
+		tree.set(new String[]{"b","c","d"}, "C", String::toString);
+		tree.set(new String[]{"c","d"}, "D", String::toString);
+		tree.set(new String[]{"d"}, "E", String::toString);
+		
+		ArrayAhoCorasick<String> automaton = new ArrayAhoCorasick<>(tree);
+		String[] tokens = {"x","a","b","c","d","c","d","a","b","e","d"};
+		
+		assertEquals("[(B,1,3), (C,2,4), (D,3,4), (E,4,4), (D,5,6), (E,6,6), (A,7,8), (E,10,10)]", toString(automaton.getAll(tokens, 0, String::toString, false, false)));
+		assertEquals("[(B,1,3), (C,2,4), (D,5,6), (A,7,8), (E,10,10)]", toString(automaton.getAll(tokens, 0, String::toString, true, false)));
+		assertEquals("[(B,1,3), (E,4,4), (D,5,6), (A,7,8), (E,10,10)]", toString(automaton.getAll(tokens, 0, String::toString, true, true)));
+		
+		for (int i=0; i<=tokens.length; i++)
+			compare(tree, automaton, tokens, i);
+	}
+	
+	@Test
+	public void testRandom() throws Exception
+	{
+		PrefixTree<String,String> tree = new PrefixTree<>();
+		Random rand = new Random(0);
+		String[] keys;
+		int i, j;
+		
+		for (i=0; i<500; i++)
+		{
+			keys = new String[rand.nextInt(4) + 1];
+			for (j=0; j<keys.length; j++) keys[j] = Integer.toString(rand.nextInt(10));
+			tree.set(keys, Integer.toString(i), String::toString);
+		}
+		
+		ArrayAhoCorasick<String> automaton = new ArrayAhoCorasick<>(tree);
+		File file = File.createTempFile("dictionary", ".cnld");
+		automaton.save(file.getPath());
+		assertTrue(ArrayAhoCorasick.isMappedFile(file.getPath()));
+		
+		List<ArrayAhoCorasick<String>> automata = new ArrayList<>();
+		automata.add(automaton);
+		automata.add(deserialize(automaton));
+		automata.add(ArrayAhoCorasick.map(file.getPath()));
+		
+		for (i=0; i<200; i++)
+		{
+			keys = new String[rand.nextInt(30)];
+			for (j=0; j<keys.length; j++) keys[j] = Integer.toString(rand.nextInt(12));
+			for (ArrayAhoCorasick<String> a : automata) compare(tree, a, keys, rand.nextInt(2));
+		}
+		
+		file.delete();
+	}
+	
+	@Test
+	public void testSharedValues()
+	{
+		PrefixTree<String,String> tree = new PrefixTree<>();
+		tree.set(new String[]{"a"}, "A1", String::toString);
+		tree.set(new String[]{"b"}, "A2", String::toString);
+		tree.set(new String[]{"c"}, "B1", String::toString);
+		
+		ArrayAhoCorasick<String> automaton = new ArrayAhoCorasick<>(tree, v -> v.charAt(0));
+		List<ObjectIntIntTriple<String>> list = automaton.getAll(new String[]{"a","b","c"}, 0, String::toString, false, false);
+		
+		assertEquals(3, list.size());
+		assertEquals(list.get(0).o, list.get(1).o);
+		assertEquals("B1", list.get(2).o);
+	}
+	
+	private void compare(PrefixTree<String,String> tree, ArrayAhoCorasick<String> automaton, String[] tokens, int beginIndex)
+	{
+		for (int k=0; k<4; k++)
+		{
+			boolean removeSubset = (k & 1) > 0, removeOverlap = (k & 2) > 0;
+			assertEquals(toString(tree.getAll(tokens, beginIndex, String::toString, removeSubset, removeOverlap)), toString(automaton.getAll(tokens, beginIndex, String::toString, removeSubset, removeOverlap)));
+		}
+	}
+	
+	@SuppressWarnings("unchecked")
+	private ArrayAhoCorasick<String> deserialize(ArrayAhoCorasick<String> automaton) throws Exception
+	{
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ObjectOutputStream out = new ObjectOutputStream(bout);
+		out.writeObject(automaton);
+		out.close();
+		
+		ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bout.toByteArray()));
+		return (ArrayAhoCorasick<String>)in.readObject();
+	}
+	
+	private String toString(List<ObjectIntIntTriple<String>> list)
+	{
+		StringBuilder build = new StringBuilder();
+		
+		for (ObjectIntIntTriple<String> t : list)
+		{
+			if (build.length() > 0) build.append(", ");
+			build.append("("+t.o+","+t.i1+","+t.i2+")");
+		}
+		
+		return "["+build.toString()+"]";
+	}
+}
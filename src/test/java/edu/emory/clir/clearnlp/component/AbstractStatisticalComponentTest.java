@@ -0,0 +1,602 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.component;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.ObjectInputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.Ignore;
+import org.junit.Test;
+import org.tukaani.xz.XZInputStream;
+
+import edu.emory.clir.clearnlp.classification.map.PerfectHashFeatureMap;
+import edu.emory.clir.clearnlp.classification.model.StringModel;
+import edu.emory.clir.clearnlp.classification.trainer.AdaGradSVM;
+import edu.emory.clir.clearnlp.classification.vector.QuantizedWeightVector;
+import edu.emory.clir.clearnlp.classification.vector.SparseFeatureVector;
+import edu.emory.clir.clearnlp.component.mode.dep.AbstractDEPParser;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPConfiguration;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPFeatureExtractor;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPRepairStats;
+import edu.emory.clir.clearnlp.component.mode.dep.DEPTrainer;
+import edu.emory.clir.clearnlp.component.mode.dep.DefaultDEPParser;
+import edu.emory.clir.clearnlp.component.mode.pos.AbstractPOSTagger;
+import edu.emory.clir.clearnlp.component.mode.pos.DefaultPOSTagger;
+import edu.emory.clir.clearnlp.component.mode.pos.POSConfiguration;
+import edu.emory.clir.clearnlp.component.mode.pos.POSFeatureExtractor;
+import edu.emory.clir.clearnlp.component.mode.pos.POSLexicon;
+import edu.emory.clir.clearnlp.component.mode.pos.POSState;
+import edu.emory.clir.clearnlp.component.mode.srl.AbstractSRLabeler;
+import edu.emory.clir.clearnlp.component.mode.srl.EnglishSRLabeler;
+import edu.emory.clir.clearnlp.component.mode.srl.SRLConfiguration;
+import edu.emory.clir.clearnlp.component.mode.srl.SRLFeatureExtractor;
+import edu.emory.clir.clearnlp.component.utils.CFlag;
+import edu.emory.clir.clearnlp.component.utils.MappedModelFile;
+import edu.emory.clir.clearnlp.component.utils.NLPUtils;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.IOUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class AbstractStatisticalComponentTest
+{
+	static final String CONFIGURATION = "src/test/resources/nlp/configuration/configure.xml";
+	static final String FEATURE_POS   = "src/test/resources/nlp/trainer/feature_pos.xml";
+	static final String FEATURE_DEP   = "src/test/resources/nlp/trainer/feature_dep.xml";
+	static final String FEATURE_SRL   = "src/test/resources/nlp/trainer/feature_srl.xml";
+	static final String DATA          = "src/test/resources/dependency/dependency.cnlp";
+	
+	@Test
+	public void testSharedDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		
+		AbstractComponent[] components = {trainPOSTagger(reader), trainDEPParser(reader, config)};
+		for (AbstractComponent component : components) ((AbstractStatisticalComponent<?,?,?,?,?>)component).freeze();
+		List<String> gold = decode(reader, components);
+		
+		final int threads = 8, iterations = 50;
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		List<Future<List<String>>> futures = new ArrayList<>();
+		
+		for (int i=0; i<threads*iterations; i++)
+			futures.add(executor.submit(() -> decode((TSVReader)reader.clone(), components)));
+		
+		for (Future<List<String>> future : futures)
+			assertEquals(gold, future.get());
+		
+		executor.shutdown();
+	}
+	
+	@Test
+	public void testCompiledDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		List<String> gold = decode(reader, new AbstractComponent[]{tagger, parser});
+		
+		tagger = new DefaultPOSTagger(tagger.toByteArray());
+		parser = new DefaultDEPParser(config, parser.toByteArray());
+		tagger.compile();
+		parser.compile();
+		
+		assertTrue(tagger.getModel(0).getCompiledFeatureMap() != null);
+		assertTrue(parser.getModel(0).getCompiledFeatureMap() != null);
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+		
+		tagger.compact();
+		parser.compact();
+		assertTrue(parser.getModel(0).getCompiledFeatureMap() instanceof PerfectHashFeatureMap);
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+	}
+	
+	@Test
+	public void testMappedDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		List<String> gold = decode(reader, new AbstractComponent[]{tagger, parser});
+		
+		File posFile = File.createTempFile("pos", ".cnlm");
+		File depFile = File.createTempFile("dep", ".cnlm");
+		posFile.deleteOnExit();
+		depFile.deleteOnExit();
+		MappedModelFile.convert(new ObjectInputStream(new XZInputStream(new ByteArrayInputStream(tagger.toByteArray()))), posFile.getPath());
+		MappedModelFile.convert(new ObjectInputStream(new XZInputStream(new ByteArrayInputStream(parser.toByteArray()))), depFile.getPath());
+		assertTrue(MappedModelFile.isMappedModel(posFile.getPath()));
+		assertFalse(MappedModelFile.isMappedModel(CONFIGURATION));
+		
+		// string features are looked up by their keys
+		tagger = new DefaultPOSTagger(NLPUtils.getObjectInputStream(posFile.getPath()));
+		parser = new DefaultDEPParser(config, NLPUtils.getObjectInputStream(depFile.getPath()));
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+		
+		tagger.compile(true);
+		parser.compile(true);
+		tagger.freeze();
+		parser.freeze();
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+	}
+	
+	@Test
+	public void testCompactModels() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		List<String> gold = decode(reader, new AbstractComponent[]{tagger, parser});
+		double posScore = tagger.evaluate(read(reader)).getScore();
+		double depScore = parser.evaluate(read(reader)).getScore();
+		
+		// features whose weights are all zero never change scores
+		assertEquals(0, parser.getModel(0).prune(0));
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+		
+		int size = parser.getModel(0).getFeatureSize();
+		int pruned = parser.getModel(0).prune(0.01f);
+		assertTrue(pruned > 0);
+		assertEquals(size - pruned, parser.getModel(0).getFeatureSize());
+		gold = decode(reader, new AbstractComponent[]{tagger, parser});
+		
+		// remapped feature indices survive serialization and compilation
+		parser = new DefaultDEPParser(config, parser.toByteArray());
+		parser.compile();
+		assertEquals(gold, decode(reader, new AbstractComponent[]{tagger, parser}));
+		depScore = parser.evaluate(read(reader)).getScore();
+		
+		tagger.getModel(0).quantizeWeightVector(16);
+		parser.getModel(0).quantizeWeightVector(16);
+		assertTrue(tagger.getModel(0).getWeightVector() instanceof QuantizedWeightVector);
+		assertEquals(posScore, tagger.evaluate(read(reader)).getScore(), 1);
+		assertEquals(depScore, parser.evaluate(read(reader)).getScore(), 1);
+	}
+	
+	@Test
+	public void testParallelInstances() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		DEPFeatureExtractor[] extractors = {new DEPFeatureExtractor(IOUtils.createFileInputStream(FEATURE_DEP))};
+		DEPTrainer trainer = new DEPTrainer(IOUtils.createFileInputStream(CONFIGURATION));
+		List<String> files = new ArrayList<>();
+		for (int i=0; i<200; i++) files.add(DATA);
+		
+		AbstractDEPParser sequential = new DefaultDEPParser(config, extractors, null);
+		AbstractDEPParser parallel   = new DefaultDEPParser(config, extractors, null);
+		trainer.setNumberOfThreads(1);
+		trainer.process(sequential, files, false);
+		trainer.setNumberOfThreads(4);
+		trainer.process(parallel, files, false);
+		float[] weights = assertSameModels(sequential, parallel);
+		
+		sequential = new DefaultDEPParser(config, extractors, null, sequential.getModels(), true);
+		parallel   = new DefaultDEPParser(config, extractors, null, new StringModel[]{new DefaultDEPParser(config, parallel.toByteArray()).getModel(0)}, true);
+		assertArrayEquals(weights, parallel.getModel(0).getWeightVector().cloneWeights().toArray(), 0);
+		trainer.setNumberOfThreads(1);
+		trainer.process(sequential, files, false);
+		trainer.setNumberOfThreads(4);
+		trainer.process(parallel, files, false);
+		assertSameModels(sequential, parallel);
+	}
+	
+	@Test
+	public void testCachedInstances() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		DEPFeatureExtractor[] extractors = {new DEPFeatureExtractor(IOUtils.createFileInputStream(FEATURE_DEP))};
+		DEPTrainer trainer = new DEPTrainer(IOUtils.createFileInputStream(CONFIGURATION));
+		List<String> files = new ArrayList<>();
+		for (int i=0; i<20; i++) files.add(DATA);
+		
+		AbstractDEPParser text   = new DefaultDEPParser(config, extractors, null);
+		AbstractDEPParser cached = new DefaultDEPParser(config, extractors, null);
+		trainer.process(text, files, false);
+		trainer.setCacheDirectory(Files.createTempDirectory("cache").toString());
+		trainer.process(cached, files, false);
+		assertSameModels(text, cached);
+		
+		cached = new DefaultDEPParser(config, extractors, null);
+		trainer.setNumberOfThreads(4);
+		trainer.process(cached, files, false);
+		assertSameModels(text, cached);
+		
+		// read from the corpus in memory without the cache directory
+		DEPTrainer shared = new DEPTrainer(IOUtils.createFileInputStream(CONFIGURATION));
+		shared.setCorpus(trainer.loadCorpus(files));
+		
+		for (int threads : new int[]{1, 4})
+		{
+			cached = new DefaultDEPParser(config, extractors, null);
+			shared.setNumberOfThreads(threads);
+			shared.process(cached, files, false);
+			assertSameModels(text, cached);
+		}
+	}
+	
+	/** Trains both parsers with their collected instances and compares their weights. */
+	private float[] assertSameModels(AbstractDEPParser expected, AbstractDEPParser actual)
+	{
+		new AdaGradSVM(expected.getModel(0), 0, 0, false, 0.01, 0.1, 0).train();
+		new AdaGradSVM(actual  .getModel(0), 0, 0, false, 0.01, 0.1, 0).train();
+		float[] weights = expected.getModel(0).getWeightVector().cloneWeights().toArray();
+		
+		assertArrayEquals(expected.getModel(0).getLabels(), actual.getModel(0).getLabels());
+		assertArrayEquals(weights, actual.getModel(0).getWeightVector().cloneWeights().toArray(), 0);
+		return weights;
+	}
+	
+	@Test
+	public void testCompiledFeatures() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger string = trainPOSTagger(reader);
+		AbstractPOSTagger compiled = new DefaultPOSTagger(string.toByteArray());
+		POSLexicon lexicon = (POSLexicon)string.getLexicons();
+		compiled.compile();
+		
+		reader.open(IOUtils.createFileInputStream(DATA));
+		SparseFeatureVector x, y;
+		POSState state;
+		DEPTree tree;
+		int count = 0;
+		
+		while ((tree = reader.next()) != null)
+		{
+			state = new POSState(tree, CFlag.EVALUATE, lexicon);
+			
+			for (; !state.isTerminate(); state.next(state.getGoldLabel()))
+			{
+				x = string.createSparseFeatureVector(state);
+				y = compiled.createSparseFeatureVector(state);
+				assertEquals(x.size(), y.size());
+				for (int i=0; i<x.size(); i++) assertEquals(x.getIndex(i), y.getIndex(i));
+				count += x.size();
+			}
+		}
+		
+		reader.close();
+		assertTrue(count > 0);
+	}
+	
+	/**
+	 * Measures the bytes allocated by compiled decode, which is what drives the GC rate when decoding in many threads.
+	 * With the greedy parser, a transition allocates nothing but what the state keeps (e.g., 2nd heads); the rest is per tree.
+	 */
+	@Test
+	public void testDecodeAllocation() throws Exception
+	{
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean mx = (com.sun.management.ThreadMXBean)bean;
+		assumeTrue(mx.isThreadAllocatedMemorySupported() && mx.isThreadAllocatedMemoryEnabled());
+		
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		config.setBeamSize(1);
+		tagger.compile();
+		parser.compile();
+		
+		List<DEPTree> trees = new ArrayList<>();
+		reader.open(IOUtils.createFileInputStream(DATA));
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		double pos = getAllocatedBytesPerToken(mx, tagger, trees);
+		double dep = getAllocatedBytesPerToken(mx, parser, trees);
+		assertTrue(pos < 512);
+		assertTrue(dep < 1024);
+	}
+	
+	private double getAllocatedBytesPerToken(com.sun.management.ThreadMXBean mx, AbstractComponent component, List<DEPTree> trees)
+	{
+		final int iterations = 1000;
+		long id = Thread.currentThread().getId(), bytes;
+		int i, tokens = 0;
+		
+		for (DEPTree tree : trees) tokens += tree.size() - 1;
+		for (i=0; i<iterations; i++) for (DEPTree tree : trees) component.process(tree);
+		bytes = mx.getThreadAllocatedBytes(id);
+		for (i=0; i<iterations; i++) for (DEPTree tree : trees) component.process(tree);
+		bytes = mx.getThreadAllocatedBytes(id) - bytes;
+		return (double)bytes / (iterations * tokens);
+	}
+	
+	@Test
+	public void testBeamDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractComponent[] components = {trainPOSTagger(reader), trainDEPParser(reader, config)};
+		
+		for (int beamSize : new int[]{1, 2, 4, 8})
+		{
+			config.setDecodeBeamSize(beamSize);
+			List<String> gold = decode(reader, components);
+			assertEquals(gold, decode(reader, components));
+			
+			for (DEPTree tree : read(reader))
+			{
+				for (AbstractComponent component : components)
+					component.process(tree);
+				
+				for (int i=1; i<tree.size(); i++)
+					assertTrue(tree.get(i).hasHead());
+			}
+		}
+	}
+	
+	@Test
+	public void testHeadlessRepair() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		DEPRepairStats stats = parser.getRepairStats();
+		List<DEPTree> trees = read(reader);
+		config.setBeamSize(1);
+		
+		for (int window : new int[]{0, 1})
+		{
+			config.setHeadlessWindow(window);
+			stats.reset();
+			
+			for (DEPTree tree : trees)
+			{
+				tagger.process(tree);
+				parser.process(tree);
+				
+				for (int i=1; i<tree.size(); i++)
+					assertTrue(tree.get(i).hasHead());
+			}
+			
+			assertEquals(trees.size(), stats.getTreeCount());
+			assertTrue(stats.getRepairedTreeCount() <= stats.getHeadlessCount());
+			if (window > 0) assertTrue(stats.getCandidateCount() <= (stats.getHeadlessCount() - stats.getSecondHeadCount()) * (2 * window + 1));
+		}
+	}
+	
+	/** Compares the decoding speed of different beam sizes. */
+	@Test
+	@Ignore
+	public void benchmarkBeamDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		List<DEPTree> trees = read(reader);
+		int i, tokens = 0;
+		
+		tagger.compile();
+		parser.compile();
+		for (DEPTree tree : trees) tagger.process(tree);
+		for (DEPTree tree : trees) tokens += tree.size() - 1;
+		
+		for (i=0; i<3; i++)
+		{
+			for (int beamSize : new int[]{1, 4, 8})
+			{
+				config.setDecodeBeamSize(beamSize);
+				long st = System.currentTimeMillis();
+				for (int j=0; j<200; j++) for (DEPTree tree : trees) parser.process(tree);
+				long time = System.currentTimeMillis() - st;
+				System.out.printf("DEP beam %d: %d ms, %d tokens/sec.\n", beamSize, time, Math.round(200d * tokens * 1000 / time));
+			}
+		}
+	}
+	
+	/** Compares the decoding speed of the string and compiled feature maps. */
+	@Test
+	@Ignore
+	public void benchmarkCompiledDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractPOSTagger tagger = trainPOSTagger(reader);
+		AbstractDEPParser parser = trainDEPParser(reader, config);
+		
+		AbstractComponent[] string   = {new DefaultPOSTagger(tagger.toByteArray()), new DefaultDEPParser(config, parser.toByteArray())};
+		AbstractComponent[] compiled = {new DefaultPOSTagger(tagger.toByteArray()), new DefaultDEPParser(config, parser.toByteArray())};
+		AbstractComponent[] array    = {new DefaultPOSTagger(tagger.toByteArray()), new DefaultDEPParser(config, parser.toByteArray())};
+		for (AbstractComponent component : compiled) ((AbstractStatisticalComponent<?,?,?,?,?>)component).compile();
+		for (AbstractComponent component : array)    ((AbstractStatisticalComponent<?,?,?,?,?>)component).compile(true);
+		
+		for (int i=0; i<3; i++)
+		{
+			System.out.printf("POS string  : %d ms\n", benchmark(reader, string[0]));
+			System.out.printf("POS compiled: %d ms\n", benchmark(reader, compiled[0]));
+			System.out.printf("POS array   : %d ms\n", benchmark(reader, array[0]));
+			System.out.printf("DEP string  : %d ms\n", benchmark(reader, string[1]));
+			System.out.printf("DEP compiled: %d ms\n", benchmark(reader, compiled[1]));
+			System.out.printf("DEP array   : %d ms\n", benchmark(reader, array[1]));
+		}
+	}
+	
+	/** Measures the decoding speed of the pipeline up to semantic role labeling, where all components share the token features cached in each tree. */
+	@Test
+	@Ignore
+	public void benchmarkSRLDecode() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		TSVReader reader = (TSVReader)config.getReader();
+		AbstractComponent[] components = {trainPOSTagger(reader), trainDEPParser(reader, config), trainSRLabeler(reader)};
+		List<DEPTree> trees = read(reader);
+		int i, j, tokens = 0;
+		
+		for (AbstractComponent component : components) ((AbstractStatisticalComponent<?,?,?,?,?>)component).compile();
+		for (DEPTree tree : trees) tokens += tree.size() - 1;
+		
+		for (i=0; i<5; i++)
+		{
+			long st = System.currentTimeMillis();
+			
+			for (j=0; j<500; j++)
+			{
+				for (DEPTree tree : trees)
+				{
+					DEPTree copy = new DEPTree(tree);
+					for (AbstractComponent component : components) component.process(copy);
+				}
+			}
+			
+			long time = System.currentTimeMillis() - st;
+			System.out.printf("POS+DEP+SRL: %d ms, %d tokens/sec.\n", time, Math.round(500d * tokens * 1000 / time));
+		}
+	}
+	
+	private long benchmark(TSVReader reader, AbstractComponent component)
+	{
+		final int iterations = 200;
+		long st = System.currentTimeMillis();
+		for (int i=0; i<iterations; i++) process(reader, component);
+		return System.currentTimeMillis() - st;
+	}
+	
+	@Test
+	public void testFreeze() throws Exception
+	{
+		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		AbstractPOSTagger tagger = new DefaultPOSTagger(new POSConfiguration(IOUtils.createFileInputStream(CONFIGURATION)));
+		
+		try
+		{
+			tagger.freeze();
+			fail();
+		}
+		catch (IllegalStateException e) {}
+		
+		tagger = trainPOSTagger((TSVReader)config.getReader());
+		tagger.setModels(tagger.getModels());
+		tagger.freeze();
+		assertTrue(tagger.isFrozen());
+		
+		try
+		{
+			tagger.setModels(tagger.getModels());
+			fail();
+		}
+		catch (IllegalStateException e) {}
+	}
+	
+	static AbstractPOSTagger trainPOSTagger(TSVReader reader) throws Exception
+	{
+		POSConfiguration config = new POSConfiguration(IOUtils.createFileInputStream(CONFIGURATION));
+		AbstractPOSTagger tagger = new DefaultPOSTagger(config);
+		process(reader, tagger);
+		
+		POSFeatureExtractor[] extractors = {new POSFeatureExtractor(IOUtils.createFileInputStream(FEATURE_POS))};
+		tagger = new DefaultPOSTagger(extractors, tagger.getLexicons());
+		process(reader, tagger);
+		new AdaGradSVM(tagger.getModel(0), 0, 0, false, 0.01, 0.1, 0).train();
+		return new DefaultPOSTagger(tagger.toByteArray());
+	}
+	
+	static AbstractDEPParser trainDEPParser(TSVReader reader, DEPConfiguration config) throws Exception
+	{
+		DEPFeatureExtractor[] extractors = {new DEPFeatureExtractor(IOUtils.createFileInputStream(FEATURE_DEP))};
+		AbstractDEPParser parser = new DefaultDEPParser(config, extractors, null);
+		process(reader, parser);
+		new AdaGradSVM(parser.getModel(0), 0, 0, false, 0.01, 0.1, 0).train();
+		return new DefaultDEPParser(config, parser.toByteArray());
+	}
+	
+	static AbstractSRLabeler trainSRLabeler(TSVReader reader) throws Exception
+	{
+		SRLConfiguration config = new SRLConfiguration(5, 2);
+		SRLFeatureExtractor[] extractors = {new SRLFeatureExtractor(IOUtils.createFileInputStream(FEATURE_SRL))};
+		AbstractSRLabeler labeler = new EnglishSRLabeler(config, extractors, null);
+		process(reader, labeler);
+		
+		for (StringModel model : labeler.getModels())
+			new AdaGradSVM(model, 0, 0, false, 0.01, 0.1, 0).train();
+		
+		return new EnglishSRLabeler(config, labeler.toByteArray());
+	}
+	
+	static void process(TSVReader reader, AbstractComponent component)
+	{
+		reader.open(IOUtils.createFileInputStream(DATA));
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			component.process(tree);
+		
+		reader.close();
+	}
+	
+	static List<DEPTree> read(TSVReader reader)
+	{
+		List<DEPTree> trees = new ArrayList<>();
+		reader.open(IOUtils.createFileInputStream(DATA));
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+			trees.add(tree);
+		
+		reader.close();
+		return trees;
+	}
+	
+	static List<String> decode(TSVReader reader, AbstractComponent[] components)
+	{
+		List<String> trees = new ArrayList<>();
+		reader.open(IOUtils.createFileInputStream(DATA));
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null)
+		{
+			for (AbstractComponent component : components)
+				component.process(tree);
+			
+			trees.add(tree.toString(DEPNode::toStringDEP));
+		}
+		
+		reader.close();
+		return trees;
+	}
+}
@@ -36,6 +36,7 @@ public class DEPConfigurationTest
 		DEPConfiguration config = new DEPConfiguration(IOUtils.createFileInputStream(filename));
 		
 		assertEquals(config.getBeamSize(), 32);
+		assertEquals(config.getDecodeBeamSize(), 1);
 		assertEquals(config.getRootLabel(), "root");
 		assertTrue(config.evaluatePunctuation());
 	}
@@ -16,13 +16,25 @@
 package edu.emory.clir.clearnlp.dependency;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 import org.junit.Test;
 
 import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.CachedTSVReader;
+import edu.emory.clir.clearnlp.reader.MappedTSVReader;
 import edu.emory.clir.clearnlp.reader.TSVReader;
 
 
@@ -74,4 +86,152 @@ public class DEPReaderTest
 		
 		assertEquals(str, tree.toString(DEPNode::toStringSRL));
 	}
+	
+	@Test
+	public void testMapped() throws Exception
+	{
+		final String filename = "src/test/resources/dependency/dependency.cnlp";
+		TSVReader reader = new TSVReader(0, 1, 2, 3, 4, 5, 6, 7);
+		List<String> expected = new ArrayList<>();
+		DEPTree tree;
+		
+		reader.open(new FileInputStream(filename));
+		while ((tree = reader.next()) != null) expected.add(tree.toString(DEPNode::toStringSRL));
+		reader.close();
+		
+		MappedTSVReader mapped = new MappedTSVReader(reader);
+		List<String> actual = new ArrayList<>();
+		
+		mapped.open(new FileInputStream(filename));
+		while ((tree = mapped.next()) != null) actual.add(tree.toString(DEPNode::toStringSRL));
+		mapped.close();
+		assertEquals(expected, actual);
+		
+		for (int size=1; size<=expected.size()+1; size++)
+		{
+			long[] offsets = MappedTSVReader.split(filename, size);
+			actual.clear();
+			
+			for (int i=1; i<offsets.length; i++)
+			{
+				mapped.open(filename, offsets[i-1], offsets[i]);
+				while ((tree = mapped.next()) != null) actual.add(tree.toString(DEPNode::toStringSRL));
+				mapped.close();
+			}
+			
+			assertEquals(expected, actual);
+		}
+		
+		// trees longer than the window that finds the boundaries of trees
+		File file = File.createTempFile("mapped", ".cnlp");
+		file.deleteOnExit();
+		List<String> lines = new ArrayList<>();
+		char[] form = new char[150000];
+		Arrays.fill(form, 'x');
+		
+		for (int i=0; i<5; i++)
+		{
+			for (String line : Files.readAllLines(Paths.get(filename)))
+				lines.add(line.isEmpty() ? line : line.replaceFirst("\t[^\t]*", "\t"+(lines.size() % 7 == 0 ? new String(form) : "f")));
+			
+			lines.add("");
+		}
+		
+		Files.write(file.toPath(), lines);
+		expected = readAll(reader, file);
+		
+		for (int size : new int[]{2, 7, 50})
+		{
+			long[] offsets = MappedTSVReader.split(file.getPath(), size);
+			actual.clear();
+			
+			for (int i=1; i<offsets.length; i++)
+			{
+				mapped.open(file.getPath(), offsets[i-1], offsets[i]);
+				actual.addAll(readAll(mapped));
+			}
+			
+			assertEquals(expected, actual);
+		}
+	}
+	
+	@Test
+	public void testCached() throws Exception
+	{
+		File dir = Files.createTempDirectory("cache").toFile();
+		File source = new File(dir, "dependency.cnlp");
+		Files.copy(new File("src/test/resources/dependency/dependency.cnlp").toPath(), source.toPath());
+		
+		TSVReader reader = new TSVReader(0, 1, 2, 3, 4, 5, 6, 7);
+		CachedTSVReader cached = new CachedTSVReader(reader, dir.getPath());
+		List<String> expected = readAll(reader, source);
+		
+		cached.open(source.getPath());
+		assertTrue(cached.getCacheFile(source).isFile());
+		assertEquals(expected, readAll(cached));
+		
+		// read from the existing cache
+		cached = new CachedTSVReader(reader, dir.getPath());
+		cached.open(source.getPath());
+		assertEquals(expected, readAll(cached));
+		
+		// read ranges of trees
+		List<String> actual = new ArrayList<>();
+		int i, size = cached.getTreeSize();
+		
+		for (i=0; i<size; i+=2)
+		{
+			CachedTSVReader range = new CachedTSVReader(cached);
+			range.open(i, Math.min(i+2, size));
+			actual.addAll(readAll(range));
+		}
+		
+		assertEquals(expected, actual);
+		
+		// keep the cache of a touched source with the same content
+		File cache = cached.getCacheFile(source);
+		Object key = getFileKey(cache);
+		source.setLastModified(source.lastModified() + 10000);
+		cached.open(source.getPath());
+		assertEquals(expected, readAll(cached));
+		assertEquals(key, getFileKey(cache));
+		
+		// rebuild the cache of a source with the same length but different content
+		byte[] bytes = Files.readAllBytes(source.toPath());
+		i = new String(bytes, StandardCharsets.UTF_8).indexOf("NN");
+		bytes[i+1] = 'P';
+		Files.write(source.toPath(), bytes);
+		source.setLastModified(source.lastModified() + 20000);
+		expected = readAll(reader, source);
+		cached.open(source.getPath());
+		assertEquals(expected, readAll(cached));
+		
+		// rebuild the stale cache
+		Files.copy(new File("src/test/resources/dependency/dependency.cnlp").toPath(), source.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		Files.write(source.toPath(), Files.readAllLines(source.toPath()).subList(0, 10));
+		expected = readAll(reader, source);
+		cached.open(source.getPath());
+		assertEquals(expected, readAll(cached));
+	}
+	
+	private Object getFileKey(File file) throws Exception
+	{
+		return Files.readAttributes(file.toPath(), BasicFileAttributes.class).fileKey();
+	}
+	
+	private List<String> readAll(TSVReader reader, File file) throws Exception
+	{
+		reader.open(new FileInputStream(file));
+		return readAll(reader);
+	}
+	
+	private List<String> readAll(TSVReader reader)
+	{
+		List<String> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null) trees.add(tree.toString(DEPNode::toStringSRL));
+		reader.close();
+		return trees;
+	}
 }
\ No newline at end of file
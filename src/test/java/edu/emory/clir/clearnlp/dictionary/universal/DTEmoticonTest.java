@@ -47,5 +47,9 @@ public class DTEmoticonTest
 		
 		s = ":-)..";
 		assertEquals("[0, 3]", Arrays.toString(dt.getEmoticonRange(s)));
+		
+		s = "Hi :-).. there";
+		assertEquals("[3, 6]", Arrays.toString(dt.getEmoticonRange(s, 3, 8)));
+		assertTrue(dt.getEmoticonRange(s, 9, 14) == null);
 	}
 }
@@ -0,0 +1,84 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.feature.common;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.util.StringUtils;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class TokenFeatureCacheTest
+{
+	@Test
+	public void test()
+	{
+		String[] forms = {"McDonald's", "BOUGHT", "3.5-inch", "i", "U.S.", "http://www.clearnlp.com", "!?", "1990s"};
+		List<String> list = new ArrayList<>();
+		for (String form : forms) list.add(form);
+		DEPTree tree = new DEPTree(list);
+		TokenFeatureCache cache = tree.getTokenCache();
+		assertSame(cache, tree.getTokenCache());
+		int i, n;
+		
+		for (i=0; i<2; i++)
+		{
+			for (DEPNode node : tree)
+			{
+				assertEquals(node.getLowerSimplifiedWordForm(), cache.getLowerSimplifiedWordForm(node));
+				assertEquals(node.getWordShape(2), cache.getWordShape(node, 2));
+				assertEquals(node.getWordShape(1), cache.getWordShape(node, 1));
+				
+				for (n=1; n<5; n++)
+				{
+					assertEquals(StringUtils.getPrefix(node.getSimplifiedWordForm(), n), cache.getPrefix(node, n));
+					assertEquals(StringUtils.getSuffix(node.getSimplifiedWordForm(), n), cache.getSuffix(node, n));
+				}
+			}
+		}
+		
+		DEPNode node = tree.get(1);
+		String lower = cache.getLowerSimplifiedWordForm(node);
+		assertSame(lower, cache.getLowerSimplifiedWordForm(node));
+		assertArrayEquals(new String[]{OrthographicType.FST_UPPER, OrthographicType.UPPER_1, OrthographicType.HAS_OTHER_PUNCT}, cache.getOrthographicFeatures(node, false));
+		assertArrayEquals(new String[]{OrthographicType.UPPER_1, OrthographicType.HAS_OTHER_PUNCT}, cache.getOrthographicFeatures(node, true));
+		assertArrayEquals(new String[]{OrthographicType.ALL_UPPER}, cache.getOrthographicFeatures(tree.get(2), false));
+		assertArrayEquals(new String[]{OrthographicType.HAS_DIGIT, OrthographicType.HAS_PERIOD, OrthographicType.HAS_HYPHEN}, cache.getOrthographicFeatures(tree.get(3), false));
+		assertArrayEquals(new String[]{OrthographicType.HYPERLINK}, cache.getOrthographicFeatures(tree.get(6), false));
+		assertArrayEquals(new String[]{OrthographicType.ALL_PUNCT}, cache.getOrthographicFeatures(tree.get(7), false));
+		assertNull(cache.getDistributionalSemanticFeatures(-1, node, true));
+		
+		node.setWordForm("Wendy's");
+		assertEquals("wendy's", cache.getLowerSimplifiedWordForm(node));
+		assertEquals("'s", cache.getSuffix(node, 2));
+		assertArrayEquals(new String[]{OrthographicType.FST_UPPER, OrthographicType.HAS_OTHER_PUNCT}, cache.getOrthographicFeatures(node, false));
+		
+		tree.add(new DEPNode(tree.size(), "Extra"));
+		assertEquals("ex", cache.getPrefix(tree.get(tree.size()-1), 2));
+	}
+}
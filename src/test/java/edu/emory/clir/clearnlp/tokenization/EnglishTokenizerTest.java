@@ -17,8 +17,18 @@ package edu.emory.clir.clearnlp.tokenization;
 
 import static org.junit.Assert.assertEquals;
 
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
 import org.junit.Test;
 
+import edu.emory.clir.clearnlp.util.Joiner;
+import edu.emory.clir.clearnlp.util.constant.StringConst;
+
 /**
  * @since 3.0.0
  * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
@@ -156,4 +166,82 @@ public class EnglishTokenizerTest
 		r = "[1., Buy, a, new, Chevrolet, (, 37, %, -, owned, in, the, U.S., ), ., 15, %]";
 		assertEquals(r, t.tokenize(s).toString());
 	}
+	
+	@Test
+	public void testSegmentize()
+	{
+		AbstractTokenizer t = new EnglishTokenizer();
+		String s = "He said \"Stop.\" Then he left. (This is it.)\nReally? \"Yes!\" she said";
+		List<String> sentences = new ArrayList<>();
+		
+		for (List<String> tokens : t.segmentize(new ByteArrayInputStream(s.getBytes(StandardCharsets.UTF_8))))
+			sentences.add(Joiner.join(tokens, StringConst.SPACE));
+		
+		assertEquals("[He said \" Stop . \", Then he left ., ( This is it . ), Really ?, \" Yes ! \", she said]", sentences.toString());
+	}
+	
+	@Test
+	public void testSegmentizeTokens()
+	{
+		AbstractTokenizer t = new EnglishTokenizer();
+		String[] lines = {"He said \"Stop.", "\" Then (he left.", ") Really? \"Yes!\"", "", "she said"};
+		List<List<String>> tokens = new ArrayList<>();
+		
+		for (String line : lines)
+			tokens.add(t.tokenize(line));
+		
+		List<List<String>> expected = t.segmentize(new ByteArrayInputStream(Joiner.join(lines, StringConst.NEW_LINE).getBytes(StandardCharsets.UTF_8)));
+		List<List<String>> sentences = new ArrayList<>();
+		t.segmentizeTokens(tokens.iterator()).forEachRemaining(sentences::add);
+		assertEquals(expected, sentences);
+	}
+	
+	@Test
+	public void testSegmentizeIterator()
+	{
+		AbstractTokenizer t = new EnglishTokenizer();
+		byte[] line = "This is a sentence. (So is this.)\n".getBytes(StandardCharsets.UTF_8);
+		
+		// the stream never ends, so sentences must be returned before it is fully read
+		InputStream in = new InputStream()
+		{
+			int i = 0;
+			
+			@Override
+			public int read()
+			{
+				return line[i++ % line.length];
+			}
+		};
+		
+		Iterator<List<String>> it = t.segmentizeIterator(in);
+		
+		for (int i=0; i<1000; i++)
+		{
+			assertEquals("[This, is, a, sentence, .]", it.next().toString());
+			assertEquals("[(, So, is, this, ., )]", it.next().toString());
+		}
+	}
+	
+	@Test
+	public void testTokenizeSpans()
+	{
+		AbstractTokenizer t = new EnglishTokenizer();
+		String s = "I can't pay $100 for no. 5 ( a ) at http://clearnlp.com :)";
+		List<TokenSpan> spans = t.tokenizeSpans(s);
+		List<String> texts = new ArrayList<>();
+		
+		for (TokenSpan span : spans)
+		{
+			texts.add(span.getText());
+			if (!span.isMerged()) assertEquals(span.getText(), s.substring(span.getBeginIndex(), span.getEndIndex()));
+		}
+		
+		assertEquals(t.tokenize(s), texts);
+		assertEquals("[I, ca, n't, pay, $, 100, for, no, ., 5, (a), at, http://clearnlp.com, :)]", texts.toString());
+		
+		TokenSpan span = spans.get(10);
+		assertEquals(true, span.isMerged());
+		assertEquals("( a )", s.substring(span.getBeginIndex(), span.getEndIndex()));
+	}
 }
@@ -15,6 +15,7 @@
  */
 package edu.emory.clir.clearnlp.util;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
@@ -107,5 +108,23 @@ public class DSUtilsTest
 		p = ps.o2;
 		assertEquals(p.i, 2);
 		assertEquals(p.d, 2, 0);
+		
+		int[] top = new int[2];
+		DSUtils.top2(array, null, top);
+		assertArrayEquals(new int[]{4,0}, top);
+		
+		DSUtils.top2(array, new int[]{1,2,4}, top);
+		assertArrayEquals(new int[]{4,2}, top);
+		
+		top = new int[3];
+		assertEquals(3, DSUtils.topK(array, null, top));
+		assertArrayEquals(new int[]{4,0,2}, top);
+		
+		assertEquals(2, DSUtils.topK(array, new int[]{1,4}, top));
+		assertArrayEquals(new int[]{4,1}, Arrays.copyOf(top, 2));
+		
+		top = new int[1];
+		assertEquals(1, DSUtils.topK(array, new int[]{1,2,0}, top));
+		assertArrayEquals(new int[]{0}, top);
 	}
 }
\ No newline at end of file
@@ -15,9 +15,16 @@
  */
 package edu.emory.clir.clearnlp.util;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Arrays;
+import java.util.Random;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.junit.Ignore;
 import org.junit.Test;
 
 import edu.emory.clir.clearnlp.util.MetaUtils;
@@ -96,4 +103,84 @@ public class MetaUtilsTest
 		s = "html";
 		assertFalse(MetaUtils.endsWithFileExtension(s));
 	}
+	
+	@Test
+	public void testRanges()
+	{
+		final String alphabet = "abcXY019_.:/@-!|;#%()[]{}<>";
+		Random rand = new Random(0);
+		int i, j, len, beginIndex, endIndex;
+		StringBuilder build;
+		String s;
+		
+		for (i=0; i<100000; i++)
+		{
+			build = new StringBuilder();
+			len = 1 + rand.nextInt(20);
+			
+			for (j=0; j<len; j++)
+				build.append(alphabet.charAt(rand.nextInt(alphabet.length())));
+			
+			s = build.toString();
+			beginIndex = rand.nextInt(len);
+			endIndex   = beginIndex + 1 + rand.nextInt(len - beginIndex);
+			
+			assertEquals(s, find(MetaUtils.EMOTICON, s, beginIndex, endIndex), Arrays.toString(MetaUtils.getEmoticonRange(s, beginIndex, endIndex)));
+			assertEquals(s, find(MetaUtils.HYPERLINK, s, beginIndex, endIndex), Arrays.toString(MetaUtils.getHyperlinkRange(s, beginIndex, endIndex)));
+		}
+	}
+	
+	private String find(Pattern pattern, String s, int beginIndex, int endIndex)
+	{
+		Matcher m = pattern.matcher(s.substring(beginIndex, endIndex));
+		return Arrays.toString(m.find() ? new int[]{beginIndex+m.start(), beginIndex+m.end()} : null);
+	}
+	
+	@Test
+	@Ignore
+	public void benchmarkRanges()
+	{
+		String[] newswire = {"The","company","said","on","Tuesday","that","its","profits","rose","12.5%","to","$1.2","billion,","beating","analysts'","estimates.","Mr.","Smith","U.S.","(AP)","--","\"We're","pleased,\"","e.g.","said."};
+		String[] tweet = {"lol",":)",":-(","@jinho","#nlp","check","http://t.co/a1B2c3","out!!!","www.clearnlp.com","omg","<3","can't","wait...",";)","so","good","RT","via","bit.ly/xyz"};
+		
+		benchmarkRanges("Newswire", newswire);
+		benchmarkRanges("Tweet"   , tweet);
+	}
+	
+	private void benchmarkRanges(String corpus, String[] tokens)
+	{
+		Random rand = new Random(0);
+		String[] corpora = new String[1000000];
+		long st, et, regex = Long.MAX_VALUE, scan = Long.MAX_VALUE;
+		int i, r, count = 0;
+		
+		for (i=0; i<corpora.length; i++)
+			corpora[i] = tokens[rand.nextInt(tokens.length)];
+		
+		for (r=0; r<5; r++)
+		{
+			st = System.currentTimeMillis();
+			
+			for (String s : corpora)
+			{
+				if (MetaUtils.EMOTICON.matcher(s).find()) count++;
+				if (MetaUtils.HYPERLINK.matcher(s).find()) count++;
+			}
+			
+			et = System.currentTimeMillis();
+			regex = Math.min(regex, et - st);
+			st = System.currentTimeMillis();
+			
+			for (String s : corpora)
+			{
+				if (MetaUtils.getEmoticonRange(s, 0, s.length()) != null) count++;
+				if (MetaUtils.getHyperlinkRange(s, 0, s.length()) != null) count++;
+			}
+			
+			et = System.currentTimeMillis();
+			scan = Math.min(scan, et - st);
+		}
+		
+		System.out.printf("%8s: regex = %5d ms, scan = %5d ms (%d)\n", corpus, regex, scan, count);
+	}
 }
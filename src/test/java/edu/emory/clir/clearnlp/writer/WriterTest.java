@@ -0,0 +1,171 @@
+/**
+ * Copyright 2014, Emory University
+ * 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package edu.emory.clir.clearnlp.writer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import edu.emory.clir.clearnlp.component.utils.NLPMode;
+import edu.emory.clir.clearnlp.dependency.DEPNode;
+import edu.emory.clir.clearnlp.dependency.DEPTree;
+import edu.emory.clir.clearnlp.reader.TSVReader;
+import edu.emory.clir.clearnlp.util.io.AsyncOutputStream;
+
+/**
+ * @since 3.2.1
+ * @author Jinho D. Choi ({@code jinho.choi@emory.edu})
+ */
+public class WriterTest
+{
+	@Test
+	public void testTSV() throws Exception
+	{
+		List<DEPTree> trees = getTrees();
+		
+		testTSV(trees, NLPMode.pos  , DEPNode::toStringPOS);
+		testTSV(trees, NLPMode.morph, DEPNode::toStringMorph);
+		testTSV(trees, NLPMode.dep  , DEPNode::toStringDEP);
+		testTSV(trees, NLPMode.srl  , DEPNode::toStringSRL);
+		testTSV(trees, NLPMode.ner  , DEPNode::toString);
+	}
+	
+	private void testTSV(List<DEPTree> trees, NLPMode mode, Function<DEPNode,String> f) throws Exception
+	{
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AbstractWriter writer = new TSVWriter(out, mode);
+		StringBuilder build = new StringBuilder();
+		
+		for (DEPTree tree : trees)
+		{
+			writer.write(tree);
+			build.append(tree.toString(f));
+			build.append("\n\n");
+		}
+		
+		writer.close();
+		assertEquals(build.toString(), out.toString("UTF-8"));
+	}
+	
+	@Test
+	public void testJSON() throws Exception
+	{
+		List<DEPTree> trees = getTrees();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		AbstractWriter writer = new JSONWriter(out);
+		
+		for (DEPTree tree : trees) writer.write(tree);
+		writer.close();
+		
+		String[] lines = out.toString("UTF-8").split("\n");
+		assertEquals(trees.size(), lines.length);
+		
+		JsonArray  nodes = new JsonParser().parse(lines[0]).getAsJsonArray();
+		JsonObject node  = nodes.get(2).getAsJsonObject();
+		
+		assertEquals(trees.get(0).size()-1, nodes.size());
+		assertEquals(3       , node.get("id").getAsInt());
+		assertEquals("bought", node.get("form").getAsString());
+		assertEquals("buy.01", node.getAsJsonObject("feats").get("pb").getAsString());
+		assertEquals("root"  , node.get("deprel").getAsString());
+		assertEquals("A0"    , nodes.get(0).getAsJsonObject().getAsJsonArray("sheads").get(0).getAsJsonObject().get("label").getAsString());
+	}
+	
+	@Test
+	public void testAsync() throws Exception
+	{
+		List<DEPTree> trees = getTrees();
+		ByteArrayOutputStream expected = new ByteArrayOutputStream();
+		ByteArrayOutputStream actual   = new ByteArrayOutputStream();
+		AbstractWriter writer = new TSVWriter(expected, NLPMode.srl);
+		int i;
+		
+		for (i=0; i<100; i++)
+			for (DEPTree tree : trees) writer.write(tree);
+		
+		writer.close();
+		writer = new TSVWriter(new AsyncOutputStream(new GZIPOutputStream(actual), 1024, 2), NLPMode.srl);
+		
+		for (i=0; i<100; i++)
+			for (DEPTree tree : trees) writer.write(tree);
+		
+		writer.close();
+		InputStreamReader in = new InputStreamReader(new GZIPInputStream(new ByteArrayInputStream(actual.toByteArray())), StandardCharsets.UTF_8);
+		StringBuilder build = new StringBuilder();
+		char[] buffer = new char[4096];
+		int len;
+		
+		while ((len = in.read(buffer)) > 0) build.append(buffer, 0, len);
+		assertEquals(expected.toString("UTF-8"), build.toString());
+	}
+	
+	@Test
+	public void testError() throws Exception
+	{
+		List<DEPTree> trees = getTrees();
+		OutputStream out = new OutputStream()
+		{
+			@Override
+			public void write(int b) throws IOException
+			{
+				throw new IOException("No space left on device");
+			}
+		};
+		
+		AbstractWriter writer = new TSVWriter(new AsyncOutputStream(out, 1024, 2), NLPMode.srl);
+		
+		try
+		{
+			for (int i=0; i<100; i++)
+				for (DEPTree tree : trees) writer.write(tree);
+			
+			writer.close();
+			fail();
+		}
+		catch (UncheckedIOException e) {assertEquals("No space left on device", e.getCause().getMessage());}
+	}
+	
+	private List<DEPTree> getTrees() throws Exception
+	{
+		TSVReader reader = new TSVReader(0, 1, 2, 3, 4, 5, 6, 7);
+		reader.open(new FileInputStream("src/test/resources/dependency/dependency.cnlp"));
+		List<DEPTree> trees = new ArrayList<>();
+		DEPTree tree;
+		
+		while ((tree = reader.next()) != null) trees.add(tree);
+		reader.close();
+		return trees;
+	}
+}